@@ -0,0 +1,226 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker;
+
+import com.sun.management.OperatingSystemMXBean;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.JobCost;
+import ee.taltech.testify.service.worker.JobLeaseService;
+import ee.taltech.testify.service.worker.RunResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claims queued jobs while it has free slots and runs them on a pool of {@code capacity} threads.
+ * <p>
+ * Jobs are packed by their predicted cost: the worker only claims jobs that fit into the CPU and memory its running
+ * jobs leave free, so that a few heavy runs do not oversubscribe the host while slots remain.
+ * <p>
+ * Heartbeats keep the leases of the running jobs alive and report the worker's load; a job the heartbeat reports as
+ * no longer held, e.g. because it was cancelled, is interrupted. On shutdown the worker stops claiming, lets the
+ * running jobs finish within the grace period and hands the rest back to the queue, so that no job waits for a lease
+ * to run out.
+ */
+@Slf4j
+@Component
+public class AutotestJobExecutor implements SmartLifecycle {
+    private final JobLeaseService jobLeaseService;
+    private final AutotestRunner autotestRunner;
+    private final WorkerProperties properties;
+    private final String workerId;
+    private final JobCost resources;
+
+    private final Map<Integer, Future<?>> running = new ConcurrentHashMap<>();
+    private final Map<Integer, JobCost> reserved = new ConcurrentHashMap<>();
+    private ExecutorService jobs;
+    private ScheduledExecutorService timers;
+    private volatile boolean started;
+    private volatile boolean draining;
+
+    public AutotestJobExecutor(JobLeaseService jobLeaseService, AutotestRunner autotestRunner,
+                               WorkerProperties properties) {
+        this.jobLeaseService = jobLeaseService;
+        this.autotestRunner = autotestRunner;
+        this.properties = properties;
+        this.workerId = properties.getId() != null ? properties.getId()
+                : hostName() + "-" + ProcessHandle.current().pid();
+        this.resources = resources(properties);
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * @return the IDs of the jobs being run
+     */
+    public Set<Integer> getRunningJobIds() {
+        return Set.copyOf(running.keySet());
+    }
+
+    @Override
+    public synchronized void start() {
+        jobLeaseService.register(workerId, hostName(), properties.getCapacity(), resources);
+        draining = false;
+        jobs = Executors.newFixedThreadPool(properties.getCapacity());
+        timers = Executors.newScheduledThreadPool(1);
+        timers.scheduleWithFixedDelay(() -> guard(this::poll), 0, properties.getPollInterval().toMillis(),
+                TimeUnit.MILLISECONDS);
+        timers.scheduleWithFixedDelay(() -> guard(this::heartbeat), properties.getHeartbeatInterval().toMillis(),
+                properties.getHeartbeatInterval().toMillis(), TimeUnit.MILLISECONDS);
+        started = true;
+        log.info("Autotest worker {} started with capacity {}", workerId, properties.getCapacity());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!started) {
+            return;
+        }
+        draining = true;
+        guard(() -> jobLeaseService.drain(workerId));
+        jobs.shutdown();
+        try {
+            if (!jobs.awaitTermination(properties.getShutdownGracePeriod().toMillis(), TimeUnit.MILLISECONDS)) {
+                jobs.shutdownNow();
+                jobs.awaitTermination(properties.getShutdownGracePeriod().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            jobs.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        timers.shutdownNow();
+
+        Set<Integer> unfinished = getRunningJobIds();
+        guard(() -> {
+            int released = jobLeaseService.release(workerId, unfinished);
+            jobLeaseService.unregister(workerId);
+            log.info("Autotest worker {} stopped, handed back {} jobs", workerId, released);
+        });
+        running.clear();
+        reserved.clear();
+        started = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return started;
+    }
+
+    /**
+     * Claims as many jobs as there are free slots and fit into the free resources.
+     */
+    void poll() {
+        int slots = properties.getCapacity() - running.size();
+        if (draining || slots <= 0) {
+            return;
+        }
+        JobCost available = reserved.values().stream().reduce(resources, JobCost::minus);
+        List<ClaimedJob> claimed = jobLeaseService.claim(workerId, slots, available, running.isEmpty(),
+                properties.getLease());
+        for (ClaimedJob job : claimed) {
+            FutureTask<Void> task = new FutureTask<>(() -> runJob(job), null);
+            reserved.put(job.jobId(), job.cost());
+            running.put(job.jobId(), task);
+            jobs.execute(task);
+        }
+    }
+
+    /**
+     * Extends the leases of the running jobs and stops those the worker no longer holds.
+     */
+    void heartbeat() {
+        Set<Integer> lost = jobLeaseService.heartbeat(workerId, getRunningJobIds(), properties.getLease());
+        for (Integer jobId : lost) {
+            Future<?> task = running.remove(jobId);
+            reserved.remove(jobId);
+            if (task != null) {
+                log.info("Autotest job {} is no longer held by worker {}, stopping it", jobId, workerId);
+                task.cancel(true);
+            }
+        }
+    }
+
+    private void runJob(ClaimedJob job) {
+        RunResult result;
+        try {
+            result = autotestRunner.run(job);
+        } catch (InterruptedException e) {
+            return;
+        } catch (Exception e) {
+            log.error("Autotest job {} could not be run", job.jobId(), e);
+            result = new RunResult(AutotestJobStatus.FAILED, null, null);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        try {
+            if (!jobLeaseService.finish(workerId, job.jobId(), result)) {
+                log.info("Autotest job {} was no longer held by worker {}, result dropped", job.jobId(), workerId);
+            }
+        } finally {
+            running.remove(job.jobId());
+            reserved.remove(job.jobId());
+        }
+    }
+
+    private void guard(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.error("Autotest worker {} failed to reach the database", workerId, e);
+        }
+    }
+
+    /**
+     * @return the configured CPUs and memory, or all of the host's CPUs and three quarters of its memory
+     */
+    private static JobCost resources(WorkerProperties properties) {
+        double cpus = properties.getCpus() != null ? properties.getCpus()
+                : Runtime.getRuntime().availableProcessors();
+        long memoryBytes = properties.getMemory() != null ? properties.getMemory().toBytes()
+                : ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class).getTotalMemorySize() / 4 * 3;
+        return new JobCost((int) Math.round(cpus * 1000), memoryBytes);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker;
+
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.RunResult;
+
+/**
+ * Runs one autotest job to completion.
+ */
+public interface AutotestRunner {
+    /**
+     * Runs the job. Must stop promptly when the thread is interrupted, which happens when the job is cancelled or
+     * the worker shuts down.
+     *
+     * @param job the job to run
+     * @return the final status of the job and what it used
+     * @throws InterruptedException if the run was interrupted
+     * @throws Exception if the job could not be run, which fails it
+     */
+    RunResult run(ClaimedJob job) throws Exception;
+}
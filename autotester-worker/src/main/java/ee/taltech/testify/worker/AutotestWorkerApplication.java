@@ -0,0 +1,41 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Runs autotest jobs claimed from the shared database, next to any number of other workers and API nodes.
+ */
+@SpringBootApplication(scanBasePackages = {"ee.taltech.testify.worker", "ee.taltech.testify.service.worker"})
+@EntityScan("ee.taltech.testify.entity")
+@EnableJpaRepositories("ee.taltech.testify.repository")
+@EnableConfigurationProperties(WorkerProperties.class)
+public class AutotestWorkerApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(AutotestWorkerApplication.class, args);
+    }
+
+}
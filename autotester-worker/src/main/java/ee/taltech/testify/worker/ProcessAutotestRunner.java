@@ -0,0 +1,103 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker;
+
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.RunResult;
+import ee.taltech.testify.worker.cache.CacheLease;
+import ee.taltech.testify.worker.cache.DependencyCache;
+import ee.taltech.testify.worker.resource.ResourceMeter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Runs a job with the configured command, typically a script that pulls the autotester image and runs it against the
+ * student's repository. The job is passed in environment variables; the command's output goes to the worker's log.
+ * <p>
+ * When the dependency cache is on, the command also gets {@code TESTIFY_CACHE_LOWER}, {@code TESTIFY_CACHE_UPPER}
+ * and {@code TESTIFY_CACHE_WORK} to mount as an overlay. A cache that cannot be prepared does not fail the job; it
+ * runs without one. The resources the run uses are measured by the {@link ResourceMeter}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProcessAutotestRunner implements AutotestRunner {
+    private final WorkerProperties properties;
+    private final DependencyCache dependencyCache;
+    private final ResourceMeter resourceMeter;
+
+    @Override
+    public RunResult run(ClaimedJob job) throws IOException, InterruptedException {
+        if (properties.getCommand().isEmpty()) {
+            throw new IllegalStateException("testify.worker.command is not set");
+        }
+        try (CacheLease cache = acquireCache(job); ResourceMeter.Measurement measurement = resourceMeter.start(job)) {
+            ProcessBuilder builder = new ProcessBuilder(properties.getCommand()).inheritIO();
+            Map<String, String> environment = builder.environment();
+            environment.put("TESTIFY_JOB_ID", String.valueOf(job.jobId()));
+            environment.put("TESTIFY_STUDENT_ASSIGNMENT_ID", String.valueOf(job.studentAssignmentId()));
+            environment.put("TESTIFY_ATTEMPT", String.valueOf(job.attempt()));
+            putIfPresent(environment, "TESTIFY_COMMIT_SHA", job.commitSha());
+            putIfPresent(environment, "TESTIFY_DOCKER_IMAGE", job.dockerImageUrl());
+            putIfPresent(environment, "TESTIFY_STUDENT_REPOSITORY", job.studentRepositoryUrl());
+            putIfPresent(environment, "TESTIFY_TESTS_REPOSITORY", job.testsGitlabUrl());
+            putIfPresent(environment, "TESTIFY_STUDENT_CODE_PATH", job.studentCodePath());
+            putIfPresent(environment, "TESTIFY_TEST_CODE_PATH", job.testCodePath());
+            if (cache != null) {
+                environment.put("TESTIFY_CACHE_LOWER", cache.getLower().toString());
+                environment.put("TESTIFY_CACHE_UPPER", cache.getUpper().toString());
+                environment.put("TESTIFY_CACHE_WORK", cache.getWork().toString());
+            }
+            environment.putAll(measurement.environment());
+
+            Process process = builder.start();
+            try {
+                measurement.attach(process);
+                int exitCode = process.waitFor();
+                log.info("Autotest job {} exited with {}", job.jobId(), exitCode);
+                return new RunResult(exitCode == 0 ? AutotestJobStatus.SUCCEEDED : AutotestJobStatus.FAILED,
+                        cache != null ? cache.getUsage() : null, measurement.stop());
+            } finally {
+                process.descendants().forEach(ProcessHandle::destroy);
+                process.destroy();
+            }
+        }
+    }
+
+    private CacheLease acquireCache(ClaimedJob job) throws InterruptedException {
+        try {
+            return dependencyCache.acquire(job);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Autotest job {} runs without a dependency cache", job.jobId(), e);
+            return null;
+        }
+    }
+
+    private static void putIfPresent(Map<String, String> environment, String name, String value) {
+        if (value != null) {
+            environment.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the autotest worker, bound from {@code testify.worker.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "testify.worker")
+public class WorkerProperties {
+    /**
+     * Unique among the running workers; defaults to the host name followed by the process ID.
+     */
+    private String id;
+
+    /**
+     * The number of jobs run at once.
+     */
+    private int capacity = 2;
+
+    /**
+     * The CPUs jobs are packed into; defaults to all of the host's.
+     */
+    private Double cpus;
+
+    /**
+     * The memory jobs are packed into; defaults to three quarters of the host's.
+     */
+    private DataSize memory;
+
+    /**
+     * A cgroup v2 directory the worker may create child groups in, with the cpu, memory and io controllers enabled
+     * for them. Each run gets a group of its own to be measured by; without one, runs are measured from their
+     * process tree.
+     */
+    private String cgroupDirectory;
+
+    /**
+     * How long a claimed job stays with the worker without a heartbeat. Another worker takes the job over once the
+     * lease runs out, so it should span several heartbeats.
+     */
+    private Duration lease = Duration.ofSeconds(30);
+
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+    /**
+     * How often the worker looks for queued jobs while it has free slots.
+     */
+    private Duration pollInterval = Duration.ofSeconds(2);
+
+    /**
+     * How long running jobs may continue on shutdown before they are stopped and handed back to the queue.
+     */
+    private Duration shutdownGracePeriod = Duration.ofSeconds(20);
+
+    /**
+     * The command that runs one job, given the job in {@code TESTIFY_*} environment variables. Exiting with 0
+     * means the job succeeded.
+     */
+    private List<String> command = new ArrayList<>();
+
+    private Cache cache = new Cache();
+
+    /**
+     * Settings of the dependency caches, one per autotester, kept on the worker's local disk.
+     */
+    @Data
+    public static class Cache {
+        /**
+         * Where the test repositories and the caches are kept; caching is off when not set.
+         */
+        private String directory;
+
+        /**
+         * The command that fills an empty cache, e.g. by resolving the test project's dependencies in the
+         * autotester image with the cache mounted. It is given {@code TESTIFY_CACHE_DIR}, {@code TESTIFY_TESTS_DIR},
+         * {@code TESTIFY_TEST_CODE_PATH} and {@code TESTIFY_DOCKER_IMAGE}.
+         */
+        private List<String> warmCommand = new ArrayList<>();
+
+        /**
+         * How long a fetched test repository is trusted before it is fetched again.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(1);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker.cache;
+
+import ee.taltech.testify.service.worker.DependencyCacheUsage;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * A warm dependency cache held by one run, with the run's own copy-on-write layer over it.
+ * <p>
+ * The run mounts the cache as the lower directory of an overlay file system with the upper and work directories of
+ * the lease, so that whatever the run downloads or changes lands in its upper directory and is thrown away with it.
+ * Closing the lease deletes the layer and lets the cache be removed once it is outdated.
+ */
+@Getter
+public final class CacheLease implements AutoCloseable {
+    /**
+     * The shared cache, never written to.
+     */
+    private final Path lower;
+
+    /**
+     * The run's writable layer.
+     */
+    private final Path upper;
+
+    /**
+     * The overlay's work directory, on the same file system as the upper directory.
+     */
+    private final Path work;
+
+    private final DependencyCacheUsage usage;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final DependencyCache cache;
+
+    CacheLease(Path lower, Path upper, Path work, DependencyCacheUsage usage, DependencyCache cache) {
+        this.lower = lower;
+        this.upper = upper;
+        this.work = work;
+        this.usage = usage;
+        this.cache = cache;
+    }
+
+    @Override
+    public void close() {
+        cache.release(this);
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker.cache;
+
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.DependencyCacheUsage;
+import ee.taltech.testify.worker.WorkerProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Dependency caches kept on the worker's disk, one per autotester and version of its build files, so that runs do
+ * not download the Maven, Gradle or pip dependencies of the tests again in every fresh container.
+ * <p>
+ * The worker keeps a shallow clone of each autotester's test repository and hashes the build files of the test
+ * project in it. A cache is warmed once per hash by the configured warm command and never written to afterwards:
+ * every run gets a copy-on-write layer over it (see {@link CacheLease}). When the build files change, the new hash
+ * gets a new cache, and the old one is deleted as soon as no run holds it.
+ * <p>
+ * A worker assumes it is the only one using the directory.
+ */
+@Slf4j
+@Component
+public class DependencyCache {
+    private static final String WARM_MILLIS_SUFFIX = ".millis";
+    private static final String WARMING_PREFIX = ".warming-";
+
+    private final WorkerProperties.Cache properties;
+    private final Map<Integer, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> fetchedAt = new ConcurrentHashMap<>();
+
+    /**
+     * The number of runs holding each cache directory; guarded by {@code this}.
+     */
+    private final Map<Path, Integer> holders = new HashMap<>();
+
+    /**
+     * The latest hash of each autotester; guarded by {@code this}.
+     */
+    private final Map<Integer, String> currentHashes = new HashMap<>();
+
+    public DependencyCache(WorkerProperties properties) {
+        this.properties = properties.getCache();
+    }
+
+    public boolean isEnabled() {
+        return StringUtils.hasText(properties.getDirectory()) && !properties.getWarmCommand().isEmpty();
+    }
+
+    /**
+     * Makes sure the cache for the job's test project is warm and gives the job a layer of its own over it.
+     * Jobs of the same autotester wait for each other here, so that a cache is only warmed once.
+     *
+     * @param job the job about to run
+     * @return the lease, to be closed when the run is over, or null if caching is off or the job has no autotester
+     * with a test repository
+     * @throws IOException if the test repository could not be fetched or the cache could not be warmed
+     */
+    public CacheLease acquire(ClaimedJob job) throws IOException, InterruptedException {
+        if (!isEnabled() || job.autotesterId() == null || job.testsGitlabUrl() == null) {
+            return null;
+        }
+        int autotesterId = job.autotesterId();
+        ReentrantLock lock = locks.computeIfAbsent(autotesterId, id -> new ReentrantLock());
+        lock.lockInterruptibly();
+        try {
+            long start = System.nanoTime();
+            Path tests = fetchTests(autotesterId, job.testsGitlabUrl());
+            Path project = job.testCodePath() != null && Files.isDirectory(tests.resolve(job.testCodePath()))
+                    ? tests.resolve(job.testCodePath()) : tests;
+            String hash = DependencyFiles.hash(project, job.dockerImageUrl());
+
+            Path caches = root().resolve("caches").resolve(String.valueOf(autotesterId));
+            Path cache = caches.resolve(hash);
+            Path warmMillisFile = caches.resolve(hash + WARM_MILLIS_SUFFIX);
+            boolean hit = Files.exists(warmMillisFile);
+            long savedMillis = 0;
+            if (hit) {
+                savedMillis = Long.parseLong(Files.readString(warmMillisFile).trim());
+            } else {
+                long warmMillis = warm(job, project, caches, cache);
+                Files.writeString(warmMillisFile, Long.toString(warmMillis));
+                log.info("Dependency cache {} of autotester {} warmed in {} ms", hash, autotesterId, warmMillis);
+            }
+
+            Path overlay = root().resolve("overlays").resolve(job.jobId() + "-" + job.attempt());
+            deleteRecursively(overlay);
+            Path upper = Files.createDirectories(overlay.resolve("upper"));
+            Path work = Files.createDirectories(overlay.resolve("work"));
+            synchronized (this) {
+                holders.merge(cache, 1, Integer::sum);
+                currentHashes.put(autotesterId, hash);
+            }
+            if (!hit) {
+                prune(caches);
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            return new CacheLease(cache, upper, work, new DependencyCacheUsage(hash, hit, millis, savedMillis), this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the run's layer and the cache it held if that is outdated and no other run holds it.
+     */
+    void release(CacheLease lease) {
+        deleteRecursively(lease.getUpper().getParent());
+        synchronized (this) {
+            holders.computeIfPresent(lease.getLower(), (cache, count) -> count > 1 ? count - 1 : null);
+        }
+        prune(lease.getLower().getParent());
+    }
+
+    /**
+     * Clones the test repository, or fetches it if it was last fetched longer ago than the refresh interval.
+     *
+     * @return the working tree
+     */
+    private Path fetchTests(int autotesterId, String url) throws IOException, InterruptedException {
+        Path tests = root().resolve("tests").resolve(String.valueOf(autotesterId));
+        Long fetched = fetchedAt.get(autotesterId);
+        if (fetched != null && Files.isDirectory(tests.resolve(".git"))
+                && System.nanoTime() - fetched < properties.getRefreshInterval().toNanos()) {
+            return tests;
+        }
+        if (Files.isDirectory(tests.resolve(".git"))) {
+            Processes.run(List.of("git", "fetch", "--quiet", "--depth", "1", "origin", "HEAD"), tests, Map.of());
+            Processes.run(List.of("git", "reset", "--quiet", "--hard", "FETCH_HEAD"), tests, Map.of());
+        } else {
+            deleteRecursively(tests);
+            Files.createDirectories(tests.getParent());
+            Processes.run(List.of("git", "clone", "--quiet", "--depth", "1", url, tests.toString()), null, Map.of());
+        }
+        fetchedAt.put(autotesterId, System.nanoTime());
+        return tests;
+    }
+
+    /**
+     * Runs the warm command into a scratch directory and moves the result into place, so that a failed or
+     * interrupted warm-up never leaves a half-filled cache behind.
+     *
+     * @return the time the warm command took
+     */
+    private long warm(ClaimedJob job, Path project, Path caches, Path cache) throws IOException, InterruptedException {
+        Path scratch = caches.resolve(WARMING_PREFIX + UUID.randomUUID());
+        Files.createDirectories(scratch);
+        try {
+            Map<String, String> environment = new HashMap<>();
+            environment.put("TESTIFY_CACHE_DIR", scratch.toString());
+            environment.put("TESTIFY_TESTS_DIR", project.toString());
+            if (job.testCodePath() != null) {
+                environment.put("TESTIFY_TEST_CODE_PATH", job.testCodePath());
+            }
+            if (job.dockerImageUrl() != null) {
+                environment.put("TESTIFY_DOCKER_IMAGE", job.dockerImageUrl());
+            }
+            long start = System.nanoTime();
+            Processes.run(properties.getWarmCommand(), project, environment);
+            long warmMillis = (System.nanoTime() - start) / 1_000_000;
+            deleteRecursively(cache);
+            Files.move(scratch, cache, StandardCopyOption.ATOMIC_MOVE);
+            return warmMillis;
+        } finally {
+            deleteRecursively(scratch);
+        }
+    }
+
+    /**
+     * Deletes the caches of the autotester that are neither current nor held by a run.
+     */
+    private void prune(Path caches) {
+        int autotesterId = Integer.parseInt(caches.getFileName().toString());
+        List<Path> entries;
+        try (Stream<Path> list = Files.list(caches)) {
+            entries = list.filter(Files::isDirectory)
+                    .filter(entry -> !entry.getFileName().toString().startsWith(WARMING_PREFIX))
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Could not list dependency caches in {}", caches, e);
+            return;
+        }
+        for (Path entry : entries) {
+            synchronized (this) {
+                if (entry.getFileName().toString().equals(currentHashes.get(autotesterId))
+                        || holders.containsKey(entry)) {
+                    continue;
+                }
+            }
+            log.info("Deleting outdated dependency cache {}", entry);
+            deleteRecursively(caches.resolve(entry.getFileName() + WARM_MILLIS_SUFFIX));
+            deleteRecursively(entry);
+        }
+    }
+
+    private Path root() {
+        return Path.of(properties.getDirectory());
+    }
+
+    private static void deleteRecursively(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not delete {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The files of a test project that decide which dependencies it downloads.
+ */
+final class DependencyFiles {
+    private static final Set<String> NAMES = Set.of(
+            "pom.xml",
+            "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts", "gradle.properties",
+            "libs.versions.toml", "gradle-wrapper.properties",
+            "requirements.txt", "requirements-dev.txt", "pyproject.toml", "poetry.lock", "Pipfile", "Pipfile.lock",
+            "setup.py", "setup.cfg");
+
+    private static final int MAX_DEPTH = 6;
+
+    private DependencyFiles() {
+    }
+
+    /**
+     * Hashes the dependency files under the directory together with the image they are resolved in, so that the
+     * hash changes whenever the downloaded dependencies could.
+     *
+     * @param directory the test project, or the whole test repository
+     * @param dockerImage the autotester image, or null
+     * @return a hex string of 32 characters
+     */
+    static String hash(Path directory, String dockerImage) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(String.valueOf(dockerImage).getBytes(StandardCharsets.UTF_8));
+        byte[] buffer = new byte[8192];
+        for (Path file : find(directory)) {
+            digest.update((byte) 0);
+            digest.update(directory.relativize(file).toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            try (InputStream in = Files.newInputStream(file)) {
+                for (int read; (read = in.read(buffer)) > 0; ) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    /**
+     * @return the dependency files under the directory, outside {@code .git}, sorted by path
+     */
+    static List<Path> find(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory, MAX_DEPTH)) {
+            return files
+                    .filter(file -> NAMES.contains(file.getFileName().toString()))
+                    .filter(file -> !directory.relativize(file).startsWith(".git"))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
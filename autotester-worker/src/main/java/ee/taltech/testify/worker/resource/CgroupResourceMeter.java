@@ -0,0 +1,164 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker.resource;
+
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.ResourceUsage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures each run in a cgroup v2 group of its own: the run's command is moved into the group, and it is given the
+ * group in {@code TESTIFY_CGROUP} to start its containers in, e.g. with {@code docker run --cgroup-parent}. The
+ * kernel accounts for everything in the group, so the figures are exact: CPU time from {@code cpu.stat}, peak memory
+ * from {@code memory.peak} and I/O from {@code io.stat}.
+ * <p>
+ * The command is moved into the group right after it starts, so a process it forks in the first moments may escape;
+ * a script that starts its containers after some setup is measured in full.
+ */
+@Slf4j
+public class CgroupResourceMeter implements ResourceMeter {
+    private static final Path CGROUP_ROOT = Path.of("/sys/fs/cgroup");
+
+    private final Path parent;
+
+    public CgroupResourceMeter(Path parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public Measurement start(ClaimedJob job) throws IOException {
+        Path group = parent.resolve("job-" + job.jobId() + "-" + job.attempt());
+        Files.createDirectories(group);
+        return new CgroupMeasurement(group, System.nanoTime());
+    }
+
+    private record CgroupMeasurement(Path group, long start) implements Measurement {
+
+        @Override
+        public Map<String, String> environment() {
+            String name = group.startsWith(CGROUP_ROOT) ? "/" + CGROUP_ROOT.relativize(group) : group.toString();
+            return Map.of("TESTIFY_CGROUP", name);
+        }
+
+        @Override
+        public void attach(Process process) throws IOException {
+            Files.writeString(group.resolve("cgroup.procs"), Long.toString(process.pid()));
+        }
+
+        @Override
+        public ResourceUsage stop() {
+            long wallMillis = (System.nanoTime() - start) / 1_000_000;
+            Long cpuMicros = readKey(group.resolve("cpu.stat"), "usage_usec");
+            Long peakMemory = readValue(group.resolve("memory.peak"));
+            Long[] io = readIo(group.resolve("io.stat"));
+            return new ResourceUsage(wallMillis, cpuMicros != null ? cpuMicros / 1000 : null, peakMemory, io[0],
+                    io[1]);
+        }
+
+        /**
+         * Kills what is left of the run and removes the group.
+         */
+        @Override
+        public void close() {
+            try {
+                Path kill = group.resolve("cgroup.kill");
+                if (Files.exists(kill)) {
+                    Files.writeString(kill, "1");
+                }
+                Files.deleteIfExists(group);
+            } catch (IOException e) {
+                log.warn("Could not remove cgroup {}", group, e);
+            }
+        }
+    }
+
+    private static Long readValue(Path file) {
+        List<String> lines = readLines(file);
+        return lines.isEmpty() ? null : parse(lines.getFirst().trim());
+    }
+
+    /**
+     * @return the value of a {@code key value} line of a flat keyed file
+     */
+    private static Long readKey(Path file, String key) {
+        for (String line : readLines(file)) {
+            String[] fields = line.trim().split(" ");
+            if (fields.length == 2 && fields[0].equals(key)) {
+                return parse(fields[1]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sums the bytes read and written on all devices of a nested keyed file such as
+     * {@code 8:0 rbytes=1459200 wbytes=314773504 rios=192 wios=353 dbytes=0 dios=0}.
+     *
+     * @return the bytes read and written, or nulls if the file cannot be read
+     */
+    private static Long[] readIo(Path file) {
+        if (!Files.exists(file)) {
+            return new Long[]{null, null};
+        }
+        long read = 0;
+        long written = 0;
+        for (String line : readLines(file)) {
+            for (String field : line.trim().split(" ")) {
+                if (field.startsWith("rbytes=")) {
+                    read += parseOrZero(field.substring("rbytes=".length()));
+                } else if (field.startsWith("wbytes=")) {
+                    written += parseOrZero(field.substring("wbytes=".length()));
+                }
+            }
+        }
+        return new Long[]{read, written};
+    }
+
+    private static List<String> readLines(Path file) {
+        try {
+            return Files.readAllLines(file);
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException e) {
+            log.warn("Could not read {}", file, e);
+            return List.of();
+        }
+    }
+
+    private static Long parse(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long parseOrZero(String value) {
+        Long parsed = parse(value);
+        return parsed != null ? parsed : 0;
+    }
+}
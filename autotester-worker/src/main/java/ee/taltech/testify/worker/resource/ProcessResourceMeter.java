@@ -0,0 +1,167 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker.resource;
+
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.ResourceUsage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Estimates what a run used by sampling its process tree, for workers without a cgroup of their own.
+ * <p>
+ * CPU time comes from the processes' accounting and, on Linux, memory and I/O from {@code /proc}. Only what the
+ * command's own processes use is seen, not what containers started through a daemon use, and whatever a process
+ * used between the last sample and its exit is missed, so the figures are lower bounds. Measurements that cannot be
+ * taken on the platform are left null.
+ */
+public class ProcessResourceMeter implements ResourceMeter {
+    private static final Duration SAMPLE_INTERVAL = Duration.ofMillis(100);
+    private static final long PAGE_SIZE = 4096;
+
+    @Override
+    public Measurement start(ClaimedJob job) {
+        return new ProcessMeasurement(System.nanoTime());
+    }
+
+    private static final class ProcessMeasurement implements Measurement {
+        private final long start;
+
+        /**
+         * The last seen CPU time and I/O of each process; a process's figures only grow.
+         */
+        private final Map<Long, Long> cpuNanos = new HashMap<>();
+        private final Map<Long, Long> readBytes = new HashMap<>();
+        private final Map<Long, Long> writtenBytes = new HashMap<>();
+        private long peakMemoryBytes = -1;
+        private boolean ioReadable;
+
+        private ProcessHandle process;
+        private Thread sampler;
+
+        private ProcessMeasurement(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public Map<String, String> environment() {
+            return Map.of();
+        }
+
+        @Override
+        public synchronized void attach(Process process) {
+            this.process = process.toHandle();
+            sampler = Thread.ofVirtual().name("resource-sampler-" + process.pid()).start(() -> {
+                try {
+                    while (this.process.isAlive()) {
+                        sample();
+                        Thread.sleep(SAMPLE_INTERVAL);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        @Override
+        public synchronized ResourceUsage stop() {
+            long wallMillis = (System.nanoTime() - start) / 1_000_000;
+            if (sampler != null) {
+                sampler.interrupt();
+            }
+            Long cpuMillis = cpuNanos.isEmpty() ? null
+                    : cpuNanos.values().stream().mapToLong(Long::longValue).sum() / 1_000_000;
+            return new ResourceUsage(wallMillis, cpuMillis, peakMemoryBytes >= 0 ? peakMemoryBytes : null,
+                    ioReadable ? sum(readBytes) : null, ioReadable ? sum(writtenBytes) : null);
+        }
+
+        @Override
+        public void close() {
+            if (sampler != null) {
+                sampler.interrupt();
+            }
+        }
+
+        private synchronized void sample() {
+            List<ProcessHandle> tree = Stream.concat(Stream.of(process), process.descendants()).toList();
+            long memoryBytes = 0;
+            boolean memoryReadable = false;
+            for (ProcessHandle handle : tree) {
+                long pid = handle.pid();
+                handle.info().totalCpuDuration().ifPresent(cpu -> cpuNanos.merge(pid, cpu.toNanos(), Math::max));
+                Long resident = residentBytes(pid);
+                if (resident != null) {
+                    memoryBytes += resident;
+                    memoryReadable = true;
+                }
+                Map<String, Long> io = io(pid);
+                if (io.containsKey("read_bytes") && io.containsKey("write_bytes")) {
+                    readBytes.merge(pid, io.get("read_bytes"), Math::max);
+                    writtenBytes.merge(pid, io.get("write_bytes"), Math::max);
+                    ioReadable = true;
+                }
+            }
+            if (memoryReadable) {
+                peakMemoryBytes = Math.max(peakMemoryBytes, memoryBytes);
+            }
+        }
+    }
+
+    /**
+     * @return the resident set of the process from {@code /proc/<pid>/statm}, or null if it cannot be read
+     */
+    private static Long residentBytes(long pid) {
+        try {
+            String[] fields = Files.readString(Path.of("/proc", Long.toString(pid), "statm")).trim().split(" ");
+            return Long.parseLong(fields[1]) * PAGE_SIZE;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the counters of {@code /proc/<pid>/io}, empty if they cannot be read
+     */
+    private static Map<String, Long> io(long pid) {
+        Map<String, Long> counters = new HashMap<>();
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "io"))) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    counters.put(line.substring(0, colon), Long.parseLong(line.substring(colon + 1).trim()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            counters.clear();
+        }
+        return counters;
+    }
+
+    private static long sum(Map<Long, Long> values) {
+        return values.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker.resource;
+
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.ResourceUsage;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Measures the resources the runs of autotest jobs use.
+ */
+public interface ResourceMeter {
+    /**
+     * Starts measuring a run; the wall time counts from here.
+     *
+     * @param job the job about to run
+     * @return the measurement, to be closed when the run is over
+     */
+    Measurement start(ClaimedJob job) throws IOException;
+
+    interface Measurement extends AutoCloseable {
+        /**
+         * @return variables the run's command needs to be measured, e.g. the cgroup to start its containers in
+         */
+        Map<String, String> environment();
+
+        /**
+         * Includes the process just started for the run, and the processes it starts from now on, in the measurement.
+         */
+        void attach(Process process) throws IOException;
+
+        /**
+         * Ends the measurement, once the run's processes have exited.
+         *
+         * @return what the run used
+         */
+        ResourceUsage stop();
+
+        @Override
+        void close();
+    }
+}
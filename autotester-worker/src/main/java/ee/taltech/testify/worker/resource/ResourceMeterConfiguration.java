@@ -0,0 +1,41 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker.resource;
+
+import ee.taltech.testify.worker.WorkerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+
+@Configuration
+public class ResourceMeterConfiguration {
+
+    /**
+     * Measures runs in cgroups when the worker has been given one, and from their process trees otherwise.
+     */
+    @Bean
+    public ResourceMeter resourceMeter(WorkerProperties properties) {
+        return StringUtils.hasText(properties.getCgroupDirectory())
+                ? new CgroupResourceMeter(Path.of(properties.getCgroupDirectory()))
+                : new ProcessResourceMeter();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker;
+
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.JobCost;
+import ee.taltech.testify.service.worker.JobLeaseService;
+import ee.taltech.testify.service.worker.RunResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AutotestJobExecutorTest {
+    private static final String WORKER_ID = "worker-1";
+    private static final long GIGABYTE = 1024L * 1024 * 1024;
+    private static final RunResult RESULT = new RunResult(AutotestJobStatus.SUCCEEDED, null, null);
+
+    private final JobLeaseService jobLeaseService = mock(JobLeaseService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private AutotestJobExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        WorkerProperties properties = new WorkerProperties();
+        properties.setId(WORKER_ID);
+        properties.setCapacity(2);
+        properties.setCpus(4.0);
+        properties.setMemory(DataSize.ofGigabytes(8));
+        properties.setPollInterval(Duration.ofHours(1));
+        properties.setHeartbeatInterval(Duration.ofHours(1));
+        properties.setShutdownGracePeriod(Duration.ofMillis(200));
+        executor = new AutotestJobExecutor(jobLeaseService, job -> {
+            started.countDown();
+            release.await();
+            return RESULT;
+        }, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.stop();
+    }
+
+    @Test
+    @DisplayName("Should register, claim up to its capacity and record the result of a finished job")
+    void shouldClaimAndFinishJobs() {
+        // Given
+        when(jobLeaseService.claim(eq(WORKER_ID), eq(2), any(), anyBoolean(), any())).thenReturn(List.of(job(1)));
+        when(jobLeaseService.finish(WORKER_ID, 1, RESULT)).thenReturn(true);
+
+        // When
+        executor.start();
+        release.countDown();
+
+        // Then
+        verify(jobLeaseService).register(eq(WORKER_ID), any(), eq(2), eq(new JobCost(4000, GIGABYTE * 8)));
+        verify(jobLeaseService, timeout(5000)).finish(WORKER_ID, 1, RESULT);
+    }
+
+    @Test
+    @DisplayName("Should not claim while all slots are busy")
+    void shouldNotClaimWhenFull() throws InterruptedException {
+        // Given
+        when(jobLeaseService.claim(eq(WORKER_ID), eq(2), any(), anyBoolean(), any())).thenReturn(List.of(job(1), job(2)));
+        executor.start();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        executor.poll();
+
+        // Then
+        verify(jobLeaseService, never()).claim(eq(WORKER_ID), eq(1), any(), anyBoolean(), any());
+        assertThat(executor.getRunningJobIds()).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    @DisplayName("Should offer only the resources its running jobs leave free")
+    void shouldOfferRemainingResources() throws InterruptedException {
+        // Given
+        when(jobLeaseService.claim(eq(WORKER_ID), eq(2), any(), anyBoolean(), any())).thenReturn(List.of(job(1)));
+        executor.start();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        executor.poll();
+
+        // Then
+        verify(jobLeaseService).claim(eq(WORKER_ID), eq(2), eq(new JobCost(4000, GIGABYTE * 8)), eq(true), any());
+        verify(jobLeaseService).claim(eq(WORKER_ID), eq(1), eq(new JobCost(2500, GIGABYTE * 6)), eq(false), any());
+    }
+
+    @Test
+    @DisplayName("Should stop a job the heartbeat reports as lost without recording a result")
+    void shouldStopLostJob() throws InterruptedException {
+        // Given
+        when(jobLeaseService.claim(eq(WORKER_ID), eq(2), any(), anyBoolean(), any())).thenReturn(List.of(job(1)));
+        when(jobLeaseService.heartbeat(eq(WORKER_ID), anyCollection(), any())).thenReturn(Set.of(1));
+        executor.start();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        executor.heartbeat();
+
+        // Then
+        assertThat(executor.getRunningJobIds()).isEmpty();
+        verify(jobLeaseService, never()).finish(any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should hand back jobs still running after the grace period on shutdown")
+    void shouldReleaseUnfinishedJobsOnStop() throws InterruptedException {
+        // Given
+        when(jobLeaseService.claim(eq(WORKER_ID), eq(2), any(), anyBoolean(), any())).thenReturn(List.of(job(1)));
+        executor.start();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        executor.stop();
+
+        // Then
+        verify(jobLeaseService).drain(WORKER_ID);
+        verify(jobLeaseService).release(WORKER_ID, Set.of(1));
+        verify(jobLeaseService).unregister(WORKER_ID);
+        verify(jobLeaseService, never()).finish(any(), anyInt(), any());
+        assertThat(executor.isRunning()).isFalse();
+    }
+
+    private static ClaimedJob job(int jobId) {
+        return new ClaimedJob(jobId, 10, 5, "student", null, "registry/autotester", "https://gitlab/{uniId}/repo",
+                "https://gitlab/tests", "EX01", "EX01", 1, new JobCost(1500, GIGABYTE * 2));
+    }
+}
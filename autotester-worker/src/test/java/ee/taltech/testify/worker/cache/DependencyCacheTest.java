@@ -0,0 +1,209 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker.cache;
+
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.CostModel;
+import ee.taltech.testify.worker.WorkerProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DependencyCacheTest {
+    @TempDir
+    private Path temp;
+
+    private Path repository;
+    private Path warmCount;
+    private WorkerProperties properties;
+    private DependencyCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repository = Files.createDirectories(temp.resolve("tests"));
+        Files.createDirectories(repository.resolve("EX01"));
+        Files.writeString(repository.resolve("EX01/pom.xml"), "<project>junit 5.10</project>");
+        Files.writeString(repository.resolve("EX01/StackTest.java"), "class StackTest {}");
+        git("init", "--quiet");
+        commit();
+
+        warmCount = temp.resolve("warm-count");
+        properties = new WorkerProperties();
+        properties.getCache().setDirectory(temp.resolve("cache").toString());
+        properties.getCache().setRefreshInterval(Duration.ZERO);
+        properties.getCache().setWarmCommand(List.of("sh", "-c",
+                "echo dependency > \"$TESTIFY_CACHE_DIR/junit.jar\" && echo warm >> " + warmCount));
+        cache = new DependencyCache(properties);
+    }
+
+    @Nested
+    @DisplayName("Warming tests")
+    class WarmingTests {
+
+        @Test
+        @DisplayName("Should warm the cache once and reuse it in later runs")
+        void shouldWarmOnce() throws Exception {
+            // When
+            CacheLease first = cache.acquire(job(1));
+            first.close();
+            CacheLease second = cache.acquire(job(2));
+
+            // Then
+            assertThat(first.getUsage().hit()).isFalse();
+            assertThat(first.getUsage().savedMillis()).isZero();
+            assertThat(second.getUsage().hit()).isTrue();
+            assertThat(second.getUsage().hash()).isEqualTo(first.getUsage().hash());
+            assertThat(second.getLower()).isEqualTo(first.getLower());
+            assertThat(second.getLower().resolve("junit.jar")).hasContent("dependency");
+            assertThat(Files.readAllLines(warmCount)).hasSize(1);
+            second.close();
+        }
+
+        @Test
+        @DisplayName("Should give every run its own layer and delete it when the run is over")
+        void shouldCreateLayerPerRun() throws Exception {
+            // Given
+            CacheLease first = cache.acquire(job(1));
+            CacheLease second = cache.acquire(job(2));
+
+            // When
+            first.close();
+
+            // Then
+            assertThat(first.getUpper()).isNotEqualTo(second.getUpper());
+            assertThat(first.getUpper().getParent()).doesNotExist();
+            assertThat(second.getUpper()).isDirectory();
+            assertThat(second.getWork()).isDirectory();
+            assertThat(second.getLower()).isDirectory();
+            second.close();
+        }
+
+        @Test
+        @DisplayName("Should leave no cache behind when warming fails")
+        void shouldNotKeepFailedWarmUp() throws IOException {
+            // Given
+            properties.getCache().setWarmCommand(List.of("sh", "-c", "touch \"$TESTIFY_CACHE_DIR/partial\"; exit 1"));
+
+            // When & Then
+            assertThatThrownBy(() -> cache.acquire(job(1))).isInstanceOf(IOException.class);
+            assertThat(entries(temp.resolve("cache/caches/7"))).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should not cache when no warm command is configured")
+        void shouldBeDisabledWithoutWarmCommand() throws Exception {
+            // Given
+            properties.getCache().setWarmCommand(List.of());
+
+            // When & Then
+            assertThat(cache.acquire(job(1))).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Invalidation tests")
+    class InvalidationTests {
+
+        @Test
+        @DisplayName("Should keep the cache when files other than build files change")
+        void shouldIgnoreOtherFiles() throws Exception {
+            // Given
+            cache.acquire(job(1)).close();
+            Files.writeString(repository.resolve("EX01/StackTest.java"), "class StackTest { void test() {} }");
+            commit();
+
+            // When
+            CacheLease lease = cache.acquire(job(2));
+
+            // Then
+            assertThat(lease.getUsage().hit()).isTrue();
+            lease.close();
+        }
+
+        @Test
+        @DisplayName("Should warm a new cache when the build files change and delete the old one once released")
+        void shouldInvalidateOnBuildFileChange() throws Exception {
+            // Given
+            CacheLease old = cache.acquire(job(1));
+            Files.writeString(repository.resolve("EX01/pom.xml"), "<project>junit 5.11</project>");
+            commit();
+
+            // When
+            CacheLease current = cache.acquire(job(2));
+
+            // Then
+            assertThat(current.getUsage().hit()).isFalse();
+            assertThat(current.getUsage().hash()).isNotEqualTo(old.getUsage().hash());
+            assertThat(old.getLower()).isDirectory();
+            old.close();
+            assertThat(old.getLower()).doesNotExist();
+            assertThat(current.getLower()).isDirectory();
+            current.close();
+        }
+
+        @Test
+        @DisplayName("Should key the cache on the autotester image as well")
+        void shouldInvalidateOnImageChange() throws Exception {
+            // Given
+            cache.acquire(job(1)).close();
+
+            // When
+            CacheLease lease = cache.acquire(new ClaimedJob(2, 10, 7, "student", null, "registry/python:3.13",
+                    null, repository.toString(), "EX01", "EX01", 1, CostModel.DEFAULT));
+
+            // Then
+            assertThat(lease.getUsage().hit()).isFalse();
+            lease.close();
+        }
+    }
+
+    private ClaimedJob job(int jobId) {
+        return new ClaimedJob(jobId, 10, 7, "student", null, "registry/python:3.12", null, repository.toString(),
+                "EX01", "EX01", 1, CostModel.DEFAULT);
+    }
+
+    private void commit() throws Exception {
+        git("add", "-A");
+        git("-c", "user.name=Testify", "-c", "user.email=testify@taltech.ee", "commit", "--quiet", "-m", "Tests");
+    }
+
+    private void git(String... arguments) throws Exception {
+        Processes.run(Stream.concat(Stream.of("git"), Stream.of(arguments)).toList(), repository, Map.of());
+    }
+
+    private static List<Path> entries(Path directory) throws IOException {
+        try (Stream<Path> list = Files.list(directory)) {
+            return list.toList();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker.resource;
+
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.CostModel;
+import ee.taltech.testify.service.worker.ResourceUsage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CgroupResourceMeterTest {
+    @TempDir
+    private Path parent;
+
+    private final ClaimedJob job = new ClaimedJob(12, 10, 7, "student", null, null, null, null, null, null, 2,
+            CostModel.DEFAULT);
+
+    @Test
+    @DisplayName("Should create a group per run and move the run's command into it")
+    void shouldCreateGroup() throws Exception {
+        // Given
+        ResourceMeter meter = new CgroupResourceMeter(parent);
+        Process process = new ProcessBuilder("true").start();
+
+        // When
+        try (ResourceMeter.Measurement measurement = meter.start(job)) {
+            measurement.attach(process);
+
+            // Then
+            Path group = parent.resolve("job-12-2");
+            assertThat(measurement.environment()).containsEntry("TESTIFY_CGROUP", group.toString());
+            assertThat(group.resolve("cgroup.procs")).hasContent(Long.toString(process.pid()));
+        }
+        process.waitFor();
+    }
+
+    @Test
+    @DisplayName("Should read CPU time, peak memory and I/O from the group's statistics")
+    void shouldReadStatistics() throws Exception {
+        // Given
+        ResourceMeter meter = new CgroupResourceMeter(parent);
+        ResourceMeter.Measurement measurement = meter.start(job);
+        Path group = parent.resolve("job-12-2");
+        Files.writeString(group.resolve("cpu.stat"), """
+                usage_usec 2503000
+                user_usec 2000000
+                system_usec 503000
+                """);
+        Files.writeString(group.resolve("memory.peak"), "268435456\n");
+        Files.writeString(group.resolve("io.stat"), """
+                8:0 rbytes=1000 wbytes=2000 rios=1 wios=2 dbytes=0 dios=0
+                8:16 rbytes=500 wbytes=0 rios=1 wios=0 dbytes=0 dios=0
+                """);
+
+        // When
+        ResourceUsage usage = measurement.stop();
+
+        // Then
+        assertThat(usage.cpuMillis()).isEqualTo(2503);
+        assertThat(usage.peakMemoryBytes()).isEqualTo(268_435_456);
+        assertThat(usage.ioReadBytes()).isEqualTo(1500);
+        assertThat(usage.ioWriteBytes()).isEqualTo(2000);
+        assertThat(usage.wallMillis()).isNotNegative();
+    }
+
+    @Test
+    @DisplayName("Should leave out statistics the kernel does not provide")
+    void shouldLeaveOutMissingStatistics() throws Exception {
+        // Given
+        ResourceMeter.Measurement measurement = new CgroupResourceMeter(parent).start(job);
+
+        // When
+        ResourceUsage usage = measurement.stop();
+
+        // Then
+        assertThat(usage.cpuMillis()).isNull();
+        assertThat(usage.peakMemoryBytes()).isNull();
+        assertThat(usage.ioReadBytes()).isNull();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.worker.resource;
+
+import ee.taltech.testify.service.worker.ClaimedJob;
+import ee.taltech.testify.service.worker.CostModel;
+import ee.taltech.testify.service.worker.ResourceUsage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProcessResourceMeterTest {
+
+    @Test
+    @DisplayName("Should measure the wall and CPU time of a busy process tree")
+    void shouldMeasureBusyProcess() throws Exception {
+        // Given
+        ResourceMeter meter = new ProcessResourceMeter();
+        ClaimedJob job = new ClaimedJob(1, 10, 7, "student", null, null, null, null, null, null, 1,
+                CostModel.DEFAULT);
+
+        // When
+        ResourceUsage usage;
+        try (ResourceMeter.Measurement measurement = meter.start(job)) {
+            Process process = new ProcessBuilder("sh", "-c",
+                    "end=$(($(date +%s) + 1)); while [ $(date +%s) -lt $end ]; do :; done").start();
+            measurement.attach(process);
+            process.waitFor();
+            usage = measurement.stop();
+        }
+
+        // Then
+        assertThat(usage.wallMillis()).isGreaterThanOrEqualTo(500);
+        assertThat(usage.cpuMillis()).isPositive();
+        assertThat(usage.peakMemoryBytes()).isPositive();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.config.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.dto.ExceptionResponseDto;
+import ee.taltech.testify.exception.InvalidTokenException;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.auth.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.LocalDateTime;
+
+/**
+ * Authenticates API requests by their bearer token. Only the login endpoint and the webhooks, which check a secret of
+ * their own, are open; admin endpoints additionally require the admin role.
+ * <p>
+ * The caller is exposed both as the request's {@link HttpServletRequest#getUserPrincipal() user principal} and as
+ * the {@value #AUTHENTICATED_USER} request attribute.
+ * <p>
+ * Paths are matched after decoding and removing {@code ;} parameters, the way handler mappings see them, so that
+ * e.g. {@code /api/v1/admin;x/term-archive} cannot reach an admin endpoint past the role check.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+    public static final String AUTHENTICATED_USER = "testify.authenticatedUser";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String LOGIN_PATH = "/api/v1/auth/login";
+    private static final String ADMIN_PATH_PREFIX = "/api/v1/admin/";
+    private static final String WEBHOOK_PATH_PREFIX = "/api/v1/webhook/";
+
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    private final TokenService tokenService;
+    private final ObjectMapper objectMapper;
+
+    public TokenAuthenticationFilter(TokenService tokenService, ObjectMapper objectMapper) {
+        this.tokenService = tokenService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = URL_PATH_HELPER.getPathWithinApplication(request);
+        return LOGIN_PATH.equals(path) || path.startsWith(WEBHOOK_PATH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            reject(response, HttpStatus.UNAUTHORIZED, "Missing bearer token");
+            return;
+        }
+
+        AuthenticatedUser user;
+        try {
+            user = tokenService.verify(header.substring(BEARER_PREFIX.length()).trim());
+        } catch (InvalidTokenException e) {
+            reject(response, HttpStatus.UNAUTHORIZED, e.getMessage());
+            return;
+        }
+        if (URL_PATH_HELPER.getPathWithinApplication(request).startsWith(ADMIN_PATH_PREFIX) && !user.isAdmin()) {
+            reject(response, HttpStatus.FORBIDDEN, "Admin role required");
+            return;
+        }
+
+        request.setAttribute(AUTHENTICATED_USER, user);
+        filterChain.doFilter(new AuthenticatedRequest(request, user), response);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        if (status == HttpStatus.UNAUTHORIZED) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ExceptionResponseDto.builder()
+                .status(status.value())
+                .message(message)
+                .error(status.getReasonPhrase())
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    private static class AuthenticatedRequest extends HttpServletRequestWrapper {
+        private final AuthenticatedUser user;
+
+        AuthenticatedRequest(HttpServletRequest request, AuthenticatedUser user) {
+            super(request);
+            this.user = user;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return user;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return user.getName();
+        }
+    }
+}
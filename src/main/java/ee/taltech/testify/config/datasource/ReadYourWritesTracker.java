@@ -0,0 +1,91 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.config.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers when each user last wrote, so that their reads within the window go to the primary and they always see
+ * their own changes even if the replicas have not caught up yet.
+ * <p>
+ * The user of the current request is bound to the thread by {@link ReadYourWritesFilter}; work outside a request is
+ * not tracked.
+ */
+public class ReadYourWritesTracker {
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final LongSupplier clock;
+
+    public ReadYourWritesTracker(Duration window) {
+        this(window, System::nanoTime);
+    }
+
+    ReadYourWritesTracker(Duration window, LongSupplier clock) {
+        this.windowNanos = window.toNanos();
+        this.clock = clock;
+    }
+
+    static void bind(String user) {
+        CURRENT_USER.set(user);
+    }
+
+    static void unbind() {
+        CURRENT_USER.remove();
+    }
+
+    /**
+     * Records a write by the current user.
+     */
+    public void recordWrite() {
+        String user = CURRENT_USER.get();
+        if (user != null) {
+            lastWrites.put(user, clock.getAsLong());
+        }
+    }
+
+    /**
+     * @return whether the current user has written recently enough that replicas may not yet show the change
+     */
+    public boolean hasRecentWrite() {
+        String user = CURRENT_USER.get();
+        if (user == null) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(user);
+        return lastWrite != null && clock.getAsLong() - lastWrite < windowNanos;
+    }
+
+    @Scheduled(fixedDelayString = "${testify.datasource.routing.eviction-interval:PT1M}")
+    public void evictExpired() {
+        long now = clock.getAsLong();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+    }
+
+    int size() {
+        return lastWrites.size();
+    }
+}
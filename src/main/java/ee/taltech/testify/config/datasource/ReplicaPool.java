@@ -0,0 +1,128 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.config.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of which read replicas are reachable and sufficiently up to date, and hands them out round-robin.
+ * Replicas join the rotation after their first successful health check.
+ */
+@Slf4j
+public class ReplicaPool implements AutoCloseable {
+    /**
+     * Replication lag in seconds; zero when the replica has replayed everything it has received, so that an idle
+     * primary does not make its replicas look stale.
+     */
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+            END
+            """;
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 2;
+
+    private final Map<String, DataSource> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private volatile List<String> healthy;
+
+    public ReplicaPool(Map<String, DataSource> replicas, Duration maxLag) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLag = maxLag;
+        this.healthy = List.of();
+    }
+
+    /**
+     * Picks the replica for the next read.
+     *
+     * @return the name of a healthy replica, or {@code null} if none is available
+     */
+    public String next() {
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return candidates.get(Math.floorMod(nextReplica.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * Probes every replica and takes those that are unreachable or lagging out of rotation until they recover.
+     */
+    @Scheduled(fixedDelayString = "${testify.datasource.routing.health-check-interval:PT5S}")
+    public void checkHealth() {
+        List<String> current = replicas.entrySet().stream()
+                .filter(replica -> isHealthy(replica.getKey(), replica.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!current.equals(healthy)) {
+            log.info("Healthy read replicas changed from {} to {}", healthy, current);
+        }
+        healthy = current;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : replicas.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    Map<String, DataSource> getDataSources() {
+        return replicas;
+    }
+
+    List<String> getHealthy() {
+        return healthy;
+    }
+
+    private boolean isHealthy(String name, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(HEALTH_CHECK_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                double lagSeconds = resultSet.getDouble(1);
+                if (lagSeconds * 1000 > maxLag.toMillis()) {
+                    log.debug("Replica {} is {} s behind the primary", name, lagSeconds);
+                    return false;
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            log.debug("Replica {} failed the health check: {}", name, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.config.startup;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Skips the Liquibase run on startup when the changelog has not changed since it was last applied.
+ * <p>
+ * Even with nothing to apply, Liquibase takes the changelog lock, parses every changelog and validates the checksum
+ * of every applied changeset, which is a noticeable part of startup. After a successful run the SHA-256 of the
+ * changelog files, contexts and labels is stored in the {@code configuration} table under
+ * {@value #CHECKSUM_KEY}, and the next start skips Liquibase if it still matches. Disable with
+ * {@code testify.liquibase.fast-path=false}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "testify.liquibase.fast-path", havingValue = "true", matchIfMissing = true)
+public class LiquibaseFastPath implements BeanPostProcessor {
+    public static final String CHECKSUM_KEY = "liquibase.changelog-checksum";
+
+    private final ResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+
+    /**
+     * Checksums of the changelogs being applied, stored once their run succeeds.
+     */
+    private final Map<SpringLiquibase, String> pendingChecksums = new ConcurrentHashMap<>();
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof SpringLiquibase liquibase) {
+            String checksum = checksum(liquibase);
+            if (checksum.equals(readChecksum(liquibase))) {
+                log.info("Changelog {} is unchanged since it was last applied, skipping Liquibase",
+                        liquibase.getChangeLog());
+                liquibase.setShouldRun(false);
+            } else {
+                pendingChecksums.put(liquibase, checksum);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof SpringLiquibase liquibase) {
+            String checksum = pendingChecksums.remove(liquibase);
+            if (checksum != null) {
+                writeChecksum(liquibase, checksum);
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * Hashes every file next to and below the master changelog, in path order, together with the contexts and
+     * labels that decide which changesets apply.
+     */
+    String checksum(SpringLiquibase liquibase) {
+        String changeLog = liquibase.getChangeLog();
+        String directory = changeLog.substring(0, changeLog.lastIndexOf('/') + 1);
+        String relativeTo = directory.substring(directory.indexOf(':') + 1);
+        try {
+            Map<String, Resource> files = new TreeMap<>();
+            for (Resource resource : resourceResolver.getResources(directory + "**/*")) {
+                if (resource.isReadable()) {
+                    String url = resource.getURL().toString();
+                    files.put(url.substring(url.lastIndexOf(relativeTo)), resource);
+                }
+            }
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String value : List.of(Objects.toString(liquibase.getContexts(), ""),
+                    Objects.toString(liquibase.getLabelFilter(), ""))) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            for (Map.Entry<String, Resource> file : files.entrySet()) {
+                digest.update(file.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                try (InputStream in = file.getValue().getInputStream()) {
+                    digest.update(in.readAllBytes());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read changelog " + changeLog, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String readChecksum(SpringLiquibase liquibase) {
+        try {
+            List<String> values = new JdbcTemplate(liquibase.getDataSource()).queryForList(
+                    "SELECT config_value FROM configuration WHERE config_key = ?", String.class, CHECKSUM_KEY);
+            return values.isEmpty() ? null : values.get(0);
+        } catch (DataAccessException e) {
+            // No configuration table yet: a fresh database that needs the full run anyway.
+            return null;
+        }
+    }
+
+    private static void writeChecksum(SpringLiquibase liquibase, String checksum) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(liquibase.getDataSource());
+        try {
+            if (jdbcTemplate.update("UPDATE configuration SET config_value = ? WHERE config_key = ?",
+                    checksum, CHECKSUM_KEY) == 0) {
+                jdbcTemplate.update("INSERT INTO configuration (config_key, config_value) VALUES (?, ?)",
+                        CHECKSUM_KEY, checksum);
+            }
+        } catch (DuplicateKeyException e) {
+            // Another instance applied the same changelog and recorded it first.
+        } catch (DataAccessException e) {
+            log.warn("Could not record the changelog checksum, Liquibase will run again on the next start", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.config.startup;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers the MapStruct mapper implementations, such as {@code UserRoleMapperImpl}, for reflection.
+ * <p>
+ * The implementations are generated at compile time and only known to Spring through component scanning, which AOT
+ * processing replaces with fixed bean definitions. Scanning the mapper package here keeps new mappers covered
+ * without listing them.
+ */
+public class MapperRuntimeHints implements RuntimeHintsRegistrar {
+    static final String MAPPER_PACKAGE = "ee.taltech.testify.mapper";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Component.class));
+        if (classLoader != null) {
+            scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        }
+        for (BeanDefinition mapper : scanner.findCandidateComponents(MAPPER_PACKAGE)) {
+            hints.reflection().registerType(TypeReference.of(mapper.getBeanClassName()),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
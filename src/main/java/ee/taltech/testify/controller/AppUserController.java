@@ -0,0 +1,50 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.config.auth.TokenAuthenticationFilter;
+import ee.taltech.testify.dto.UserSuggestionDto;
+import ee.taltech.testify.service.UserSearchService;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/user")
+@RequiredArgsConstructor
+public class AppUserController {
+    private final UserSearchService userSearchService;
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<UserSuggestionDto>> autocomplete(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) Integer limit,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        return ResponseEntity.ok(userSearchService.autocomplete(query, role, limit, user));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.config.auth.TokenAuthenticationFilter;
+import ee.taltech.testify.dto.ArtifactResponseDto;
+import ee.taltech.testify.service.ArtifactService;
+import ee.taltech.testify.service.AutotestJobAccessService;
+import ee.taltech.testify.service.artifact.ArtifactContent;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/api/v1/autotest-job/{jobId}/artifact")
+@RequiredArgsConstructor
+public class ArtifactController {
+    private static final String GZIP = "gzip";
+
+    private final ArtifactService artifactService;
+    private final AutotestJobAccessService autotestJobAccessService;
+
+    @GetMapping
+    public ResponseEntity<List<ArtifactResponseDto>> getArtifacts(
+            @PathVariable Integer jobId,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireOwnerTeacherOrWorker(jobId, user);
+        return ResponseEntity.ok(artifactService.getArtifacts(jobId));
+    }
+
+    @PutMapping("/{name}")
+    public ResponseEntity<ArtifactResponseDto> saveArtifact(
+            @PathVariable Integer jobId,
+            @PathVariable String name,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, defaultValue = MediaType.TEXT_PLAIN_VALUE)
+            String contentType,
+            InputStream content,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireWorker(user);
+        return new ResponseEntity<>(artifactService.saveArtifact(jobId, name, contentType, content),
+                HttpStatus.CREATED);
+    }
+
+    /**
+     * Sends the artifact content straight from its blob file.
+     * <p>
+     * Compressed blobs are sent as-is with {@code Content-Encoding: gzip} to clients that accept it, in which case
+     * byte ranges refer to the compressed representation. Other clients get the content inflated on the fly, without
+     * range support.
+     */
+    @GetMapping("/{name}/content")
+    public void downloadArtifact(@PathVariable Integer jobId,
+                                 @PathVariable String name,
+                                 @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                 String acceptEncoding,
+                                 @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER)
+                                 AuthenticatedUser user,
+                                 HttpServletResponse response) throws IOException {
+        autotestJobAccessService.requireOwnerTeacherOrWorker(jobId, user);
+        ArtifactContent content = artifactService.getArtifactContent(jobId, name);
+        ArtifactResponseDto artifact = content.artifact();
+        response.setContentType(artifact.getContentType());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (artifact.getIsCompressed() && (acceptEncoding == null || !acceptEncoding.contains(GZIP))) {
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+            response.setContentLengthLong(artifact.getSize());
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(content.path()))) {
+                in.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        if (artifact.getIsCompressed()) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            response.setHeader(HttpHeaders.ETAG, "\"" + artifact.getContentHash() + "-" + GZIP + "\"");
+        } else {
+            response.setHeader(HttpHeaders.ETAG, "\"" + artifact.getContentHash() + "\"");
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long length = artifact.getStoredSize();
+        long start = 0;
+        long end = length - 1;
+        if (range != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() != 1) {
+                    throw new IllegalArgumentException("Only a single range is supported");
+                }
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                if (start >= length || start > end) {
+                    throw new IllegalArgumentException("Range outside of content: " + range);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long remaining = end - start + 1;
+        response.setContentLengthLong(remaining);
+        try (FileChannel channel = FileChannel.open(content.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.config.auth.TokenAuthenticationFilter;
+import ee.taltech.testify.dto.AssignmentStatisticsDto;
+import ee.taltech.testify.dto.BulkGradeRequestDto;
+import ee.taltech.testify.dto.LatePenaltyPolicyRequestDto;
+import ee.taltech.testify.dto.LatePenaltyPolicyResponseDto;
+import ee.taltech.testify.dto.RubricVersionDto;
+import ee.taltech.testify.dto.SimilarityClusterDto;
+import ee.taltech.testify.dto.StudentAssignmentGradeDto;
+import ee.taltech.testify.repository.StudentAssignmentProjection;
+import ee.taltech.testify.service.AssignmentService;
+import ee.taltech.testify.service.GradeStatisticsService;
+import ee.taltech.testify.service.GradingService;
+import ee.taltech.testify.service.LatePenaltyService;
+import ee.taltech.testify.service.RubricService;
+import ee.taltech.testify.service.SimilarityService;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.projection.SparseFieldset;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/assignment")
+@RequiredArgsConstructor
+public class AssignmentController {
+    private final AssignmentService assignmentService;
+    private final GradingService gradingService;
+    private final SimilarityService similarityService;
+    private final RubricService rubricService;
+    private final GradeStatisticsService gradeStatisticsService;
+    private final LatePenaltyService latePenaltyService;
+
+    @GetMapping("/{id}/missing-submission")
+    public ResponseEntity<List<Integer>> getStudentsWithoutSubmission(
+            @PathVariable Integer id,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        return ResponseEntity.ok(assignmentService.getStudentsWithoutSubmission(id, user));
+    }
+
+    @GetMapping("/{id}/submission")
+    public ResponseEntity<MappingJacksonValue> getSubmissions(
+            @PathVariable Integer id,
+            @RequestParam(required = false) String fields,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        SparseFieldset fieldset = SparseFieldset.parse(fields, StudentAssignmentProjection.class);
+        return ResponseEntity.ok(fieldset.apply(assignmentService.getSubmissions(id, fieldset, user)));
+    }
+
+    @GetMapping("/{id}/similarity")
+    public ResponseEntity<List<SimilarityClusterDto>> getSimilarSubmissions(
+            @PathVariable Integer id,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        return ResponseEntity.ok(similarityService.getClusters(id, user));
+    }
+
+    @GetMapping("/{id}/statistics")
+    public ResponseEntity<AssignmentStatisticsDto> getStatistics(
+            @PathVariable Integer id,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        return ResponseEntity.ok(gradeStatisticsService.getAssignmentStatistics(id, user));
+    }
+
+    @PutMapping("/{id}/grade")
+    public ResponseEntity<List<StudentAssignmentGradeDto>> saveGrades(
+            @PathVariable Integer id,
+            @Valid @RequestBody BulkGradeRequestDto dto,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        return ResponseEntity.ok(gradingService.saveGrades(id, dto.getGrades(), user));
+    }
+
+    @PostMapping("/{id}/rubric")
+    public ResponseEntity<RubricVersionDto> publishRubric(
+            @PathVariable Integer id,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        return new ResponseEntity<>(rubricService.publish(id, user), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{id}/late-penalty")
+    public ResponseEntity<LatePenaltyPolicyResponseDto> getLatePenalty(
+            @PathVariable Integer id,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        return ResponseEntity.ok(latePenaltyService.getPolicy(id, user));
+    }
+
+    @PutMapping("/{id}/late-penalty")
+    public ResponseEntity<LatePenaltyPolicyResponseDto> saveLatePenalty(
+            @PathVariable Integer id,
+            @Valid @RequestBody LatePenaltyPolicyRequestDto dto,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        return ResponseEntity.ok(latePenaltyService.savePolicy(id, dto, user));
+    }
+}
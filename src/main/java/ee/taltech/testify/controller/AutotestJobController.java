@@ -0,0 +1,165 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.config.auth.TokenAuthenticationFilter;
+import ee.taltech.testify.dto.AutotestJobFinishRequestDto;
+import ee.taltech.testify.dto.AutotestJobRequestDto;
+import ee.taltech.testify.dto.AutotestJobResponseDto;
+import ee.taltech.testify.dto.AutotestShardsResponseDto;
+import ee.taltech.testify.dto.SubmissionSignatureDto;
+import ee.taltech.testify.dto.TestReportResponseDto;
+import ee.taltech.testify.service.AutotestJobAccessService;
+import ee.taltech.testify.service.AutotestJobService;
+import ee.taltech.testify.service.AutotestShardService;
+import ee.taltech.testify.service.SimilarityService;
+import ee.taltech.testify.service.TestReportService;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.report.TestReportFormat;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/v1/autotest-job")
+@RequiredArgsConstructor
+public class AutotestJobController {
+    private static final String TAP = "text/x-tap";
+
+    private final AutotestJobService autotestJobService;
+    private final TestReportService testReportService;
+    private final SimilarityService similarityService;
+    private final AutotestShardService autotestShardService;
+    private final AutotestJobAccessService autotestJobAccessService;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<AutotestJobResponseDto> getAutotestJob(@PathVariable Integer id) {
+        return ResponseEntity.ok(autotestJobService.getAutotestJobById(id));
+    }
+
+    @PostMapping
+    public ResponseEntity<AutotestJobResponseDto> enqueueAutotestJob(@Valid @RequestBody AutotestJobRequestDto dto) {
+        return new ResponseEntity<>(autotestJobService.enqueueAutotestJob(dto), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/{id}/finish")
+    public ResponseEntity<AutotestJobResponseDto> finishAutotestJob(
+            @PathVariable Integer id, @Valid @RequestBody AutotestJobFinishRequestDto dto,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireWorker(user);
+        return ResponseEntity.ok(autotestJobService.finishJob(id, dto.getStatus(), dto.getWorkerId()));
+    }
+
+    @PostMapping(value = "/{id}/log", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<Void> appendLog(@PathVariable Integer id, @RequestBody String text,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireWorker(user);
+        autotestJobService.appendLog(id, text);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping(value = "/{id}/log/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLog(@PathVariable Integer id,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER)
+                                AuthenticatedUser user) {
+        autotestJobAccessService.requireOwnerTeacherOrWorker(id, user);
+        return autotestJobService.streamLog(id, lastEventId);
+    }
+
+    @PostMapping(value = "/{id}/report", consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    public ResponseEntity<TestReportResponseDto> ingestJUnitReport(
+            @PathVariable Integer id, InputStream report,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireWorker(user);
+        return ResponseEntity.ok(testReportService.ingestReport(id, TestReportFormat.JUNIT_XML, report));
+    }
+
+    @PostMapping(value = "/{id}/report", consumes = TAP)
+    public ResponseEntity<TestReportResponseDto> ingestTapReport(
+            @PathVariable Integer id, InputStream report,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireWorker(user);
+        return ResponseEntity.ok(testReportService.ingestReport(id, TestReportFormat.TAP, report));
+    }
+
+    @PutMapping(value = "/{id}/source", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<SubmissionSignatureDto> indexSource(
+            @PathVariable Integer id, InputStream source,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireWorker(user);
+        return ResponseEntity.ok(similarityService.indexSource(id, source));
+    }
+
+    @PostMapping("/{id}/shards")
+    public ResponseEntity<AutotestShardsResponseDto> planShards(
+            @PathVariable Integer id,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireWorker(user);
+        return ResponseEntity.ok(autotestShardService.planShards(id));
+    }
+
+    @GetMapping("/{id}/shards")
+    public ResponseEntity<AutotestShardsResponseDto> getShards(
+            @PathVariable Integer id,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireTeacherOrWorker(id, user);
+        return ResponseEntity.ok(autotestShardService.getShards(id));
+    }
+
+    @PostMapping(value = "/{id}/shards/{index}/report",
+            consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    public ResponseEntity<TestReportResponseDto> ingestJUnitShardReport(
+            @PathVariable Integer id, @PathVariable Integer index, InputStream report,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireWorker(user);
+        return shardReportResponse(autotestShardService.ingestShardReport(id, index, TestReportFormat.JUNIT_XML,
+                report));
+    }
+
+    @PostMapping(value = "/{id}/shards/{index}/report", consumes = TAP)
+    public ResponseEntity<TestReportResponseDto> ingestTapShardReport(
+            @PathVariable Integer id, @PathVariable Integer index, InputStream report,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        autotestJobAccessService.requireWorker(user);
+        return shardReportResponse(autotestShardService.ingestShardReport(id, index, TestReportFormat.TAP, report));
+    }
+
+    /**
+     * @return the merged report once the last shard has reported, 202 Accepted before that
+     */
+    private static ResponseEntity<TestReportResponseDto> shardReportResponse(TestReportResponseDto merged) {
+        return merged != null ? ResponseEntity.ok(merged) : ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.dto.AutotestQueueDto;
+import ee.taltech.testify.dto.AutotestWorkerDto;
+import ee.taltech.testify.service.AutotestJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin/autotest-queue")
+@RequiredArgsConstructor
+public class AutotestQueueController {
+    private final AutotestJobService autotestJobService;
+
+    @GetMapping
+    public ResponseEntity<AutotestQueueDto> getQueue() {
+        return ResponseEntity.ok(autotestJobService.getQueue());
+    }
+
+    @GetMapping("/workers")
+    public ResponseEntity<List<AutotestWorkerDto>> getWorkers() {
+        return ResponseEntity.ok(autotestJobService.getWorkers());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.dto.AutotesterCostDto;
+import ee.taltech.testify.repository.AutotesterProjection;
+import ee.taltech.testify.service.AutotesterService;
+import ee.taltech.testify.service.projection.SparseFieldset;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin/autotester")
+@RequiredArgsConstructor
+public class AutotesterController {
+    private final AutotesterService autotesterService;
+
+    @GetMapping
+    public ResponseEntity<MappingJacksonValue> getAutotesters(@RequestParam(required = false) String fields) {
+        SparseFieldset fieldset = SparseFieldset.parse(fields, AutotesterProjection.class);
+        return ResponseEntity.ok(fieldset.apply(autotesterService.getAutotesters(fieldset)));
+    }
+
+    @GetMapping("/costs")
+    public ResponseEntity<List<AutotesterCostDto>> getCosts() {
+        return ResponseEntity.ok(autotesterService.getCosts());
+    }
+}
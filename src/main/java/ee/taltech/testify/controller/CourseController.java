@@ -0,0 +1,80 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.config.auth.TokenAuthenticationFilter;
+import ee.taltech.testify.dto.CourseDashboardDto;
+import ee.taltech.testify.dto.CourseStatisticsDto;
+import ee.taltech.testify.repository.AssignmentProjection;
+import ee.taltech.testify.repository.CourseProjection;
+import ee.taltech.testify.service.CourseDashboardService;
+import ee.taltech.testify.service.CourseService;
+import ee.taltech.testify.service.GradeStatisticsService;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.projection.SparseFieldset;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/course")
+@RequiredArgsConstructor
+public class CourseController {
+    private final CourseService courseService;
+    private final CourseDashboardService courseDashboardService;
+    private final GradeStatisticsService gradeStatisticsService;
+
+    @GetMapping
+    public ResponseEntity<MappingJacksonValue> getCourses(
+            @RequestParam(required = false) String fields,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        SparseFieldset fieldset = SparseFieldset.parse(fields, CourseProjection.class);
+        return ResponseEntity.ok(fieldset.apply(courseService.getCourses(fieldset, user)));
+    }
+
+    @GetMapping("/{id}/assignment")
+    public ResponseEntity<MappingJacksonValue> getAssignments(
+            @PathVariable Integer id,
+            @RequestParam(required = false) String fields,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        SparseFieldset fieldset = SparseFieldset.parse(fields, AssignmentProjection.class);
+        return ResponseEntity.ok(fieldset.apply(courseService.getAssignments(id, fieldset, user)));
+    }
+
+    @GetMapping("/{id}/dashboard")
+    public ResponseEntity<CourseDashboardDto> getDashboard(
+            @PathVariable Integer id,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        return ResponseEntity.ok(courseDashboardService.getDashboard(id, user));
+    }
+
+    @GetMapping("/{id}/statistics")
+    public ResponseEntity<CourseStatisticsDto> getStatistics(
+            @PathVariable Integer id,
+            @RequestAttribute(TokenAuthenticationFilter.AUTHENTICATED_USER) AuthenticatedUser user) {
+        return ResponseEntity.ok(gradeStatisticsService.getCourseStatistics(id, user));
+    }
+}
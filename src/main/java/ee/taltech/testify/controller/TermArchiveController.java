@@ -0,0 +1,64 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.dto.TermArchiveDto;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.service.TermPartitionService;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin/term-archive")
+@RequiredArgsConstructor
+public class TermArchiveController {
+    private final TermPartitionService termPartitionService;
+
+    @GetMapping
+    public ResponseEntity<List<TermArchiveDto>> getArchives() {
+        return ResponseEntity.ok(termPartitionService.getArchives());
+    }
+
+    @PostMapping("/{term}")
+    public ResponseEntity<List<TermArchiveDto>> archive(@PathVariable Integer term) {
+        return ResponseEntity.ok(termPartitionService.archive(parse(term)));
+    }
+
+    @PostMapping("/{term}/restore")
+    public ResponseEntity<List<TermArchiveDto>> restore(@PathVariable Integer term) {
+        return ResponseEntity.ok(termPartitionService.restore(parse(term)));
+    }
+
+    private static AcademicTerm parse(Integer term) {
+        try {
+            return new AcademicTerm(term);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.dto;
+
+import ee.taltech.testify.entity.AutotestJobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class AutotestJobResponseDto {
+    private Integer id;
+    private Integer studentAssignmentId;
+    private AutotestJobStatus status;
+    private LocalDateTime enqueuedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String commitSha;
+    private String workerId;
+    private Integer attempts;
+    private Boolean dependencyCacheHit;
+    private Long dependencyCacheMillis;
+    private Long dependencyCacheSavedMillis;
+    private Long wallMillis;
+    private Long cpuMillis;
+    private Long peakMemoryBytes;
+    private Long ioReadBytes;
+    private Long ioWriteBytes;
+}
@@ -0,0 +1,38 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class AutotesterCostDto {
+    private Integer autotesterId;
+    private Integer runs;
+    private Long wallMillis;
+    private Integer cpuMillicores;
+    private Long memoryBytes;
+    private Long memoryDeviationBytes;
+    private Long ioBytes;
+    private Integer predictedMillicores;
+    private Long predictedMemoryBytes;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.dto;
+
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.service.dashboard.DashboardSection;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class CourseDashboardDto {
+    private Integer courseId;
+    private int enrollmentCount;
+    private List<AssignmentDashboardDto> assignments;
+    private BigDecimal averageGrade;
+    private Long ungradedCount;
+    private Map<AutotestJobStatus, Long> autotestJobs;
+    private List<DashboardSection> unavailable;
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The parts of a GitLab push event that are used; see
+ * <a href="https://docs.gitlab.com/ee/user/project/integrations/webhook_events.html#push-events">push events</a>.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GitlabPushEventDto {
+    @JsonProperty("object_kind")
+    private String objectKind;
+
+    private String ref;
+
+    /**
+     * The commit the branch points to after the push, all zeros if the branch was deleted.
+     */
+    private String after;
+
+    private GitlabProjectDto project;
+
+    /**
+     * The newest commits of the push, at most 20.
+     */
+    private List<GitlabCommitDto> commits;
+
+    @JsonProperty("total_commits_count")
+    private Integer totalCommitsCount;
+}
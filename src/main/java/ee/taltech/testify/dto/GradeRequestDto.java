@@ -0,0 +1,43 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class GradeRequestDto {
+    @NotNull(message = "Student assignment id must not be null")
+    private Integer studentAssignmentId;
+
+    @NotNull(message = "Grading element id must not be null")
+    private Integer gradingElementId;
+
+    @NotNull(message = "Points must not be null")
+    @DecimalMin(value = "0", message = "Points must not be negative")
+    @Digits(integer = 3, fraction = 2, message = "Points must have at most 3 integer and 2 fraction digits")
+    private BigDecimal points;
+
+    private String feedback;
+}
@@ -0,0 +1,50 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.dto;
+
+import ee.taltech.testify.entity.LatePenaltyType;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class LatePenaltyPolicyRequestDto {
+    @NotNull(message = "Penalty type must not be null")
+    private LatePenaltyType penaltyType;
+
+    @NotNull(message = "Percent must not be null")
+    @DecimalMin(value = "0", message = "Percent must not be negative")
+    @DecimalMax(value = "100", message = "Percent must not exceed 100")
+    @Digits(integer = 3, fraction = 2, message = "Percent must have at most 3 integer and 2 fraction digits")
+    private BigDecimal percent;
+
+    @Positive(message = "Step hours must be positive")
+    private Integer stepHours;
+
+    @DecimalMin(value = "0", message = "Max percent must not be negative")
+    @DecimalMax(value = "100", message = "Max percent must not exceed 100")
+    @Digits(integer = 3, fraction = 2, message = "Max percent must have at most 3 integer and 2 fraction digits")
+    private BigDecimal maxPercent;
+}
@@ -20,6 +20,7 @@
 package ee.taltech.testify.exception;
 
 import ee.taltech.testify.dto.ExceptionResponseDto;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -44,8 +45,23 @@ public class TestifyExceptionHandler {
                 .build(), HttpStatus.NOT_FOUND);
     }
 
-    @ExceptionHandler(UserRoleAlreadyExistsException.class)
-    public ResponseEntity<ExceptionResponseDto> handleUserRoleAlreadyExistsException(UserRoleAlreadyExistsException ex) {
+    @ExceptionHandler({StudentAssignmentNotFoundException.class, AutotestJobNotFoundException.class,
+            ArtifactNotFoundException.class, NotificationNotFoundException.class,
+            AssignmentNotFoundException.class, CourseNotFoundException.class, TermArchiveNotFoundException.class,
+            AutotestShardNotFoundException.class, LatePenaltyPolicyNotFoundException.class})
+    public ResponseEntity<ExceptionResponseDto> handleNotFoundException(RuntimeException ex) {
+        return new ResponseEntity<>(ExceptionResponseDto.builder()
+                .status(HttpStatus.NOT_FOUND.value())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .error(HttpStatus.NOT_FOUND.getReasonPhrase())
+                .build(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler({UserRoleAlreadyExistsException.class, TermArchiveConflictException.class,
+            AutotestShardConflictException.class, AutotestJobFinishedException.class,
+            CourseTermConflictException.class})
+    public ResponseEntity<ExceptionResponseDto> handleConflictException(RuntimeException ex) {
         return new ResponseEntity<>(ExceptionResponseDto.builder()
                 .status(HttpStatus.CONFLICT.value())
                 .message(ex.getMessage())
@@ -55,6 +71,48 @@ public class TestifyExceptionHandler {
         );
     }
 
+    @ExceptionHandler({InvalidCredentialsException.class, InvalidTokenException.class})
+    public ResponseEntity<ExceptionResponseDto> handleUnauthorizedException(RuntimeException ex) {
+        return new ResponseEntity<>(ExceptionResponseDto.builder()
+                .status(HttpStatus.UNAUTHORIZED.value())
+                .message(ex.getMessage())
+                .error(HttpStatus.UNAUTHORIZED.getReasonPhrase())
+                .timestamp(LocalDateTime.now())
+                .build(), HttpStatus.UNAUTHORIZED);
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ExceptionResponseDto> handleAccessDeniedException(AccessDeniedException ex) {
+        return new ResponseEntity<>(ExceptionResponseDto.builder()
+                .status(HttpStatus.FORBIDDEN.value())
+                .message(ex.getMessage())
+                .error(HttpStatus.FORBIDDEN.getReasonPhrase())
+                .timestamp(LocalDateTime.now())
+                .build(), HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ExceptionResponseDto> handleRateLimitExceededException(RateLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ExceptionResponseDto.builder()
+                        .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                        .message(ex.getMessage())
+                        .error(HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase())
+                        .timestamp(LocalDateTime.now())
+                        .build());
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ExceptionResponseDto> handleInvalidRequestException(InvalidRequestException ex) {
+        return new ResponseEntity<>(ExceptionResponseDto.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .error(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                .timestamp(LocalDateTime.now())
+                .build(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ExceptionResponseDto> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
         List<String> errors = new ArrayList<>();
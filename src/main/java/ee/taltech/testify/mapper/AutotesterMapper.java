@@ -0,0 +1,53 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.mapper;
+
+import ee.taltech.testify.dto.AutotesterCostDto;
+import ee.taltech.testify.dto.AutotesterResponseDto;
+import ee.taltech.testify.entity.AutotesterCost;
+import ee.taltech.testify.repository.AutotesterProjection;
+import ee.taltech.testify.service.worker.CostModel;
+import ee.taltech.testify.service.worker.JobCost;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.ReportingPolicy;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface AutotesterMapper {
+    AutotesterResponseDto toDto(AutotesterProjection autotester);
+
+    List<AutotesterResponseDto> toDtoList(List<AutotesterProjection> autotesters);
+
+    @Mapping(target = "autotesterId", source = "id")
+    AutotesterCostDto toCostDto(AutotesterCost cost);
+
+    List<AutotesterCostDto> toCostDtoList(List<AutotesterCost> costs);
+
+    @AfterMapping
+    default void addPrediction(AutotesterCost cost, @MappingTarget AutotesterCostDto dto) {
+        JobCost predicted = CostModel.predict(cost);
+        dto.setPredictedMillicores(predicted.millicores());
+        dto.setPredictedMemoryBytes(predicted.memoryBytes());
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.exception.RateLimitExceededException;
+import ee.taltech.testify.service.ratelimit.InMemoryRateLimitStore;
+import ee.taltech.testify.service.ratelimit.PostgresRateLimitStore;
+import ee.taltech.testify.service.ratelimit.RateLimitPolicy;
+import ee.taltech.testify.service.ratelimit.RateLimitScope;
+import ee.taltech.testify.service.ratelimit.RateLimitStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for submissions and autotest triggers.
+ * <p>
+ * Every admitted request takes one token from the student's bucket and one from the course's bucket. Limits and the
+ * storage mode are read from the {@code configuration} table:
+ * <ul>
+ *     <li>{@code rate-limit.mode} - {@code memory} (default) or {@code postgres} for buckets shared between nodes</li>
+ *     <li>{@code rate-limit.student.capacity}, {@code rate-limit.student.refill-per-minute}</li>
+ *     <li>{@code rate-limit.course.capacity}, {@code rate-limit.course.refill-per-minute}</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+public class AdmissionControlService {
+    public static final String MODE = "rate-limit.mode";
+    public static final String STUDENT_CAPACITY = "rate-limit.student.capacity";
+    public static final String STUDENT_REFILL_PER_MINUTE = "rate-limit.student.refill-per-minute";
+    public static final String COURSE_CAPACITY = "rate-limit.course.capacity";
+    public static final String COURSE_REFILL_PER_MINUTE = "rate-limit.course.refill-per-minute";
+
+    private static final String POSTGRES_MODE = "postgres";
+
+    private final ConfigurationService configurationService;
+    private final InMemoryRateLimitStore inMemoryRateLimitStore;
+    private final PostgresRateLimitStore postgresRateLimitStore;
+
+    /**
+     * Admits a single submission or autotest trigger of the given student in the given course.
+     * <p>
+     * The student's bucket is checked first, so a student flooding the system is rejected without draining the
+     * course's bucket. If the course's bucket then rejects the request, the student's token is put back, so that
+     * retries of a request held back by the course do not use up the student's limit. Likewise, if the request is
+     * admitted inside a transaction that is then rolled back, both tokens are put back.
+     *
+     * @param userId the ID of the user making the request
+     * @param courseId the ID of the course the request belongs to
+     * @throws RateLimitExceededException if either bucket is empty
+     * @throws IllegalStateException if the configured limits are not positive
+     */
+    public void admit(Integer userId, Integer courseId) {
+        RateLimitStore store = POSTGRES_MODE.equals(configurationService.getString(MODE, "memory"))
+                ? postgresRateLimitStore
+                : inMemoryRateLimitStore;
+        RateLimitPolicy studentPolicy = policy(STUDENT_CAPACITY, 5, STUDENT_REFILL_PER_MINUTE, 2);
+        RateLimitPolicy coursePolicy = policy(COURSE_CAPACITY, 200, COURSE_REFILL_PER_MINUTE, 120);
+
+        long wait = store.tryAcquire(RateLimitScope.STUDENT, userId, studentPolicy);
+        if (wait > 0) {
+            throw new RateLimitExceededException("Too many requests from user with id: " + userId,
+                    toRetryAfterSeconds(wait));
+        }
+
+        wait = store.tryAcquire(RateLimitScope.COURSE, courseId, coursePolicy);
+        if (wait > 0) {
+            store.release(RateLimitScope.STUDENT, userId, studentPolicy);
+            throw new RateLimitExceededException("Too many requests for course with id: " + courseId,
+                    toRetryAfterSeconds(wait));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        store.release(RateLimitScope.STUDENT, userId, studentPolicy);
+                        store.release(RateLimitScope.COURSE, courseId, coursePolicy);
+                    }
+                }
+            });
+        }
+    }
+
+    private RateLimitPolicy policy(String capacityKey, int defaultCapacity, String refillKey, int defaultRefill) {
+        int capacity = configurationService.getInt(capacityKey, defaultCapacity);
+        int refillPerMinute = configurationService.getInt(refillKey, defaultRefill);
+        try {
+            return RateLimitPolicy.of(capacity, refillPerMinute);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid rate limit configuration: " + capacityKey + "=" + capacity
+                    + ", " + refillKey + "=" + refillPerMinute, e);
+        }
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
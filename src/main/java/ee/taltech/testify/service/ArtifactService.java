@@ -0,0 +1,156 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.ArtifactResponseDto;
+import ee.taltech.testify.entity.AutotestArtifact;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.exception.ArtifactNotFoundException;
+import ee.taltech.testify.exception.AutotestJobNotFoundException;
+import ee.taltech.testify.mapper.AutotestArtifactMapper;
+import ee.taltech.testify.repository.AutotestArtifactRepository;
+import ee.taltech.testify.repository.AutotestJobRepository;
+import ee.taltech.testify.service.artifact.ArtifactContent;
+import ee.taltech.testify.service.artifact.ArtifactStore;
+import ee.taltech.testify.service.artifact.StoredBlob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Autotest output (logs, test reports, coverage) kept outside the database. Rows of {@code autotest_artifact} only
+ * reference blobs in the {@link ArtifactStore}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArtifactService {
+    public static final String RETENTION_DAYS = "artifact.retention-days";
+    public static final String GC_GRACE_MINUTES = "artifact.gc-grace-minutes";
+
+    private static final int GC_BATCH_SIZE = 500;
+
+    private final AutotestArtifactRepository autotestArtifactRepository;
+    private final AutotestJobRepository autotestJobRepository;
+    private final AutotestArtifactMapper autotestArtifactMapper;
+    private final ArtifactStore artifactStore;
+    private final ConfigurationService configurationService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Stores an artifact of an autotest job, replacing an earlier artifact with the same name.
+     *
+     * @param jobId the ID of the autotest job
+     * @param name the name of the artifact, e.g. {@code stdout.txt}
+     * @param contentType the media type of the content
+     * @param content the content
+     * @return the stored artifact
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     */
+    @Transactional
+    public ArtifactResponseDto saveArtifact(Integer jobId, String name, String contentType, InputStream content) {
+        AutotestJob job = autotestJobRepository.findById(jobId).orElseThrow(
+                () -> new AutotestJobNotFoundException("No autotest job with id: " + jobId)
+        );
+        StoredBlob blob = artifactStore.store(content);
+
+        AutotestArtifact artifact = autotestArtifactRepository.findByAutotestJobIdAndName(jobId, name)
+                .orElseGet(AutotestArtifact::new);
+        artifact.setAutotestJob(job);
+        artifact.setName(name);
+        artifact.setContentType(contentType);
+        artifact.setContentHash(blob.contentHash());
+        artifact.setSize(blob.size());
+        artifact.setStoredSize(blob.storedSize());
+        artifact.setIsCompressed(blob.compressed());
+        artifact.setCreatedAt(LocalDateTime.now());
+        return autotestArtifactMapper.toDto(autotestArtifactRepository.save(artifact));
+    }
+
+    /**
+     * Retrieves the artifacts of an autotest job.
+     *
+     * @param jobId the ID of the autotest job
+     * @return the artifacts ordered by name
+     */
+    @Transactional(readOnly = true)
+    public List<ArtifactResponseDto> getArtifacts(Integer jobId) {
+        return autotestArtifactMapper.toDtoList(autotestArtifactRepository.findByAutotestJobIdOrderByName(jobId));
+    }
+
+    /**
+     * Retrieves an artifact together with its blob file.
+     *
+     * @param jobId the ID of the autotest job
+     * @param name the name of the artifact
+     * @return the artifact content
+     * @throws ArtifactNotFoundException if the job has no such artifact or its blob is missing
+     */
+    @Transactional(readOnly = true)
+    public ArtifactContent getArtifactContent(Integer jobId, String name) {
+        AutotestArtifact artifact = autotestArtifactRepository.findByAutotestJobIdAndName(jobId, name).orElseThrow(
+                () -> new ArtifactNotFoundException("No artifact " + name + " for autotest job with id: " + jobId)
+        );
+        return new ArtifactContent(autotestArtifactMapper.toDto(artifact),
+                artifactStore.locate(artifact.getContentHash()).orElseThrow(
+                        () -> new ArtifactNotFoundException("Content of artifact " + name + " has been removed")
+                ));
+    }
+
+    /**
+     * Deletes artifacts older than the retention period and then blobs no artifact refers to.
+     * <p>
+     * Only blobs older than the grace period are considered, so a blob stored by a transaction that has not
+     * committed its artifact row yet is never removed. Storing a duplicate refreshes the age of the existing blob,
+     * and the age is checked again under the lock of the store right before deletion, so a blob that is deduplicated
+     * into a new artifact while the collection runs is kept even though its row was not visible yet.
+     */
+    @Scheduled(fixedDelayString = "${testify.artifacts.gc-interval:PT1H}",
+            initialDelayString = "${testify.artifacts.gc-interval:PT1H}")
+    public void collectGarbage() {
+        int retentionDays = configurationService.getInt(RETENTION_DAYS, 180);
+        Integer expired = transactionTemplate.execute(status ->
+                autotestArtifactRepository.deleteCreatedBefore(LocalDateTime.now().minusDays(retentionDays)));
+
+        Instant cutOff = Instant.now().minus(Duration.ofMinutes(configurationService.getInt(GC_GRACE_MINUTES, 60)));
+        List<String> candidates = artifactStore.findBlobsWrittenBefore(cutOff);
+        int removed = 0;
+        for (int from = 0; from < candidates.size(); from += GC_BATCH_SIZE) {
+            List<String> batch = candidates.subList(from, Math.min(from + GC_BATCH_SIZE, candidates.size()));
+            Set<String> referenced = autotestArtifactRepository.findReferencedContentHashes(batch);
+            for (String hash : batch) {
+                if (!referenced.contains(hash) && artifactStore.deleteIfWrittenBefore(hash, cutOff)) {
+                    removed++;
+                }
+            }
+        }
+        log.info("Artifact garbage collection removed {} expired artifacts and {} blobs", expired, removed);
+    }
+}
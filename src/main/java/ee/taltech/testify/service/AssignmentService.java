@@ -0,0 +1,102 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.StudentAssignmentResponseDto;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.AssignmentNotFoundException;
+import ee.taltech.testify.mapper.StudentAssignmentMapper;
+import ee.taltech.testify.repository.AssignmentRepository;
+import ee.taltech.testify.repository.CourseTerm;
+import ee.taltech.testify.repository.SparseProjectionRepository;
+import ee.taltech.testify.repository.StudentAssignmentProjection;
+import ee.taltech.testify.repository.StudentAssignmentRepository;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.projection.SparseFieldset;
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class AssignmentService {
+    private final AssignmentRepository assignmentRepository;
+    private final StudentAssignmentRepository studentAssignmentRepository;
+    private final CourseMembershipIndex courseMembershipIndex;
+    private final SparseProjectionRepository sparseProjectionRepository;
+    private final StudentAssignmentMapper studentAssignmentMapper;
+
+    /**
+     * Retrieves the students enrolled in the assignment's course who have not submitted it.
+     *
+     * @param assignmentId the ID of the assignment
+     * @param user the caller, who must teach the course or be an admin
+     * @return the IDs of the students, in ascending order
+     * @throws AssignmentNotFoundException if no assignment is found for the given ID
+     * @throws AccessDeniedException if the caller does not teach the course
+     */
+    @Transactional(readOnly = true)
+    public List<Integer> getStudentsWithoutSubmission(Integer assignmentId, AuthenticatedUser user) {
+        CourseTerm course = assignmentRepository.findCourseTermById(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+        if (!user.isAdmin() && !courseMembershipIndex.isTeacher(user.userId(), course.courseId())) {
+            throw new AccessDeniedException("Only teachers of the course can list missing submissions");
+        }
+
+        RoaringBitmap submitted = new RoaringBitmap();
+        studentAssignmentRepository.findSubmittedStudentIdsByAssignmentId(assignmentId, course.term())
+                .forEach(submitted::add);
+        return Arrays.stream(courseMembershipIndex.getEnrolledExcept(course.courseId(), submitted).toArray())
+                .boxed().toList();
+    }
+
+    /**
+     * Retrieves the submissions of an assignment.
+     *
+     * @param assignmentId the ID of the assignment
+     * @param fieldset the fields to load
+     * @param user the caller, who must teach the course or be an admin
+     * @return the submissions, in ascending order of ID
+     * @throws AssignmentNotFoundException if no assignment is found for the given ID
+     * @throws AccessDeniedException if the caller does not teach the course
+     */
+    @Transactional(readOnly = true)
+    public List<StudentAssignmentResponseDto> getSubmissions(Integer assignmentId, SparseFieldset fieldset,
+                                                             AuthenticatedUser user) {
+        CourseTerm course = assignmentRepository.findCourseTermById(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+        if (!user.isAdmin() && !courseMembershipIndex.isTeacher(user.userId(), course.courseId())) {
+            throw new AccessDeniedException("Only teachers of the course can list submissions");
+        }
+        return studentAssignmentMapper.toDtoList(sparseProjectionRepository.findAll(StudentAssignment.class,
+                StudentAssignmentProjection.class, fieldset.getFields(),
+                (root, query, cb) -> cb.and(cb.equal(root.get("assignment").get("id"), assignmentId),
+                        cb.equal(root.get("term"), course.term())), Sort.by("id")));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.LoginRequestDto;
+import ee.taltech.testify.dto.LoginResponseDto;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.exception.InvalidCredentialsException;
+import ee.taltech.testify.exception.RateLimitExceededException;
+import ee.taltech.testify.repository.AppUserRepository;
+import ee.taltech.testify.repository.CourseTeacherRepository;
+import ee.taltech.testify.repository.EnrollmentRepository;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.auth.TokenRevocationList;
+import ee.taltech.testify.service.auth.TokenService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class AuthenticationService {
+    private static final String INVALID_CREDENTIALS = "Invalid email or password";
+
+    private final AppUserRepository appUserRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final CourseTeacherRepository courseTeacherRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
+    private final TokenRevocationList tokenRevocationList;
+
+    /**
+     * Verifies password hashes. Both the number of threads and the queue are bounded, so logins beyond the capacity
+     * are rejected instead of piling up.
+     */
+    private final ThreadPoolExecutor passwordHashExecutor;
+
+    /**
+     * Compared against when the email is unknown, so that unknown and known emails take equally long to reject.
+     */
+    private final String dummyHash;
+
+    public AuthenticationService(AppUserRepository appUserRepository, EnrollmentRepository enrollmentRepository,
+                                 CourseTeacherRepository courseTeacherRepository, PasswordEncoder passwordEncoder,
+                                 TokenService tokenService, TokenRevocationList tokenRevocationList,
+                                 @Value("${testify.auth.hash-threads:2}") int hashThreads,
+                                 @Value("${testify.auth.hash-queue-capacity:64}") int hashQueueCapacity) {
+        this.appUserRepository = appUserRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.courseTeacherRepository = courseTeacherRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.tokenService = tokenService;
+        this.tokenRevocationList = tokenRevocationList;
+        this.dummyHash = passwordEncoder.encode("not a password");
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.passwordHashExecutor = new ThreadPoolExecutor(hashThreads, hashThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        passwordHashExecutor.shutdown();
+    }
+
+    /**
+     * Verifies the credentials and issues an access token.
+     * <p>
+     * The user and their course memberships are loaded on the calling thread; the deliberately slow password hash is
+     * verified on a small dedicated executor, so a burst of logins cannot tie up request threads or the CPU.
+     *
+     * @param dto the login request data transfer object containing the credentials
+     * @return the access token, completed exceptionally with {@link InvalidCredentialsException} if the credentials
+     * do not match
+     * @throws RateLimitExceededException if too many logins are already waiting for verification
+     */
+    public CompletableFuture<LoginResponseDto> login(LoginRequestDto dto) {
+        Optional<AppUser> user = appUserRepository.findWithUserRoleByEmail(dto.getEmail());
+        String hash = user.map(AppUser::getHashedPassword).orElse(dummyHash);
+        List<Integer> courseIds = user.map(appUser -> getCourseIds(appUser.getId())).orElse(List.of());
+
+        try {
+            return CompletableFuture.supplyAsync(() -> passwordEncoder.matches(dto.getPassword(), hash),
+                    passwordHashExecutor).thenApply(matches -> {
+                        if (!matches || user.isEmpty()) {
+                            throw new InvalidCredentialsException(INVALID_CREDENTIALS);
+                        }
+                        AppUser appUser = user.get();
+                        return toDto(tokenService.issue(appUser.getId(), appUser.getUserRole().getUserRoleName(),
+                                courseIds));
+                    });
+        } catch (RejectedExecutionException e) {
+            throw new RateLimitExceededException("Too many concurrent logins", 1);
+        }
+    }
+
+    /**
+     * Revokes the token of the current request.
+     *
+     * @param user the caller
+     */
+    public void logout(AuthenticatedUser user) {
+        tokenRevocationList.revoke(user);
+    }
+
+    private List<Integer> getCourseIds(Integer userId) {
+        List<Integer> courseIds = new ArrayList<>(enrollmentRepository.findCourseIdsByStudentId(userId));
+        courseIds.addAll(courseTeacherRepository.findCourseIdsByTeacherId(userId));
+        return courseIds;
+    }
+
+    private static LoginResponseDto toDto(TokenService.IssuedToken issued) {
+        LoginResponseDto dto = new LoginResponseDto();
+        dto.setAccessToken(issued.token());
+        dto.setTokenType("Bearer");
+        dto.setExpiresAt(Instant.ofEpochSecond(issued.user().expiresAt()));
+        dto.setUserId(issued.user().userId());
+        dto.setRole(issued.user().role());
+        dto.setCourseIds(issued.user().courseIds());
+        return dto;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.AutotestJobNotFoundException;
+import ee.taltech.testify.repository.AutotestJobRepository;
+import ee.taltech.testify.repository.SubmissionOwner;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Decides who may report and read the results of an autotest job.
+ * <p>
+ * Results are reported by the autotester workers only; other callers could otherwise grade submissions with reports
+ * of their own. Results, logs and artifacts of a run show the student's code and test output, so they are readable by
+ * the workers, the teachers of the course and, where stated, the student who submitted.
+ */
+@Service
+@RequiredArgsConstructor
+public class AutotestJobAccessService {
+    private final AutotestJobRepository autotestJobRepository;
+    private final CourseMembershipIndex courseMembershipIndex;
+
+    /**
+     * @throws AccessDeniedException if the caller is neither a worker nor an admin
+     */
+    public void requireWorker(AuthenticatedUser user) {
+        if (!isWorker(user)) {
+            throw new AccessDeniedException("Worker role required");
+        }
+    }
+
+    /**
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     * @throws AccessDeniedException if the caller is not a worker, an admin or a teacher of the course
+     */
+    public void requireTeacherOrWorker(Integer jobId, AuthenticatedUser user) {
+        if (!isWorker(user) && !courseMembershipIndex.isTeacher(user.userId(), findOwner(jobId).courseId())) {
+            throw new AccessDeniedException("Only teachers of the course can view the runs of its submissions");
+        }
+    }
+
+    /**
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     * @throws AccessDeniedException if the caller is not a worker, an admin, a teacher of the course or the student
+     *                               who submitted
+     */
+    public void requireOwnerTeacherOrWorker(Integer jobId, AuthenticatedUser user) {
+        if (isWorker(user)) {
+            return;
+        }
+        SubmissionOwner owner = findOwner(jobId);
+        if (owner.studentId() != user.userId() && !courseMembershipIndex.isTeacher(user.userId(), owner.courseId())) {
+            throw new AccessDeniedException("Only the student and teachers of the course can view the run");
+        }
+    }
+
+    private SubmissionOwner findOwner(Integer jobId) {
+        return autotestJobRepository.findSubmissionOwnerById(jobId).orElseThrow(
+                () -> new AutotestJobNotFoundException("No autotest job with id: " + jobId)
+        );
+    }
+
+    private static boolean isWorker(AuthenticatedUser user) {
+        return user.isWorker() || user.isAdmin();
+    }
+}
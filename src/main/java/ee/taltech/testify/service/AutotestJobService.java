@@ -0,0 +1,275 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.AutotestJobRequestDto;
+import ee.taltech.testify.dto.AutotestJobResponseDto;
+import ee.taltech.testify.dto.AutotestQueueDto;
+import ee.taltech.testify.dto.AutotestWorkerDto;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.exception.AutotestJobFinishedException;
+import ee.taltech.testify.exception.AutotestJobNotFoundException;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.exception.StudentAssignmentNotFoundException;
+import ee.taltech.testify.mapper.AutotestJobMapper;
+import ee.taltech.testify.mapper.AutotestWorkerMapper;
+import ee.taltech.testify.repository.AutotestJobRepository;
+import ee.taltech.testify.repository.AutotestWorkerRepository;
+import ee.taltech.testify.repository.StudentAssignmentRepository;
+import ee.taltech.testify.service.logstream.RunLogBroadcaster;
+import ee.taltech.testify.service.scheduling.FairShareScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+public class AutotestJobService {
+    private final AutotestJobRepository autotestJobRepository;
+    private final StudentAssignmentRepository studentAssignmentRepository;
+    private final AutotestJobMapper autotestJobMapper;
+    private final AutotestWorkerRepository autotestWorkerRepository;
+    private final AutotestWorkerMapper autotestWorkerMapper;
+    private final AdmissionControlService admissionControlService;
+    private final FairShareScheduler fairShareScheduler;
+    private final RunLogBroadcaster runLogBroadcaster;
+    private final NotificationService notificationService;
+    private static final String NO_AUTOTEST_JOB_WITH_ID = "No autotest job with id: ";
+
+    /**
+     * Retrieves the autotest job corresponding to the specified ID.
+     *
+     * @param id the ID of the autotest job
+     * @return the autotest job data transfer object (DTO)
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     */
+    @Transactional(readOnly = true)
+    public AutotestJobResponseDto getAutotestJobById(Integer id) {
+        return autotestJobMapper.toDto(autotestJobRepository.findById(id).orElseThrow(
+                () -> new AutotestJobNotFoundException(NO_AUTOTEST_JOB_WITH_ID + id)
+        ));
+    }
+
+    /**
+     * Queues an autotest run of the specified student assignment in the fair-share order the workers claim jobs in.
+     * The submission itself does not change, so the student is not notified of the rerun.
+     *
+     * @param dto the request containing the ID of the student assignment to test
+     * @return the created autotest job
+     * @throws StudentAssignmentNotFoundException if no student assignment is found for the given ID
+     * @throws ee.taltech.testify.exception.RateLimitExceededException if the student or course is over its limit
+     */
+    @Transactional
+    public AutotestJobResponseDto enqueueAutotestJob(AutotestJobRequestDto dto) {
+        StudentAssignment studentAssignment = studentAssignmentRepository.findById(dto.getStudentAssignmentId())
+                .orElseThrow(() -> new StudentAssignmentNotFoundException(
+                        "No student assignment with id: " + dto.getStudentAssignmentId()));
+        return autotestJobMapper.toDto(enqueue(studentAssignment, null));
+    }
+
+    /**
+     * Queues an autotest run of a pushed commit, cancelling the runs of older commits of the same submission. The
+     * student is notified that the submission was received unless the commit has been queued before, e.g. when
+     * GitLab delivers the same push again.
+     *
+     * @param studentAssignmentId the ID of the student assignment
+     * @param commitSha the commit to test
+     * @return the created autotest job
+     * @throws StudentAssignmentNotFoundException if no student assignment is found for the given ID
+     * @throws ee.taltech.testify.exception.RateLimitExceededException if the student or course is over its limit
+     */
+    @Transactional
+    public AutotestJobResponseDto enqueueCommit(Integer studentAssignmentId, String commitSha) {
+        StudentAssignment studentAssignment = studentAssignmentRepository.findById(studentAssignmentId)
+                .orElseThrow(() -> new StudentAssignmentNotFoundException(
+                        "No student assignment with id: " + studentAssignmentId));
+        boolean changed = !autotestJobRepository.existsByStudentAssignmentIdAndCommitSha(studentAssignmentId,
+                commitSha);
+        AutotestJob job = enqueue(studentAssignment, commitSha);
+        cancelSupersededJobs(studentAssignmentId, commitSha);
+        if (changed) {
+            notificationService.submissionReceived(studentAssignment);
+        }
+        return autotestJobMapper.toDto(job);
+    }
+
+    /**
+     * Cancels the queued and running jobs of a submission that test another commit than the given one. Queued jobs
+     * are no longer claimed and the log streams of running jobs end once the transaction commits; workers learn of the
+     * cancellation when their next log append is rejected, and stop the sandbox.
+     *
+     * @param studentAssignmentId the ID of the student assignment
+     * @param commitSha the commit that supersedes the others
+     * @return the number of cancelled jobs
+     */
+    @Transactional
+    public int cancelSupersededJobs(Integer studentAssignmentId, String commitSha) {
+        List<AutotestJob> superseded = autotestJobRepository.findByStudentAssignmentIdAndStatusIn(studentAssignmentId,
+                        List.of(AutotestJobStatus.QUEUED, AutotestJobStatus.RUNNING)).stream()
+                .filter(job -> !commitSha.equals(job.getCommitSha()))
+                .toList();
+        LocalDateTime now = LocalDateTime.now();
+        for (AutotestJob job : superseded) {
+            job.setStatus(AutotestJobStatus.CANCELLED);
+            job.setFinishedAt(now);
+        }
+        if (!superseded.isEmpty()) {
+            List<Integer> ids = superseded.stream().map(AutotestJob::getId).toList();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (Integer id : ids) {
+                        runLogBroadcaster.finish(id, AutotestJobStatus.CANCELLED.name());
+                    }
+                }
+            });
+        }
+        return superseded.size();
+    }
+
+    private AutotestJob enqueue(StudentAssignment studentAssignment, String commitSha) {
+        Assignment assignment = studentAssignment.getAssignment();
+        admissionControlService.admit(studentAssignment.getStudent().getId(), assignment.getCourse().getId());
+
+        AutotestJob job = new AutotestJob();
+        job.setStudentAssignment(studentAssignment);
+        job.setStatus(AutotestJobStatus.QUEUED);
+        job.setEnqueuedAt(LocalDateTime.now());
+        job.setCommitSha(commitSha);
+        job.setFairSharePass(fairShareScheduler.nextPass(assignment, job.getEnqueuedAt()));
+        autotestJobRepository.save(job);
+        return job;
+    }
+
+    /**
+     * Marks a running job as finished and ends its log stream once the transaction commits. The job is locked, so a
+     * worker that finishes late cannot overwrite a cancellation or an earlier result; like
+     * {@link ee.taltech.testify.service.worker.JobLeaseService#finish}, only the worker holding the lease may finish
+     * the job.
+     *
+     * @param id the ID of the autotest job
+     * @param status the final status, one of SUCCEEDED, FAILED or CANCELLED
+     * @param workerId the worker holding the job's lease, or null if the job was not leased
+     * @return the updated autotest job
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     * @throws AutotestJobFinishedException if the job is not running or is leased to another worker
+     * @throws InvalidRequestException if the status is not a final status
+     */
+    @Transactional
+    public AutotestJobResponseDto finishJob(Integer id, AutotestJobStatus status, String workerId) {
+        if (status == AutotestJobStatus.QUEUED || status == AutotestJobStatus.RUNNING) {
+            throw new InvalidRequestException("Not a final status: " + status);
+        }
+        AutotestJob job = autotestJobRepository.findForUpdateById(id).orElseThrow(
+                () -> new AutotestJobNotFoundException(NO_AUTOTEST_JOB_WITH_ID + id)
+        );
+        if (job.getStatus() != AutotestJobStatus.RUNNING) {
+            throw new AutotestJobFinishedException("Autotest job " + id + " is not running: " + job.getStatus());
+        }
+        if (!Objects.equals(job.getWorkerId(), workerId)) {
+            throw new AutotestJobFinishedException("Autotest job " + id + " is not leased to worker " + workerId);
+        }
+        job.setStatus(status);
+        job.setFinishedAt(LocalDateTime.now());
+        job.setLeaseExpiresAt(null);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runLogBroadcaster.finish(id, status.name());
+            }
+        });
+        return autotestJobMapper.toDto(job);
+    }
+
+    /**
+     * Appends output produced by a running job to its live log stream. Output of a finished job is rejected, which
+     * is how a worker learns that its run has been cancelled.
+     *
+     * @param id the ID of the autotest job
+     * @param text the output
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     * @throws AutotestJobFinishedException if the job has finished or been cancelled
+     */
+    public void appendLog(Integer id, String text) {
+        if (runLogBroadcaster.isStreaming(id)) {
+            String status = runLogBroadcaster.getFinalStatus(id);
+            if (status != null) {
+                throw new AutotestJobFinishedException("Autotest job " + id + " has finished: " + status);
+            }
+        } else {
+            AutotestJob job = autotestJobRepository.findById(id).orElseThrow(
+                    () -> new AutotestJobNotFoundException(NO_AUTOTEST_JOB_WITH_ID + id)
+            );
+            if (job.getFinishedAt() != null) {
+                throw new AutotestJobFinishedException("Autotest job " + id + " has finished: " + job.getStatus());
+            }
+        }
+        runLogBroadcaster.append(id, text);
+    }
+
+    /**
+     * Subscribes to the live log of a job. Only the first subscriber of a run causes a database lookup.
+     *
+     * @param id the ID of the autotest job
+     * @param lastEventId the ID of the last event received before reconnecting, or null
+     * @return the SSE emitter streaming the log
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     */
+    public SseEmitter streamLog(Integer id, String lastEventId) {
+        if (!runLogBroadcaster.isStreaming(id)) {
+            AutotestJob job = autotestJobRepository.findById(id).orElseThrow(
+                    () -> new AutotestJobNotFoundException(NO_AUTOTEST_JOB_WITH_ID + id)
+            );
+            if (job.getFinishedAt() != null) {
+                runLogBroadcaster.finish(id, job.getStatus().name());
+            }
+        }
+        return runLogBroadcaster.subscribe(id, lastEventId);
+    }
+
+    /**
+     * Describes the scheduler queue for administrators.
+     *
+     * @return the queue snapshot
+     */
+    public AutotestQueueDto getQueue() {
+        return fairShareScheduler.snapshot();
+    }
+
+    /**
+     * Lists the standalone autotest workers that have sent a heartbeat recently, oldest first.
+     *
+     * @return the workers with their capacity and the number of jobs they are running
+     */
+    @Transactional(readOnly = true)
+    public List<AutotestWorkerDto> getWorkers() {
+        return autotestWorkerMapper.toDtoList(autotestWorkerRepository.findAllByOrderByStartedAt());
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.AutotestShardDto;
+import ee.taltech.testify.dto.AutotestShardsResponseDto;
+import ee.taltech.testify.dto.TestReportResponseDto;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestShard;
+import ee.taltech.testify.exception.AutotestJobNotFoundException;
+import ee.taltech.testify.exception.AutotestShardConflictException;
+import ee.taltech.testify.exception.AutotestShardNotFoundException;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.repository.AutotestJobRepository;
+import ee.taltech.testify.repository.AutotestShardRepository;
+import ee.taltech.testify.service.report.TestCaseResult;
+import ee.taltech.testify.service.report.TestOutcome;
+import ee.taltech.testify.service.report.TestReportFormat;
+import ee.taltech.testify.service.report.TestReportScorer;
+import ee.taltech.testify.service.rubric.RubricSnapshotCache;
+import ee.taltech.testify.service.sharding.PlannedShard;
+import ee.taltech.testify.service.sharding.ShardPlanner;
+import ee.taltech.testify.service.sharding.TestDurationHistory;
+import ee.taltech.testify.service.sharding.TestDurations;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Splits the test suite of an autotest job into shards that run in parallel sandboxes of the assignment's
+ * autotester image, and merges their reports.
+ * <p>
+ * Shards are planned from the recorded test durations of the assignment with {@link ShardPlanner}. Shard 0 runs every
+ * test not assigned to another shard, so tests added since the durations were recorded still run, and the first run
+ * of an assignment, with nothing recorded, is a single shard running the whole suite.
+ * <p>
+ * Each shard's report is streamed into {@code autotest_shard_test} as it is read. The shard that reports last merges
+ * the test cases of all shards in order of class and name, keeping the first result of a test that ran in more than
+ * one shard, so the grade and feedback do not depend on the order in which shards finished. The durations of the
+ * merged run then update the recorded ones, which makes the next split more even.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AutotestShardService {
+    public static final String MAX_SHARDS = "sharding.max-shards";
+    public static final String MIN_SHARD_SECONDS = "sharding.min-shard-seconds";
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int MAX_NAME_LENGTH = 1_000;
+    private static final String NO_AUTOTEST_JOB_WITH_ID = "No autotest job with id: ";
+    private static final long REPORT_CLAIM_TIMEOUT_MINUTES = 15;
+    private static final String DELETE_SHARD_TESTS =
+            "DELETE FROM autotest_shard_test WHERE autotest_job_id = ? AND shard_index = ?";
+
+    private static final String INSERT_TEST = """
+            INSERT INTO autotest_shard_test (autotest_job_id, shard_index, class_name, test_name, outcome,
+                                             duration_millis)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String MERGED_TESTS = """
+            SELECT class_name, test_name, outcome, duration_millis FROM autotest_shard_test
+            WHERE autotest_job_id = ?
+            ORDER BY class_name, test_name, shard_index
+            """;
+
+    private final AutotestJobRepository autotestJobRepository;
+    private final AutotestShardRepository autotestShardRepository;
+    private final RubricSnapshotCache rubricSnapshotCache;
+    private final TestReportService testReportService;
+    private final TestDurationHistory testDurationHistory;
+    private final ConfigurationService configurationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Splits the test suite of a job into shards, or returns the shards if the job has already been split.
+     *
+     * @param jobId the ID of the autotest job
+     * @return the shards, with the image to run them in
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     * @throws ee.taltech.testify.exception.AutotestJobFinishedException if the job has been cancelled
+     */
+    @Transactional
+    public AutotestShardsResponseDto planShards(Integer jobId) {
+        AutotestJob job = autotestJobRepository.findForUpdateById(jobId).orElseThrow(
+                () -> new AutotestJobNotFoundException(NO_AUTOTEST_JOB_WITH_ID + jobId)
+        );
+        TestReportService.requireNotCancelled(job);
+        List<AutotestShard> shards = autotestShardRepository.findByAutotestJobIdOrderByShardIndex(jobId);
+        if (shards.isEmpty()) {
+            Map<String, Long> durations = testDurationHistory.find(job.getStudentAssignment().getAssignment().getId());
+            long totalMillis = durations.values().stream().mapToLong(Long::longValue).sum();
+            int shardCount = ShardPlanner.shardCount(totalMillis, durations.size(),
+                    Math.max(1, configurationService.getInt(MAX_SHARDS, 4)),
+                    configurationService.getInt(MIN_SHARD_SECONDS, 20) * 1000L);
+
+            LocalDateTime now = LocalDateTime.now();
+            shards = new ArrayList<>(shardCount);
+            for (PlannedShard planned : ShardPlanner.plan(durations, shardCount)) {
+                AutotestShard shard = new AutotestShard();
+                shard.setAutotestJob(job);
+                shard.setShardIndex(planned.index());
+                shard.setTestIds(String.join("\n", planned.testIds()));
+                shard.setPredictedMillis(planned.predictedMillis());
+                shard.setCreatedAt(now);
+                shards.add(autotestShardRepository.save(shard));
+            }
+            log.info("Autotest job {} split into {} shards from {} recorded tests, predicted {} ms instead of {} ms",
+                    jobId, shardCount, durations.size(), predictedMillis(shards), totalMillis);
+        }
+        return toDto(job, shards);
+    }
+
+    /**
+     * Describes the shards of a job: their tests, their progress and, once all have reported, the speedup over
+     * running the tests one after another.
+     *
+     * @param jobId the ID of the autotest job
+     * @return the shards, empty if the job has not been split
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     */
+    @Transactional(readOnly = true)
+    public AutotestShardsResponseDto getShards(Integer jobId) {
+        AutotestJob job = autotestJobRepository.findById(jobId).orElseThrow(
+                () -> new AutotestJobNotFoundException(NO_AUTOTEST_JOB_WITH_ID + jobId)
+        );
+        return toDto(job, autotestShardRepository.findByAutotestJobIdOrderByShardIndex(jobId));
+    }
+
+    /**
+     * Stores the test report of one shard. The report is streamed into the database in batches with no transaction
+     * open; only marking the shard as finished, and merging the shards if it was the last one, is transactional. The
+     * shard is claimed before streaming, so that two reports of the same shard cannot write their test cases side by
+     * side; a report that fails gives up its claim, and a claim that is never finished is taken over after
+     * {@value #REPORT_CLAIM_TIMEOUT_MINUTES} minutes.
+     *
+     * @param jobId the ID of the autotest job
+     * @param shardIndex the index of the shard
+     * @param format the format of the report
+     * @param report the report
+     * @return the merged report if this was the last shard to report, otherwise null
+     * @throws AutotestShardNotFoundException if the job has no shard with the given index
+     * @throws AutotestShardConflictException if the shard has already reported or another report is being received
+     * @throws ee.taltech.testify.exception.AutotestJobFinishedException if the job has been cancelled
+     * @throws InvalidRequestException if the report is malformed
+     */
+    public TestReportResponseDto ingestShardReport(Integer jobId, Integer shardIndex, TestReportFormat format,
+                                                   InputStream report) {
+        AutotestShard shard = autotestShardRepository.findByAutotestJobIdAndShardIndex(jobId, shardIndex)
+                .orElseThrow(() -> new AutotestShardNotFoundException(
+                        "No shard " + shardIndex + " of autotest job " + jobId));
+        if (shard.getFinishedAt() != null) {
+            throw alreadyReported(jobId, shardIndex);
+        }
+        String claim = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status -> autotestShardRepository.claim(jobId, shardIndex, claim,
+                now, now.minusMinutes(REPORT_CLAIM_TIMEOUT_MINUTES)));
+        if (claimed == null || claimed == 0) {
+            throw new AutotestShardConflictException("Shard " + shardIndex + " of autotest job " + jobId
+                    + " has already reported or is reporting");
+        }
+
+        try {
+            jdbcTemplate.update(DELETE_SHARD_TESTS, jobId, shardIndex);
+            ShardWriter writer = new ShardWriter(jobId, shardIndex);
+            try {
+                testReportService.parser(format).parse(report, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the test report of shard " + shardIndex
+                        + " of autotest job " + jobId, e);
+            }
+            writer.flush();
+
+            return transactionTemplate.execute(status -> {
+                autotestJobRepository.findForUpdateById(jobId).ifPresent(TestReportService::requireNotCancelled);
+                if (autotestShardRepository.finish(jobId, shardIndex, claim, writer.tests, writer.millis,
+                        LocalDateTime.now()) == 0) {
+                    throw alreadyReported(jobId, shardIndex);
+                }
+                return autotestShardRepository.countByAutotestJobIdAndFinishedAtIsNull(jobId) == 0
+                        ? merge(jobId)
+                        : null;
+            });
+        } catch (RuntimeException e) {
+            release(jobId, shardIndex, claim);
+            throw e;
+        }
+    }
+
+    /**
+     * Gives up the claim of a report that could not be stored, removing the test cases it wrote.
+     */
+    private void release(Integer jobId, Integer shardIndex, String claim) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (autotestShardRepository.release(jobId, shardIndex, claim) > 0) {
+                    jdbcTemplate.update(DELETE_SHARD_TESTS, jobId, shardIndex);
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not release the claim on shard {} of autotest job {}: {}", shardIndex, jobId,
+                    e.getMessage());
+        }
+    }
+
+    private TestReportResponseDto merge(Integer jobId) {
+        AutotestJob job = autotestJobRepository.findWithAssignmentById(jobId).orElseThrow(
+                () -> new AutotestJobNotFoundException(NO_AUTOTEST_JOB_WITH_ID + jobId)
+        );
+        int assignmentId = job.getStudentAssignment().getAssignment().getId();
+        TestReportScorer scorer = new TestReportScorer(rubricSnapshotCache.get(assignmentId).getRules());
+        TestDurations durations = new TestDurations();
+        jdbcTemplate.query(MERGED_TESTS, new MergedTests(scorer.andThen(durations)), jobId);
+        TestReportResponseDto dto = testReportService.grade(job, scorer);
+        jdbcTemplate.update("DELETE FROM autotest_shard_test WHERE autotest_job_id = ?", jobId);
+
+        List<AutotestShard> shards = autotestShardRepository.findByAutotestJobIdOrderByShardIndex(jobId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                testReportService.recordDurations(assignmentId, durations);
+                logSpeedup(jobId, shards);
+            }
+        });
+        return dto;
+    }
+
+    private static void logSpeedup(Integer jobId, List<AutotestShard> shards) {
+        long testMillis = testMillis(shards);
+        long wallClockMillis = wallClockMillis(shards);
+        AutotestShard longest = shards.stream()
+                .max(Comparator.comparing(shard -> Objects.requireNonNullElse(shard.getTestMillis(), 0L)))
+                .orElseThrow();
+        log.info("Autotest job {} ran {} ms of tests in {} shards in {} ms, {}x faster than serially; the longest "
+                        + "shard ran {} ms of tests against {} ms predicted", jobId, testMillis, shards.size(),
+                wallClockMillis, speedup(testMillis, wallClockMillis), longest.getTestMillis(),
+                longest.getPredictedMillis());
+    }
+
+    private static AutotestShardsResponseDto toDto(AutotestJob job, List<AutotestShard> shards) {
+        AutotestShardsResponseDto dto = new AutotestShardsResponseDto();
+        dto.setAutotestJobId(job.getId());
+        if (job.getStudentAssignment().getAssignment().getAutotester() != null) {
+            dto.setDockerImageUrl(job.getStudentAssignment().getAssignment().getAutotester().getDockerImageUrl());
+        }
+        dto.setPredictedMillis(predictedMillis(shards));
+        if (!shards.isEmpty() && shards.stream().allMatch(shard -> shard.getFinishedAt() != null)) {
+            dto.setTestMillis(testMillis(shards));
+            dto.setWallClockMillis(wallClockMillis(shards));
+            dto.setSpeedup(speedup(dto.getTestMillis(), dto.getWallClockMillis()));
+        }
+
+        List<List<String>> testIds = shards.stream().map(AutotestShardService::testIds).toList();
+        List<AutotestShardDto> shardDtos = new ArrayList<>(shards.size());
+        for (AutotestShard shard : shards) {
+            AutotestShardDto shardDto = new AutotestShardDto();
+            shardDto.setShardIndex(shard.getShardIndex());
+            shardDto.setTests(testIds.get(shard.getShardIndex()));
+            shardDto.setExcludedTests(shard.getShardIndex() == 0
+                    ? testIds.stream().skip(1).flatMap(List::stream).sorted().toList()
+                    : List.of());
+            shardDto.setPredictedMillis(shard.getPredictedMillis());
+            shardDto.setReportedTests(shard.getReportedTests());
+            shardDto.setTestMillis(shard.getTestMillis());
+            shardDto.setFinishedAt(shard.getFinishedAt());
+            shardDtos.add(shardDto);
+        }
+        dto.setShards(shardDtos);
+        return dto;
+    }
+
+    private static List<String> testIds(AutotestShard shard) {
+        return shard.getTestIds().isEmpty() ? List.of() : Arrays.asList(shard.getTestIds().split("\n"));
+    }
+
+    /**
+     * @return the predicted wall-clock time, that of the longest shard
+     */
+    private static long predictedMillis(List<AutotestShard> shards) {
+        return shards.stream().mapToLong(AutotestShard::getPredictedMillis).max().orElse(0);
+    }
+
+    private static long testMillis(List<AutotestShard> shards) {
+        return shards.stream().mapToLong(shard -> Objects.requireNonNullElse(shard.getTestMillis(), 0L)).sum();
+    }
+
+    /**
+     * @return the time from splitting the job until the last shard reported
+     */
+    private static long wallClockMillis(List<AutotestShard> shards) {
+        LocalDateTime start = shards.stream().map(AutotestShard::getCreatedAt)
+                .min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime end = shards.stream().map(AutotestShard::getFinishedAt)
+                .max(Comparator.naturalOrder()).orElseThrow();
+        return Duration.between(start, end).toMillis();
+    }
+
+    private static Double speedup(long testMillis, long wallClockMillis) {
+        return wallClockMillis > 0 ? Math.round(100.0 * testMillis / wallClockMillis) / 100.0 : null;
+    }
+
+    private static AutotestShardConflictException alreadyReported(Integer jobId, Integer shardIndex) {
+        return new AutotestShardConflictException("Shard " + shardIndex + " of autotest job " + jobId
+                + " has already reported");
+    }
+
+    private static String truncate(String name) {
+        return name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH) : name;
+    }
+
+    /**
+     * Writes the test cases of a shard's report in batches.
+     */
+    private class ShardWriter implements Consumer<TestCaseResult> {
+        private final int jobId;
+        private final int shardIndex;
+        private final List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        private int tests;
+        private long millis;
+
+        private ShardWriter(int jobId, int shardIndex) {
+            this.jobId = jobId;
+            this.shardIndex = shardIndex;
+        }
+
+        @Override
+        public void accept(TestCaseResult result) {
+            tests++;
+            millis += Math.max(0, result.durationMillis());
+            batch.add(new Object[]{jobId, shardIndex, truncate(result.className()), truncate(result.name()),
+                    result.outcome().name(), result.durationMillis()});
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_TEST, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Passes on the merged test cases, skipping repeated results of a test that ran in more than one shard.
+     */
+    private static class MergedTests implements RowCallbackHandler {
+        private final Consumer<TestCaseResult> results;
+        private String previousClassName;
+        private String previousName;
+
+        private MergedTests(Consumer<TestCaseResult> results) {
+            this.results = results;
+        }
+
+        @Override
+        public void processRow(ResultSet row) throws SQLException {
+            String className = row.getString("class_name");
+            String name = row.getString("test_name");
+            if (className.equals(previousClassName) && name.equals(previousName)) {
+                return;
+            }
+            previousClassName = className;
+            previousName = name;
+            results.accept(new TestCaseResult(className, name, TestOutcome.valueOf(row.getString("outcome")),
+                    row.getLong("duration_millis")));
+        }
+    }
+}
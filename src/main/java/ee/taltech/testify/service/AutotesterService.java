@@ -0,0 +1,65 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.AutotesterCostDto;
+import ee.taltech.testify.dto.AutotesterResponseDto;
+import ee.taltech.testify.entity.Autotester;
+import ee.taltech.testify.mapper.AutotesterMapper;
+import ee.taltech.testify.repository.AutotesterCostRepository;
+import ee.taltech.testify.repository.AutotesterProjection;
+import ee.taltech.testify.repository.SparseProjectionRepository;
+import ee.taltech.testify.service.projection.SparseFieldset;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class AutotesterService {
+    private final SparseProjectionRepository sparseProjectionRepository;
+    private final AutotesterMapper autotesterMapper;
+    private final AutotesterCostRepository autotesterCostRepository;
+
+    /**
+     * Retrieves all autotesters.
+     *
+     * @param fieldset the fields to load
+     * @return the autotesters, in ascending order of ID
+     */
+    @Transactional(readOnly = true)
+    public List<AutotesterResponseDto> getAutotesters(SparseFieldset fieldset) {
+        return autotesterMapper.toDtoList(sparseProjectionRepository.findAll(Autotester.class,
+                AutotesterProjection.class, fieldset.getFields(), null, Sort.by("id")));
+    }
+
+    /**
+     * Retrieves the measured resource use of the autotesters' runs and the cost predicted for their next jobs.
+     *
+     * @return the costs of the autotesters with measured runs, the most CPU-hungry first
+     */
+    @Transactional(readOnly = true)
+    public List<AutotesterCostDto> getCosts() {
+        return autotesterMapper.toCostDtoList(autotesterCostRepository.findAllByOrderByCpuMillicoresDescIdAsc());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.entity.Configuration;
+import ee.taltech.testify.repository.ConfigurationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-through cache over the {@code configuration} table.
+ * <p>
+ * Values are loaded once at startup and refreshed periodically, so lookups on hot paths never touch the database.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConfigurationService {
+    private final ConfigurationRepository configurationRepository;
+    private volatile Map<String, String> values = Map.of();
+
+    /**
+     * Reloads all configuration values from the database.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${testify.configuration.refresh-interval:PT30S}",
+            initialDelayString = "${testify.configuration.refresh-interval:PT30S}")
+    public void refresh() {
+        Map<String, String> loaded = new HashMap<>();
+        for (Configuration configuration : configurationRepository.findAll()) {
+            if (configuration.getConfigValue() != null) {
+                loaded.put(configuration.getConfigKey(), configuration.getConfigValue().trim());
+            }
+        }
+        values = Map.copyOf(loaded);
+    }
+
+    /**
+     * Retrieves the string value of the specified configuration key.
+     *
+     * @param key the configuration key
+     * @param defaultValue the value returned when the key is not configured
+     * @return the configured value or the default value
+     */
+    public String getString(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * Retrieves the integer value of the specified configuration key.
+     *
+     * @param key the configuration key
+     * @param defaultValue the value returned when the key is not configured or is not a valid integer
+     * @return the configured value or the default value
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.warn("Configuration value '{}' of key {} is not an integer, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+}
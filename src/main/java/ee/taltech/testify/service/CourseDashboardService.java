@@ -0,0 +1,205 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.AssignmentDashboardDto;
+import ee.taltech.testify.dto.CourseDashboardDto;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.CourseNotFoundException;
+import ee.taltech.testify.repository.CourseRepository;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.dashboard.AssignmentAverageGrade;
+import ee.taltech.testify.service.dashboard.AssignmentSubmissionCount;
+import ee.taltech.testify.service.dashboard.CourseDashboardQueries;
+import ee.taltech.testify.service.dashboard.DashboardSection;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.membership.MembershipType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Course dashboards for teachers.
+ * <p>
+ * The dashboard is made of independent aggregate queries, which run concurrently on virtual threads so that the
+ * response takes as long as the slowest query rather than all of them together. Every query has the same deadline,
+ * read from {@code dashboard.query-timeout-ms} in the {@code configuration} table, and a statement timeout of the
+ * time left until it when the query starts. A query that misses the deadline is cancelled and not waited for, and a
+ * query that fails is logged; in both cases the rest of the dashboard is still returned with the missing sections
+ * listed as unavailable. The enrollment count comes from {@link CourseMembershipIndex} and needs no
+ * query.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseDashboardService {
+    public static final String QUERY_TIMEOUT = "dashboard.query-timeout-ms";
+
+    private static final int AVERAGE_SCALE = 2;
+
+    private final CourseRepository courseRepository;
+    private final CourseDashboardQueries courseDashboardQueries;
+    private final CourseMembershipIndex courseMembershipIndex;
+    private final ConfigurationService configurationService;
+
+    /**
+     * @param courseId the ID of the course
+     * @param user the caller, who must teach the course or be an admin
+     * @return the dashboard, possibly with some sections unavailable
+     * @throws CourseNotFoundException if the course does not exist
+     * @throws AccessDeniedException if the caller does not teach the course
+     */
+    public CourseDashboardDto getDashboard(Integer courseId, AuthenticatedUser user) {
+        int term = courseRepository.findTermById(courseId).orElseThrow(
+                () -> new CourseNotFoundException("Course not found with id: " + courseId)
+        );
+        if (!user.isAdmin() && !courseMembershipIndex.isTeacher(user.userId(), courseId)) {
+            throw new AccessDeniedException("Only teachers of the course can view its dashboard");
+        }
+        Duration timeout = Duration.ofMillis(configurationService.getInt(QUERY_TIMEOUT, 2000));
+
+        CourseDashboardDto dashboard = new CourseDashboardDto();
+        dashboard.setCourseId(courseId);
+        dashboard.setEnrollmentCount(courseMembershipIndex.getMembers(MembershipType.STUDENT, courseId)
+                .getCardinality());
+        List<DashboardSection> unavailable = new ArrayList<>();
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        // Not closed with try-with-resources, since close() would wait for cancelled queries that ignore interrupts
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Future<List<AssignmentSubmissionCount>> submissions = executor.submit(
+                    () -> courseDashboardQueries.getSubmissionCounts(courseId, term, remaining(deadline)));
+            Future<List<AssignmentAverageGrade>> grades = executor.submit(
+                    () -> courseDashboardQueries.getAverageGrades(courseId, term, remaining(deadline)));
+            Future<Long> ungraded = executor.submit(
+                    () -> courseDashboardQueries.getUngradedCount(courseId, term, remaining(deadline)));
+            Future<Map<AutotestJobStatus, Long>> autotests = executor.submit(
+                    () -> courseDashboardQueries.getAutotestJobCounts(courseId, term, remaining(deadline)));
+
+            List<AssignmentSubmissionCount> submissionCounts =
+                    await(submissions, deadline, DashboardSection.SUBMISSIONS, courseId, unavailable);
+            List<AssignmentAverageGrade> averageGrades =
+                    await(grades, deadline, DashboardSection.GRADES, courseId, unavailable);
+            dashboard.setUngradedCount(await(ungraded, deadline, DashboardSection.UNGRADED, courseId, unavailable));
+            dashboard.setAutotestJobs(await(autotests, deadline, DashboardSection.AUTOTESTS, courseId, unavailable));
+
+            dashboard.setAssignments(toAssignments(submissionCounts, averageGrades));
+            if (averageGrades != null) {
+                dashboard.setAverageGrade(courseAverage(averageGrades));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        dashboard.setUnavailable(unavailable);
+        return dashboard;
+    }
+
+    /**
+     * @return the time left until the deadline, as the statement timeout of a query that starts now
+     * @throws TimeoutException if the deadline passed before the query started
+     */
+    private static Duration remaining(long deadline) throws TimeoutException {
+        long nanos = deadline - System.nanoTime();
+        if (nanos <= 0) {
+            throw new TimeoutException("The dashboard deadline passed before the query started");
+        }
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * Waits for a section until the shared deadline. A section that misses the deadline is cancelled, which
+     * interrupts its thread; the statement timeout of the query makes sure the thread does not outlive the request
+     * by much when the driver ignores interrupts.
+     *
+     * @return the result of the section, or {@code null} if it is unavailable
+     */
+    private <T> T await(Future<T> future, long deadline, DashboardSection section, Integer courseId,
+                        List<DashboardSection> unavailable) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Dashboard section {} of course {} timed out", section, courseId);
+        } catch (ExecutionException e) {
+            log.warn("Dashboard section {} of course {} failed", section, courseId, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        future.cancel(true);
+        unavailable.add(section);
+        return null;
+    }
+
+    private static List<AssignmentDashboardDto> toAssignments(List<AssignmentSubmissionCount> submissionCounts,
+                                                              List<AssignmentAverageGrade> averageGrades) {
+        Map<Integer, AssignmentDashboardDto> assignments = new LinkedHashMap<>();
+        if (submissionCounts != null) {
+            for (AssignmentSubmissionCount count : submissionCounts) {
+                AssignmentDashboardDto assignment = assignments.computeIfAbsent(count.assignmentId(),
+                        CourseDashboardService::newAssignment);
+                assignment.setTitle(count.title());
+                assignment.setSubmissionCount(count.submissions());
+            }
+        }
+        if (averageGrades != null) {
+            for (AssignmentAverageGrade grade : averageGrades) {
+                AssignmentDashboardDto assignment = assignments.computeIfAbsent(grade.assignmentId(),
+                        CourseDashboardService::newAssignment);
+                assignment.setAverageGrade(grade.averageGrade().setScale(AVERAGE_SCALE, RoundingMode.HALF_UP));
+                assignment.setGradedCount(grade.graded());
+            }
+        }
+        return new ArrayList<>(assignments.values());
+    }
+
+    private static AssignmentDashboardDto newAssignment(Integer assignmentId) {
+        AssignmentDashboardDto assignment = new AssignmentDashboardDto();
+        assignment.setAssignmentId(assignmentId);
+        return assignment;
+    }
+
+    /**
+     * @return the average of all graded submissions in the course, or {@code null} if none are graded
+     */
+    private static BigDecimal courseAverage(List<AssignmentAverageGrade> averageGrades) {
+        BigDecimal total = BigDecimal.ZERO;
+        long graded = 0;
+        for (AssignmentAverageGrade grade : averageGrades) {
+            total = total.add(grade.averageGrade().multiply(BigDecimal.valueOf(grade.graded())));
+            graded += grade.graded();
+        }
+        return graded == 0 ? null : total.divide(BigDecimal.valueOf(graded), AVERAGE_SCALE, RoundingMode.HALF_UP);
+    }
+}
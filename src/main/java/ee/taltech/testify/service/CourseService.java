@@ -0,0 +1,143 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.AssignmentResponseDto;
+import ee.taltech.testify.dto.CourseResponseDto;
+import ee.taltech.testify.dto.CourseTermRequestDto;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.CourseNotFoundException;
+import ee.taltech.testify.exception.CourseTermConflictException;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.mapper.AssignmentMapper;
+import ee.taltech.testify.mapper.CourseMapper;
+import ee.taltech.testify.repository.AssignmentProjection;
+import ee.taltech.testify.repository.CourseProjection;
+import ee.taltech.testify.repository.CourseRepository;
+import ee.taltech.testify.repository.SparseProjectionRepository;
+import ee.taltech.testify.repository.StudentAssignmentRepository;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.membership.MembershipType;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import ee.taltech.testify.service.projection.SparseFieldset;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Service
+@RequiredArgsConstructor
+public class CourseService {
+    private static final Sort BY_ID = Sort.by("id");
+
+    private final CourseRepository courseRepository;
+    private final StudentAssignmentRepository studentAssignmentRepository;
+    private final TermPartitionService termPartitionService;
+    private final SparseProjectionRepository sparseProjectionRepository;
+    private final CourseMembershipIndex courseMembershipIndex;
+    private final CourseMapper courseMapper;
+    private final AssignmentMapper assignmentMapper;
+
+    /**
+     * Retrieves the courses the caller teaches or is enrolled in, or every course for admins.
+     *
+     * @param fieldset the fields to load
+     * @param user the caller
+     * @return the courses, in ascending order of ID
+     */
+    @Transactional(readOnly = true)
+    public List<CourseResponseDto> getCourses(SparseFieldset fieldset, AuthenticatedUser user) {
+        Set<Integer> courseIds = null;
+        if (!user.isAdmin()) {
+            courseIds = new TreeSet<>(courseMembershipIndex.getCourseIds(MembershipType.TEACHER, user.userId()));
+            courseIds.addAll(courseMembershipIndex.getCourseIds(MembershipType.STUDENT, user.userId()));
+            if (courseIds.isEmpty()) {
+                return List.of();
+            }
+        }
+        Set<Integer> visible = courseIds;
+        return courseMapper.toDtoList(sparseProjectionRepository.findAll(Course.class, CourseProjection.class,
+                fieldset.getFields(), visible == null ? null : (root, query, cb) -> root.get("id").in(visible),
+                BY_ID));
+    }
+
+    /**
+     * Retrieves the assignments of a course.
+     *
+     * @param courseId the ID of the course
+     * @param fieldset the fields to load
+     * @param user the caller, who must teach or be enrolled in the course, or be an admin
+     * @return the assignments, in ascending order of ID
+     * @throws CourseNotFoundException if no course is found for the given ID
+     * @throws AccessDeniedException if the caller is not a member of the course
+     */
+    @Transactional(readOnly = true)
+    public List<AssignmentResponseDto> getAssignments(Integer courseId, SparseFieldset fieldset,
+                                                      AuthenticatedUser user) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new CourseNotFoundException("Course not found with id: " + courseId);
+        }
+        if (!user.isAdmin() && !courseMembershipIndex.isTeacher(user.userId(), courseId)
+                && !courseMembershipIndex.isEnrolled(user.userId(), courseId)) {
+            throw new AccessDeniedException("Only members of the course can list its assignments");
+        }
+        return assignmentMapper.toDtoList(sparseProjectionRepository.findAll(Assignment.class,
+                AssignmentProjection.class, fieldset.getFields(),
+                (root, query, cb) -> cb.equal(root.get("course").get("id"), courseId), BY_ID));
+    }
+
+    /**
+     * Moves a course to another academic term, e.g. to set up a course for the coming term. The submissions of a
+     * course are stored in the partition of its term, so a course with submissions in another term cannot be moved.
+     *
+     * @param courseId the ID of the course
+     * @param dto the term code
+     * @return the course
+     * @throws CourseNotFoundException if no course is found for the given ID
+     * @throws InvalidRequestException if the term code is not valid
+     * @throws CourseTermConflictException if the course has submissions in another term
+     */
+    @Transactional
+    public CourseResponseDto setTerm(Integer courseId, CourseTermRequestDto dto) {
+        Course course = courseRepository.findById(courseId).orElseThrow(
+                () -> new CourseNotFoundException("Course not found with id: " + courseId)
+        );
+        AcademicTerm term;
+        try {
+            term = new AcademicTerm(dto.getTerm());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage(), e);
+        }
+        if (studentAssignmentRepository.existsByAssignmentCourseIdAndTermNot(courseId, term.code())) {
+            throw new CourseTermConflictException("Course " + courseId + " has submissions outside " + term);
+        }
+        course.setTerm(term.code());
+        courseRepository.flush();
+        termPartitionService.createPartitions();
+        return courseMapper.toDto(course);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.GitlabCommitDto;
+import ee.taltech.testify.dto.GitlabPushEventDto;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.PendingPush;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.exception.InvalidTokenException;
+import ee.taltech.testify.repository.AppUserRepository;
+import ee.taltech.testify.repository.AssignmentRepository;
+import ee.taltech.testify.repository.PendingPushRepository;
+import ee.taltech.testify.repository.StudentAssignmentRepository;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import ee.taltech.testify.service.webhook.StudentRepositoryUrl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Receives push events from GitLab and queues autotest runs for the pushed submissions.
+ * <p>
+ * A push is matched to the autotested assignments of the current term's courses whose autotester's student
+ * repository URL matches the pushed repository and whose student code path it changes, so that a repository reused
+ * across terms creates submissions only in the running course. Runs are not queued right away: the push waits in
+ * {@code pending_push} until no further push has arrived for {@code webhook.debounce-seconds}, but at most
+ * {@code webhook.max-delay-seconds} after the first push, and only the latest commit is then tested by
+ * {@link ee.taltech.testify.service.webhook.PendingPushDispatcher}. Runs of older commits that are still queued or
+ * running are cancelled as soon as the push arrives, freeing their sandboxes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GitlabWebhookService {
+    public static final String DEBOUNCE_SECONDS = "webhook.debounce-seconds";
+    public static final String MAX_DELAY_SECONDS = "webhook.max-delay-seconds";
+
+    private static final String PUSH_EVENT = "Push Hook";
+    private static final String BRANCH_PREFIX = "refs/heads/";
+
+    private final AssignmentRepository assignmentRepository;
+    private final AppUserRepository appUserRepository;
+    private final StudentAssignmentRepository studentAssignmentRepository;
+    private final PendingPushRepository pendingPushRepository;
+    private final CourseMembershipIndex courseMembershipIndex;
+    private final AutotestJobService autotestJobService;
+    private final ConfigurationService configurationService;
+
+    @Value("${testify.webhook.gitlab-secret:}")
+    private String secret;
+
+    /**
+     * Handles a GitLab webhook event. Events other than pushes to the default branch are ignored.
+     *
+     * @param token the secret token GitLab sends with the event
+     * @param event the event type, e.g. {@code Push Hook}
+     * @param push the event
+     * @return the number of submissions the push is pending for
+     * @throws InvalidTokenException if the token is not the configured secret, or no secret is configured
+     */
+    @Transactional
+    public int receivePush(String token, String event, GitlabPushEventDto push) {
+        if (secret.isBlank() || token == null || !MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            throw new InvalidTokenException("Invalid webhook token");
+        }
+        if (!PUSH_EVENT.equals(event) || push.getProject() == null || push.getProject().getWebUrl() == null
+                || push.getAfter() == null || push.getAfter().chars().allMatch(c -> c == '0')) {
+            return 0;
+        }
+        String defaultBranch = push.getProject().getDefaultBranch();
+        if (defaultBranch != null && !(BRANCH_PREFIX + defaultBranch).equals(push.getRef())) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Optional<AppUser>> students = new HashMap<>();
+        int pending = 0;
+        List<Assignment> assignments = assignmentRepository.findAutotestedForRepository(AcademicTerm.current().code(),
+                push.getProject().getWebUrl().trim().toLowerCase(Locale.ROOT));
+        for (Assignment assignment : assignments) {
+            Optional<String> uniId = StudentRepositoryUrl.uniIdOf(assignment.getAutotester().getStudentGitlabUrl(),
+                    push.getProject().getWebUrl());
+            if (uniId.isEmpty() || !changes(push, assignment.getAutotester().getStudentCodePath())) {
+                continue;
+            }
+            Optional<AppUser> student = students.computeIfAbsent(uniId.get(), appUserRepository::findByUniId);
+            if (student.isEmpty() || !courseMembershipIndex.isEnrolled(student.get().getId(),
+                    assignment.getCourse().getId())) {
+                continue;
+            }
+
+            StudentAssignment studentAssignment = studentAssignmentRepository.findByStudentIdAndAssignmentIdAndTerm(
+                    student.get().getId(), assignment.getId(), assignment.getCourse().getTerm()).orElseGet(() -> {
+                        StudentAssignment created = new StudentAssignment();
+                        created.setStudent(student.get());
+                        created.setAssignment(assignment);
+                        return created;
+                    });
+            studentAssignment.setSubmissionUrl(commitUrl(push));
+            studentAssignment.setSubmissionDateTime(now);
+            studentAssignmentRepository.save(studentAssignment);
+
+            debounce(studentAssignment.getId(), push.getAfter(), now);
+            autotestJobService.cancelSupersededJobs(studentAssignment.getId(), push.getAfter());
+            pending++;
+        }
+        log.info("Push of {} to {} is pending for {} submissions", push.getAfter(), push.getProject().getWebUrl(),
+                pending);
+        return pending;
+    }
+
+    private void debounce(Integer studentAssignmentId, String commitSha, LocalDateTime now) {
+        PendingPush pendingPush = pendingPushRepository.findById(studentAssignmentId).orElseGet(() -> {
+            PendingPush created = new PendingPush();
+            created.setStudentAssignmentId(studentAssignmentId);
+            created.setPushes(0);
+            created.setFirstPushedAt(now);
+            return created;
+        });
+        LocalDateTime quiet = now.plusSeconds(configurationService.getInt(DEBOUNCE_SECONDS, 30));
+        LocalDateTime latest = pendingPush.getFirstPushedAt()
+                .plusSeconds(configurationService.getInt(MAX_DELAY_SECONDS, 120));
+        pendingPush.setCommitSha(commitSha);
+        pendingPush.setPushes(pendingPush.getPushes() + 1);
+        pendingPush.setDueAt(quiet.isBefore(latest) ? quiet : latest);
+        pendingPushRepository.save(pendingPush);
+    }
+
+    /**
+     * @return true if the push changes a file under the path; GitLab lists only the newest 20 commits, so a longer
+     * push is assumed to change it
+     */
+    private static boolean changes(GitlabPushEventDto push, String path) {
+        String directory = path.replaceAll("^/+|/+$", "");
+        List<GitlabCommitDto> commits = Objects.requireNonNullElse(push.getCommits(), List.of());
+        if (directory.isEmpty() || push.getTotalCommitsCount() != null
+                && push.getTotalCommitsCount() > commits.size()) {
+            return true;
+        }
+        return commits.stream()
+                .flatMap(commit -> Stream.of(commit.getAdded(), commit.getModified(), commit.getRemoved()))
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .anyMatch(file -> file.equals(directory) || file.startsWith(directory + "/"));
+    }
+
+    private static String commitUrl(GitlabPushEventDto push) {
+        return Objects.requireNonNullElse(push.getCommits(), List.<GitlabCommitDto>of()).stream()
+                .filter(commit -> push.getAfter().equals(commit.getId()) && commit.getUrl() != null)
+                .map(GitlabCommitDto::getUrl)
+                .findFirst()
+                .orElse(push.getProject().getWebUrl() + "/-/commit/" + push.getAfter());
+    }
+}
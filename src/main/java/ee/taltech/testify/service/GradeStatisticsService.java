@@ -0,0 +1,339 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.AssignmentStatisticsDto;
+import ee.taltech.testify.dto.CourseStatisticsDto;
+import ee.taltech.testify.dto.GradeDistributionDto;
+import ee.taltech.testify.dto.GradingElementStatisticsDto;
+import ee.taltech.testify.dto.HistogramBinDto;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.AssignmentNotFoundException;
+import ee.taltech.testify.exception.CourseNotFoundException;
+import ee.taltech.testify.repository.AssignmentRepository;
+import ee.taltech.testify.repository.CourseRepository;
+import ee.taltech.testify.repository.CourseTerm;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.grading.ElementGrade;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.rubric.RubricSnapshot;
+import ee.taltech.testify.service.rubric.RubricSnapshotCache;
+import ee.taltech.testify.service.statistics.GradeSketch;
+import ee.taltech.testify.service.statistics.GradeSketchStore;
+import ee.taltech.testify.service.statistics.Histogram;
+import ee.taltech.testify.service.statistics.PreviousGrades;
+import ee.taltech.testify.service.statistics.TDigest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * The distribution of the grades of assignments and courses, and of the points of grading elements.
+ * <p>
+ * Each assignment keeps a {@link GradeSketch} of its grades and of the points of each of its grading elements. The
+ * sketches are updated with the changes of every batch of saved grades, in the transaction that saves them, and
+ * rebuilt from the grades when they are first needed or have gone stale. Reading statistics therefore costs the
+ * same however many students an assignment has, and the statistics of a course merge the sketches of its
+ * assignments.
+ */
+@Service
+@RequiredArgsConstructor
+public class GradeStatisticsService {
+    private static final double[] PERCENTILES = {0.1, 0.25, 0.5, 0.75, 0.9};
+
+    private final GradeSketchStore gradeSketchStore;
+    private final AssignmentRepository assignmentRepository;
+    private final CourseRepository courseRepository;
+    private final RubricSnapshotCache rubricSnapshotCache;
+    private final CourseMembershipIndex courseMembershipIndex;
+
+    /**
+     * Reads the grades and points that a batch of element grades is about to replace.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public PreviousGrades findPrevious(List<ElementGrade> grades, int term) {
+        return gradeSketchStore.findPrevious(grades.stream()
+                .map(ElementGrade::studentAssignmentId)
+                .collect(Collectors.toCollection(TreeSet::new)), term);
+    }
+
+    /**
+     * Applies a saved batch of element grades to the sketches of the assignment. Locks the assignment until the
+     * transaction ends.
+     *
+     * @param assignmentId the ID of the assignment of every student assignment in the batch
+     * @param term the term of the student assignments
+     * @param previous the grades and points before the batch was saved, see {@link #findPrevious}
+     * @param grades the saved element grades
+     * @param recomputed the grades the batch resulted in, by student assignment ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(int assignmentId, int term, PreviousGrades previous, List<ElementGrade> grades,
+                       Map<Integer, BigDecimal> recomputed) {
+        BigDecimal maxGrade = gradeSketchStore.lockAssignment(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+        RubricSnapshot rubric = rubricSnapshotCache.get(assignmentId);
+        Map<Integer, GradeSketch> sketches = gradeSketchStore.find(assignmentId);
+        if (!sketches.containsKey(GradeSketchStore.GRADE)) {
+            rebuild(assignmentId, term, maxGrade, rubric, sketches.keySet(), allSketchIds(rubric));
+            return;
+        }
+
+        Map<Integer, GradeSketch> changed = new HashMap<>();
+        GradeSketch gradeSketch = sketches.get(GradeSketchStore.GRADE);
+        recomputed.forEach((studentAssignmentId, grade) ->
+                gradeSketch.replace(previous.grades().get(studentAssignmentId), grade));
+        changed.put(GradeSketchStore.GRADE, gradeSketch);
+        Set<Integer> stale = new HashSet<>();
+        for (ElementGrade grade : grades) {
+            GradeSketch sketch = sketches.get(grade.gradingElementId());
+            if (sketch == null) {
+                stale.add(grade.gradingElementId());
+            } else {
+                sketch.replace(previous.points().get(PreviousGrades.key(grade.studentAssignmentId(),
+                        grade.gradingElementId())), grade.points());
+                changed.put(grade.gradingElementId(), sketch);
+            }
+        }
+        changed.forEach((sketchId, sketch) -> {
+            BigDecimal maxPoints = maxPoints(sketchId, maxGrade, rubric);
+            if (maxPoints != null && sketch.isStale(maxPoints)) {
+                stale.add(sketchId);
+            }
+        });
+        stale.removeIf(sketchId -> maxPoints(sketchId, maxGrade, rubric) == null);
+        changed.keySet().removeAll(stale);
+        gradeSketchStore.save(assignmentId, changed, sketches.keySet());
+        rebuild(assignmentId, term, maxGrade, rubric, sketches.keySet(), stale);
+    }
+
+    /**
+     * Drops sketches of the assignment that changes saved without {@link #record} have made inexact, so that they
+     * are rebuilt when next needed. Locks the assignment until the transaction ends.
+     *
+     * @param sketchIds the grading element IDs of the sketches, or {@link GradeSketchStore#GRADE}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void invalidate(int assignmentId, Set<Integer> sketchIds) {
+        gradeSketchStore.lockAssignment(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+        gradeSketchStore.delete(assignmentId, sketchIds);
+    }
+
+    /**
+     * @param assignmentId the ID of the assignment
+     * @param user the caller, who must teach the course or be an admin
+     * @return the distribution of the grades of the assignment and of the points of each of its grading elements,
+     * in ascending order of ID
+     * @throws AssignmentNotFoundException if no assignment is found for the given ID
+     * @throws AccessDeniedException if the caller does not teach the course
+     */
+    @Transactional
+    public AssignmentStatisticsDto getAssignmentStatistics(Integer assignmentId, AuthenticatedUser user) {
+        CourseTerm course = assignmentRepository.findCourseTermById(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+        if (!user.isAdmin() && !courseMembershipIndex.isTeacher(user.userId(), course.courseId())) {
+            throw new AccessDeniedException("Only teachers of the course can view grade statistics");
+        }
+
+        BigDecimal maxGrade = assignmentRepository.findById(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        ).getMaxGrade();
+        RubricSnapshot rubric = rubricSnapshotCache.get(assignmentId);
+        Map<Integer, GradeSketch> sketches = findCurrent(assignmentId, course.term(), maxGrade, rubric);
+
+        AssignmentStatisticsDto dto = new AssignmentStatisticsDto();
+        dto.setAssignmentId(assignmentId);
+        dto.setGrade(toDto(sketches.get(GradeSketchStore.GRADE)));
+        List<GradingElementStatisticsDto> elements = new ArrayList<>(rubric.size());
+        for (int i = 0; i < rubric.size(); i++) {
+            GradingElementStatisticsDto element = new GradingElementStatisticsDto();
+            element.setGradingElementId(rubric.getId(i));
+            element.setPoints(toDto(sketches.get(rubric.getId(i))));
+            elements.add(element);
+        }
+        dto.setGradingElements(elements);
+        return dto;
+    }
+
+    /**
+     * @param courseId the ID of the course
+     * @param user the caller, who must teach the course or be an admin
+     * @return the distribution of the grades of all assignments of the course, as percentages of their maximum
+     * grades
+     * @throws CourseNotFoundException if the course does not exist
+     * @throws AccessDeniedException if the caller does not teach the course
+     */
+    @Transactional
+    public CourseStatisticsDto getCourseStatistics(Integer courseId, AuthenticatedUser user) {
+        int term = courseRepository.findTermById(courseId).orElseThrow(
+                () -> new CourseNotFoundException("Course not found with id: " + courseId)
+        );
+        if (!user.isAdmin() && !courseMembershipIndex.isTeacher(user.userId(), courseId)) {
+            throw new AccessDeniedException("Only teachers of the course can view grade statistics");
+        }
+
+        Map<Integer, BigDecimal> maxGrades = gradeSketchStore.findMaxGrades(courseId);
+        Map<Integer, GradeSketch> sketches = gradeSketchStore.findGradeSketches(courseId);
+        GradeSketch course = new GradeSketch(BigDecimal.valueOf(100));
+        maxGrades.forEach((assignmentId, maxGrade) -> {
+            GradeSketch sketch = sketches.get(assignmentId);
+            if (sketch == null || sketch.isStale(maxGrade)) {
+                sketch = findCurrent(assignmentId, term, maxGrade, rubricSnapshotCache.get(assignmentId))
+                        .get(GradeSketchStore.GRADE);
+            }
+            course.merge(sketch.toPercent());
+        });
+
+        CourseStatisticsDto dto = new CourseStatisticsDto();
+        dto.setCourseId(courseId);
+        dto.setAssignmentCount(maxGrades.size());
+        dto.setGradePercent(toDto(course));
+        return dto;
+    }
+
+    /**
+     * @return the sketches of the assignment, first rebuilding those that are missing or stale
+     */
+    private Map<Integer, GradeSketch> findCurrent(int assignmentId, int term, BigDecimal maxGrade,
+                                                  RubricSnapshot rubric) {
+        Map<Integer, GradeSketch> sketches = gradeSketchStore.find(assignmentId);
+        if (staleSketchIds(sketches, maxGrade, rubric).isEmpty()) {
+            return sketches;
+        }
+        BigDecimal lockedMaxGrade = gradeSketchStore.lockAssignment(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+        sketches = gradeSketchStore.find(assignmentId);
+        sketches.putAll(rebuild(assignmentId, term, lockedMaxGrade, rubric, sketches.keySet(),
+                staleSketchIds(sketches, lockedMaxGrade, rubric)));
+        return sketches;
+    }
+
+    private static Set<Integer> staleSketchIds(Map<Integer, GradeSketch> sketches, BigDecimal maxGrade,
+                                               RubricSnapshot rubric) {
+        Set<Integer> stale = new HashSet<>();
+        for (Integer sketchId : allSketchIds(rubric)) {
+            GradeSketch sketch = sketches.get(sketchId);
+            if (sketch == null || sketch.isStale(maxPoints(sketchId, maxGrade, rubric))) {
+                stale.add(sketchId);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Builds the given sketches of the assignment from its grades and saves them. The assignment must be locked.
+     *
+     * @return the rebuilt sketches
+     */
+    private Map<Integer, GradeSketch> rebuild(int assignmentId, int term, BigDecimal maxGrade, RubricSnapshot rubric,
+                                              Set<Integer> existing, Set<Integer> sketchIds) {
+        Map<Integer, GradeSketch> rebuilt = new HashMap<>();
+        if (sketchIds.isEmpty()) {
+            return rebuilt;
+        }
+        if (sketchIds.contains(GradeSketchStore.GRADE)) {
+            GradeSketch sketch = new GradeSketch(maxGrade);
+            gradeSketchStore.findGrades(assignmentId, term).forEach(sketch::add);
+            rebuilt.put(GradeSketchStore.GRADE, sketch);
+        }
+        Set<Integer> gradingElementIds = new TreeSet<>(sketchIds);
+        gradingElementIds.remove(GradeSketchStore.GRADE);
+        Map<Integer, List<BigDecimal>> points = gradeSketchStore.findPoints(gradingElementIds, term);
+        for (Integer gradingElementId : gradingElementIds) {
+            GradeSketch sketch = new GradeSketch(maxPoints(gradingElementId, maxGrade, rubric));
+            points.getOrDefault(gradingElementId, List.of()).forEach(sketch::add);
+            rebuilt.put(gradingElementId, sketch);
+        }
+        gradeSketchStore.save(assignmentId, rebuilt, existing);
+        return rebuilt;
+    }
+
+    private static Set<Integer> allSketchIds(RubricSnapshot rubric) {
+        Set<Integer> sketchIds = new TreeSet<>();
+        sketchIds.add(GradeSketchStore.GRADE);
+        for (int i = 0; i < rubric.size(); i++) {
+            sketchIds.add(rubric.getId(i));
+        }
+        return sketchIds;
+    }
+
+    /**
+     * @return the upper bound of the histogram of a sketch, or null if the grading element is not in the rubric
+     */
+    private static BigDecimal maxPoints(int sketchId, BigDecimal maxGrade, RubricSnapshot rubric) {
+        if (sketchId == GradeSketchStore.GRADE) {
+            return maxGrade;
+        }
+        int index = rubric.indexOf(sketchId);
+        return index < 0 ? null : rubric.getMaxPoints(index);
+    }
+
+    private static GradeDistributionDto toDto(GradeSketch sketch) {
+        GradeDistributionDto dto = new GradeDistributionDto();
+        dto.setCount(sketch.getCount());
+        dto.setMean(sketch.getMean());
+        TDigest digest = sketch.getDigest();
+        if (sketch.getCount() > 0) {
+            BigDecimal[] percentiles = new BigDecimal[PERCENTILES.length];
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                percentiles[i] = round(digest.quantile(PERCENTILES[i]));
+            }
+            dto.setMin(round(digest.getMin()));
+            dto.setP10(percentiles[0]);
+            dto.setP25(percentiles[1]);
+            dto.setMedian(percentiles[2]);
+            dto.setP75(percentiles[3]);
+            dto.setP90(percentiles[4]);
+            dto.setMax(round(digest.getMax()));
+        }
+        Histogram histogram = sketch.getHistogram();
+        List<HistogramBinDto> bins = new ArrayList<>(histogram.getBinCount());
+        for (int bin = 0; bin < histogram.getBinCount(); bin++) {
+            HistogramBinDto binDto = new HistogramBinDto();
+            binDto.setLower(round(histogram.getLower(bin)));
+            binDto.setUpper(round(histogram.getUpper(bin)));
+            binDto.setCount(histogram.getCount(bin));
+            bins.add(binDto);
+        }
+        dto.setHistogram(bins);
+        return dto;
+    }
+
+    private static BigDecimal round(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.GradeRequestDto;
+import ee.taltech.testify.dto.StudentAssignmentGradeDto;
+import ee.taltech.testify.entity.LatePenaltyPolicy;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.AssignmentNotFoundException;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.repository.AssignmentRepository;
+import ee.taltech.testify.repository.CourseTerm;
+import ee.taltech.testify.repository.GradingElementRepository;
+import ee.taltech.testify.repository.StudentAssignmentRepository;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.grading.ElementGrade;
+import ee.taltech.testify.service.grading.GradeStore;
+import ee.taltech.testify.service.grading.MergeGradeStore;
+import ee.taltech.testify.service.grading.PostgresGradeStore;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.rubric.RubricSnapshot;
+import ee.taltech.testify.service.rubric.RubricSnapshotCache;
+import ee.taltech.testify.service.statistics.PreviousGrades;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GradingService {
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private final DataSource dataSource;
+    private final PostgresGradeStore postgresGradeStore;
+    private final MergeGradeStore mergeGradeStore;
+    private final AssignmentRepository assignmentRepository;
+    private final RubricSnapshotCache rubricSnapshotCache;
+    private final GradeStatisticsService gradeStatisticsService;
+    private final LatePenaltyService latePenaltyService;
+    private final StudentAssignmentRepository studentAssignmentRepository;
+    private final GradingElementRepository gradingElementRepository;
+    private final NotificationService notificationService;
+    private final CourseMembershipIndex courseMembershipIndex;
+
+    private GradeStore gradeStore;
+
+    @PostConstruct
+    void selectGradeStore() throws MetaDataAccessException {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        gradeStore = POSTGRESQL.equals(product) ? postgresGradeStore : mergeGradeStore;
+        log.info("Grading uses {} on {}", gradeStore.getClass().getSimpleName(), product);
+    }
+
+    /**
+     * Saves the points and feedback of many grading elements at once and recomputes the grades of the affected
+     * student assignments, all in one transaction. Existing points of the same grading elements are replaced.
+     * <p>
+     * The whole request is validated before anything is written, so either every grade is saved or none is.
+     *
+     * @param assignmentId the ID of the assignment all grades belong to
+     * @param grades the grades, at most one per student assignment and grading element
+     * @param user the caller, who must teach the course or be an admin
+     * @return the recomputed grade of every affected student assignment, in ascending order of ID
+     * @throws AssignmentNotFoundException if no assignment is found for the given ID
+     * @throws AccessDeniedException if the caller does not teach the course
+     * @throws InvalidRequestException if a grade refers to another assignment, is given twice, exceeds the
+     *                                 maximum points of its grading element, is a late penalty or belongs to a
+     *                                 grading element deleted since the rubric was published
+     */
+    @Transactional
+    public List<StudentAssignmentGradeDto> saveGrades(Integer assignmentId, List<GradeRequestDto> grades,
+                                                      AuthenticatedUser user) {
+        CourseTerm course = assignmentRepository.findCourseTermById(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+        if (!user.isAdmin() && !courseMembershipIndex.isTeacher(user.userId(), course.courseId())) {
+            throw new AccessDeniedException("Only teachers of the course can grade submissions");
+        }
+
+        Map<Integer, BigDecimal> recomputed = saveElementGrades(assignmentId,
+                validate(assignmentId, course.term(), grades), course.term());
+
+        List<StudentAssignmentGradeDto> result = new ArrayList<>(recomputed.size());
+        recomputed.forEach((studentAssignmentId, grade) -> {
+            StudentAssignmentGradeDto dto = new StudentAssignmentGradeDto();
+            dto.setStudentAssignmentId(studentAssignmentId);
+            dto.setGrade(grade);
+            result.add(dto);
+        });
+        return result;
+    }
+
+    /**
+     * Saves element grades that the caller has already checked against their grading elements, such as those
+     * derived from a test report, and recomputes the grades of the affected student assignments. The late penalty
+     * policy of the assignment, if any, is reapplied to them first. The grade statistics of the assignment are
+     * updated with all changes, and the students whose grade changed are notified. Deductions are those of the rubric
+     * the assignment is graded by, together with the late penalty.
+     *
+     * @param assignmentId the ID of the assignment of the student assignments
+     * @param grades the element grades, at most one per student assignment and grading element
+     * @param term the term of the student assignments
+     * @return the recomputed grades by student assignment ID, in ascending order of ID
+     * @throws InvalidRequestException if a grading element of the published rubric has since been deleted
+     */
+    @Transactional
+    public SortedMap<Integer, BigDecimal> saveElementGrades(int assignmentId, List<ElementGrade> grades, int term) {
+        Optional<LatePenaltyPolicy> policy = latePenaltyService.lockPolicy(assignmentId);
+        RubricSnapshot rubric = rubricSnapshotCache.get(assignmentId);
+        requireExisting(assignmentId, rubric, grades);
+        PreviousGrades previous = gradeStatisticsService.findPrevious(grades, term);
+        gradeStore.upsert(grades, term);
+        Set<Integer> studentAssignmentIds = grades.stream()
+                .map(ElementGrade::studentAssignmentId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        List<ElementGrade> changed = grades;
+        if (policy.isPresent()) {
+            changed = new ArrayList<>(grades);
+            changed.addAll(latePenaltyService.applyTo(policy.get(), term, studentAssignmentIds));
+        }
+        Set<Integer> deductionIds = new TreeSet<>(rubric.getDeductionIds());
+        policy.ifPresent(latePenalty -> deductionIds.add(latePenalty.getGradingElementId()));
+        SortedMap<Integer, BigDecimal> recomputed = new TreeMap<>(gradeStore.recomputeGrades(studentAssignmentIds,
+                deductionIds, term));
+        gradeStatisticsService.record(assignmentId, term, previous, changed, recomputed);
+        notifyChangedGrades(term, previous, recomputed);
+        return recomputed;
+    }
+
+    /**
+     * Notifies the students whose grade is new or differs from the one before the grades were saved.
+     */
+    private void notifyChangedGrades(int term, PreviousGrades previous, Map<Integer, BigDecimal> recomputed) {
+        Map<Integer, BigDecimal> changed = new TreeMap<>();
+        recomputed.forEach((studentAssignmentId, grade) -> {
+            BigDecimal before = previous.grades().get(studentAssignmentId);
+            if (grade != null && (before == null || before.compareTo(grade) != 0)) {
+                changed.put(studentAssignmentId, grade);
+            }
+        });
+        notificationService.gradesPublished(term, changed);
+    }
+
+    /**
+     * A published rubric keeps the grading elements deleted after it was published, but their points can no longer
+     * be saved.
+     */
+    private void requireExisting(int assignmentId, RubricSnapshot rubric, List<ElementGrade> grades) {
+        if (!rubric.isPublished()) {
+            return;
+        }
+        Set<Integer> deleted = grades.stream()
+                .map(ElementGrade::gradingElementId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (deleted.isEmpty()) {
+            return;
+        }
+        deleted.removeAll(gradingElementRepository.findExistingIds(deleted));
+        if (!deleted.isEmpty()) {
+            throw new InvalidRequestException("Grading elements " + deleted + " of version " + rubric.getVersion()
+                    + " of the rubric of assignment " + assignmentId + " have been deleted");
+        }
+    }
+
+    private List<ElementGrade> validate(Integer assignmentId, Integer term, List<GradeRequestDto> grades) {
+        RubricSnapshot rubric = rubricSnapshotCache.get(assignmentId);
+        Optional<Integer> penaltyElementId = latePenaltyService.findPenaltyElementId(assignmentId);
+        Set<Long> seen = new HashSet<>();
+        List<ElementGrade> elementGrades = new ArrayList<>(grades.size());
+        for (GradeRequestDto grade : grades) {
+            int element = rubric.indexOf(grade.getGradingElementId());
+            if (element < 0) {
+                throw new InvalidRequestException("Grading element " + grade.getGradingElementId()
+                        + " does not belong to assignment " + assignmentId
+                        + (rubric.isPublished() ? " in version " + rubric.getVersion() + " of its rubric" : ""));
+            }
+            if (penaltyElementId.isPresent() && penaltyElementId.get().equals(grade.getGradingElementId())) {
+                throw new InvalidRequestException("Grading element " + grade.getGradingElementId()
+                        + " holds the late penalties of assignment " + assignmentId + " and cannot be graded");
+            }
+            if (grade.getPoints().compareTo(rubric.getMaxPoints(element)) > 0) {
+                throw new InvalidRequestException("Points " + grade.getPoints() + " of grading element "
+                        + grade.getGradingElementId() + " exceed its maximum of " + rubric.getMaxPoints(element));
+            }
+            if (!seen.add((long) grade.getStudentAssignmentId() << 32 | grade.getGradingElementId())) {
+                throw new InvalidRequestException("Grading element " + grade.getGradingElementId()
+                        + " of student assignment " + grade.getStudentAssignmentId() + " is graded more than once");
+            }
+            elementGrades.add(new ElementGrade(grade.getStudentAssignmentId(), grade.getGradingElementId(),
+                    grade.getPoints(), grade.getFeedback()));
+        }
+
+        Set<Integer> requested = elementGrades.stream()
+                .map(ElementGrade::studentAssignmentId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        requested.removeAll(studentAssignmentRepository.findIdsByAssignmentId(assignmentId, term, requested));
+        if (!requested.isEmpty()) {
+            throw new InvalidRequestException("Student assignments " + requested
+                    + " do not belong to assignment " + assignmentId);
+        }
+        return elementGrades;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.LatePenaltyPolicyRequestDto;
+import ee.taltech.testify.dto.LatePenaltyPolicyResponseDto;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.GradingElement;
+import ee.taltech.testify.entity.LatePenaltyPolicy;
+import ee.taltech.testify.entity.LatePenaltyType;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.AssignmentNotFoundException;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.exception.LatePenaltyPolicyNotFoundException;
+import ee.taltech.testify.repository.AssignmentRepository;
+import ee.taltech.testify.repository.CourseTerm;
+import ee.taltech.testify.repository.GradingElementRepository;
+import ee.taltech.testify.repository.LatePenaltyPolicyRepository;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.grading.ElementGrade;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.penalty.LatePenaltyStore;
+import ee.taltech.testify.service.rubric.RubricSnapshotCache;
+import ee.taltech.testify.service.statistics.GradeSketchStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Late penalties of assignments, awarded as points of a deduction grading element that is created for the policy of
+ * the assignment.
+ * <p>
+ * The penalties of every submission are applied at once when the policy is saved, and again when the deadline of the
+ * assignment passes or moves. Grading reapplies them to the submissions it grades, so a late submission is penalized
+ * as soon as it has a grade, and a {@link LatePenaltyType#CAP} penalty follows the points it caps. Whoever applies
+ * penalties first locks the policy, which keeps bulk applications and grading of the same assignment apart. Students
+ * whose grade a bulk application changes are notified like after grading.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LatePenaltyService {
+    private static final String ELEMENT_NAME = "Late penalty";
+
+    private final LatePenaltyPolicyRepository latePenaltyPolicyRepository;
+    private final LatePenaltyStore latePenaltyStore;
+    private final AssignmentRepository assignmentRepository;
+    private final GradingElementRepository gradingElementRepository;
+    private final GradeStatisticsService gradeStatisticsService;
+    private final RubricSnapshotCache rubricSnapshotCache;
+    private final CourseMembershipIndex courseMembershipIndex;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @param assignmentId the ID of the assignment
+     * @param user the caller, who must teach the course or be an admin
+     * @return the late penalty policy of the assignment
+     * @throws AssignmentNotFoundException if no assignment is found for the given ID
+     * @throws AccessDeniedException if the caller does not teach the course
+     * @throws LatePenaltyPolicyNotFoundException if the assignment has no late penalty policy
+     */
+    @Transactional(readOnly = true)
+    public LatePenaltyPolicyResponseDto getPolicy(Integer assignmentId, AuthenticatedUser user) {
+        CourseTerm course = authorize(assignmentId, user);
+        LatePenaltyPolicy policy = latePenaltyPolicyRepository.findById(assignmentId).orElseThrow(
+                () -> new LatePenaltyPolicyNotFoundException("No late penalty policy for assignment: " + assignmentId)
+        );
+        return toDto(policy, course.term());
+    }
+
+    /**
+     * Sets the late penalty policy of the assignment and applies it to every graded submission, creating the
+     * deduction grading element of the penalties with the first policy.
+     *
+     * @param assignmentId the ID of the assignment
+     * @param dto the policy
+     * @param user the caller, who must teach the course or be an admin
+     * @return the saved policy
+     * @throws AssignmentNotFoundException if no assignment is found for the given ID
+     * @throws AccessDeniedException if the caller does not teach the course
+     * @throws InvalidRequestException if the policy lacks the step or the maximum its type needs
+     */
+    @Transactional
+    public LatePenaltyPolicyResponseDto savePolicy(Integer assignmentId, LatePenaltyPolicyRequestDto dto,
+                                                   AuthenticatedUser user) {
+        CourseTerm course = authorize(assignmentId, user);
+        if (dto.getPenaltyType() == LatePenaltyType.STEPPED && dto.getStepHours() == null) {
+            throw new InvalidRequestException("A STEPPED late penalty needs step hours");
+        }
+        if (dto.getPenaltyType() != LatePenaltyType.CAP && dto.getMaxPercent() == null) {
+            throw new InvalidRequestException("A " + dto.getPenaltyType() + " late penalty needs a max percent");
+        }
+        Assignment assignment = assignmentRepository.findById(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+
+        LatePenaltyPolicy policy = latePenaltyPolicyRepository.findForUpdateByAssignmentId(assignmentId)
+                .orElseGet(() -> {
+                    GradingElement element = new GradingElement();
+                    element.setAssignment(assignment);
+                    element.setElementName(ELEMENT_NAME);
+                    element.setMaxPoints(BigDecimal.ZERO);
+                    element.setIsDeduction(true);
+                    LatePenaltyPolicy created = new LatePenaltyPolicy();
+                    created.setAssignmentId(assignmentId);
+                    created.setGradingElementId(gradingElementRepository.save(element).getId());
+                    return created;
+                });
+        policy.setPenaltyType(dto.getPenaltyType());
+        policy.setPercent(dto.getPercent());
+        policy.setStepHours(dto.getPenaltyType() == LatePenaltyType.STEPPED ? dto.getStepHours() : null);
+        policy.setMaxPercent(dto.getPenaltyType() == LatePenaltyType.CAP ? null : dto.getMaxPercent());
+        policy.setUpdatedAt(LocalDateTime.now());
+        LatePenaltyPolicy saved = latePenaltyPolicyRepository.save(policy);
+        apply(saved, assignment, course.term());
+        return toDto(saved, course.term());
+    }
+
+    @Scheduled(fixedDelayString = "${testify.late-penalty.apply-interval:PT1M}")
+    public void applyDue() {
+        applyDue(LocalDateTime.now());
+    }
+
+    /**
+     * Applies the penalties of every assignment whose deadline has passed since they were last applied, or has
+     * moved. Every node runs this, so each policy is checked again once it is locked, and skipped if another node
+     * has applied it in the meantime.
+     *
+     * @param now the current time
+     * @return the number of assignments whose penalties were applied
+     */
+    public int applyDue(LocalDateTime now) {
+        int applied = 0;
+        for (Integer assignmentId : latePenaltyPolicyRepository.findDue(now)) {
+            try {
+                Boolean due = transactionTemplate.execute(status -> {
+                    LatePenaltyPolicy policy = latePenaltyPolicyRepository.findForUpdateByAssignmentId(assignmentId)
+                            .orElseThrow();
+                    Assignment assignment = assignmentRepository.findById(assignmentId).orElseThrow();
+                    if (!isDue(policy, assignment.getDueDateTime(), now)) {
+                        return false;
+                    }
+                    apply(policy, assignment, assignment.getCourse().getTerm());
+                    return true;
+                });
+                if (Boolean.TRUE.equals(due)) {
+                    applied++;
+                }
+            } catch (RuntimeException e) {
+                log.error("Could not apply the late penalties of assignment {}", assignmentId, e);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * @return whether the penalties are due to be applied, by the same rule as
+     * {@link LatePenaltyPolicyRepository#findDue}
+     */
+    private static boolean isDue(LatePenaltyPolicy policy, LocalDateTime due, LocalDateTime now) {
+        if (due == null) {
+            return policy.getAppliedDueDateTime() != null;
+        }
+        if (policy.getAppliedDueDateTime() != null && !due.equals(policy.getAppliedDueDateTime())) {
+            return true;
+        }
+        return !due.isAfter(now) && (policy.getAppliedAt() == null || policy.getAppliedAt().isBefore(due));
+    }
+
+    /**
+     * Locks the late penalty policy of the assignment until the end of the transaction, before grading it.
+     *
+     * @return the policy, or empty if the assignment has none
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<LatePenaltyPolicy> lockPolicy(int assignmentId) {
+        return latePenaltyPolicyRepository.findForUpdateByAssignmentId(assignmentId);
+    }
+
+    /**
+     * @return the ID of the grading element the late penalties of the assignment are awarded as, or empty if it
+     * has no policy
+     */
+    public Optional<Integer> findPenaltyElementId(int assignmentId) {
+        return latePenaltyPolicyRepository.findGradingElementIdByAssignmentId(assignmentId);
+    }
+
+    /**
+     * Reapplies a locked policy to graded submissions, without recomputing their grades.
+     *
+     * @param policy the policy, locked with {@link #lockPolicy}
+     * @param term the term of the student assignments
+     * @param studentAssignmentIds the submissions
+     * @return the penalty of each submission whose penalty may have changed, with null points for a removed penalty
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<ElementGrade> applyTo(LatePenaltyPolicy policy, int term, Collection<Integer> studentAssignmentIds) {
+        Assignment assignment = assignmentRepository.findById(policy.getAssignmentId()).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + policy.getAssignmentId())
+        );
+        return latePenaltyStore.apply(policy, assignment.getMaxGrade(), assignment.getDueDateTime(), term,
+                rubricSnapshotCache.get(assignment.getId()).getDeductionIds(), studentAssignmentIds);
+    }
+
+    private void apply(LatePenaltyPolicy policy, Assignment assignment, int term) {
+        GradingElement element = gradingElementRepository.findById(policy.getGradingElementId()).orElseThrow();
+        element.setMaxPoints(LatePenaltyStore.maxPercent(policy).multiply(assignment.getMaxGrade())
+                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP));
+        element.setDescription(LatePenaltyStore.description(policy));
+        gradingElementRepository.flush();
+
+        Map<Integer, BigDecimal> changed = latePenaltyStore.apply(policy, assignment.getMaxGrade(),
+                assignment.getDueDateTime(), term, rubricSnapshotCache.get(assignment.getId()).getDeductionIds());
+        notificationService.gradesPublished(term, changed);
+        gradeStatisticsService.invalidate(assignment.getId(), Set.of(GradeSketchStore.GRADE, element.getId()));
+        policy.setAppliedAt(LocalDateTime.now());
+        policy.setAppliedDueDateTime(assignment.getDueDateTime());
+        log.info("Applied the late penalties of assignment {}: {} submissions penalized", assignment.getId(),
+                latePenaltyStore.countPenalized(policy, term));
+    }
+
+    private CourseTerm authorize(Integer assignmentId, AuthenticatedUser user) {
+        CourseTerm course = assignmentRepository.findCourseTermById(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+        if (!user.isAdmin() && !courseMembershipIndex.isTeacher(user.userId(), course.courseId())) {
+            throw new AccessDeniedException("Only teachers of the course can manage its late penalties");
+        }
+        return course;
+    }
+
+    private LatePenaltyPolicyResponseDto toDto(LatePenaltyPolicy policy, int term) {
+        LatePenaltyPolicyResponseDto dto = new LatePenaltyPolicyResponseDto();
+        dto.setAssignmentId(policy.getAssignmentId());
+        dto.setPenaltyType(policy.getPenaltyType());
+        dto.setPercent(policy.getPercent());
+        dto.setStepHours(policy.getStepHours());
+        dto.setMaxPercent(policy.getMaxPercent());
+        dto.setGradingElementId(policy.getGradingElementId());
+        dto.setAppliedAt(policy.getAppliedAt());
+        dto.setPenalizedCount(latePenaltyStore.countPenalized(policy, term));
+        return dto;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.dto.NotificationResponseDto;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.Notification;
+import ee.taltech.testify.entity.NotificationStatus;
+import ee.taltech.testify.entity.NotificationType;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.exception.NotificationNotFoundException;
+import ee.taltech.testify.mapper.NotificationMapper;
+import ee.taltech.testify.repository.NotificationRepository;
+import ee.taltech.testify.repository.StudentAssignmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes e-mail notifications to the transactional outbox. The notification is committed together with the domain
+ * change that caused it and sent later by the
+ * {@link ee.taltech.testify.service.notification.NotificationDispatcher}.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationService {
+    public static final String DIGEST_WINDOW_SECONDS = "notification.digest-window-seconds";
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final NotificationRepository notificationRepository;
+    private final StudentAssignmentRepository studentAssignmentRepository;
+    private final NotificationMapper notificationMapper;
+    private final ConfigurationService configurationService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Notifies the student that their submission was received. Must be called inside the transaction that records
+     * the submission.
+     *
+     * @param studentAssignment the submission
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void submissionReceived(StudentAssignment studentAssignment) {
+        Map<String, String> parameters = assignmentParameters(studentAssignment);
+        parameters.put("receivedAt", LocalDateTime.now().format(DATE_TIME_FORMAT));
+        enqueue(studentAssignment.getStudent(), NotificationType.SUBMISSION_RECEIVED, parameters);
+    }
+
+    /**
+     * Notifies the student that their submission has been graded. Must be called inside the transaction that
+     * publishes the grade.
+     *
+     * @param studentAssignment the graded submission
+     * @param grade the new grade, which the submission may not hold yet if it was saved in bulk
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void gradePublished(StudentAssignment studentAssignment, BigDecimal grade) {
+        Map<String, String> parameters = assignmentParameters(studentAssignment);
+        parameters.put("grade", grade.stripTrailingZeros().toPlainString());
+        parameters.put("maxGrade",
+                studentAssignment.getAssignment().getMaxGrade().stripTrailingZeros().toPlainString());
+        enqueue(studentAssignment.getStudent(), NotificationType.GRADE_PUBLISHED, parameters);
+    }
+
+    /**
+     * Notifies the students of many submissions that they have been graded, e.g. after their grades were recomputed
+     * in bulk. Must be called inside the transaction that publishes the grades.
+     *
+     * @param term the term of the submissions
+     * @param grades the new grade of each submission by student assignment ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void gradesPublished(int term, Map<Integer, BigDecimal> grades) {
+        if (grades.isEmpty()) {
+            return;
+        }
+        for (StudentAssignment studentAssignment
+                : studentAssignmentRepository.findWithStudentAndCourseByIds(term, grades.keySet())) {
+            gradePublished(studentAssignment, grades.get(studentAssignment.getId()));
+        }
+    }
+
+    /**
+     * Retrieves the most recent notifications with the given status, e.g. the dead letters.
+     *
+     * @param status the notification status
+     * @return at most 100 notifications, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<NotificationResponseDto> getNotifications(NotificationStatus status) {
+        return notificationMapper.toDtoList(
+                notificationRepository.findByStatusOrderByCreatedAtDesc(status, PageRequest.of(0, 100)));
+    }
+
+    /**
+     * Puts a notification back into the outbox to be sent again, e.g. after fixing the cause of a dead letter.
+     *
+     * @param id the ID of the notification
+     * @return the notification
+     * @throws NotificationNotFoundException if no notification is found for the given ID
+     */
+    @Transactional
+    public NotificationResponseDto retryNotification(Integer id) {
+        Notification notification = notificationRepository.findById(id).orElseThrow(
+                () -> new NotificationNotFoundException("No notification with id: " + id)
+        );
+        notification.setStatus(NotificationStatus.PENDING);
+        notification.setAttempts(0);
+        notification.setLastError(null);
+        notification.setNextAttemptAt(LocalDateTime.now());
+        return notificationMapper.toDto(notification);
+    }
+
+    /**
+     * Adds a notification to the outbox. It is held back for the digest window so that notifications arriving
+     * shortly after each other reach the student as a single mail; a notification joining a recipient's pending
+     * digest is due at the same time as the digest.
+     */
+    private void enqueue(AppUser recipient, NotificationType type, Map<String, String> parameters) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime due = notificationRepository
+                .findFirstByRecipientIdAndStatusOrderByNextAttemptAtDesc(recipient.getId(), NotificationStatus.PENDING)
+                .map(Notification::getNextAttemptAt)
+                .filter(pending -> pending.isAfter(now))
+                .orElse(now.plusSeconds(configurationService.getInt(DIGEST_WINDOW_SECONDS, 60)));
+
+        Notification notification = new Notification();
+        notification.setRecipient(recipient);
+        notification.setRecipientEmail(recipient.getEmail());
+        notification.setNotificationType(type);
+        notification.setStatus(NotificationStatus.PENDING);
+        notification.setCreatedAt(now);
+        notification.setNextAttemptAt(due);
+        try {
+            notification.setPayload(objectMapper.writeValueAsString(parameters));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize notification parameters", e);
+        }
+        notificationRepository.save(notification);
+    }
+
+    private static Map<String, String> assignmentParameters(StudentAssignment studentAssignment) {
+        Assignment assignment = studentAssignment.getAssignment();
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("firstName", studentAssignment.getStudent().getFirstName());
+        parameters.put("assignmentTitle", assignment.getTitle());
+        parameters.put("courseName", assignment.getCourse().getCourseName());
+        return parameters;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.RubricVersionDto;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.RubricVersion;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.AssignmentNotFoundException;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.repository.AppUserRepository;
+import ee.taltech.testify.repository.AssignmentRepository;
+import ee.taltech.testify.repository.CourseTerm;
+import ee.taltech.testify.repository.GradingRule;
+import ee.taltech.testify.repository.RubricVersionRepository;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.rubric.RubricSnapshot;
+import ee.taltech.testify.service.rubric.RubricSnapshotCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class RubricService {
+    private final AssignmentRepository assignmentRepository;
+    private final AppUserRepository appUserRepository;
+    private final RubricVersionRepository rubricVersionRepository;
+    private final RubricSnapshotCache rubricSnapshotCache;
+    private final CourseMembershipIndex courseMembershipIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Freezes the current grading elements of the assignment as the next version of its rubric. From then on
+     * grading validates points and scores test reports against this version, whatever later happens to the grading
+     * elements, until another version is published.
+     *
+     * @param assignmentId the ID of the assignment
+     * @param user the caller, who must teach the course or be an admin
+     * @return the published version
+     * @throws AssignmentNotFoundException if no assignment is found for the given ID
+     * @throws AccessDeniedException if the caller does not teach the course
+     * @throws InvalidRequestException if the assignment has no grading elements
+     */
+    @Transactional
+    public RubricVersionDto publish(Integer assignmentId, AuthenticatedUser user) {
+        CourseTerm course = assignmentRepository.findCourseTermById(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+        if (!user.isAdmin() && !courseMembershipIndex.isTeacher(user.userId(), course.courseId())) {
+            throw new AccessDeniedException("Only teachers of the course can publish its rubric");
+        }
+        Assignment assignment = assignmentRepository.findForUpdateById(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+
+        RubricSnapshot draft = rubricSnapshotCache.loadDraft(assignmentId);
+        if (draft.size() == 0) {
+            throw new InvalidRequestException("Assignment " + assignmentId + " has no grading elements");
+        }
+        int version = rubricVersionRepository.findFirstByAssignmentIdOrderByVersionDesc(assignmentId)
+                .map(RubricVersion::getVersion)
+                .orElse(RubricSnapshot.DRAFT) + 1;
+
+        RubricVersion rubricVersion = new RubricVersion();
+        rubricVersion.setAssignment(assignment);
+        rubricVersion.setVersion(version);
+        rubricVersion.setPublishedAt(LocalDateTime.now());
+        rubricVersion.setPublishedBy(appUserRepository.getReferenceById(user.userId()));
+        rubricVersionRepository.saveAndFlush(rubricVersion);
+
+        RubricSnapshot snapshot = draft.withVersion(version);
+        List<GradingRule> elements = snapshot.toElements();
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO rubric_element (rubric_version_id, grading_element_id, max_points, is_deduction,
+                                                    test_pattern, test_scoring)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """,
+                elements.stream()
+                        .map(element -> new Object[]{rubricVersion.getId(), element.id(), element.maxPoints(),
+                                element.isDeduction(), element.testPattern(), element.testScoring().name()})
+                        .toList());
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rubricSnapshotCache.put(assignmentId, snapshot);
+            }
+        });
+
+        RubricVersionDto dto = new RubricVersionDto();
+        dto.setAssignmentId(assignmentId);
+        dto.setVersion(version);
+        dto.setPublishedAt(rubricVersion.getPublishedAt());
+        dto.setGradingElementCount(snapshot.size());
+        return dto;
+    }
+}
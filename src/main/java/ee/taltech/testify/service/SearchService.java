@@ -0,0 +1,135 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.SearchResponseDto;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.mapper.SearchResultMapper;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.membership.MembershipType;
+import ee.taltech.testify.service.search.LikeSearchStore;
+import ee.taltech.testify.service.search.PostgresSearchStore;
+import ee.taltech.testify.service.search.SearchCursor;
+import ee.taltech.testify.service.search.SearchHit;
+import ee.taltech.testify.service.search.SearchResultType;
+import ee.taltech.testify.service.search.SearchStore;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Search over course descriptions, assignments and feedback.
+ * <p>
+ * On PostgreSQL queries go to the full-text indexes; other databases fall back to {@link LikeSearchStore}. Teachers
+ * search the courses they teach and admins search everything. Page sizes are read from the {@code configuration}
+ * table:
+ * <ul>
+ *     <li>{@code search.page-size} - results per page when the client does not ask for a size</li>
+ *     <li>{@code search.max-page-size} - upper bound for the size asked for by the client</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+    public static final String PAGE_SIZE = "search.page-size";
+    public static final String MAX_PAGE_SIZE = "search.max-page-size";
+
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private final DataSource dataSource;
+    private final PostgresSearchStore postgresSearchStore;
+    private final LikeSearchStore likeSearchStore;
+    private final ConfigurationService configurationService;
+    private final CourseMembershipIndex courseMembershipIndex;
+    private final SearchResultMapper searchResultMapper;
+
+    private SearchStore searchStore;
+
+    @PostConstruct
+    void selectSearchStore() throws MetaDataAccessException {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        searchStore = POSTGRESQL.equals(product) ? postgresSearchStore : likeSearchStore;
+        log.info("Search uses {} on {}", searchStore.getClass().getSimpleName(), product);
+    }
+
+    /**
+     * Searches the records visible to the caller.
+     *
+     * @param query the search terms; quoted phrases, {@code or} and {@code -} exclusions are supported on PostgreSQL
+     * @param types the kinds of records to search, or {@code null} for all
+     * @param cursor the {@code nextCursor} of the previous page, or {@code null} for the first page
+     * @param limit the number of results per page, or {@code null} for the configured default
+     * @param user the caller, who must teach at least one course or be an admin
+     * @return a page of results and the cursor of the next page, which is {@code null} on the last page
+     * @throws InvalidRequestException if the query is blank or too long, the limit is not positive or the cursor
+     *                                 is malformed
+     * @throws AccessDeniedException if the caller teaches no courses
+     */
+    @Transactional(readOnly = true)
+    public SearchResponseDto search(String query, Set<SearchResultType> types, String cursor, Integer limit,
+                                    AuthenticatedUser user) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidRequestException("Search query must not be blank");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidRequestException("Search query must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (limit != null && limit < 1) {
+            throw new InvalidRequestException("Limit must be positive");
+        }
+        int pageSize = Math.min(limit != null ? limit : configurationService.getInt(PAGE_SIZE, 20),
+                configurationService.getInt(MAX_PAGE_SIZE, 100));
+
+        Collection<Integer> courseIds = null;
+        if (!user.isAdmin()) {
+            courseIds = courseMembershipIndex.getCourseIds(MembershipType.TEACHER, user.userId());
+            if (courseIds.isEmpty()) {
+                throw new AccessDeniedException("Only teachers can search");
+            }
+        }
+
+        List<SearchHit> hits = searchStore.search(query.strip(),
+                types == null || types.isEmpty() ? EnumSet.allOf(SearchResultType.class) : types,
+                courseIds, SearchCursor.decode(cursor), pageSize + 1);
+
+        SearchResponseDto response = new SearchResponseDto();
+        if (hits.size() > pageSize) {
+            hits = hits.subList(0, pageSize);
+            response.setNextCursor(hits.get(pageSize - 1).toCursor().encode());
+        }
+        response.setResults(searchResultMapper.toDtoList(hits));
+        return response;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.SimilarPairDto;
+import ee.taltech.testify.dto.SimilarityClusterDto;
+import ee.taltech.testify.dto.SubmissionSignatureDto;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.AssignmentNotFoundException;
+import ee.taltech.testify.exception.AutotestJobFinishedException;
+import ee.taltech.testify.exception.AutotestJobNotFoundException;
+import ee.taltech.testify.repository.AssignmentRepository;
+import ee.taltech.testify.repository.AutotestJobRepository;
+import ee.taltech.testify.repository.CourseTerm;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.similarity.CodeTokenizer;
+import ee.taltech.testify.service.similarity.MinHasher;
+import ee.taltech.testify.service.similarity.SimilarPair;
+import ee.taltech.testify.service.similarity.SubmissionSignatureStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Detects near-duplicate submissions of an assignment.
+ * <p>
+ * Autotest workers upload the source code of each submission they test. The code is tokenized and reduced to a
+ * MinHash signature while it is read, and the signature is compared with the submissions sharing one of its
+ * locality-sensitive hashing buckets, so each upload takes near-constant time however many submissions the
+ * assignment has. Pairs whose estimated similarity reaches {@code similarity.threshold-percent} are kept up to date
+ * as students resubmit, and grouped into clusters for teachers.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SimilarityService {
+    public static final String THRESHOLD_PERCENT = "similarity.threshold-percent";
+
+    private final AutotestJobRepository autotestJobRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionSignatureStore submissionSignatureStore;
+    private final CourseMembershipIndex courseMembershipIndex;
+    private final ConfigurationService configurationService;
+
+    /**
+     * Indexes the source code of the submission an autotest job tests, replacing the code indexed for it before.
+     * No transaction is open while reading the upload.
+     *
+     * @param jobId the ID of the autotest job
+     * @param source the source files of the submission, concatenated, in UTF-8
+     * @return the signature size and the submissions the code is similar to
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     * @throws AutotestJobFinishedException if the job has been cancelled
+     */
+    public SubmissionSignatureDto indexSource(Integer jobId, InputStream source) {
+        AutotestJob job = autotestJobRepository.findWithAssignmentById(jobId).orElseThrow(
+                () -> new AutotestJobNotFoundException("No autotest job with id: " + jobId)
+        );
+        TestReportService.requireNotCancelled(job);
+        MinHasher minHasher = new MinHasher();
+        try {
+            CodeTokenizer.tokenize(new BufferedReader(new InputStreamReader(source, StandardCharsets.UTF_8)),
+                    minHasher);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the source code of autotest job " + jobId, e);
+        }
+
+        int studentAssignmentId = job.getStudentAssignment().getId();
+        double threshold = configurationService.getInt(THRESHOLD_PERCENT, 70) / 100.0;
+        List<SimilarPair> pairs = submissionSignatureStore.save(job.getStudentAssignment().getAssignment().getId(),
+                studentAssignmentId, minHasher.signature(), minHasher.getShingles(), threshold);
+        if (!pairs.isEmpty()) {
+            log.info("Submission {} is similar to {} other submissions", studentAssignmentId, pairs.size());
+        }
+
+        SubmissionSignatureDto dto = new SubmissionSignatureDto();
+        dto.setStudentAssignmentId(studentAssignmentId);
+        dto.setShingles(minHasher.getShingles());
+        dto.setSimilarPairs(pairs.stream().map(SimilarityService::toDto).toList());
+        return dto;
+    }
+
+    /**
+     * Groups the similar submissions of an assignment into clusters: two submissions are in the same cluster if a
+     * chain of similar pairs connects them.
+     *
+     * @param assignmentId the ID of the assignment
+     * @param user the caller, who must teach the course or be an admin
+     * @return the clusters, most similar first; each lists its submissions in ascending order of ID and its pairs
+     * most similar first
+     * @throws AssignmentNotFoundException if no assignment is found for the given ID
+     * @throws AccessDeniedException if the caller does not teach the course
+     */
+    public List<SimilarityClusterDto> getClusters(Integer assignmentId, AuthenticatedUser user) {
+        CourseTerm course = assignmentRepository.findCourseTermById(assignmentId).orElseThrow(
+                () -> new AssignmentNotFoundException("No assignment with id: " + assignmentId)
+        );
+        if (!user.isAdmin() && !courseMembershipIndex.isTeacher(user.userId(), course.courseId())) {
+            throw new AccessDeniedException("Only teachers of the course can view similar submissions");
+        }
+
+        List<SimilarPair> pairs = submissionSignatureStore.findPairs(assignmentId);
+        Map<Integer, Integer> parents = new HashMap<>();
+        for (SimilarPair pair : pairs) {
+            parents.put(root(parents, pair.studentAssignmentId()), root(parents, pair.otherStudentAssignmentId()));
+        }
+        Map<Integer, List<SimilarPair>> pairsByCluster = new TreeMap<>();
+        for (SimilarPair pair : pairs) {
+            pairsByCluster.computeIfAbsent(root(parents, pair.studentAssignmentId()), root -> new ArrayList<>())
+                    .add(pair);
+        }
+
+        List<SimilarityClusterDto> clusters = new ArrayList<>();
+        pairsByCluster.values().forEach(clusterPairs -> {
+            clusterPairs.sort(Comparator.comparingDouble(SimilarPair::similarity).reversed()
+                    .thenComparingInt(SimilarPair::studentAssignmentId)
+                    .thenComparingInt(SimilarPair::otherStudentAssignmentId));
+            SimilarityClusterDto cluster = new SimilarityClusterDto();
+            cluster.setMaxSimilarity(clusterPairs.get(0).similarity());
+            cluster.setStudentAssignmentIds(clusterPairs.stream()
+                    .flatMap(pair -> Stream.of(pair.studentAssignmentId(), pair.otherStudentAssignmentId()))
+                    .distinct()
+                    .sorted()
+                    .toList());
+            cluster.setPairs(clusterPairs.stream().map(SimilarityService::toDto).toList());
+            clusters.add(cluster);
+        });
+        clusters.sort(Comparator.comparingDouble(SimilarityClusterDto::getMaxSimilarity).reversed());
+        return clusters;
+    }
+
+    private static int root(Map<Integer, Integer> parents, int id) {
+        int root = id;
+        Integer parent;
+        while ((parent = parents.get(root)) != null && parent != root) {
+            root = parent;
+        }
+        while (id != root) {
+            int next = parents.put(id, root);
+            id = next;
+        }
+        return root;
+    }
+
+    private static SimilarPairDto toDto(SimilarPair pair) {
+        SimilarPairDto dto = new SimilarPairDto();
+        dto.setStudentAssignmentId(pair.studentAssignmentId());
+        dto.setOtherStudentAssignmentId(pair.otherStudentAssignmentId());
+        dto.setSimilarity(pair.similarity());
+        return dto;
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.TermArchiveDto;
+import ee.taltech.testify.entity.TermArchive;
+import ee.taltech.testify.exception.TermArchiveConflictException;
+import ee.taltech.testify.exception.TermArchiveNotFoundException;
+import ee.taltech.testify.mapper.TermArchiveMapper;
+import ee.taltech.testify.repository.CourseRepository;
+import ee.taltech.testify.repository.TermArchiveRepository;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import ee.taltech.testify.service.partition.CsvArchive;
+import ee.taltech.testify.service.partition.PartitionedTable;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains the term partitions of {@code student_assignment} and {@code student_grading_element} on PostgreSQL.
+ * <p>
+ * Partitions are created ahead of time for the coming terms, so new rows never land in the default partition. Terms
+ * that have fallen out of the online window are archived: their partitions are detached, exported to a gzipped CSV
+ * file in the archive directory and dropped, which keeps the indexes of the online partitions, and with them the
+ * latency of current-term queries, independent of how much history has accumulated. Autotest jobs, pending pushes
+ * and similarity signatures of the archived submissions are deleted along with them, as they refer to the
+ * submissions by ID only and would otherwise be left dangling. An archived term can be restored on demand, after
+ * which it stays online for a grace period before it is archived again; its autotest history is not restored.
+ * <p>
+ * Every node runs the archive schedule, so archiving and restoring hold a PostgreSQL advisory lock: a node that finds
+ * it taken skips its run, and an archive or restore requested through the API is rejected.
+ * <p>
+ * Settings are read from the {@code configuration} table:
+ * <ul>
+ *     <li>{@code partition.online-terms} - terms kept online, including the current one</li>
+ *     <li>{@code partition.terms-ahead} - future terms to create partitions for</li>
+ *     <li>{@code partition.restored-days} - days a restored term stays online</li>
+ * </ul>
+ * On other databases the tables are not partitioned and this service does nothing.
+ */
+@Slf4j
+@Service
+public class TermPartitionService {
+    public static final String ONLINE_TERMS = "partition.online-terms";
+    public static final String TERMS_AHEAD = "partition.terms-ahead";
+    public static final String RESTORED_DAYS = "partition.restored-days";
+
+    private static final String POSTGRESQL = "PostgreSQL";
+    private static final int FETCH_SIZE = 1_000;
+    private static final String ARCHIVE_SUFFIX = ".csv.gz";
+
+    /**
+     * Key of the advisory lock held while archiving or restoring.
+     */
+    static final long ARCHIVE_LOCK_KEY = 0x7465_7374_6966_7901L;
+
+    private static final String TERM_SUBMISSIONS =
+            "SELECT student_assignment_id FROM student_assignment WHERE term = ?";
+    private static final String TERM_JOBS =
+            "SELECT autotest_job_id FROM autotest_job WHERE student_assignment_id IN (" + TERM_SUBMISSIONS + ")";
+
+    /**
+     * Deletes the rows that refer to the submissions of a term without a foreign key to the partitions, children
+     * first. Signatures take their bands and similar submissions with them.
+     */
+    private static final List<String> PURGE_STATEMENTS = List.of(
+            "DELETE FROM autotest_shard_test WHERE autotest_job_id IN (" + TERM_JOBS + ")",
+            "DELETE FROM autotest_shard WHERE autotest_job_id IN (" + TERM_JOBS + ")",
+            "DELETE FROM autotest_artifact WHERE autotest_job_id IN (" + TERM_JOBS + ")",
+            "DELETE FROM autotest_job WHERE student_assignment_id IN (" + TERM_SUBMISSIONS + ")",
+            "DELETE FROM pending_push WHERE student_assignment_id IN (" + TERM_SUBMISSIONS + ")",
+            "DELETE FROM submission_signature WHERE student_assignment_id IN (" + TERM_SUBMISSIONS + ")");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TermArchiveRepository termArchiveRepository;
+    private final CourseRepository courseRepository;
+    private final ConfigurationService configurationService;
+    private final TermArchiveMapper termArchiveMapper;
+    private final Path archiveDirectory;
+
+    private boolean postgres;
+
+    public TermPartitionService(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate, TermArchiveRepository termArchiveRepository,
+                                CourseRepository courseRepository, ConfigurationService configurationService,
+                                TermArchiveMapper termArchiveMapper,
+                                @Value("${testify.partition.archive-directory}") Path archiveDirectory) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.termArchiveRepository = termArchiveRepository;
+        this.courseRepository = courseRepository;
+        this.configurationService = configurationService;
+        this.termArchiveMapper = termArchiveMapper;
+        this.archiveDirectory = archiveDirectory;
+    }
+
+    @PostConstruct
+    void detectDatabase() throws MetaDataAccessException {
+        postgres = POSTGRESQL.equals(
+                JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+    }
+
+    public List<TermArchiveDto> getArchives() {
+        return termArchiveMapper.toDtoList(termArchiveRepository.findAllByOrderByTermDescTableNameAsc());
+    }
+
+    /**
+     * Creates the partitions of the coming terms and of every online term a course belongs to.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${testify.partition.maintenance-interval:PT6H}",
+            fixedDelayString = "${testify.partition.maintenance-interval:PT6H}")
+    public synchronized void createPartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        AcademicTerm current = AcademicTerm.current();
+        AcademicTerm oldestOnline = current.minus(configurationService.getInt(ONLINE_TERMS, 4) - 1);
+        SortedSet<AcademicTerm> terms = new TreeSet<>();
+        AcademicTerm term = current;
+        for (int i = 0; i <= configurationService.getInt(TERMS_AHEAD, 2); i++) {
+            terms.add(term);
+            term = term.next();
+        }
+        for (Integer code : courseRepository.findAllTerms()) {
+            AcademicTerm courseTerm = new AcademicTerm(code);
+            if (courseTerm.compareTo(oldestOnline) >= 0 && termArchiveRepository
+                    .findByTermAndTableName(code, PartitionedTable.STUDENT_ASSIGNMENT.getTableName()).isEmpty()) {
+                terms.add(courseTerm);
+            }
+        }
+
+        for (AcademicTerm missing : terms) {
+            for (PartitionedTable table : PartitionedTable.values()) {
+                String partition = table.partitionName(missing);
+                if (exists(partition)) {
+                    continue;
+                }
+                try {
+                    jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + table.getTableName()
+                            + " FOR VALUES FROM (" + missing.code() + ") TO (" + (missing.code() + 1) + ")");
+                    log.info("Created partition {}", partition);
+                } catch (DataAccessException e) {
+                    log.error("Could not create partition {}; the default partition probably holds rows of {} "
+                            + "that have to be moved by hand", partition, missing, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Archives every term older than the online window, except terms restored within the grace period.
+     */
+    @Scheduled(cron = "${testify.partition.archive-cron:0 30 3 * * *}")
+    public synchronized void archiveExpiredTerms() {
+        if (!isPartitioned()) {
+            return;
+        }
+        try {
+            withArchiveLock(() -> {
+                archiveExpiredTermsLocked();
+                return null;
+            });
+        } catch (TermArchiveConflictException e) {
+            log.info("Skipping the archive run: {}", e.getMessage());
+        }
+    }
+
+    private void archiveExpiredTermsLocked() {
+        AcademicTerm oldestOnline = AcademicTerm.current().minus(configurationService.getInt(ONLINE_TERMS, 4) - 1);
+        LocalDateTime restoredCutOff = LocalDateTime.now().minusDays(configurationService.getInt(RESTORED_DAYS, 14));
+        for (AcademicTerm term : getAttachedTerms()) {
+            if (term.compareTo(oldestOnline) >= 0) {
+                continue;
+            }
+            boolean recentlyRestored = termArchiveRepository.findByTermOrderByTableName(term.code()).stream()
+                    .anyMatch(archive -> archive.getRestoredAt() != null
+                            && archive.getRestoredAt().isAfter(restoredCutOff));
+            if (!recentlyRestored) {
+                archiveLocked(term);
+            }
+        }
+    }
+
+    /**
+     * Detaches the partitions of a past term, exports them to the archive directory and drops them. The rows that
+     * refer to its submissions are deleted in the same transaction as the detach. A run that was interrupted after
+     * detaching is completed by running it again.
+     *
+     * @param term the term to archive
+     * @return the archives of the term
+     * @throws TermArchiveConflictException if the tables are not partitioned, the term is not over yet or another
+     *                                      node is archiving or restoring
+     * @throws TermArchiveNotFoundException if the term has no partitions
+     */
+    public synchronized List<TermArchiveDto> archive(AcademicTerm term) {
+        requirePartitioned();
+        if (term.compareTo(AcademicTerm.current()) >= 0) {
+            throw new TermArchiveConflictException("Only past terms can be archived, not " + term);
+        }
+        return withArchiveLock(() -> archiveLocked(term));
+    }
+
+    /**
+     * Archives the term; the caller holds the archive lock, so the partitions are looked up only now.
+     */
+    private List<TermArchiveDto> archiveLocked(AcademicTerm term) {
+        List<String> attached = getAttachedPartitions();
+        List<PartitionedTable> tables = new ArrayList<>(List.of(PartitionedTable.values()));
+        if (tables.stream().noneMatch(table -> exists(table.partitionName(term)))) {
+            throw new TermArchiveNotFoundException("No partitions of " + term);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String statement : PURGE_STATEMENTS) {
+                jdbcTemplate.update(statement, term.code());
+            }
+            for (PartitionedTable table : tables.reversed()) {
+                String partition = table.partitionName(term);
+                if (attached.contains(partition)) {
+                    jdbcTemplate.execute("ALTER TABLE " + table.getTableName() + " DETACH PARTITION " + partition);
+                }
+            }
+        });
+
+        for (PartitionedTable table : tables.reversed()) {
+            String partition = table.partitionName(term);
+            if (!exists(partition)) {
+                continue;
+            }
+            TermArchive archive = export(table, term);
+            transactionTemplate.executeWithoutResult(status -> {
+                termArchiveRepository.findByTermAndTableName(term.code(), table.getTableName())
+                        .ifPresent(previous -> {
+                            termArchiveRepository.delete(previous);
+                            termArchiveRepository.flush();
+                        });
+                termArchiveRepository.save(archive);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            });
+            log.info("Archived {} rows of {} to {}", archive.getRowCount(), partition, archive.getFileName());
+        }
+        return termArchiveMapper.toDtoList(termArchiveRepository.findByTermOrderByTableName(term.code()));
+    }
+
+    /**
+     * Loads an archived term back into its partitions, after verifying the archive files.
+     *
+     * @param term the term to restore
+     * @return the archives of the term
+     * @throws TermArchiveConflictException if the tables are not partitioned, the term is online or another node is
+     *                                      archiving or restoring
+     * @throws TermArchiveNotFoundException if the term has not been archived or an archive file is missing
+     */
+    public synchronized List<TermArchiveDto> restore(AcademicTerm term) {
+        requirePartitioned();
+        return withArchiveLock(() -> restoreLocked(term));
+    }
+
+    private List<TermArchiveDto> restoreLocked(AcademicTerm term) {
+        List<TermArchive> archives = termArchiveRepository.findByTermOrderByTableName(term.code());
+        if (archives.isEmpty()) {
+            throw new TermArchiveNotFoundException("No archive of " + term);
+        }
+        for (PartitionedTable table : PartitionedTable.values()) {
+            if (exists(table.partitionName(term))) {
+                throw new TermArchiveConflictException(term + " is online");
+            }
+        }
+
+        for (PartitionedTable table : PartitionedTable.values()) {
+            archives.stream()
+                    .filter(archive -> archive.getTableName().equals(table.getTableName()))
+                    .findFirst()
+                    .ifPresent(archive -> restore(table, term, archive));
+        }
+        return termArchiveMapper.toDtoList(termArchiveRepository.findByTermOrderByTableName(term.code()));
+    }
+
+    /**
+     * Runs the action holding the archive lock. The lock is taken at session level on a connection of its own, which
+     * is kept for as long as the action runs, so it covers the separate transactions of an archive; if the node dies,
+     * the connection is closed and the lock released.
+     *
+     * @throws TermArchiveConflictException if another node holds the lock
+     */
+    private <T> T withArchiveLock(Supplier<T> action) {
+        return jdbcTemplate.execute((ConnectionCallback<T>) connection -> {
+            try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                lock.setLong(1, ARCHIVE_LOCK_KEY);
+                try (ResultSet result = lock.executeQuery()) {
+                    if (!result.next() || !result.getBoolean(1)) {
+                        throw new TermArchiveConflictException("Another node is archiving or restoring terms");
+                    }
+                }
+            }
+            try {
+                return action.get();
+            } finally {
+                try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, ARCHIVE_LOCK_KEY);
+                    unlock.execute();
+                }
+            }
+        });
+    }
+
+    private TermArchive export(PartitionedTable table, AcademicTerm term) {
+        String partition = table.partitionName(term);
+        Path file = archiveDirectory.resolve(partition + ARCHIVE_SUFFIX);
+        Path temporary = archiveDirectory.resolve(partition + ARCHIVE_SUFFIX + ".tmp");
+        try {
+            Files.createDirectories(archiveDirectory);
+            MessageDigest digest = sha256();
+            Long rowCount;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temporary), digest);
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(out),
+                         StandardCharsets.UTF_8))) {
+                // A transaction lets the driver fetch the rows with a cursor instead of all at once
+                rowCount = transactionTemplate.execute(status -> jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement("SELECT "
+                            + String.join(", ", table.getColumns()) + " FROM " + partition
+                            + " ORDER BY " + table.getIdColumn());
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                }, rows -> {
+                    try {
+                        return CsvArchive.write(rows, writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            TermArchive archive = new TermArchive();
+            archive.setTerm(term.code());
+            archive.setTableName(table.getTableName());
+            archive.setFileName(file.getFileName().toString());
+            archive.setRowCount(rowCount);
+            archive.setSha256(HexFormat.of().formatHex(digest.digest()));
+            archive.setArchivedAt(LocalDateTime.now());
+            return archive;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not export " + partition, e);
+        }
+    }
+
+    private void restore(PartitionedTable table, AcademicTerm term, TermArchive archive) {
+        Path file = archiveDirectory.resolve(archive.getFileName());
+        if (!Files.isRegularFile(file)) {
+            throw new TermArchiveNotFoundException("Archive file " + file + " is missing");
+        }
+        String partition = table.partitionName(term);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + table.getTableName()
+                    + " INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING STORAGE)");
+            MessageDigest digest = sha256();
+            long rowCount = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest);
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(in),
+                             StandardCharsets.UTF_8))) {
+                    long count = CsvArchive.insert(reader, connection, partition);
+                    in.transferTo(OutputStream.nullOutputStream());
+                    return count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read " + file, e);
+                }
+            });
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            if (rowCount != archive.getRowCount() || !sha256.equals(archive.getSha256())) {
+                throw new IllegalStateException("Archive file " + file + " does not match its checksum or row count");
+            }
+            jdbcTemplate.execute("ALTER TABLE " + table.getTableName() + " ATTACH PARTITION " + partition
+                    + " FOR VALUES FROM (" + term.code() + ") TO (" + (term.code() + 1) + ")");
+            archive.setRestoredAt(LocalDateTime.now());
+            termArchiveRepository.save(archive);
+        });
+        log.info("Restored {} rows of {} from {}", archive.getRowCount(), partition, archive.getFileName());
+    }
+
+    private List<AcademicTerm> getAttachedTerms() {
+        String prefix = PartitionedTable.STUDENT_ASSIGNMENT.getTableName() + "_t";
+        return getAttachedPartitions().stream()
+                .filter(partition -> partition.startsWith(prefix))
+                .map(partition -> new AcademicTerm(Integer.parseInt(partition.substring(prefix.length()))))
+                .sorted()
+                .toList();
+    }
+
+    private List<String> getAttachedPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname IN (?, ?)
+                """, String.class, PartitionedTable.STUDENT_ASSIGNMENT.getTableName(),
+                PartitionedTable.STUDENT_GRADING_ELEMENT.getTableName());
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                table));
+    }
+
+    private boolean isPartitioned() {
+        return postgres && Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM pg_partitioned_table t JOIN pg_class c ON c.oid = t.partrelid
+                               WHERE c.relname = ?)
+                """, Boolean.class, PartitionedTable.STUDENT_ASSIGNMENT.getTableName()));
+    }
+
+    private void requirePartitioned() {
+        if (!isPartitioned()) {
+            throw new TermArchiveConflictException("Submissions are not partitioned on this database");
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.GradingElementScoreDto;
+import ee.taltech.testify.dto.TestReportResponseDto;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.exception.AutotestJobFinishedException;
+import ee.taltech.testify.exception.AutotestJobNotFoundException;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.repository.AutotestJobRepository;
+import ee.taltech.testify.service.grading.ElementGrade;
+import ee.taltech.testify.service.report.ElementScore;
+import ee.taltech.testify.service.report.JUnitXmlParser;
+import ee.taltech.testify.service.report.TapParser;
+import ee.taltech.testify.service.report.TestReportFormat;
+import ee.taltech.testify.service.report.TestReportParser;
+import ee.taltech.testify.service.report.TestReportScorer;
+import ee.taltech.testify.service.rubric.RubricSnapshotCache;
+import ee.taltech.testify.service.sharding.TestDurationHistory;
+import ee.taltech.testify.service.sharding.TestDurations;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TestReportService {
+    private final AutotestJobRepository autotestJobRepository;
+    private final RubricSnapshotCache rubricSnapshotCache;
+    private final GradingService gradingService;
+    private final JUnitXmlParser junitXmlParser;
+    private final TapParser tapParser;
+    private final TestDurationHistory testDurationHistory;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Grades the submission of an autotest job from its test report. Every grading element of the assignment with a
+     * test pattern is scored from the test cases it selects, and the points are saved in one batch together with the
+     * recomputed grade. The durations of the test cases are recorded for sharding later runs.
+     * <p>
+     * The report is scored while it is being read and never held in memory as a whole. No transaction is open while
+     * reading, since an upload can take a while; only the final write is transactional. The job is locked and checked
+     * again before the write, so that the report of a job cancelled or finished in the meantime is not graded.
+     *
+     * @param jobId the ID of the autotest job
+     * @param format the format of the report
+     * @param report the report
+     * @return the counts of the report and the points of each grading element
+     * @throws AutotestJobNotFoundException if no autotest job is found for the given ID
+     * @throws AutotestJobFinishedException if the job is not running
+     * @throws InvalidRequestException if the report is malformed
+     */
+    public TestReportResponseDto ingestReport(Integer jobId, TestReportFormat format, InputStream report) {
+        AutotestJob job = autotestJobRepository.findWithAssignmentById(jobId).orElseThrow(
+                () -> new AutotestJobNotFoundException("No autotest job with id: " + jobId)
+        );
+        requireRunning(job);
+        Integer assignmentId = job.getStudentAssignment().getAssignment().getId();
+        TestReportScorer scorer = new TestReportScorer(rubricSnapshotCache.get(assignmentId).getRules());
+        TestDurations durations = new TestDurations();
+        try {
+            parser(format).parse(report, scorer.andThen(durations));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the test report of autotest job " + jobId, e);
+        }
+
+        TestReportResponseDto dto = transactionTemplate.execute(status -> {
+            requireRunning(autotestJobRepository.findForUpdateById(jobId).orElseThrow(
+                    () -> new AutotestJobNotFoundException("No autotest job with id: " + jobId)
+            ));
+            return grade(job, scorer);
+        });
+        recordDurations(assignmentId, durations);
+        return dto;
+    }
+
+    /**
+     * @throws AutotestJobFinishedException if the job is not running, so that a late report cannot overwrite the
+     *                                      grade of a cancelled, superseded or already finished run
+     */
+    private static void requireRunning(AutotestJob job) {
+        if (job.getStatus() != AutotestJobStatus.RUNNING) {
+            throw new AutotestJobFinishedException("Autotest job " + job.getId() + " is not running: "
+                    + job.getStatus());
+        }
+    }
+
+    /**
+     * @throws AutotestJobFinishedException if the job has been cancelled, so that the report of a superseded commit
+     *                                      cannot overwrite the grade of a newer one
+     */
+    static void requireNotCancelled(AutotestJob job) {
+        if (job.getStatus() == AutotestJobStatus.CANCELLED) {
+            throw new AutotestJobFinishedException("Autotest job " + job.getId() + " has been cancelled");
+        }
+    }
+
+    TestReportParser parser(TestReportFormat format) {
+        return switch (format) {
+            case JUNIT_XML -> junitXmlParser;
+            case TAP -> tapParser;
+        };
+    }
+
+    /**
+     * Saves the points of the grading elements scored from the report of a job.
+     *
+     * @param job the autotest job, with its student assignment and assignment loaded
+     * @param scorer the scorer that every test case of the report went through
+     * @return the counts of the report and the points of each grading element
+     */
+    TestReportResponseDto grade(AutotestJob job, TestReportScorer scorer) {
+        StudentAssignment studentAssignment = job.getStudentAssignment();
+        List<ElementScore> scores = scorer.getScores();
+        TestReportResponseDto dto = new TestReportResponseDto();
+        dto.setAutotestJobId(job.getId());
+        dto.setStudentAssignmentId(studentAssignment.getId());
+        dto.setTests(scorer.getTests());
+        dto.setPassed(scorer.getPassed());
+        dto.setFailed(scorer.getFailed());
+        dto.setSkipped(scorer.getSkipped());
+        dto.setGradingElements(scores.stream().map(TestReportService::toDto).toList());
+        if (scores.isEmpty()) {
+            dto.setGrade(studentAssignment.getGrade());
+        } else {
+            List<ElementGrade> grades = scores.stream()
+                    .map(score -> new ElementGrade(studentAssignment.getId(), score.gradingElementId(),
+                            score.points(), score.feedback()))
+                    .toList();
+            dto.setGrade(gradingService.saveElementGrades(studentAssignment.getAssignment().getId(), grades,
+                    studentAssignment.getTerm()).get(studentAssignment.getId()));
+        }
+        log.info("Autotest job {} reported {} tests, {} passed, {} failed, {} skipped", job.getId(), dto.getTests(),
+                dto.getPassed(), dto.getFailed(), dto.getSkipped());
+        return dto;
+    }
+
+    /**
+     * Records the test durations of a report for splitting later runs into shards. Durations only tune the split,
+     * so a failure to record them is logged and otherwise ignored.
+     */
+    void recordDurations(int assignmentId, TestDurations durations) {
+        try {
+            testDurationHistory.record(assignmentId, durations.getDurations());
+        } catch (DataAccessException e) {
+            log.warn("Could not record the test durations of assignment {}: {}", assignmentId, e.getMessage());
+        }
+    }
+
+    private static GradingElementScoreDto toDto(ElementScore score) {
+        GradingElementScoreDto dto = new GradingElementScoreDto();
+        dto.setGradingElementId(score.gradingElementId());
+        dto.setTests(score.tests());
+        dto.setPassed(score.passed());
+        dto.setPoints(score.points());
+        dto.setFeedback(score.feedback());
+        return dto;
+    }
+}
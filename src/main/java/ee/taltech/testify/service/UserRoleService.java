@@ -25,9 +25,14 @@ import ee.taltech.testify.entity.UserRole;
 import ee.taltech.testify.exception.UserRoleAlreadyExistsException;
 import ee.taltech.testify.exception.UserRoleNotFoundException;
 import ee.taltech.testify.mapper.UserRoleMapper;
+import ee.taltech.testify.repository.AppUserRepository;
 import ee.taltech.testify.repository.UserRoleRepository;
+import ee.taltech.testify.service.auth.TokenService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
@@ -37,6 +42,8 @@ import java.util.Optional;
 public class UserRoleService {
     private final UserRoleRepository userRoleRepository;
     private final UserRoleMapper userRoleMapper;
+    private final AppUserRepository appUserRepository;
+    private final TokenService tokenService;
     private static final String NO_USER_ROLE_WITH_ID = "No user role with id: ";
 
     /**
@@ -46,6 +53,7 @@ public class UserRoleService {
      * @return the user role data transfer object (DTO) containing the user role details
      * @throws UserRoleNotFoundException if no user role is found for the given ID
      */
+    @Transactional(readOnly = true)
     public UserRoleResponseDto getUserRoleById(Integer id) {
         return userRoleMapper.toDto(userRoleRepository.findById(id).orElseThrow(
                 () -> new UserRoleNotFoundException(NO_USER_ROLE_WITH_ID + id)
@@ -59,6 +67,7 @@ public class UserRoleService {
      * @return the user role data transfer object (DTO) containing the user role details
      * @throws UserRoleNotFoundException if no user role is found for the given name
      */
+    @Transactional(readOnly = true)
     public UserRoleResponseDto getUserRoleByName(String name) {
         return userRoleMapper.toDto(userRoleRepository.findByUserRoleName(name).orElseThrow(
                 () -> new UserRoleNotFoundException("No user role with name: " + name)
@@ -70,6 +79,7 @@ public class UserRoleService {
      *
      * @return a list of UserRoleResponseDto containing the details of all user roles
      */
+    @Transactional(readOnly = true)
     public List<UserRoleResponseDto> getUserRoles() {
         return userRoleMapper.toDtoList(userRoleRepository.findAll());
     }
@@ -80,6 +90,7 @@ public class UserRoleService {
      * @param userRole the user role request data transfer object containing details of the user role to be created
      * @return the user role response data transfer object containing the created user role details
      */
+    @Transactional
     public UserRoleResponseDto createUserRole(UserRoleRequestDto userRole) {
         if (userRoleRepository.findByUserRoleName(userRole.getUserRoleName()).isPresent()) {
             throw new UserRoleAlreadyExistsException("User role with name " + userRole.getUserRoleName() +
@@ -90,12 +101,14 @@ public class UserRoleService {
 
     /**
      * Updates an existing user role identified by the specified id with details provided in the userRole request DTO.
+     * Tokens carry the name of the role, so renaming it revokes the tokens of its users once the transaction commits.
      *
      * @param id the ID of the user role to be updated
      * @param userRoleDto the user role request data transfer object containing updated user role details
      * @return the user role response data transfer object containing the updated user role details
      * @throws UserRoleNotFoundException if no user role is found for the given ID
      */
+    @Transactional
     public UserRoleResponseDto updateUserRole(Integer id, UserRoleRequestDto userRoleDto) {
         UserRole userRoleEntity = userRoleRepository.findById(id).orElseThrow(
                 () -> new UserRoleNotFoundException(NO_USER_ROLE_WITH_ID + id)
@@ -107,6 +120,9 @@ public class UserRoleService {
                     " already exists");
         }
 
+        if (!userRoleEntity.getUserRoleName().equals(userRoleDto.getUserRoleName())) {
+            revokeTokens(appUserRepository.findIdsByUserRoleId(id));
+        }
         userRoleMapper.updateUserRoleFromDto(userRoleDto, userRoleEntity);
 
         return userRoleMapper.toDto(userRoleRepository.save(userRoleEntity));
@@ -118,6 +134,7 @@ public class UserRoleService {
      * @param id the ID of the user role to be deleted
      * @throws UserRoleNotFoundException if no user role is found for the given ID
      */
+    @Transactional
     public void deleteUserRole(Integer id) {
         UserRole userRoleEntity = userRoleRepository.findById(id).orElseThrow(
                 () -> new UserRoleNotFoundException(NO_USER_ROLE_WITH_ID + id)
@@ -126,4 +143,16 @@ public class UserRoleService {
         userRoleRepository.delete(userRoleEntity);
     }
 
+    private void revokeTokens(List<Integer> userIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userIds.forEach(tokenService::revokeUser);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userIds.forEach(tokenService::revokeUser);
+            }
+        });
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.UserSuggestionDto;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.mapper.UserSuggestionMapper;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.usersearch.UserSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * User autocomplete for adding students to courses and assigning teachers.
+ * <p>
+ * Clients send a request per keystroke, and several people often type the same prefix, so answers are reused for
+ * identical queries within the debounce window ({@code testify.user-search.debounce}, 2 seconds by default) as long
+ * as no user has changed in the meantime.
+ */
+@Service
+public class UserSearchService {
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private static final int MAX_QUERY_LENGTH = 100;
+    private static final int MAX_RECENT = 1_024;
+
+    private final UserSearchIndex userSearchIndex;
+    private final UserSuggestionMapper userSuggestionMapper;
+    private final long debounceNanos;
+    private final Map<SuggestionKey, RecentSuggestions> recent = new ConcurrentHashMap<>();
+
+    public UserSearchService(UserSearchIndex userSearchIndex, UserSuggestionMapper userSuggestionMapper,
+                             @Value("${testify.user-search.debounce:PT2S}") Duration debounce) {
+        this.userSearchIndex = userSearchIndex;
+        this.userSuggestionMapper = userSuggestionMapper;
+        this.debounceNanos = debounce.toNanos();
+    }
+
+    /**
+     * Suggests users matching what has been typed so far.
+     *
+     * @param query the text typed so far
+     * @param role the role the users must have, or {@code null} for any role
+     * @param limit the maximum number of suggestions, or {@code null} for {@value #DEFAULT_LIMIT}
+     * @param user the caller, who must be a teacher or an admin
+     * @return the best matching users, best match first; empty for a blank query
+     * @throws InvalidRequestException if the query is too long or the limit is outside 1 to {@value #MAX_LIMIT}
+     * @throws AccessDeniedException if the caller is neither a teacher nor an admin
+     */
+    public List<UserSuggestionDto> autocomplete(String query, String role, Integer limit, AuthenticatedUser user) {
+        if (!user.isAdmin() && !user.isTeacher()) {
+            throw new AccessDeniedException("Only teachers can look up users");
+        }
+        if (query != null && query.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidRequestException("Query must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            throw new InvalidRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+
+        SuggestionKey key = new SuggestionKey(query.strip().toLowerCase(Locale.ROOT), role,
+                limit != null ? limit : DEFAULT_LIMIT);
+        long version = userSearchIndex.getVersion();
+        long now = System.nanoTime();
+        RecentSuggestions cached = recent.get(key);
+        if (cached != null && cached.version() == version && now - cached.createdAt() < debounceNanos) {
+            return cached.suggestions();
+        }
+
+        List<UserSuggestionDto> suggestions = userSuggestionMapper.toDtoList(
+                userSearchIndex.search(key.query(), key.role(), key.limit()));
+        if (recent.size() >= MAX_RECENT) {
+            recent.clear();
+        }
+        recent.put(key, new RecentSuggestions(version, now, suggestions));
+        return suggestions;
+    }
+
+    private record SuggestionKey(String query, String role, int limit) {
+    }
+
+    private record RecentSuggestions(long version, long createdAt, List<UserSuggestionDto> suggestions) {
+    }
+}
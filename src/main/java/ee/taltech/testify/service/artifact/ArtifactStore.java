@@ -0,0 +1,254 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.artifact;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed blob storage on the local file system.
+ * <p>
+ * Blobs are named by the SHA-256 of their uncompressed content, so identical output of different runs is stored
+ * once. A blob is kept gzip compressed when that saves at least {@value #MIN_COMPRESSION_GAIN_PERCENT}% of its size.
+ * Blobs are sharded into directories by the first two hex digits of their hash.
+ * <p>
+ * Finding an existing blob when storing and deleting a blob are done under a lock per shard, so that garbage
+ * collection never deletes a blob that has just been stored again.
+ */
+@Component
+public class ArtifactStore {
+    private static final int MIN_COMPRESSION_GAIN_PERCENT = 10;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String TMP_DIRECTORY = "tmp";
+    private static final int SHARDS = 256;
+
+    private final Path root;
+    private final Path tmp;
+
+    /**
+     * Locks rather than monitors, since the file operations they guard block and would pin virtual threads.
+     */
+    private final Lock[] locks = new Lock[SHARDS];
+
+    public ArtifactStore(@Value("${testify.artifacts.directory}") Path root) throws IOException {
+        this.root = root;
+        this.tmp = root.resolve(TMP_DIRECTORY);
+        Files.createDirectories(tmp);
+        for (int i = 0; i < SHARDS; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Stores the given content, unless a blob with the same content already exists.
+     *
+     * @param content the content to store, read until the end but not closed
+     * @return the stored blob
+     * @throws UncheckedIOException if the content cannot be read or written
+     */
+    public StoredBlob store(InputStream content) {
+        Path raw = null;
+        Path gzip = null;
+        try {
+            raw = Files.createTempFile(tmp, "blob", null);
+            gzip = Files.createTempFile(tmp, "blob", GZIP_SUFFIX);
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (OutputStream rawOut = Files.newOutputStream(raw);
+                 OutputStream gzipOut = new GZIPOutputStream(Files.newOutputStream(gzip), BUFFER_SIZE)) {
+                DigestInputStream in = new DigestInputStream(content, digest);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    rawOut.write(buffer, 0, read);
+                    gzipOut.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            Lock lock = lock(hash);
+            lock.lock();
+            try {
+                Optional<Path> existing = locate(hash);
+                if (existing.isPresent()) {
+                    // Refresh the timestamp so that garbage collection treats the blob as new.
+                    Files.setLastModifiedTime(existing.get(), FileTime.from(Instant.now()));
+                    return describe(hash, size, existing.get());
+                }
+
+                boolean compressed = Files.size(gzip) * 100 <= size * (100 - MIN_COMPRESSION_GAIN_PERCENT);
+                Path target = blobPath(hash, compressed);
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(compressed ? gzip : raw, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Stored concurrently with the same content.
+                }
+                return describe(hash, size, target);
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(raw);
+            deleteQuietly(gzip);
+        }
+    }
+
+    /**
+     * Finds the file of the blob with the given hash.
+     *
+     * @param contentHash the content hash of the blob
+     * @return the path of the blob, or empty if it is not stored
+     */
+    public Optional<Path> locate(String contentHash) {
+        for (boolean compressed : new boolean[]{true, false}) {
+            Path path = blobPath(contentHash, compressed);
+            if (Files.exists(path)) {
+                return Optional.of(path);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Lists the hashes of blobs that were last written before the given time.
+     *
+     * @param before the cut-off time
+     * @return the content hashes
+     */
+    public List<String> findBlobsWrittenBefore(Instant before) {
+        List<String> hashes = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file) && !file.getParent().equals(tmp)
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(before)) {
+                    String name = file.getFileName().toString();
+                    hashes.add(name.endsWith(GZIP_SUFFIX)
+                            ? name.substring(0, name.length() - GZIP_SUFFIX.length())
+                            : name);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return hashes;
+    }
+
+    /**
+     * Deletes the blob with the given hash.
+     *
+     * @param contentHash the content hash of the blob
+     */
+    public void delete(String contentHash) {
+        Lock lock = lock(contentHash);
+        lock.lock();
+        try {
+            locate(contentHash).ifPresent(ArtifactStore::deleteQuietly);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the blob with the given hash if it was still last written before the given time. A blob that has been
+     * stored again since it was listed by {@link #findBlobsWrittenBefore} is kept, as a new artifact may refer to it.
+     *
+     * @param contentHash the content hash of the blob
+     * @param before the cut-off time
+     * @return whether the blob was deleted
+     */
+    public boolean deleteIfWrittenBefore(String contentHash, Instant before) {
+        Lock lock = lock(contentHash);
+        lock.lock();
+        try {
+            Optional<Path> path = locate(contentHash);
+            if (path.isEmpty() || !Files.getLastModifiedTime(path.get()).toInstant().isBefore(before)) {
+                return false;
+            }
+            return Files.deleteIfExists(path.get());
+        } catch (IOException e) {
+            // Left for the next garbage collection.
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lock lock(String contentHash) {
+        Path shard = blobPath(contentHash, false).getParent();
+        return locks[HexFormat.fromHexDigits(shard.getFileName().toString())];
+    }
+
+    private Path blobPath(String contentHash, boolean compressed) {
+        if (!contentHash.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Invalid content hash: " + contentHash);
+        }
+        return root.resolve(contentHash.substring(0, 2)).resolve(compressed ? contentHash + GZIP_SUFFIX : contentHash);
+    }
+
+    private static StoredBlob describe(String hash, long size, Path path) throws IOException {
+        return new StoredBlob(hash, size, Files.size(path), path.getFileName().toString().endsWith(GZIP_SUFFIX));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Left for the next garbage collection.
+        }
+    }
+}
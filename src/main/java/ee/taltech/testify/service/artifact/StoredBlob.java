@@ -0,0 +1,31 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.artifact;
+
+/**
+ * A blob in the {@link ArtifactStore}.
+ *
+ * @param contentHash the hex encoded SHA-256 of the uncompressed content
+ * @param size the size of the uncompressed content in bytes
+ * @param storedSize the size of the blob on disk in bytes
+ * @param compressed whether the blob is stored gzip compressed
+ */
+public record StoredBlob(String contentHash, long size, long storedSize, boolean compressed) {
+}
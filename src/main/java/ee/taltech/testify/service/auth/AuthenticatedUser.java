@@ -0,0 +1,61 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.auth;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * The caller of a request, as carried by its access token.
+ *
+ * @param userId    the ID of the user
+ * @param role      the name of the user's role
+ * @param courseIds the courses the user is enrolled in or teaches, in ascending order
+ * @param tokenId   the unique ID of the token
+ * @param issuedAt  when the token was issued, in epoch milliseconds
+ * @param expiresAt when the token expires, in epoch seconds
+ */
+public record AuthenticatedUser(int userId, String role, List<Integer> courseIds, String tokenId, long issuedAt,
+                                long expiresAt) implements Principal {
+    public static final String ADMIN_ROLE = "Admin";
+    public static final String TEACHER_ROLE = "Teacher";
+    public static final String WORKER_ROLE = "Worker";
+
+    public boolean isAdmin() {
+        return ADMIN_ROLE.equals(role);
+    }
+
+    public boolean isTeacher() {
+        return TEACHER_ROLE.equals(role);
+    }
+
+    public boolean isWorker() {
+        return WORKER_ROLE.equals(role);
+    }
+
+    public boolean isMemberOf(int courseId) {
+        return courseIds.contains(courseId);
+    }
+
+    @Override
+    public String getName() {
+        return String.valueOf(userId);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.auth;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Revoked tokens that have not expired yet. Tokens are short-lived, so the list stays small and is held in memory;
+ * entries are dropped once the token they refer to would have expired anyway.
+ * <p>
+ * The list is node-local: a token revoked on one instance stays valid on the others until it expires.
+ */
+@Component
+public class TokenRevocationList {
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<Integer, RevokedUser> revokedUsers = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public TokenRevocationList() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the current time in epoch milliseconds
+     */
+    TokenRevocationList(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Revokes a single token, e.g. on logout.
+     */
+    public void revoke(AuthenticatedUser user) {
+        revokedTokens.put(user.tokenId(), user.expiresAt());
+    }
+
+    /**
+     * Revokes every token of the user issued up to now, e.g. after a role change. Tokens issued within the same
+     * millisecond are revoked as well.
+     *
+     * @param userId the ID of the user
+     * @param maxTokenLifetimeSeconds the lifetime of the longest-lived token that may still be valid
+     */
+    public void revokeUser(int userId, long maxTokenLifetimeSeconds) {
+        long now = clock.getAsLong();
+        revokedUsers.put(userId, new RevokedUser(now, now + maxTokenLifetimeSeconds * 1000));
+    }
+
+    public boolean isRevoked(AuthenticatedUser user) {
+        if (revokedTokens.isEmpty() && revokedUsers.isEmpty()) {
+            return false;
+        }
+        if (revokedTokens.containsKey(user.tokenId())) {
+            return true;
+        }
+        RevokedUser revokedUser = revokedUsers.get(user.userId());
+        return revokedUser != null && user.issuedAt() <= revokedUser.revokedAt();
+    }
+
+    @Scheduled(fixedDelayString = "${testify.auth.revocation-purge-interval:PT1M}")
+    public void purgeExpired() {
+        long now = clock.getAsLong();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt * 1000 < now);
+        revokedUsers.values().removeIf(revokedUser -> revokedUser.keepUntil() < now);
+    }
+
+    int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+
+    private record RevokedUser(long revokedAt, long keepUntil) {
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.auth;
+
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.CourseTeacher;
+import ee.taltech.testify.entity.Enrollment;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Revokes the tokens of users whose account changes or who leave a course, since a token carries the user's role and
+ * courses. Joining a course grants more than the token states, not less, and access checks read the memberships from
+ * the {@link ee.taltech.testify.service.membership.CourseMembershipIndex}, so new memberships do not revoke tokens.
+ * <p>
+ * The tokens are only revoked once the transaction commits, so that a token issued after the change carries it.
+ */
+public class TokenRevocationListener {
+    /**
+     * Resolved lazily: listeners are created with the entity manager factory, before the token service.
+     */
+    private final ObjectProvider<TokenService> tokenService;
+
+    public TokenRevocationListener(ObjectProvider<TokenService> tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        afterCommit(entity);
+    }
+
+    private void afterCommit(Object entity) {
+        int userId;
+        if (entity instanceof AppUser user) {
+            userId = user.getId();
+        } else if (entity instanceof Enrollment enrollment) {
+            userId = enrollment.getStudent().getId();
+        } else if (entity instanceof CourseTeacher courseTeacher) {
+            userId = courseTeacher.getTeacher().getId();
+        } else {
+            return;
+        }
+
+        TokenService service = tokenService.getIfAvailable();
+        if (service == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    service.revokeUser(userId);
+                }
+            });
+        } else {
+            service.revokeUser(userId);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.auth;
+
+import ee.taltech.testify.exception.InvalidTokenException;
+import ee.taltech.testify.service.ConfigurationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Issues and verifies signed access tokens.
+ * <p>
+ * A token is {@code base64url(claims) "." base64url(HMAC-SHA256(claims))}, where the claims are
+ * {@code tokenId|userId|role|issuedAt|expiresAt|courseId,courseId,...}. Everything needed to authorize a request is
+ * in the token, so verification is a MAC computation and a lookup in the in-memory {@link TokenRevocationList},
+ * without any database access.
+ */
+@Slf4j
+@Service
+public class TokenService {
+    public static final String TOKEN_TTL_MINUTES = "auth.token-ttl-minutes";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char SEPARATOR = '|';
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ThreadLocal<Mac> macs;
+    private final TokenRevocationList revocationList;
+    private final ConfigurationService configurationService;
+
+    public TokenService(@Value("${testify.auth.token-secret:}") String secret, TokenRevocationList revocationList,
+                        ConfigurationService configurationService) {
+        SecretKeySpec key = new SecretKeySpec(resolveSecret(secret), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> newMac(key));
+        this.revocationList = revocationList;
+        this.configurationService = configurationService;
+    }
+
+    /**
+     * Issues a token for the user, valid for {@code auth.token-ttl-minutes}.
+     *
+     * @param userId the ID of the user
+     * @param role the name of the user's role
+     * @param courseIds the courses the user is enrolled in or teaches
+     * @return the issued token and its claims
+     */
+    public IssuedToken issue(int userId, String role, List<Integer> courseIds) {
+        if (role.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Role name must not contain '" + SEPARATOR + "'");
+        }
+        Instant now = Instant.now();
+        AuthenticatedUser user = new AuthenticatedUser(userId, role, courseIds.stream().sorted().distinct().toList(),
+                UUID.randomUUID().toString(), now.toEpochMilli(), now.getEpochSecond() + getTokenTtlSeconds());
+
+        StringBuilder claims = new StringBuilder(64 + courseIds.size() * 6)
+                .append(user.tokenId()).append(SEPARATOR)
+                .append(user.userId()).append(SEPARATOR)
+                .append(user.role()).append(SEPARATOR)
+                .append(user.issuedAt()).append(SEPARATOR)
+                .append(user.expiresAt()).append(SEPARATOR);
+        for (int i = 0; i < user.courseIds().size(); i++) {
+            if (i > 0) {
+                claims.append(',');
+            }
+            claims.append(user.courseIds().get(i));
+        }
+        byte[] payload = ENCODER.encode(claims.toString().getBytes(StandardCharsets.UTF_8));
+        String token = new String(payload, StandardCharsets.US_ASCII) + '.' + ENCODER.encodeToString(sign(payload));
+        return new IssuedToken(token, user);
+    }
+
+    /**
+     * Verifies a token.
+     *
+     * @param token the token from the request
+     * @return the caller carried by the token
+     * @throws InvalidTokenException if the token is malformed, forged, expired or revoked
+     */
+    public AuthenticatedUser verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        byte[] payload = token.substring(0, dot).getBytes(StandardCharsets.US_ASCII);
+        byte[] signature;
+        byte[] claims;
+        try {
+            signature = DECODER.decode(token.substring(dot + 1));
+            claims = DECODER.decode(payload);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            throw new InvalidTokenException("Invalid token signature");
+        }
+
+        AuthenticatedUser user = parse(new String(claims, StandardCharsets.UTF_8));
+        if (user.expiresAt() <= Instant.now().getEpochSecond()) {
+            throw new InvalidTokenException("Token has expired");
+        }
+        if (revocationList.isRevoked(user)) {
+            throw new InvalidTokenException("Token has been revoked");
+        }
+        return user;
+    }
+
+    /**
+     * Revokes every token of the user issued up to now.
+     *
+     * @param userId the ID of the user
+     */
+    public void revokeUser(int userId) {
+        revocationList.revokeUser(userId, getTokenTtlSeconds());
+    }
+
+    private long getTokenTtlSeconds() {
+        return configurationService.getInt(TOKEN_TTL_MINUTES, 15) * 60L;
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private static AuthenticatedUser parse(String claims) {
+        String[] parts = claims.split("\\|", -1);
+        if (parts.length != 6) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        try {
+            List<Integer> courseIds = new ArrayList<>();
+            if (!parts[5].isEmpty()) {
+                for (String courseId : parts[5].split(",")) {
+                    courseIds.add(Integer.parseInt(courseId));
+                }
+            }
+            return new AuthenticatedUser(Integer.parseInt(parts[1]), parts[2], List.copyOf(courseIds), parts[0],
+                    Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+        } catch (NumberFormatException e) {
+            throw new InvalidTokenException("Malformed token");
+        }
+    }
+
+    private static byte[] resolveSecret(String secret) {
+        if (secret.isBlank()) {
+            log.warn("testify.auth.token-secret is not set; using a random key, tokens will not survive a restart");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] key = Base64.getDecoder().decode(secret);
+        if (key.length < 32) {
+            throw new IllegalStateException("testify.auth.token-secret must be at least 256 bits");
+        }
+        return key;
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + ALGORITHM, e);
+        }
+    }
+
+    /**
+     * @param token the encoded token
+     * @param user the claims of the token
+     */
+    public record IssuedToken(String token, AuthenticatedUser user) {
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.dashboard;
+
+import ee.taltech.testify.entity.AutotestJobStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The aggregate queries behind the course dashboard. Each one is independent of the others so that they can run
+ * concurrently, and each is given a statement timeout so that a slow query is cancelled in the database rather than
+ * left running after the dashboard has given up on it. Every query is restricted to the term of the course, so only
+ * its partition of {@code student_assignment} is scanned.
+ */
+@Component
+@RequiredArgsConstructor
+public class CourseDashboardQueries {
+    private static final String SUBMISSION_COUNTS = """
+            SELECT a.assignment_id, a.title, COUNT(sa.submission_date_time) AS submissions
+            FROM assignment a
+            LEFT JOIN student_assignment sa ON sa.assignment_id = a.assignment_id AND sa.term = :term
+            WHERE a.course_id = :courseId
+            GROUP BY a.assignment_id, a.title
+            ORDER BY a.assignment_id
+            """;
+
+    private static final String AVERAGE_GRADES = """
+            SELECT a.assignment_id, AVG(sa.grade) AS average_grade, COUNT(sa.grade) AS graded
+            FROM assignment a
+            JOIN student_assignment sa ON sa.assignment_id = a.assignment_id
+            WHERE a.course_id = :courseId AND sa.term = :term AND sa.grade IS NOT NULL
+            GROUP BY a.assignment_id
+            ORDER BY a.assignment_id
+            """;
+
+    private static final String UNGRADED_COUNT = """
+            SELECT COUNT(*)
+            FROM student_assignment sa
+            JOIN assignment a ON a.assignment_id = sa.assignment_id
+            WHERE a.course_id = :courseId AND sa.term = :term AND sa.submission_date_time IS NOT NULL
+              AND sa.grade IS NULL
+            """;
+
+    private static final String AUTOTEST_JOB_COUNTS = """
+            SELECT j.status, COUNT(*) AS jobs
+            FROM autotest_job j
+            JOIN student_assignment sa ON sa.student_assignment_id = j.student_assignment_id AND sa.term = :term
+            JOIN assignment a ON a.assignment_id = sa.assignment_id
+            WHERE a.course_id = :courseId
+            GROUP BY j.status
+            """;
+
+    private final DataSource dataSource;
+
+    /**
+     * @return every assignment of the course with the number of students who have submitted it
+     */
+    public List<AssignmentSubmissionCount> getSubmissionCounts(int courseId, int term, Duration timeout) {
+        return jdbcTemplate(timeout).query(SUBMISSION_COUNTS, Map.of("courseId", courseId, "term", term),
+                (rs, rowNum) -> new AssignmentSubmissionCount(rs.getInt("assignment_id"), rs.getString("title"),
+                        rs.getLong("submissions")));
+    }
+
+    /**
+     * @return the average grade of the assignments of the course that have at least one graded submission
+     */
+    public List<AssignmentAverageGrade> getAverageGrades(int courseId, int term, Duration timeout) {
+        return jdbcTemplate(timeout).query(AVERAGE_GRADES, Map.of("courseId", courseId, "term", term),
+                (rs, rowNum) -> new AssignmentAverageGrade(rs.getInt("assignment_id"),
+                        rs.getBigDecimal("average_grade"), rs.getLong("graded")));
+    }
+
+    /**
+     * @return the number of submissions in the course waiting for a grade
+     */
+    public long getUngradedCount(int courseId, int term, Duration timeout) {
+        Long count = jdbcTemplate(timeout).queryForObject(UNGRADED_COUNT, Map.of("courseId", courseId, "term", term),
+                Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * @return the number of autotest jobs of the course per status, with zero for statuses that have no jobs
+     */
+    public Map<AutotestJobStatus, Long> getAutotestJobCounts(int courseId, int term, Duration timeout) {
+        Map<AutotestJobStatus, Long> counts = new EnumMap<>(AutotestJobStatus.class);
+        for (AutotestJobStatus status : AutotestJobStatus.values()) {
+            counts.put(status, 0L);
+        }
+        jdbcTemplate(timeout).query(AUTOTEST_JOB_COUNTS, Map.of("courseId", courseId, "term", term),
+                rs -> {
+                    counts.put(AutotestJobStatus.valueOf(rs.getString("status")), rs.getLong("jobs"));
+                });
+        return counts;
+    }
+
+    private NamedParameterJdbcTemplate jdbcTemplate(Duration timeout) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setQueryTimeout((int) Math.max(1, timeout.toSeconds() + (timeout.toMillisPart() > 0 ? 1 : 0)));
+        return new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.grading;
+
+import java.math.BigDecimal;
+
+/**
+ * The points and feedback a student assignment is given for one grading element.
+ *
+ * @param studentAssignmentId the ID of the student assignment
+ * @param gradingElementId the ID of the grading element
+ * @param points the points awarded, or deducted if the element is a deduction
+ * @param feedback the feedback, may be {@code null}
+ */
+public record ElementGrade(int studentAssignmentId, int gradingElementId, BigDecimal points, String feedback) {
+}
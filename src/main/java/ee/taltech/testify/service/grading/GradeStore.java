@@ -0,0 +1,56 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.grading;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes grading element points in bulk and derives the grades of the student assignments from them.
+ * <p>
+ * The grade of a student assignment is the sum of the points of its grading elements, with the points of deduction
+ * elements subtracted, and never less than zero. Which elements are deductions is given by the caller from the rubric
+ * the assignment is graded by, not read from the current grading elements, which may have changed since the rubric
+ * was published.
+ */
+public interface GradeStore {
+
+    /**
+     * Inserts the element grades, replacing the points and feedback of those that already exist. The grades must
+     * not contain the same student assignment and grading element twice.
+     *
+     * @param grades the element grades
+     * @param term the term of the student assignments
+     */
+    void upsert(List<ElementGrade> grades, int term);
+
+    /**
+     * Recomputes the grades of student assignments from their grading elements.
+     *
+     * @param studentAssignmentIds the student assignments, each with at least one grading element
+     * @param deductionIds the grading elements whose points are subtracted
+     * @param term the term of the student assignments
+     * @return the new grade of each student assignment by its ID
+     */
+    Map<Integer, BigDecimal> recomputeGrades(Collection<Integer> studentAssignmentIds,
+                                             Collection<Integer> deductionIds, int term);
+}
@@ -0,0 +1,99 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.grading;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk grading for databases without {@code unnest}, such as the H2 database used in tests. The upsert is a batched
+ * {@code MERGE}, one round trip per batch rather than per grade.
+ */
+@Component
+@RequiredArgsConstructor
+public class MergeGradeStore implements GradeStore {
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final String UPSERT = """
+            MERGE INTO student_grading_element (student_assignment_id, grading_element_id, points_awarded, feedback,
+                                                term)
+            KEY (student_assignment_id, grading_element_id, term)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private static final String RECOMPUTE = """
+            UPDATE student_assignment
+            SET grade = (
+                SELECT GREATEST(0, SUM(CASE WHEN %s THEN -sge.points_awarded
+                                            ELSE sge.points_awarded END))
+                FROM student_grading_element sge
+                WHERE sge.term = student_assignment.term
+                  AND sge.student_assignment_id = student_assignment.student_assignment_id
+            )
+            WHERE term = :term AND student_assignment_id IN (:ids)
+            """;
+
+    private static final String DEDUCTION = "sge.grading_element_id IN (:deductions)";
+
+    private static final String GRADES = """
+            SELECT student_assignment_id, grade FROM student_assignment
+            WHERE term = :term AND student_assignment_id IN (:ids)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public void upsert(List<ElementGrade> grades, int term) {
+        jdbcTemplate.batchUpdate(UPSERT, grades, BATCH_SIZE, (statement, grade) -> {
+            statement.setInt(1, grade.studentAssignmentId());
+            statement.setInt(2, grade.gradingElementId());
+            statement.setBigDecimal(3, grade.points());
+            statement.setString(4, grade.feedback());
+            statement.setInt(5, term);
+        });
+    }
+
+    @Override
+    public Map<Integer, BigDecimal> recomputeGrades(Collection<Integer> studentAssignmentIds,
+                                                    Collection<Integer> deductionIds, int term) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("term", term)
+                .addValue("ids", studentAssignmentIds)
+                .addValue("deductions", deductionIds);
+        // An empty IN list is not valid SQL, so without deductions the condition is left out
+        namedParameterJdbcTemplate.update(RECOMPUTE.formatted(deductionIds.isEmpty() ? "FALSE" : DEDUCTION),
+                parameters);
+        Map<Integer, BigDecimal> grades = new HashMap<>();
+        namedParameterJdbcTemplate.query(GRADES, parameters, row -> {
+            grades.put(row.getInt("student_assignment_id"), row.getBigDecimal("grade"));
+        });
+        return grades;
+    }
+}
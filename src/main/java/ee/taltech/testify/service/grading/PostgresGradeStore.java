@@ -0,0 +1,107 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.grading;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk grading on PostgreSQL. The element grades are passed as one array per column and expanded with
+ * {@code unnest}, so the upsert is a single statement with five parameters however many grades there are, and the
+ * grades are recomputed and returned by a single {@code UPDATE ... RETURNING}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostgresGradeStore implements GradeStore {
+    private static final String UPSERT = """
+            INSERT INTO student_grading_element (student_assignment_id, grading_element_id, points_awarded, feedback,
+                                                 term)
+            SELECT g.student_assignment_id, g.grading_element_id, g.points_awarded, g.feedback, ?
+            FROM unnest(?, ?, ?, ?) AS g(student_assignment_id, grading_element_id, points_awarded, feedback)
+            ON CONFLICT (student_assignment_id, grading_element_id, term)
+            DO UPDATE SET points_awarded = EXCLUDED.points_awarded, feedback = EXCLUDED.feedback
+            """;
+
+    private static final String RECOMPUTE = """
+            UPDATE student_assignment sa
+            SET grade = g.grade
+            FROM (
+                SELECT sge.student_assignment_id,
+                       GREATEST(0, SUM(CASE WHEN sge.grading_element_id = ANY(?) THEN -sge.points_awarded
+                                            ELSE sge.points_awarded END)) AS grade
+                FROM student_grading_element sge
+                WHERE sge.term = ? AND sge.student_assignment_id = ANY(?)
+                GROUP BY sge.student_assignment_id
+            ) g
+            WHERE sa.term = ? AND sa.student_assignment_id = g.student_assignment_id
+            RETURNING sa.student_assignment_id, sa.grade
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsert(List<ElementGrade> grades, int term) {
+        Integer[] studentAssignmentIds = new Integer[grades.size()];
+        Integer[] gradingElementIds = new Integer[grades.size()];
+        BigDecimal[] points = new BigDecimal[grades.size()];
+        String[] feedback = new String[grades.size()];
+        for (int i = 0; i < grades.size(); i++) {
+            ElementGrade grade = grades.get(i);
+            studentAssignmentIds[i] = grade.studentAssignmentId();
+            gradingElementIds[i] = grade.gradingElementId();
+            points[i] = grade.points();
+            feedback[i] = grade.feedback();
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT);
+            statement.setInt(1, term);
+            statement.setArray(2, connection.createArrayOf("integer", studentAssignmentIds));
+            statement.setArray(3, connection.createArrayOf("integer", gradingElementIds));
+            statement.setArray(4, connection.createArrayOf("numeric", points));
+            statement.setArray(5, connection.createArrayOf("text", feedback));
+            return statement;
+        });
+    }
+
+    @Override
+    public Map<Integer, BigDecimal> recomputeGrades(Collection<Integer> studentAssignmentIds,
+                                                    Collection<Integer> deductionIds, int term) {
+        Map<Integer, BigDecimal> grades = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(RECOMPUTE);
+            statement.setArray(1, connection.createArrayOf("integer", deductionIds.toArray()));
+            statement.setInt(2, term);
+            statement.setArray(3, connection.createArrayOf("integer", studentAssignmentIds.toArray()));
+            statement.setInt(4, term);
+            return statement;
+        }, row -> {
+            grades.put(row.getInt("student_assignment_id"), row.getBigDecimal("grade"));
+        });
+        return grades;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.logstream;
+
+/**
+ * The result of reading a {@link RunLogBuffer}.
+ *
+ * @param text the output read, possibly empty
+ * @param nextSequence the sequence to continue reading from
+ * @param skippedChunks the number of chunks that were evicted before they could be read
+ * @param finished whether the run has finished and everything available has been read
+ * @param status the final status of the run if it has finished
+ */
+record LogRead(String text, long nextSequence, long skippedChunks, boolean finished, String status) {
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.logstream;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A single SSE client of a run.
+ * <p>
+ * The subscriber owns no buffer of its own, only a cursor into the shared {@link RunLogBuffer}. At most one drain
+ * task per subscriber is in flight: while a slow client is still receiving, new output only accumulates in the
+ * shared buffer and is sent coalesced once the client catches up, or skipped if it has been evicted meanwhile.
+ */
+class LogSubscriber {
+    static final String LOG_EVENT = "log";
+    static final String TRUNCATED_EVENT = "truncated";
+    static final String END_EVENT = "end";
+
+    private final RunLogBuffer buffer;
+    private final SseEmitter emitter;
+    private final Executor executor;
+    private final int maxEventCharacters;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+    private long cursor;
+
+    LogSubscriber(RunLogBuffer buffer, SseEmitter emitter, Executor executor, int maxEventCharacters,
+                  long fromSequence) {
+        this.buffer = buffer;
+        this.emitter = emitter;
+        this.executor = executor;
+        this.maxEventCharacters = maxEventCharacters;
+        this.cursor = fromSequence;
+    }
+
+    /**
+     * Schedules sending of new output unless a send is already in progress.
+     */
+    void signal() {
+        if (!closed && draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void drain() {
+        try {
+            while (!closed) {
+                LogRead read = buffer.read(cursor, maxEventCharacters);
+                if (read.skippedChunks() > 0) {
+                    emitter.send(SseEmitter.event().name(TRUNCATED_EVENT).data(read.skippedChunks()));
+                }
+                if (!read.text().isEmpty()) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(read.nextSequence() - 1))
+                            .name(LOG_EVENT)
+                            .data(read.text()));
+                }
+                cursor = read.nextSequence();
+                if (read.finished()) {
+                    emitter.send(SseEmitter.event().name(END_EVENT).data(read.status()));
+                    emitter.complete();
+                    closed = true;
+                    return;
+                }
+                if (read.text().isEmpty()) {
+                    draining.set(false);
+                    if (!buffer.hasMore(cursor) || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            closed = true;
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.logstream;
+
+import ee.taltech.testify.service.ConfigurationService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fans the output of running autotests out to SSE subscribers.
+ * <p>
+ * Memory per run is bounded by {@code log-stream.head-characters} plus {@code log-stream.tail-characters},
+ * independent of the number of subscribers. Subscribers are served on virtual threads, so a slow client only delays
+ * itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class RunLogBroadcaster {
+    public static final String HEAD_CHARACTERS = "log-stream.head-characters";
+    public static final String TAIL_CHARACTERS = "log-stream.tail-characters";
+    public static final String RETENTION_SECONDS = "log-stream.retention-seconds";
+
+    private static final int MAX_EVENT_CHARACTERS = 16 * 1024;
+    private static final Duration EMITTER_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration IDLE_TIMEOUT = Duration.ofHours(2);
+
+    private final ConfigurationService configurationService;
+    private final Map<Integer, RunLogStream> streams = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Appends output of a run and notifies its subscribers.
+     *
+     * @param jobId the ID of the autotest job
+     * @param text the output
+     */
+    public void append(Integer jobId, String text) {
+        RunLogStream stream = getOrCreate(jobId);
+        stream.buffer().append(text, System.currentTimeMillis());
+        stream.signalAll();
+    }
+
+    /**
+     * Marks a run as finished. Subscribers receive the remaining output followed by an {@code end} event.
+     *
+     * @param jobId the ID of the autotest job
+     * @param status the final status of the run
+     */
+    public void finish(Integer jobId, String status) {
+        RunLogStream stream = getOrCreate(jobId);
+        stream.buffer().finish(status, System.currentTimeMillis());
+        stream.signalAll();
+    }
+
+    /**
+     * Subscribes to the output of a run. New subscribers replay the output from the start, or from after
+     * {@code lastEventId} when reconnecting.
+     *
+     * @param jobId the ID of the autotest job
+     * @param lastEventId the ID of the last event received before reconnecting, or null
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(Integer jobId, String lastEventId) {
+        RunLogStream stream = getOrCreate(jobId);
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT.toMillis());
+        LogSubscriber subscriber = new LogSubscriber(stream.buffer(), emitter, executor, MAX_EVENT_CHARACTERS,
+                resumeSequence(lastEventId));
+        emitter.onCompletion(() -> stream.unsubscribe(subscriber));
+        emitter.onTimeout(() -> stream.unsubscribe(subscriber));
+        emitter.onError(e -> stream.unsubscribe(subscriber));
+        stream.subscribe(subscriber);
+        return emitter;
+    }
+
+    public boolean isStreaming(Integer jobId) {
+        return streams.containsKey(jobId);
+    }
+
+    /**
+     * @return the final status of a finished run whose output is still held, otherwise null
+     */
+    public String getFinalStatus(Integer jobId) {
+        RunLogStream stream = streams.get(jobId);
+        return stream != null ? stream.buffer().getStatus() : null;
+    }
+
+    /**
+     * Drops buffers of runs that finished longer than the retention period ago, and of runs that have produced no
+     * output for a long time without finishing.
+     */
+    @Scheduled(fixedDelayString = "${testify.log-stream.eviction-interval:PT1M}")
+    public void evictFinishedStreams() {
+        long now = System.currentTimeMillis();
+        long retention = Duration.ofSeconds(configurationService.getInt(RETENTION_SECONDS, 300)).toMillis();
+        streams.values().removeIf(stream -> {
+            long idle = now - stream.buffer().getLastActivity();
+            return stream.buffer().isFinished() ? idle > retention : idle > IDLE_TIMEOUT.toMillis();
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private RunLogStream getOrCreate(Integer jobId) {
+        return streams.computeIfAbsent(jobId, id -> new RunLogStream(new RunLogBuffer(
+                configurationService.getInt(HEAD_CHARACTERS, 64 * 1024),
+                configurationService.getInt(TAIL_CHARACTERS, 256 * 1024),
+                System.currentTimeMillis())));
+    }
+
+    private static long resumeSequence(String lastEventId) {
+        if (lastEventId == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim()) + 1;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
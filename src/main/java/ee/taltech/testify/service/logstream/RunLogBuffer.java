@@ -0,0 +1,157 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.logstream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded output buffer of a single autotest run, shared by all of its subscribers.
+ * <p>
+ * The first {@code headCapacity} characters are kept for the lifetime of the buffer so that late subscribers can
+ * replay the run from the start. Later output goes to a ring holding at most {@code tailCapacity} characters; when it
+ * overflows the oldest chunks are evicted and readers that had not reached them are told how many chunks they missed.
+ */
+class RunLogBuffer {
+    private final int headCapacity;
+    private final int tailCapacity;
+
+    private final List<LogChunk> head = new ArrayList<>();
+    private final List<LogChunk> tail = new ArrayList<>();
+    private int headSize;
+    private int tailSize;
+    private int tailOffset;
+    private boolean headClosed;
+    private long nextSequence;
+    private String status;
+    private long lastActivity;
+
+    RunLogBuffer(int headCapacity, int tailCapacity, long now) {
+        this.headCapacity = headCapacity;
+        this.tailCapacity = Math.max(1, tailCapacity);
+        this.lastActivity = now;
+    }
+
+    /**
+     * Appends output to the buffer. Output appended after the run has finished is ignored.
+     *
+     * @param text the output
+     * @param now the current time in milliseconds
+     */
+    synchronized void append(String text, long now) {
+        if (status != null || text.isEmpty()) {
+            return;
+        }
+        lastActivity = now;
+        if (!headClosed && headSize + text.length() <= headCapacity) {
+            head.add(new LogChunk(nextSequence++, text));
+            headSize += text.length();
+            return;
+        }
+        headClosed = true;
+        if (text.length() > tailCapacity) {
+            text = text.substring(text.length() - tailCapacity);
+        }
+        tail.add(new LogChunk(nextSequence++, text));
+        tailSize += text.length();
+        while (tailSize > tailCapacity) {
+            tailSize -= tail.get(tailOffset).text().length();
+            tail.set(tailOffset++, null);
+        }
+        if (tailOffset > tail.size() / 2) {
+            tail.subList(0, tailOffset).clear();
+            tailOffset = 0;
+        }
+    }
+
+    /**
+     * Marks the run as finished.
+     *
+     * @param finalStatus the final status of the run
+     * @param now the current time in milliseconds
+     */
+    synchronized void finish(String finalStatus, long now) {
+        if (status == null) {
+            status = finalStatus;
+            lastActivity = now;
+        }
+    }
+
+    /**
+     * Reads output starting from the given sequence, coalescing consecutive chunks into a single text.
+     *
+     * @param fromSequence the sequence of the first chunk to read
+     * @param maxCharacters the maximum length of the text returned, exceeded only by a single large chunk
+     * @return the output read
+     */
+    synchronized LogRead read(long fromSequence, int maxCharacters) {
+        long sequence = Math.max(0, fromSequence);
+        long skipped = 0;
+        StringBuilder text = new StringBuilder();
+
+        while (sequence < head.size() && (text.isEmpty() || text.length() + chunkLength(sequence) <= maxCharacters)) {
+            text.append(head.get((int) sequence++).text());
+        }
+        if (sequence >= head.size()) {
+            long tailStart = nextSequence - (tail.size() - tailOffset);
+            if (sequence < tailStart && text.isEmpty()) {
+                skipped = tailStart - sequence;
+                sequence = tailStart;
+            }
+            while (sequence >= tailStart && sequence < nextSequence
+                    && (text.isEmpty() || text.length() + chunkLength(sequence) <= maxCharacters)) {
+                text.append(tail.get((int) (sequence - tailStart) + tailOffset).text());
+                sequence++;
+            }
+        }
+        boolean finished = status != null && sequence >= nextSequence;
+        return new LogRead(text.toString(), sequence, skipped, finished, status);
+    }
+
+    /**
+     * Checks whether a reader positioned at the given sequence has anything left to read.
+     *
+     * @param fromSequence the sequence the reader continues from
+     * @return true if there is unread output or the run has finished
+     */
+    synchronized boolean hasMore(long fromSequence) {
+        return fromSequence < nextSequence || status != null;
+    }
+
+    synchronized boolean isFinished() {
+        return status != null;
+    }
+
+    synchronized String getStatus() {
+        return status;
+    }
+
+    synchronized long getLastActivity() {
+        return lastActivity;
+    }
+
+    private int chunkLength(long sequence) {
+        if (sequence < head.size()) {
+            return head.get((int) sequence).text().length();
+        }
+        long tailStart = nextSequence - (tail.size() - tailOffset);
+        return tail.get((int) (sequence - tailStart) + tailOffset).text().length();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.logstream;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The buffer of a run together with its subscribers.
+ */
+class RunLogStream {
+    private final RunLogBuffer buffer;
+    private final CopyOnWriteArrayList<LogSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    RunLogStream(RunLogBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    RunLogBuffer buffer() {
+        return buffer;
+    }
+
+    void subscribe(LogSubscriber subscriber) {
+        subscribers.add(subscriber);
+        subscriber.signal();
+    }
+
+    void unsubscribe(LogSubscriber subscriber) {
+        subscriber.close();
+        subscribers.remove(subscriber);
+    }
+
+    void signalAll() {
+        for (LogSubscriber subscriber : subscribers) {
+            subscriber.signal();
+        }
+        subscribers.removeIf(LogSubscriber::isClosed);
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.membership;
+
+import ee.taltech.testify.repository.CourseMembership;
+import ee.taltech.testify.repository.CourseTeacherRepository;
+import ee.taltech.testify.repository.EnrollmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Course memberships held in memory as one compressed bitmap of user IDs per course, so that authorization checks
+ * such as "does user X teach course Y" need no query.
+ * <p>
+ * Bitmaps are never modified once published: a write replaces the bitmap of its course with an updated copy, so
+ * readers need no locking. The index is loaded when the application starts, kept current by
+ * {@link CourseMembershipListener} and rebuilt periodically to pick up changes made by other nodes or outside JPA.
+ */
+@Slf4j
+@Component
+public class CourseMembershipIndex {
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final CourseTeacherRepository courseTeacherRepository;
+
+    private volatile Map<MembershipType, Map<Integer, RoaringBitmap>> members = emptyMembers();
+
+    /**
+     * Changes applied while a rebuild is reading the tables; replayed onto the rebuilt index.
+     */
+    private List<Change> changesDuringRebuild;
+
+    public CourseMembershipIndex(EnrollmentRepository enrollmentRepository,
+                                 CourseTeacherRepository courseTeacherRepository) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.courseTeacherRepository = courseTeacherRepository;
+    }
+
+    public boolean isEnrolled(int userId, int courseId) {
+        return contains(MembershipType.STUDENT, courseId, userId);
+    }
+
+    public boolean isTeacher(int userId, int courseId) {
+        return contains(MembershipType.TEACHER, courseId, userId);
+    }
+
+    public boolean contains(MembershipType type, int courseId, int userId) {
+        RoaringBitmap bitmap = members.get(type).get(courseId);
+        return bitmap != null && bitmap.contains(userId);
+    }
+
+    /**
+     * @return the members of the course; the bitmap must not be modified
+     */
+    public RoaringBitmap getMembers(MembershipType type, int courseId) {
+        return members.get(type).getOrDefault(courseId, EMPTY);
+    }
+
+    /**
+     * Courses the user belongs to. Scans every course, which is cheap for the few thousand courses of a university
+     * but should not be called per row.
+     *
+     * @return the IDs of the courses, in no particular order
+     */
+    public List<Integer> getCourseIds(MembershipType type, int userId) {
+        List<Integer> courseIds = new ArrayList<>();
+        members.get(type).forEach((courseId, bitmap) -> {
+            if (bitmap.contains(userId)) {
+                courseIds.add(courseId);
+            }
+        });
+        return courseIds;
+    }
+
+    /**
+     * Students enrolled in the course except the given users, e.g. those who have not submitted an assignment.
+     *
+     * @param courseId the ID of the course
+     * @param excludedUserIds the users to leave out
+     * @return a new bitmap owned by the caller
+     */
+    public RoaringBitmap getEnrolledExcept(int courseId, RoaringBitmap excludedUserIds) {
+        return RoaringBitmap.andNot(getMembers(MembershipType.STUDENT, courseId), excludedUserIds);
+    }
+
+    public synchronized void add(MembershipType type, int courseId, int userId) {
+        apply(new Change(type, courseId, userId, true));
+    }
+
+    public synchronized void remove(MembershipType type, int courseId, int userId) {
+        apply(new Change(type, courseId, userId, false));
+    }
+
+    /**
+     * Reloads the index from the enrollment and course teacher tables.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${testify.membership.rebuild-interval:PT10M}",
+            fixedDelayString = "${testify.membership.rebuild-interval:PT10M}")
+    public void rebuild() {
+        synchronized (this) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        Map<MembershipType, Map<Integer, RoaringBitmap>> rebuilt = emptyMembers();
+        try {
+            load(rebuilt.get(MembershipType.STUDENT), enrollmentRepository.findAllMemberships());
+            load(rebuilt.get(MembershipType.TEACHER), courseTeacherRepository.findAllMemberships());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changesDuringRebuild = null;
+            }
+            throw e;
+        }
+        rebuilt.values().forEach(courses -> courses.values().forEach(RoaringBitmap::runOptimize));
+
+        synchronized (this) {
+            Map<MembershipType, Map<Integer, RoaringBitmap>> previous = members;
+            List<Change> changes = changesDuringRebuild;
+            changesDuringRebuild = null;
+            members = rebuilt;
+            changes.forEach(this::apply);
+            if (previous.values().stream().allMatch(Map::isEmpty)) {
+                log.info("Course membership index loaded: {} memberships in {} bytes", getMembershipCount(),
+                        getSizeInBytes());
+            }
+        }
+    }
+
+    public long getMembershipCount() {
+        return members.values().stream()
+                .flatMap(courses -> courses.values().stream())
+                .mapToLong(RoaringBitmap::getLongCardinality)
+                .sum();
+    }
+
+    /**
+     * @return the serialized size of all bitmaps, a close estimate of their heap footprint
+     */
+    public long getSizeInBytes() {
+        return members.values().stream()
+                .flatMap(courses -> courses.values().stream())
+                .mapToLong(RoaringBitmap::getLongSizeInBytes)
+                .sum();
+    }
+
+    private void apply(Change change) {
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+        Map<Integer, RoaringBitmap> courses = members.get(change.type());
+        RoaringBitmap current = courses.get(change.courseId());
+        if (change.added() ? current != null && current.contains(change.userId())
+                : current == null || !current.contains(change.userId())) {
+            return;
+        }
+        RoaringBitmap updated = current != null ? current.clone() : new RoaringBitmap();
+        if (change.added()) {
+            updated.add(change.userId());
+            courses.put(change.courseId(), updated);
+        } else {
+            updated.remove(change.userId());
+            if (updated.isEmpty()) {
+                courses.remove(change.courseId());
+            } else {
+                courses.put(change.courseId(), updated);
+            }
+        }
+    }
+
+    private static void load(Map<Integer, RoaringBitmap> courses, List<CourseMembership> memberships) {
+        for (CourseMembership membership : memberships) {
+            courses.computeIfAbsent(membership.courseId(), courseId -> new RoaringBitmap()).add(membership.userId());
+        }
+    }
+
+    private static Map<MembershipType, Map<Integer, RoaringBitmap>> emptyMembers() {
+        Map<MembershipType, Map<Integer, RoaringBitmap>> members = new EnumMap<>(MembershipType.class);
+        for (MembershipType type : MembershipType.values()) {
+            members.put(type, new ConcurrentHashMap<>());
+        }
+        return members;
+    }
+
+    private record Change(MembershipType type, int courseId, int userId, boolean added) {
+    }
+}
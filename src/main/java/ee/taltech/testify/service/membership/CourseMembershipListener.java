@@ -0,0 +1,89 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.membership;
+
+import ee.taltech.testify.entity.CourseTeacher;
+import ee.taltech.testify.entity.Enrollment;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the {@link CourseMembershipIndex} current as enrollments and course teachers are added and removed. The
+ * index is only updated once the transaction commits. Memberships moved to another course or user in place are
+ * picked up by the next rebuild of the index.
+ */
+public class CourseMembershipListener {
+    /**
+     * Resolved lazily: listeners are created with the entity manager factory, before the index's repositories.
+     */
+    private final ObjectProvider<CourseMembershipIndex> courseMembershipIndex;
+
+    public CourseMembershipListener(ObjectProvider<CourseMembershipIndex> courseMembershipIndex) {
+        this.courseMembershipIndex = courseMembershipIndex;
+    }
+
+    @PostPersist
+    public void added(Object entity) {
+        afterCommit(entity, true);
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        afterCommit(entity, false);
+    }
+
+    private void afterCommit(Object entity, boolean added) {
+        MembershipType type;
+        int courseId;
+        int userId;
+        if (entity instanceof Enrollment enrollment) {
+            type = MembershipType.STUDENT;
+            courseId = enrollment.getCourse().getId();
+            userId = enrollment.getStudent().getId();
+        } else if (entity instanceof CourseTeacher courseTeacher) {
+            type = MembershipType.TEACHER;
+            courseId = courseTeacher.getCourse().getId();
+            userId = courseTeacher.getTeacher().getId();
+        } else {
+            return;
+        }
+
+        CourseMembershipIndex index = courseMembershipIndex.getIfAvailable();
+        if (index == null) {
+            return;
+        }
+        Runnable update = added
+                ? () -> index.add(type, courseId, userId)
+                : () -> index.remove(type, courseId, userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+}
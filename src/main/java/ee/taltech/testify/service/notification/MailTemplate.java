@@ -0,0 +1,83 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parsed mail template. The first line of the source is the subject, the rest is the body; {@code {{name}}}
+ * placeholders are replaced with parameters of the same name, or left empty when there is no such parameter.
+ */
+final class MailTemplate {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final List<Segment> subject;
+    private final List<Segment> body;
+
+    private MailTemplate(List<Segment> subject, List<Segment> body) {
+        this.subject = subject;
+        this.body = body;
+    }
+
+    static MailTemplate parse(String source) {
+        String normalized = source.replace("\r\n", "\n");
+        int newline = normalized.indexOf('\n');
+        String subjectSource = newline < 0 ? normalized : normalized.substring(0, newline);
+        String bodySource = newline < 0 ? "" : normalized.substring(newline + 1).strip();
+        return new MailTemplate(segments(subjectSource.strip()), segments(bodySource));
+    }
+
+    RenderedMail render(Map<String, String> parameters) {
+        return new RenderedMail(render(subject, parameters), render(body, parameters));
+    }
+
+    private static String render(List<Segment> segments, Map<String, String> parameters) {
+        StringBuilder result = new StringBuilder();
+        for (Segment segment : segments) {
+            result.append(segment.placeholder() ? parameters.getOrDefault(segment.text(), "") : segment.text());
+        }
+        return result.toString();
+    }
+
+    private static List<Segment> segments(String source) {
+        List<Segment> segments = new ArrayList<>();
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                segments.add(new Segment(source.substring(position), false));
+                break;
+            }
+            if (open > position) {
+                segments.add(new Segment(source.substring(position, open), false));
+            }
+            segments.add(new Segment(source.substring(open + OPEN.length(), close).strip(), true));
+            position = close + CLOSE.length();
+        }
+        return List.copyOf(segments);
+    }
+
+    private record Segment(String text, boolean placeholder) {
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.notification;
+
+import ee.taltech.testify.entity.NotificationType;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders notifications from the templates in {@code templates/mail}. Each template is parsed once and cached.
+ */
+@Component
+public class MailTemplateRenderer {
+    private static final String TEMPLATE_LOCATION = "templates/mail/";
+    private static final String ITEM_SEPARATOR = "\n\n----------------------------------------\n\n";
+
+    private final Map<NotificationType, MailTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Renders a single notification.
+     *
+     * @param type the notification type
+     * @param parameters the template parameters
+     * @return the rendered mail
+     */
+    public RenderedMail render(NotificationType type, Map<String, String> parameters) {
+        return templates.computeIfAbsent(type, MailTemplateRenderer::load).render(parameters);
+    }
+
+    /**
+     * Combines several rendered notifications of one recipient into a single digest.
+     *
+     * @param items the rendered notifications, at least one
+     * @return the digest
+     */
+    public RenderedMail digest(List<RenderedMail> items) {
+        if (items.size() == 1) {
+            return items.get(0);
+        }
+        StringBuilder body = new StringBuilder();
+        for (RenderedMail item : items) {
+            if (!body.isEmpty()) {
+                body.append(ITEM_SEPARATOR);
+            }
+            body.append(item.subject()).append("\n\n").append(item.body());
+        }
+        return new RenderedMail("Testify: " + items.size() + " new notifications", body.toString());
+    }
+
+    private static MailTemplate load(NotificationType type) {
+        String name = TEMPLATE_LOCATION + type.name().toLowerCase(Locale.ROOT).replace('_', '-') + ".txt";
+        try (InputStream in = new ClassPathResource(name).getInputStream()) {
+            return MailTemplate.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load mail template " + name, e);
+        }
+    }
+}
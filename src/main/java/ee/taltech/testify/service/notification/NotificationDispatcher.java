@@ -0,0 +1,198 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.notification;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.entity.Notification;
+import ee.taltech.testify.entity.NotificationStatus;
+import ee.taltech.testify.entity.NotificationType;
+import ee.taltech.testify.repository.NotificationRepository;
+import ee.taltech.testify.service.ConfigurationService;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends the notifications of the outbox.
+ * <p>
+ * Each run claims a batch of due notifications by pushing their next attempt into the future, so that other nodes
+ * skip them and a crashed dispatcher's batch is retried after {@link #CLAIM_TIMEOUT}. Notifications are grouped into
+ * one digest per recipient and all digests are sent over a single SMTP connection. Failed notifications are retried
+ * with exponential backoff and dead-lettered after {@code notification.max-attempts} attempts.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+    public static final String BATCH_SIZE = "notification.batch-size";
+    public static final String MAX_ATTEMPTS = "notification.max-attempts";
+
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(5);
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final NotificationRepository notificationRepository;
+    private final MailTemplateRenderer mailTemplateRenderer;
+    private final JavaMailSender mailSender;
+    private final ConfigurationService configurationService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${testify.notifications.from}")
+    private String from;
+
+    /**
+     * Sends one batch of due notifications.
+     *
+     * @return the number of notifications processed
+     */
+    @Scheduled(fixedDelayString = "${testify.notifications.dispatch-interval:PT10S}")
+    public int dispatch() {
+        List<ClaimedNotification> claimed = transactionTemplate.execute(status -> claim());
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<ClaimedNotification>> byRecipient = new LinkedHashMap<>();
+        for (ClaimedNotification notification : claimed) {
+            byRecipient.computeIfAbsent(notification.recipientEmail(), key -> new ArrayList<>()).add(notification);
+        }
+
+        Map<Integer, String> failures = new HashMap<>();
+        Map<MimeMessage, List<ClaimedNotification>> messages = new LinkedHashMap<>();
+        for (Map.Entry<String, List<ClaimedNotification>> entry : byRecipient.entrySet()) {
+            try {
+                messages.put(compose(entry.getKey(), entry.getValue()), entry.getValue());
+            } catch (MessagingException | IOException | RuntimeException e) {
+                entry.getValue().forEach(notification -> failures.put(notification.id(), describe(e)));
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+            } catch (MailSendException e) {
+                Map<Object, Exception> failed = e.getFailedMessages();
+                messages.forEach((message, notifications) -> {
+                    Exception cause = failed.isEmpty() ? e : failed.get(message);
+                    if (cause != null) {
+                        notifications.forEach(notification -> failures.put(notification.id(), describe(cause)));
+                    }
+                });
+            } catch (MailException e) {
+                messages.values().forEach(notifications ->
+                        notifications.forEach(notification -> failures.put(notification.id(), describe(e))));
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> record(claimed, failures));
+        if (!failures.isEmpty()) {
+            log.warn("Failed to send {} of {} notifications", failures.size(), claimed.size());
+        }
+        return claimed.size();
+    }
+
+    private List<ClaimedNotification> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> due = notificationRepository.findDueForUpdate(NotificationStatus.PENDING, now,
+                PageRequest.of(0, configurationService.getInt(BATCH_SIZE, 100)));
+        List<ClaimedNotification> claimed = new ArrayList<>(due.size());
+        for (Notification notification : due) {
+            notification.setNextAttemptAt(now.plus(CLAIM_TIMEOUT));
+            claimed.add(new ClaimedNotification(notification.getId(), notification.getRecipientEmail(),
+                    notification.getNotificationType(), notification.getPayload()));
+        }
+        return claimed;
+    }
+
+    private MimeMessage compose(String recipientEmail, List<ClaimedNotification> notifications)
+            throws MessagingException, IOException {
+        List<RenderedMail> items = new ArrayList<>(notifications.size());
+        for (ClaimedNotification notification : notifications) {
+            Map<String, String> parameters = objectMapper.readValue(notification.payload(), new TypeReference<>() {
+            });
+            items.add(mailTemplateRenderer.render(notification.type(), parameters));
+        }
+        RenderedMail digest = mailTemplateRenderer.digest(items);
+
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(from);
+        helper.setTo(recipientEmail);
+        helper.setSubject(digest.subject());
+        helper.setText(digest.body());
+        return message;
+    }
+
+    private void record(List<ClaimedNotification> claimed, Map<Integer, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        int maxAttempts = configurationService.getInt(MAX_ATTEMPTS, 5);
+        for (Notification notification : notificationRepository.findAllById(
+                claimed.stream().map(ClaimedNotification::id).toList())) {
+            notification.setAttempts(notification.getAttempts() + 1);
+            String error = failures.get(notification.getId());
+            if (error == null) {
+                notification.setStatus(NotificationStatus.SENT);
+                notification.setSentAt(now);
+                notification.setLastError(null);
+            } else if (notification.getAttempts() >= maxAttempts) {
+                notification.setStatus(NotificationStatus.DEAD);
+                notification.setLastError(error);
+            } else {
+                notification.setNextAttemptAt(now.plus(backoff(notification.getAttempts())));
+                notification.setLastError(error);
+            }
+        }
+    }
+
+    private static Duration backoff(int attempts) {
+        Duration backoff = BASE_BACKOFF.multipliedBy(1L << Math.min(attempts - 1, 16));
+        return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+    }
+
+    private static String describe(Exception e) {
+        String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private record ClaimedNotification(Integer id, String recipientEmail, NotificationType type, String payload) {
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.partition;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes table rows as CSV with a header line.
+ * <p>
+ * The format follows PostgreSQL's {@code COPY ... CSV}: a {@code NULL} is an empty unquoted field and an empty string
+ * is {@code ""}. Values are written in their JDBC string form and converted back by the type of the target column,
+ * so an archive can be restored on any database with the same columns.
+ */
+public final class CsvArchive {
+    private static final int BATCH_SIZE = 1_000;
+
+    private CsvArchive() {
+    }
+
+    /**
+     * Writes the remaining rows of the result set.
+     *
+     * @return the number of rows written
+     */
+    public static long write(ResultSet rows, Writer out) throws SQLException, IOException {
+        ResultSetMetaData metaData = rows.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        for (int i = 1; i <= columnCount; i++) {
+            if (i > 1) {
+                out.write(',');
+            }
+            writeValue(metaData.getColumnLabel(i).toLowerCase(), out);
+        }
+        out.write('\n');
+
+        long count = 0;
+        while (rows.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) {
+                    out.write(',');
+                }
+                String value = rows.getString(i);
+                if (value != null) {
+                    writeValue(value, out);
+                }
+            }
+            out.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Inserts the rows of a CSV written by {@link #write} into a table with the columns named in its header.
+     *
+     * @return the number of rows inserted
+     */
+    public static long insert(Reader in, Connection connection, String table) throws SQLException, IOException {
+        CsvReader reader = new CsvReader(in);
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new IllegalArgumentException("Archive of " + table + " has no header");
+        }
+        String columns = String.join(", ", header);
+        int[] types = columnTypes(connection, table, columns, header.size());
+
+        String sql = "INSERT INTO " + table + " (" + columns + ") VALUES (" + "?, ".repeat(header.size() - 1) + "?)";
+        long count = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            List<String> row;
+            while ((row = reader.next()) != null) {
+                if (row.size() != header.size()) {
+                    throw new IllegalArgumentException("Row " + (count + 1) + " of the archive of " + table
+                            + " has " + row.size() + " fields, expected " + header.size());
+                }
+                for (int i = 0; i < row.size(); i++) {
+                    bind(statement, i + 1, types[i], row.get(i));
+                }
+                statement.addBatch();
+                if (++count % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+        return count;
+    }
+
+    private static int[] columnTypes(Connection connection, String table, String columns, int columnCount)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + columns + " FROM " + table + " WHERE 1 = 0");
+             ResultSet empty = statement.executeQuery()) {
+            int[] types = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                types[i] = empty.getMetaData().getColumnType(i + 1);
+            }
+            return types;
+        }
+    }
+
+    private static void bind(PreparedStatement statement, int index, int type, String value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, type);
+            return;
+        }
+        switch (type) {
+            case Types.SMALLINT, Types.INTEGER, Types.BIGINT -> statement.setLong(index, Long.parseLong(value));
+            case Types.NUMERIC, Types.DECIMAL -> statement.setBigDecimal(index, new BigDecimal(value));
+            case Types.TIMESTAMP -> statement.setTimestamp(index, Timestamp.valueOf(value));
+            case Types.BOOLEAN, Types.BIT -> statement.setBoolean(index,
+                    value.equalsIgnoreCase("t") || value.equalsIgnoreCase("true"));
+            default -> statement.setString(index, value);
+        }
+    }
+
+    private static void writeValue(String value, Writer out) throws IOException {
+        if (!value.isEmpty() && value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    /**
+     * Splits CSV into records, telling an unquoted empty field ({@code null}) from a quoted one ({@code ""}).
+     */
+    private static final class CsvReader {
+        private final Reader in;
+        private int next;
+
+        CsvReader(Reader in) throws IOException {
+            this.in = in;
+            this.next = in.read();
+        }
+
+        /**
+         * @return the fields of the next record, or {@code null} at the end of the input
+         */
+        List<String> next() throws IOException {
+            if (next == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            while (true) {
+                fields.add(field());
+                if (next == ',') {
+                    next = in.read();
+                    continue;
+                }
+                if (next == '\r') {
+                    next = in.read();
+                }
+                if (next == '\n') {
+                    next = in.read();
+                } else if (next != -1) {
+                    throw new IllegalArgumentException("Malformed archive: unexpected '" + (char) next + "'");
+                }
+                return fields;
+            }
+        }
+
+        private String field() throws IOException {
+            if (next != '"') {
+                StringBuilder value = new StringBuilder();
+                while (next != ',' && next != '\n' && next != '\r' && next != -1) {
+                    value.append((char) next);
+                    next = in.read();
+                }
+                return value.isEmpty() ? null : value.toString();
+            }
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                next = in.read();
+                if (next == -1) {
+                    throw new IllegalArgumentException("Malformed archive: unterminated quoted value");
+                }
+                if (next == '"') {
+                    next = in.read();
+                    if (next != '"') {
+                        return value.toString();
+                    }
+                }
+                value.append((char) next);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.partition;
+
+import java.util.List;
+
+/**
+ * The tables partitioned by {@link AcademicTerm}, in the order their partitions are attached. Partitions are
+ * detached in reverse order, because grading elements reference their submission.
+ * <p>
+ * The columns are those written to and read from archives. Generated columns such as the full-text search vector
+ * are left out and recomputed when an archive is restored.
+ */
+public enum PartitionedTable {
+    STUDENT_ASSIGNMENT("student_assignment", "student_assignment_id", List.of("student_assignment_id", "student_id",
+            "assignment_id", "submission_url", "grade", "feedback", "submission_date_time", "term")),
+    STUDENT_GRADING_ELEMENT("student_grading_element", "student_grading_element_id", List.of(
+            "student_grading_element_id", "student_assignment_id", "grading_element_id", "points_awarded",
+            "feedback", "term"));
+
+    private final String tableName;
+    private final String idColumn;
+    private final List<String> columns;
+
+    PartitionedTable(String tableName, String idColumn, List<String> columns) {
+        this.tableName = tableName;
+        this.idColumn = idColumn;
+        this.columns = columns;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getIdColumn() {
+        return idColumn;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the name of the partition holding the rows of the term, e.g. {@code student_assignment_t20242}
+     */
+    public String partitionName(AcademicTerm term) {
+        return tableName + "_t" + term.code();
+    }
+}
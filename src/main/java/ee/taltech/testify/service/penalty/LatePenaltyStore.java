@@ -0,0 +1,273 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.penalty;
+
+import ee.taltech.testify.entity.LatePenaltyPolicy;
+import ee.taltech.testify.entity.LatePenaltyType;
+import ee.taltech.testify.service.grading.ElementGrade;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Applies late penalties to the submissions of an assignment with a few set-based statements, so that the
+ * submissions never have to be loaded.
+ * <p>
+ * A penalty is awarded as points of the deduction grading element of the policy, computed in SQL from the submission
+ * time of the student assignment, or for {@link LatePenaltyType#CAP} from its other points. Only graded submissions
+ * are penalized: an ungraded late submission gets its penalty when it is graded. Penalties that come to zero are
+ * removed. Which other elements are deductions is given by the caller from the rubric the assignment is graded by.
+ */
+@Component
+@RequiredArgsConstructor
+public class LatePenaltyStore {
+    private static final String LATENESS_SECONDS = "CAST(EXTRACT(EPOCH FROM sa.submission_date_time) "
+            + "- EXTRACT(EPOCH FROM CAST(:due AS TIMESTAMP)) AS DOUBLE PRECISION)";
+
+    private static final String LINEAR = "LEAST(:maxPercent, :percent * " + LATENESS_SECONDS + " / 86400) "
+            + "* :maxGrade / 100";
+
+    private static final String STEPPED = "LEAST(:maxPercent, :percent * CEILING(" + LATENESS_SECONDS
+            + " / :stepSeconds)) * :maxGrade / 100";
+
+    private static final String CAP = """
+            GREATEST(0, COALESCE((
+                SELECT SUM(CASE WHEN o.grading_element_id IN (:deductions) THEN -o.points_awarded
+                                ELSE o.points_awarded END)
+                FROM student_grading_element o
+                WHERE o.term = sa.term AND o.student_assignment_id = sa.student_assignment_id
+                  AND o.grading_element_id <> :penaltyId
+            ), 0) - :cap)""";
+
+    private static final String UPDATE = """
+            UPDATE student_grading_element
+            SET points_awarded = COALESCE((
+                SELECT ROUND(CAST(%s AS DECIMAL(15, 6)), 2)
+                FROM student_assignment sa
+                WHERE sa.term = student_grading_element.term
+                  AND sa.student_assignment_id = student_grading_element.student_assignment_id
+                  AND sa.submission_date_time > :due
+            ), 0), feedback = :feedback
+            WHERE grading_element_id = :penaltyId AND term = :term%s
+            """;
+
+    private static final String INSERT = """
+            INSERT INTO student_grading_element (student_assignment_id, grading_element_id, points_awarded, feedback,
+                                                 term)
+            SELECT student_assignment_id, :penaltyId, points, :feedback, term
+            FROM (
+                SELECT sa.student_assignment_id, sa.term, ROUND(CAST(%s AS DECIMAL(15, 6)), 2) AS points
+                FROM student_assignment sa
+                WHERE sa.assignment_id = :assignmentId AND sa.term = :term AND sa.submission_date_time > :due%s
+                  AND EXISTS (
+                      SELECT 1 FROM student_grading_element o
+                      WHERE o.term = sa.term AND o.student_assignment_id = sa.student_assignment_id
+                        AND o.grading_element_id <> :penaltyId
+                  )
+                  AND NOT EXISTS (
+                      SELECT 1 FROM student_grading_element p
+                      WHERE p.term = sa.term AND p.student_assignment_id = sa.student_assignment_id
+                        AND p.grading_element_id = :penaltyId
+                  )
+            ) late
+            WHERE points > 0
+            """;
+
+    private static final String PENALIZED = """
+            WHERE assignment_id = :assignmentId AND term = :term AND EXISTS (
+                SELECT 1 FROM student_grading_element p
+                WHERE p.term = student_assignment.term
+                  AND p.student_assignment_id = student_assignment.student_assignment_id
+                  AND p.grading_element_id = :penaltyId
+            )
+            """;
+
+    private static final String RECOMPUTE = """
+            UPDATE student_assignment
+            SET grade = (
+                SELECT GREATEST(0, SUM(CASE WHEN sge.grading_element_id IN (:deductions) THEN -sge.points_awarded
+                                            ELSE sge.points_awarded END))
+                FROM student_grading_element sge
+                WHERE sge.term = student_assignment.term
+                  AND sge.student_assignment_id = student_assignment.student_assignment_id
+            )
+            """ + PENALIZED;
+
+    private static final String PENALIZED_GRADES = """
+            SELECT student_assignment_id, grade FROM student_assignment
+            """ + PENALIZED;
+
+    private static final String DELETE_ZERO = """
+            DELETE FROM student_grading_element
+            WHERE grading_element_id = :penaltyId AND term = :term AND points_awarded = 0%s
+            """;
+
+    private static final String ONLY_IDS = " AND student_assignment_id IN (:ids)";
+    private static final String ONLY_SA_IDS = " AND sa.student_assignment_id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Applies the penalties to every submission of the assignment and recomputes the grades of the submissions whose
+     * penalty changed, or may have.
+     *
+     * @param policy the policy of the assignment
+     * @param maxGrade the maximum grade of the assignment
+     * @param due the deadline of the assignment, or null if it has none and nothing is late
+     * @param term the term of the student assignments
+     * @param deductionIds the grading elements of the rubric whose points are subtracted
+     * @return the new grade of each submission whose grade changed
+     */
+    public Map<Integer, BigDecimal> apply(LatePenaltyPolicy policy, BigDecimal maxGrade, LocalDateTime due, int term,
+                                          Collection<Integer> deductionIds) {
+        MapSqlParameterSource parameters = parameters(policy, maxGrade, due, term, deductionIds);
+        String points = points(policy.getPenaltyType());
+        jdbcTemplate.update(UPDATE.formatted(points, ""), parameters);
+        jdbcTemplate.update(INSERT.formatted(points, ""), parameters);
+        Map<Integer, BigDecimal> previous = penalizedGrades(parameters);
+        jdbcTemplate.update(RECOMPUTE, parameters);
+        Map<Integer, BigDecimal> changed = penalizedGrades(parameters);
+        changed.entrySet().removeIf(grade -> grade.getValue() == null || previous.get(grade.getKey()) != null
+                && previous.get(grade.getKey()).compareTo(grade.getValue()) == 0);
+        jdbcTemplate.update(DELETE_ZERO.formatted(""), parameters);
+        return changed;
+    }
+
+    /**
+     * Applies the penalties to some graded submissions of the assignment, without recomputing their grades.
+     *
+     * @param deductionIds the grading elements of the rubric whose points are subtracted
+     * @param studentAssignmentIds the submissions
+     * @return the penalty of each submission whose penalty may have changed, with null points for a removed penalty
+     */
+    public List<ElementGrade> apply(LatePenaltyPolicy policy, BigDecimal maxGrade, LocalDateTime due, int term,
+                                    Collection<Integer> deductionIds, Collection<Integer> studentAssignmentIds) {
+        List<ElementGrade> penalties = new ArrayList<>();
+        if (studentAssignmentIds.isEmpty()) {
+            return penalties;
+        }
+        MapSqlParameterSource parameters = parameters(policy, maxGrade, due, term, deductionIds)
+                .addValue("ids", studentAssignmentIds);
+        String points = points(policy.getPenaltyType());
+        jdbcTemplate.update(UPDATE.formatted(points, ONLY_IDS), parameters);
+        jdbcTemplate.update(INSERT.formatted(points, ONLY_SA_IDS), parameters);
+        Map<Integer, BigDecimal> awarded = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT student_assignment_id, points_awarded
+                FROM student_grading_element
+                WHERE grading_element_id = :penaltyId AND term = :term AND student_assignment_id IN (:ids)
+                """, parameters, row -> {
+            awarded.put(row.getInt("student_assignment_id"), row.getBigDecimal("points_awarded"));
+        });
+        jdbcTemplate.update(DELETE_ZERO.formatted(ONLY_IDS), parameters);
+        awarded.forEach((studentAssignmentId, penalty) -> penalties.add(new ElementGrade(studentAssignmentId,
+                policy.getGradingElementId(), penalty.signum() == 0 ? null : penalty, description(policy))));
+        return penalties;
+    }
+
+    /**
+     * @return the grade of each submission that has a penalty, including penalties that came to zero
+     */
+    private Map<Integer, BigDecimal> penalizedGrades(MapSqlParameterSource parameters) {
+        Map<Integer, BigDecimal> grades = new HashMap<>();
+        jdbcTemplate.query(PENALIZED_GRADES, parameters, row -> {
+            grades.put(row.getInt("student_assignment_id"), row.getBigDecimal("grade"));
+        });
+        return grades;
+    }
+
+    /**
+     * @return the number of submissions of the term with a penalty
+     */
+    public long countPenalized(LatePenaltyPolicy policy, int term) {
+        Long count = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM student_grading_element WHERE grading_element_id = :penaltyId AND term = :term
+                """, new MapSqlParameterSource("penaltyId", policy.getGradingElementId()).addValue("term", term),
+                Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @return the most the policy can deduct, as a percentage of the maximum grade
+     */
+    public static BigDecimal maxPercent(LatePenaltyPolicy policy) {
+        return policy.getPenaltyType() == LatePenaltyType.CAP
+                ? BigDecimal.valueOf(100).subtract(policy.getPercent())
+                : policy.getMaxPercent();
+    }
+
+    /**
+     * @return the policy in words, given as the feedback of every penalty
+     */
+    public static String description(LatePenaltyPolicy policy) {
+        return switch (policy.getPenaltyType()) {
+            case LINEAR -> "Late penalty: " + policy.getPercent().stripTrailingZeros().toPlainString()
+                    + "% of the maximum grade per day late, at most "
+                    + policy.getMaxPercent().stripTrailingZeros().toPlainString() + "%";
+            case STEPPED -> "Late penalty: " + policy.getPercent().stripTrailingZeros().toPlainString()
+                    + "% of the maximum grade per started " + policy.getStepHours() + " hours late, at most "
+                    + policy.getMaxPercent().stripTrailingZeros().toPlainString() + "%";
+            case CAP -> "Late penalty: late submissions get at most "
+                    + policy.getPercent().stripTrailingZeros().toPlainString() + "% of the maximum grade";
+        };
+    }
+
+    private static String points(LatePenaltyType type) {
+        return switch (type) {
+            case LINEAR -> LINEAR;
+            case STEPPED -> STEPPED;
+            case CAP -> CAP;
+        };
+    }
+
+    private static MapSqlParameterSource parameters(LatePenaltyPolicy policy, BigDecimal maxGrade, LocalDateTime due,
+                                                    int term, Collection<Integer> deductionIds) {
+        // The penalty element is always a deduction, which also keeps the IN list from being empty
+        Set<Integer> deductions = new TreeSet<>(deductionIds);
+        deductions.add(policy.getGradingElementId());
+        return new MapSqlParameterSource()
+                .addValue("assignmentId", policy.getAssignmentId())
+                .addValue("penaltyId", policy.getGradingElementId())
+                .addValue("deductions", deductions)
+                .addValue("term", term)
+                .addValue("due", due == null ? null : Timestamp.valueOf(due), Types.TIMESTAMP)
+                .addValue("percent", policy.getPercent())
+                .addValue("maxPercent", policy.getMaxPercent())
+                .addValue("stepSeconds", policy.getStepHours() == null ? null : policy.getStepHours() * 3600L)
+                .addValue("maxGrade", maxGrade)
+                .addValue("cap", policy.getPercent().multiply(maxGrade).divide(BigDecimal.valueOf(100), 2,
+                        RoundingMode.HALF_UP))
+                .addValue("feedback", description(policy));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.projection;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import ee.taltech.testify.exception.InvalidRequestException;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The fields a client asked for with the {@code fields} query parameter, e.g. {@code fields=id,title}.
+ * <p>
+ * The names are those of the components of a projection record, which are also the property names of the response
+ * DTO. The same set selects the columns to load and the properties to serialize: DTOs returned with sparse fieldsets
+ * carry {@code @JsonFilter(SparseFieldset.FILTER)}, and {@link #apply(Object)} leaves out everything not asked for.
+ * The {@code id} is always included.
+ */
+public final class SparseFieldset {
+    public static final String FILTER = "sparseFieldset";
+
+    private static final String ID = "id";
+
+    private final Set<String> fields;
+
+    private SparseFieldset(Set<String> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * @param fields comma-separated field names, or {@code null} or blank for all fields
+     * @param projection the record listing the fields that can be requested
+     * @throws InvalidRequestException if a field is not a component of the projection
+     */
+    public static SparseFieldset parse(String fields, Class<? extends Record> projection) {
+        Set<String> available = Arrays.stream(projection.getRecordComponents())
+                .map(RecordComponent::getName)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (fields == null || fields.isBlank()) {
+            return new SparseFieldset(available);
+        }
+
+        Set<String> requested = new LinkedHashSet<>();
+        requested.add(ID);
+        for (String field : fields.split(",")) {
+            String name = field.strip();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!available.contains(name)) {
+                throw new InvalidRequestException("Unknown field '" + name + "', expected one of " + available);
+            }
+            requested.add(name);
+        }
+        return new SparseFieldset(requested);
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Wraps a response body so that only the requested properties of its DTOs are serialized.
+     */
+    public MappingJacksonValue apply(Object body) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider()
+                .addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        return value;
+    }
+}
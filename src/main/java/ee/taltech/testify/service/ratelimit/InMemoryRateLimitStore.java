@@ -0,0 +1,82 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.ratelimit;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Node-local buckets. Limits are enforced per application instance.
+ */
+@Component
+public class InMemoryRateLimitStore implements RateLimitStore {
+    private final Map<RateLimitScope, ConcurrentHashMap<Integer, TokenBucket>> buckets =
+            new EnumMap<>(RateLimitScope.class);
+    private final LongSupplier clock;
+
+    public InMemoryRateLimitStore() {
+        this(System::nanoTime);
+    }
+
+    InMemoryRateLimitStore(LongSupplier clock) {
+        this.clock = clock;
+        for (RateLimitScope scope : RateLimitScope.values()) {
+            buckets.put(scope, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public long tryAcquire(RateLimitScope scope, int id, RateLimitPolicy policy) {
+        long now = clock.getAsLong();
+        TokenBucket bucket = buckets.get(scope).get(id);
+        if (bucket == null) {
+            bucket = buckets.get(scope).computeIfAbsent(id, key -> new TokenBucket(now));
+        }
+        return bucket.tryAcquire(now, policy);
+    }
+
+    @Override
+    public void release(RateLimitScope scope, int id, RateLimitPolicy policy) {
+        TokenBucket bucket = buckets.get(scope).get(id);
+        if (bucket != null) {
+            bucket.release(policy);
+        }
+    }
+
+    /**
+     * Drops buckets that have refilled completely; a new bucket behaves exactly like a full one.
+     */
+    @Scheduled(fixedDelayString = "${testify.rate-limit.eviction-interval:PT5M}")
+    public void evictFullBuckets() {
+        long now = clock.getAsLong();
+        for (ConcurrentHashMap<Integer, TokenBucket> scopeBuckets : buckets.values()) {
+            scopeBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+    }
+
+    int size() {
+        return buckets.values().stream().mapToInt(Map::size).sum();
+    }
+}
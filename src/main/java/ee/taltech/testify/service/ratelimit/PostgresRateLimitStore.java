@@ -0,0 +1,98 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.ratelimit;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Buckets shared by all application instances, stored in the {@code rate_limit_bucket} table.
+ * <p>
+ * Each acquisition is a single upsert that only advances the bucket when a token is available. Time is taken from
+ * the database clock so that nodes with skewed clocks agree on the bucket state. Every statement commits in a
+ * transaction of its own, so the bucket row is not kept locked for the rest of the caller's transaction.
+ */
+@Component
+public class PostgresRateLimitStore implements RateLimitStore {
+    private static final long NANOS_PER_MICRO = 1_000L;
+
+    private static final String ACQUIRE = """
+            WITH clock AS (SELECT CAST(EXTRACT(EPOCH FROM clock_timestamp()) * 1000000 AS BIGINT) AS now_us)
+            INSERT INTO rate_limit_bucket AS b (bucket_key, theoretical_arrival)
+            SELECT :key, now_us + :interval FROM clock
+            ON CONFLICT (bucket_key) DO UPDATE
+            SET theoretical_arrival = GREATEST(b.theoretical_arrival, EXCLUDED.theoretical_arrival - :interval) + :interval
+            WHERE GREATEST(b.theoretical_arrival, EXCLUDED.theoretical_arrival - :interval) - :tolerance
+                <= EXCLUDED.theoretical_arrival - :interval
+            RETURNING b.theoretical_arrival
+            """;
+
+    private static final String WAIT_TIME = """
+            SELECT b.theoretical_arrival - :tolerance
+                - CAST(EXTRACT(EPOCH FROM clock_timestamp()) * 1000000 AS BIGINT)
+            FROM rate_limit_bucket b
+            WHERE b.bucket_key = :key
+            """;
+
+    private static final String RELEASE = """
+            UPDATE rate_limit_bucket SET theoretical_arrival = theoretical_arrival - :interval
+            WHERE bucket_key = :key
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PostgresRateLimitStore(NamedParameterJdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long tryAcquire(RateLimitScope scope, int id, RateLimitPolicy policy) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("key", scope.name() + ":" + id)
+                .addValue("interval", policy.emissionIntervalNanos() / NANOS_PER_MICRO)
+                .addValue("tolerance", policy.burstToleranceNanos() / NANOS_PER_MICRO);
+
+        Long wait = transactionTemplate.execute(status -> {
+            if (!jdbcTemplate.queryForList(ACQUIRE, params, Long.class).isEmpty()) {
+                return 0L;
+            }
+            List<Long> waitMicros = jdbcTemplate.queryForList(WAIT_TIME, params, Long.class);
+            return waitMicros.isEmpty() ? 0L : Math.max(1, waitMicros.get(0) * NANOS_PER_MICRO);
+        });
+        return wait == null ? 0 : wait;
+    }
+
+    @Override
+    public void release(RateLimitScope scope, int id, RateLimitPolicy policy) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(RELEASE, new MapSqlParameterSource()
+                .addValue("key", scope.name() + ":" + id)
+                .addValue("interval", policy.emissionIntervalNanos() / NANOS_PER_MICRO)));
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket parameters expressed in the form used by the generic cell rate algorithm.
+ *
+ * @param emissionIntervalNanos time it takes to refill a single token
+ * @param burstToleranceNanos how far ahead of the refill schedule a bucket may run, i.e. (capacity - 1) tokens
+ */
+public record RateLimitPolicy(long emissionIntervalNanos, long burstToleranceNanos) {
+
+    /**
+     * Creates a policy for a bucket holding {@code capacity} tokens and refilling {@code refillPerMinute} tokens per
+     * minute.
+     *
+     * @param capacity the maximum number of tokens, i.e. the allowed burst
+     * @param refillPerMinute the number of tokens added per minute
+     * @return the policy
+     */
+    public static RateLimitPolicy of(int capacity, int refillPerMinute) {
+        if (capacity < 1 || refillPerMinute < 1) {
+            throw new IllegalArgumentException("Capacity and refill rate must be positive");
+        }
+        long emissionInterval = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+        return new RateLimitPolicy(emissionInterval, emissionInterval * (capacity - 1));
+    }
+}
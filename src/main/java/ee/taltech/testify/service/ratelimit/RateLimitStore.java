@@ -0,0 +1,45 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.ratelimit;
+
+/**
+ * Storage of token buckets.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Tries to take a single token from the bucket of the given scope and id.
+     *
+     * @param scope the bucket scope
+     * @param id the id of the user or course
+     * @param policy the policy to apply
+     * @return zero if a token was taken, otherwise the number of nanoseconds until a token becomes available
+     */
+    long tryAcquire(RateLimitScope scope, int id, RateLimitPolicy policy);
+
+    /**
+     * Puts back a token taken by {@link #tryAcquire} for a request that was rejected for another reason.
+     *
+     * @param scope the bucket scope
+     * @param id the id of the user or course
+     * @param policy the policy the token was taken under
+     */
+    void release(RateLimitScope scope, int id, RateLimitPolicy policy);
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ * <p>
+ * The bucket state is a single "theoretical arrival time" (GCRA), so acquiring a token is one compare-and-set and
+ * the policy can change between calls without resetting the bucket.
+ */
+public final class TokenBucket {
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(long now) {
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * Tries to take a single token from the bucket.
+     *
+     * @param now the current time in nanoseconds
+     * @param policy the policy to apply
+     * @return zero if a token was taken, otherwise the number of nanoseconds until a token becomes available
+     */
+    public long tryAcquire(long now, RateLimitPolicy policy) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long base = Math.max(current, now);
+            long allowedAt = base - policy.burstToleranceNanos();
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, base + policy.emissionIntervalNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Puts back a single token taken with the given policy.
+     *
+     * @param policy the policy the token was taken under
+     */
+    public void release(RateLimitPolicy policy) {
+        theoreticalArrival.addAndGet(-policy.emissionIntervalNanos());
+    }
+
+    /**
+     * Checks whether the bucket has refilled completely and can be discarded without changing behaviour.
+     *
+     * @param now the current time in nanoseconds
+     * @return true if the bucket is full
+     */
+    public boolean isFull(long now) {
+        return theoreticalArrival.get() <= now;
+    }
+}
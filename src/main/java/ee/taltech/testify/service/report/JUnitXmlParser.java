@@ -0,0 +1,118 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.report;
+
+import ee.taltech.testify.exception.InvalidRequestException;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Parses the JUnit XML report format written by Surefire, Gradle, pytest and most other test runners.
+ * <p>
+ * The report is read with StAX and only the {@code testcase} elements and the {@code failure}, {@code error} and
+ * {@code skipped} elements directly inside them are looked at; captured output is skipped over without being kept.
+ * Suites may be nested to any depth. DTDs and external entities are not processed.
+ */
+@Component
+public class JUnitXmlParser implements TestReportParser {
+    private final XMLInputFactory factory;
+
+    public JUnitXmlParser() {
+        factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    }
+
+    @Override
+    public void parse(InputStream report, Consumer<TestCaseResult> results) {
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(report);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "testcase".equals(reader.getLocalName())) {
+                    results.accept(readTestCase(reader));
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new InvalidRequestException("Malformed JUnit XML report: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // Closing a reader does not close the stream, so there is nothing left to release
+                }
+            }
+        }
+    }
+
+    private static TestCaseResult readTestCase(XMLStreamReader reader) throws XMLStreamException {
+        String className = Objects.requireNonNullElse(reader.getAttributeValue(null, "classname"), "");
+        String name = Objects.requireNonNullElse(reader.getAttributeValue(null, "name"), "");
+        long durationMillis = durationMillis(reader.getAttributeValue(null, "time"));
+        TestOutcome outcome = TestOutcome.PASSED;
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (++depth == 2) {
+                    TestOutcome child = outcomeOf(reader.getLocalName());
+                    if (child.compareTo(outcome) > 0) {
+                        outcome = child;
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        return new TestCaseResult(className, name, outcome, durationMillis);
+    }
+
+    /**
+     * @param time the {@code time} attribute, in seconds; some runners group thousands with commas
+     */
+    private static long durationMillis(String time) {
+        if (time == null) {
+            return TestCaseResult.UNKNOWN_DURATION;
+        }
+        try {
+            return Math.round(Double.parseDouble(time.replace(",", "")) * 1000);
+        } catch (NumberFormatException e) {
+            return TestCaseResult.UNKNOWN_DURATION;
+        }
+    }
+
+    private static TestOutcome outcomeOf(String element) {
+        return switch (element) {
+            case "failure" -> TestOutcome.FAILED;
+            case "error" -> TestOutcome.ERROR;
+            case "skipped" -> TestOutcome.SKIPPED;
+            default -> TestOutcome.PASSED;
+        };
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.report;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Parses the Test Anything Protocol, versions 12 to 14, line by line.
+ * <p>
+ * Only top-level test points count: indented lines (subtests and YAML diagnostics), comments, the plan and the
+ * version line are skipped. Tests with a {@code SKIP} or {@code TODO} directive are reported as skipped, since TAP
+ * does not count a failing TODO test as a failure. Reading stops at {@code Bail out!}, so tests that never ran are
+ * simply missing. TAP has no test classes, so the description is the name of the test case.
+ */
+@Component
+public class TapParser implements TestReportParser {
+    @Override
+    public void parse(InputStream report, Consumer<TestCaseResult> results) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(report, StandardCharsets.UTF_8));
+        String line;
+        int count = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("Bail out!")) {
+                return;
+            }
+            if (!line.startsWith("ok") && !line.startsWith("not ok")) {
+                continue;
+            }
+            boolean ok = line.startsWith("ok");
+            int i = ok ? 2 : 6;
+            if (line.length() > i && !Character.isWhitespace(line.charAt(i)) && line.charAt(i) != '#') {
+                continue;
+            }
+            count++;
+            i = skipSpaces(line, i);
+            int numberStart = i;
+            while (i < line.length() && Character.isDigit(line.charAt(i))) {
+                i++;
+            }
+            String number = i > numberStart ? line.substring(numberStart, i) : String.valueOf(count);
+            i = skipSpaces(line, i);
+            if (i < line.length() && line.charAt(i) == '-') {
+                i = skipSpaces(line, i + 1);
+            }
+            int hash = line.indexOf('#', i);
+            String name = (hash < 0 ? line.substring(i) : line.substring(i, hash)).strip();
+            String directive = hash < 0 ? "" : line.substring(skipSpaces(line, hash + 1));
+
+            TestOutcome outcome;
+            if (directive.regionMatches(true, 0, "SKIP", 0, 4) || directive.regionMatches(true, 0, "TODO", 0, 4)) {
+                outcome = TestOutcome.SKIPPED;
+            } else {
+                outcome = ok ? TestOutcome.PASSED : TestOutcome.FAILED;
+            }
+            if (name.isEmpty()) {
+                name = "test " + number;
+            }
+            results.accept(new TestCaseResult("", name, outcome));
+        }
+    }
+
+    private static int skipSpaces(String line, int from) {
+        int i = from;
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.report;
+
+/**
+ * One test case of a test report.
+ *
+ * @param className the test class, empty for formats without classes
+ * @param name the name of the test case
+ * @param outcome the outcome
+ * @param durationMillis how long the test case ran, or {@link #UNKNOWN_DURATION} if the report does not say
+ */
+public record TestCaseResult(String className, String name, TestOutcome outcome, long durationMillis) {
+    public static final long UNKNOWN_DURATION = -1;
+
+    public TestCaseResult(String className, String name, TestOutcome outcome) {
+        this(className, name, outcome, UNKNOWN_DURATION);
+    }
+
+    /**
+     * @return {@code class#name}, or just the name if there is no class
+     */
+    public String id() {
+        return className.isEmpty() ? name : className + "#" + name;
+    }
+}
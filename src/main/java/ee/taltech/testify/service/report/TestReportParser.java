@@ -0,0 +1,38 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.report;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads a test report as a stream, handing over each test case as soon as it has been read, so that memory use does
+ * not grow with the size of the report.
+ */
+public interface TestReportParser {
+
+    /**
+     * @param report the report, not closed by the parser
+     * @param results receives the test cases in report order
+     * @throws ee.taltech.testify.exception.InvalidRequestException if the report is malformed
+     */
+    void parse(InputStream report, Consumer<TestCaseResult> results) throws IOException;
+}
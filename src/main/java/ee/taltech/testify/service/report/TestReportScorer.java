@@ -0,0 +1,204 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.report;
+
+import ee.taltech.testify.entity.TestScoring;
+import ee.taltech.testify.repository.GradingRule;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Tallies the test cases of a report against the grading rules of an assignment as they are parsed, keeping only
+ * counters and the first few failed test names per rule, so a report of any size is scored in constant memory.
+ * <p>
+ * A rule selects a test case if its pattern matches the test class or {@code class#name}. Skipped test cases are
+ * left out. A regular element earns its points for passed tests, a deduction element deducts them for failed ones;
+ * with {@link TestScoring#PROPORTIONAL} in proportion to the selected tests, with
+ * {@link TestScoring#ALL_OR_NOTHING} only if all of them passed, or for a deduction if any failed. An element whose
+ * tests did not run earns or deducts nothing. Points are rounded down to cents.
+ */
+public class TestReportScorer implements Consumer<TestCaseResult> {
+    private static final int FAILED_NAMES_IN_FEEDBACK = 5;
+
+    private final List<RuleTally> tallies;
+    private int tests;
+    private int passed;
+    private int failed;
+    private int skipped;
+
+    /**
+     * Rule matches of the class of the previous test case; test cases of one class are reported together, so this
+     * saves matching the class name again for each of them. A rule that does not match the class may still select
+     * single test cases, unless the matcher gave up before the end of the class name, in which case no
+     * {@code class#name} can match either.
+     */
+    private String lastClassName;
+    private boolean[] classMatches;
+    private boolean[] testsMayMatch;
+
+    /**
+     * @throws IllegalArgumentException if a rule's pattern is not a valid regular expression
+     */
+    public TestReportScorer(List<GradingRule> rules) {
+        tallies = new ArrayList<>(rules.size());
+        for (GradingRule rule : rules) {
+            try {
+                tallies.add(new RuleTally(rule, Pattern.compile(rule.testPattern())));
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid test pattern of grading element " + rule.id() + ": "
+                        + e.getDescription(), e);
+            }
+        }
+    }
+
+    @Override
+    public void accept(TestCaseResult result) {
+        tests++;
+        switch (result.outcome()) {
+            case PASSED -> passed++;
+            case SKIPPED -> skipped++;
+            case FAILED, ERROR -> failed++;
+        }
+        if (result.outcome() == TestOutcome.SKIPPED) {
+            return;
+        }
+
+        if (!result.className().equals(lastClassName)) {
+            matchClass(result.className());
+        }
+        String id = null;
+        for (int i = 0; i < tallies.size(); i++) {
+            RuleTally tally = tallies.get(i);
+            if (!classMatches[i]) {
+                if (!testsMayMatch[i]) {
+                    continue;
+                }
+                if (id == null) {
+                    id = result.id();
+                }
+                if (!tally.pattern.matcher(id).matches()) {
+                    continue;
+                }
+            }
+            tally.add(result);
+        }
+    }
+
+    private void matchClass(String className) {
+        lastClassName = className;
+        classMatches = new boolean[tallies.size()];
+        testsMayMatch = new boolean[tallies.size()];
+        for (int i = 0; i < tallies.size(); i++) {
+            if (className.isEmpty()) {
+                testsMayMatch[i] = true;
+                continue;
+            }
+            Matcher matcher = tallies.get(i).pattern.matcher(className);
+            classMatches[i] = matcher.matches();
+            testsMayMatch[i] = matcher.hitEnd();
+        }
+    }
+
+    public int getTests() {
+        return tests;
+    }
+
+    public int getPassed() {
+        return passed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return the score of every rule, in rule order
+     */
+    public List<ElementScore> getScores() {
+        return tallies.stream().map(RuleTally::score).toList();
+    }
+
+    private static final class RuleTally {
+        private final GradingRule rule;
+        private final Pattern pattern;
+        private final List<String> failedNames = new ArrayList<>(FAILED_NAMES_IN_FEEDBACK);
+        private int tests;
+        private int passed;
+
+        private RuleTally(GradingRule rule, Pattern pattern) {
+            this.rule = rule;
+            this.pattern = pattern;
+        }
+
+        private void add(TestCaseResult result) {
+            tests++;
+            if (result.outcome() == TestOutcome.PASSED) {
+                passed++;
+            } else if (failedNames.size() < FAILED_NAMES_IN_FEEDBACK) {
+                failedNames.add(result.id());
+            }
+        }
+
+        private ElementScore score() {
+            return new ElementScore(rule.id(), tests, passed, points(), feedback());
+        }
+
+        private BigDecimal points() {
+            if (tests == 0) {
+                return BigDecimal.ZERO.setScale(2);
+            }
+            int earning = rule.isDeduction() ? tests - passed : passed;
+            BigDecimal share = switch (rule.testScoring()) {
+                case PROPORTIONAL -> rule.maxPoints().multiply(BigDecimal.valueOf(earning))
+                        .divide(BigDecimal.valueOf(tests), 2, RoundingMode.DOWN);
+                case ALL_OR_NOTHING -> (rule.isDeduction() ? passed < tests : passed == tests)
+                        ? rule.maxPoints() : BigDecimal.ZERO;
+            };
+            return share.setScale(2, RoundingMode.DOWN);
+        }
+
+        private String feedback() {
+            if (tests == 0) {
+                return "No tests ran";
+            }
+            StringBuilder feedback = new StringBuilder()
+                    .append(passed).append('/').append(tests).append(" tests passed");
+            if (!failedNames.isEmpty()) {
+                feedback.append("; failed: ").append(String.join(", ", failedNames));
+                int more = tests - passed - failedNames.size();
+                if (more > 0) {
+                    feedback.append(" and ").append(more).append(" more");
+                }
+            }
+            return feedback.toString();
+        }
+    }
+}
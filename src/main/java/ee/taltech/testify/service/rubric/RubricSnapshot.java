@@ -0,0 +1,173 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.rubric;
+
+import ee.taltech.testify.entity.TestScoring;
+import ee.taltech.testify.repository.GradingRule;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The grading elements of an assignment held in parallel arrays in ascending order of ID, so that a grading element
+ * is found by binary search without boxing or hashing.
+ * <p>
+ * A snapshot is immutable and can be shared by any number of threads without locking. Published snapshots are
+ * cached by {@link RubricSnapshotCache}; a draft snapshot reflects the grading elements at the moment it was read.
+ */
+public final class RubricSnapshot {
+    /**
+     * The version of a snapshot of grading elements that have not been published.
+     */
+    public static final int DRAFT = 0;
+
+    private final int version;
+    private final int[] ids;
+    private final BigDecimal[] maxPoints;
+    private final boolean[] deductions;
+    private final String[] testPatterns;
+    private final TestScoring[] testScorings;
+
+    /**
+     * The grading elements with a test pattern, built once for the scorers of every test report.
+     */
+    private final List<GradingRule> rules;
+
+    private RubricSnapshot(int version, List<GradingRule> elements) {
+        this.version = version;
+        int size = elements.size();
+        ids = new int[size];
+        maxPoints = new BigDecimal[size];
+        deductions = new boolean[size];
+        testPatterns = new String[size];
+        testScorings = new TestScoring[size];
+        List<GradingRule> autotested = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            GradingRule element = elements.get(i);
+            ids[i] = element.id();
+            maxPoints[i] = element.maxPoints();
+            deductions[i] = element.isDeduction();
+            testPatterns[i] = element.testPattern();
+            testScorings[i] = element.testScoring();
+            if (element.testPattern() != null) {
+                autotested.add(element);
+            }
+        }
+        rules = Collections.unmodifiableList(autotested);
+    }
+
+    /**
+     * @param version the published version, or {@link #DRAFT}
+     * @param elements the grading elements, with a null test pattern for those graded by hand
+     * @throws IllegalArgumentException if a grading element is given twice
+     */
+    public static RubricSnapshot of(int version, List<GradingRule> elements) {
+        List<GradingRule> sorted = new ArrayList<>(elements);
+        sorted.sort(Comparator.comparing(GradingRule::id));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).id().equals(sorted.get(i - 1).id())) {
+                throw new IllegalArgumentException("Grading element " + sorted.get(i).id() + " is given twice");
+            }
+        }
+        return new RubricSnapshot(version, sorted);
+    }
+
+    /**
+     * @return the same grading elements as another version
+     */
+    public RubricSnapshot withVersion(int version) {
+        return new RubricSnapshot(version, toElements());
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public boolean isPublished() {
+        return version != DRAFT;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return the position of the grading element in this snapshot, or -1 if it is not part of it
+     */
+    public int indexOf(int gradingElementId) {
+        int index = Arrays.binarySearch(ids, gradingElementId);
+        return index >= 0 ? index : -1;
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    public BigDecimal getMaxPoints(int index) {
+        return maxPoints[index];
+    }
+
+    public boolean isDeduction(int index) {
+        return deductions[index];
+    }
+
+    /**
+     * @return the IDs of the deduction elements, in ascending order
+     */
+    public List<Integer> getDeductionIds() {
+        List<Integer> deductionIds = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (deductions[i]) {
+                deductionIds.add(ids[i]);
+            }
+        }
+        return deductionIds;
+    }
+
+    public String getTestPattern(int index) {
+        return testPatterns[index];
+    }
+
+    public TestScoring getTestScoring(int index) {
+        return testScorings[index];
+    }
+
+    /**
+     * @return the grading elements graded from autotest results, in ascending order of ID
+     */
+    public List<GradingRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * @return every grading element, in ascending order of ID
+     */
+    public List<GradingRule> toElements() {
+        List<GradingRule> elements = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            elements.add(new GradingRule(ids[i], maxPoints[i], deductions[i], testPatterns[i], testScorings[i]));
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.rubric;
+
+import ee.taltech.testify.entity.TestScoring;
+import ee.taltech.testify.repository.GradingRule;
+import ee.taltech.testify.repository.RubricVersionNumber;
+import ee.taltech.testify.repository.RubricVersionRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The latest published rubric of each assignment held in memory, so that grading needs no query for the grading
+ * elements once a rubric is published.
+ * <p>
+ * Snapshots are immutable and a cached snapshot is only ever replaced by a later version, so readers need no
+ * locking. Assignments without a published rubric are remembered as such and read their grading elements on every
+ * call. Versions published on other nodes are picked up by a periodic check of the latest version numbers.
+ */
+@Component
+public class RubricSnapshotCache {
+    private static final RubricSnapshot UNPUBLISHED = RubricSnapshot.of(RubricSnapshot.DRAFT, List.of());
+
+    private static final RowMapper<GradingRule> ELEMENT = (rs, rowNum) -> new GradingRule(
+            rs.getInt("grading_element_id"), rs.getBigDecimal("max_points"), rs.getBoolean("is_deduction"),
+            rs.getString("test_pattern"), TestScoring.valueOf(rs.getString("test_scoring")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RubricVersionRepository rubricVersionRepository;
+
+    private final Map<Integer, RubricSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public RubricSnapshotCache(JdbcTemplate jdbcTemplate, RubricVersionRepository rubricVersionRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rubricVersionRepository = rubricVersionRepository;
+    }
+
+    /**
+     * @return the latest published rubric of the assignment or, if it has none, its current grading elements
+     */
+    public RubricSnapshot get(int assignmentId) {
+        RubricSnapshot snapshot = snapshots.get(assignmentId);
+        if (snapshot == null) {
+            snapshot = put(assignmentId, loadPublished(assignmentId));
+        }
+        return snapshot.isPublished() ? snapshot : loadDraft(assignmentId);
+    }
+
+    /**
+     * Makes a committed version the cached rubric of the assignment, unless a later version already is.
+     *
+     * @return the cached rubric
+     */
+    public RubricSnapshot put(int assignmentId, RubricSnapshot snapshot) {
+        return snapshots.merge(assignmentId, snapshot,
+                (cached, offered) -> offered.getVersion() > cached.getVersion() ? offered : cached);
+    }
+
+    /**
+     * @return the current grading elements of the assignment, bypassing the cache
+     */
+    public RubricSnapshot loadDraft(int assignmentId) {
+        return RubricSnapshot.of(RubricSnapshot.DRAFT, jdbcTemplate.query("""
+                SELECT grading_element_id, max_points, is_deduction, test_pattern, test_scoring
+                FROM grading_element
+                WHERE assignment_id = ?
+                """, ELEMENT, assignmentId));
+    }
+
+    /**
+     * Drops cached rubrics that are no longer the latest version, so that the next read loads the current one.
+     */
+    @Scheduled(initialDelayString = "${testify.rubric.refresh-interval:PT1M}",
+            fixedDelayString = "${testify.rubric.refresh-interval:PT1M}")
+    public void refresh() {
+        Map<Integer, Integer> latest = rubricVersionRepository.findLatestVersions().stream()
+                .collect(Collectors.toMap(RubricVersionNumber::assignmentId, RubricVersionNumber::version));
+        snapshots.forEach((assignmentId, snapshot) -> {
+            if (latest.getOrDefault(assignmentId, RubricSnapshot.DRAFT) != snapshot.getVersion()) {
+                snapshots.remove(assignmentId, snapshot);
+            }
+        });
+    }
+
+    private RubricSnapshot loadPublished(int assignmentId) {
+        return rubricVersionRepository.findFirstByAssignmentIdOrderByVersionDesc(assignmentId)
+                .map(version -> RubricSnapshot.of(version.getVersion(), jdbcTemplate.query("""
+                        SELECT grading_element_id, max_points, is_deduction, test_pattern, test_scoring
+                        FROM rubric_element
+                        WHERE rubric_version_id = ?
+                        """, ELEMENT, version.getId())))
+                .orElse(UNPUBLISHED);
+    }
+}
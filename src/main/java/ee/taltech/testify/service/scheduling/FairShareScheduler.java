@@ -0,0 +1,151 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.scheduling;
+
+import ee.taltech.testify.dto.AutotestQueueDto;
+import ee.taltech.testify.dto.CourseQueueDto;
+import ee.taltech.testify.dto.QueuedJobDto;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.repository.AssignmentRepository;
+import ee.taltech.testify.repository.AutotestJobRepository;
+import ee.taltech.testify.service.ConfigurationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders queued autotest jobs for the workers.
+ * <p>
+ * Assignments share the workers through start-time fair queueing: a job is given the pass of the previous job of its
+ * assignment or the current virtual time, whichever is later, plus the assignment's stride, and workers claim the
+ * queued jobs with the lowest pass first. The virtual time is the lowest pass of the queued jobs, so an assignment
+ * that becomes active again starts there instead of at its old pass, and idling does not build up credit. The pass is
+ * kept with the job in the database, so every worker claims in the same order and the order survives restarts.
+ * <p>
+ * The stride of an assignment is {@code STRIDE * active / weight}, where {@code active} is the number of assignments
+ * of the course with queued jobs and {@code weight} is the course's configured weight. A course thus gets the same
+ * share of the workers however many of its assignments are being tested, split evenly between them, so a large
+ * course cannot starve a small one and a busy assignment cannot starve the others of its course.
+ * <p>
+ * The stride shrinks from 100% towards {@code scheduler.min-urgency-percent} as the assignment's due date approaches
+ * within {@code scheduler.deadline-horizon-minutes}, giving assignments that are due soon a larger share. Urgency is
+ * taken from the due date when each job is queued, so later jobs follow a moved deadline.
+ */
+@Component
+@RequiredArgsConstructor
+public class FairShareScheduler {
+    public static final String DEADLINE_HORIZON_MINUTES = "scheduler.deadline-horizon-minutes";
+    public static final String MIN_URGENCY_PERCENT = "scheduler.min-urgency-percent";
+    public static final String COURSE_WEIGHT_PREFIX = "scheduler.course-weight.";
+
+    static final long STRIDE = 1L << 20;
+    private static final int SNAPSHOT_JOBS_PER_COURSE = 10;
+
+    private final ConfigurationService configurationService;
+    private final AutotestJobRepository autotestJobRepository;
+    private final AssignmentRepository assignmentRepository;
+
+    /**
+     * Gives a job of the assignment that is about to be queued its pass. Must be called before the job is saved, in
+     * the transaction that saves it; the assignment stays locked until that transaction ends.
+     *
+     * @param assignment the assignment being tested
+     * @param enqueuedAt the time the job is queued
+     * @return the pass of the job
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long nextPass(Assignment assignment, LocalDateTime enqueuedAt) {
+        Integer courseId = assignment.getCourse().getId();
+        long virtualTime = autotestJobRepository.findMinQueuedFairSharePass()
+                .or(autotestJobRepository::findMaxFairSharePass)
+                .orElse(0L);
+        int weight = Math.max(1, configurationService.getInt(COURSE_WEIGHT_PREFIX + courseId, 1));
+        long active = autotestJobRepository.countOtherQueuedAssignments(courseId, assignment.getId()) + 1;
+        long stride = stride(weight, active, urgencyPercent(enqueuedAt, assignment.getDueDateTime()));
+        assignmentRepository.advanceAutotestPass(assignment.getId(), virtualTime, stride);
+        return assignmentRepository.findAutotestPassById(assignment.getId());
+    }
+
+    /**
+     * Describes the current queue state: the courses in the order of their first queued job and, for each course,
+     * the next jobs with the passes they are claimed by.
+     *
+     * @return the queue snapshot
+     */
+    @Transactional(readOnly = true)
+    public AutotestQueueDto snapshot() {
+        List<AutotestJob> queued = autotestJobRepository.findWithAssignmentByStatus(AutotestJobStatus.QUEUED);
+        Map<Integer, CourseQueueDto> courses = new LinkedHashMap<>();
+        for (AutotestJob job : queued) {
+            Assignment assignment = job.getStudentAssignment().getAssignment();
+            CourseQueueDto course = courses.computeIfAbsent(assignment.getCourse().getId(), courseId -> {
+                CourseQueueDto courseDto = new CourseQueueDto();
+                courseDto.setCourseId(courseId);
+                courseDto.setWeight(Math.max(1, configurationService.getInt(COURSE_WEIGHT_PREFIX + courseId, 1)));
+                courseDto.setPass(job.getFairSharePass());
+                courseDto.setNextJobs(new ArrayList<>());
+                return courseDto;
+            });
+            course.setQueued(course.getQueued() + 1);
+            if (course.getNextJobs().size() < SNAPSHOT_JOBS_PER_COURSE) {
+                QueuedJobDto jobDto = new QueuedJobDto();
+                jobDto.setJobId(job.getId());
+                jobDto.setAssignmentId(assignment.getId());
+                jobDto.setEnqueuedAt(job.getEnqueuedAt());
+                jobDto.setDueDateTime(assignment.getDueDateTime());
+                jobDto.setPass(job.getFairSharePass());
+                jobDto.setDeadlineBoosted(urgencyPercent(job.getEnqueuedAt(), assignment.getDueDateTime()) < 100);
+                course.getNextJobs().add(jobDto);
+            }
+        }
+        AutotestQueueDto dto = new AutotestQueueDto();
+        dto.setQueued(queued.size());
+        dto.setVirtualTime(queued.isEmpty() ? 0 : queued.get(0).getFairSharePass());
+        dto.setCourses(new ArrayList<>(courses.values()));
+        return dto;
+    }
+
+    static long stride(int weight, long activeAssignments, long urgencyPercent) {
+        return Math.max(1, STRIDE * activeAssignments * urgencyPercent / (100L * weight));
+    }
+
+    long urgencyPercent(LocalDateTime enqueuedAt, LocalDateTime dueDateTime) {
+        if (dueDateTime == null || !dueDateTime.isAfter(enqueuedAt)) {
+            return 100;
+        }
+        long horizon = Duration.ofMinutes(configurationService.getInt(DEADLINE_HORIZON_MINUTES, 1440)).toMillis();
+        long untilDue = Duration.between(enqueuedAt, dueDateTime).toMillis();
+        if (horizon <= 0 || untilDue >= horizon) {
+            return 100;
+        }
+        long minUrgency = Math.clamp(configurationService.getInt(MIN_URGENCY_PERCENT, 10), 0, 100);
+        return minUrgency + (100 - minUrgency) * untilDue / horizon;
+    }
+}
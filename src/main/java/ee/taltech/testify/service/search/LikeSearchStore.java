@@ -0,0 +1,158 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Search for databases without full-text support, such as the H2 database used in tests.
+ * <p>
+ * Every term must occur in the record, and each term found in the course name or assignment title scores higher
+ * than one found only in the description. This scans the tables, so it is only meant for small data sets.
+ * <p>
+ * The union is a derived table rather than a {@code WITH} query because H2 evaluates common table expressions
+ * before the parameters are bound.
+ */
+@Component
+@RequiredArgsConstructor
+public class LikeSearchStore implements SearchStore {
+    private static final int MAX_TERMS = 8;
+    private static final int HEADLINE_LENGTH = 200;
+
+    private static final String SEARCH = """
+            SELECT p.result_type, p.result_id, p.course_id, p.score,
+                   COALESCE(c.course_name, a.title, fa.title) AS title,
+                   COALESCE(c.description, a.description, sa.feedback) AS body
+            FROM (
+                SELECT * FROM (
+                    SELECT 'COURSE' AS result_type, c.course_id AS result_id, c.course_id AS course_id,
+                           {courseScore} AS score
+                    FROM course c
+                    WHERE :courses AND {courseMatch} AND (:allCourses OR c.course_id IN (:courseIds))
+                    UNION ALL
+                    SELECT 'ASSIGNMENT', a.assignment_id, a.course_id, {assignmentScore}
+                    FROM assignment a
+                    WHERE :assignments AND {assignmentMatch} AND (:allCourses OR a.course_id IN (:courseIds))
+                    UNION ALL
+                    SELECT 'FEEDBACK', sa.student_assignment_id, a.course_id, {feedbackScore}
+                    FROM student_assignment sa JOIN assignment a ON a.assignment_id = sa.assignment_id
+                    WHERE :feedback AND {feedbackMatch} AND (:allCourses OR a.course_id IN (:courseIds))
+                ) hits
+                WHERE score < CAST(:score AS REAL) OR (score = CAST(:score AS REAL)
+                    AND (result_type > :type OR (result_type = :type AND result_id > :id)))
+                ORDER BY score DESC, result_type, result_id
+                LIMIT :limit
+            ) p
+            LEFT JOIN course c ON p.result_type = 'COURSE' AND c.course_id = p.result_id
+            LEFT JOIN assignment a ON p.result_type = 'ASSIGNMENT' AND a.assignment_id = p.result_id
+            LEFT JOIN student_assignment sa ON p.result_type = 'FEEDBACK' AND sa.student_assignment_id = p.result_id
+            LEFT JOIN assignment fa ON fa.assignment_id = sa.assignment_id
+            ORDER BY p.score DESC, p.result_type, p.result_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<SearchHit> search(String query, Set<SearchResultType> types, Collection<Integer> courseIds,
+                                  SearchCursor after, int limit) {
+        List<String> terms = toTerms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        int count = terms.size();
+        String sql = SEARCH
+                .replace("{courseScore}", score(count, "c.course_name"))
+                .replace("{courseMatch}", matchAll(count, "c.course_name", "c.description"))
+                .replace("{assignmentScore}", score(count, "a.title"))
+                .replace("{assignmentMatch}", matchAll(count, "a.title", "a.description"))
+                .replace("{feedbackScore}", score(count, null))
+                .replace("{feedbackMatch}", matchAll(count, "sa.feedback"));
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("courses", types.contains(SearchResultType.COURSE))
+                .addValue("assignments", types.contains(SearchResultType.ASSIGNMENT))
+                .addValue("feedback", types.contains(SearchResultType.FEEDBACK))
+                .addValue("allCourses", courseIds == null)
+                .addValue("courseIds", courseIds == null || courseIds.isEmpty() ? List.of(0) : courseIds)
+                .addValue("score", after.score())
+                .addValue("type", after.type().name())
+                .addValue("id", after.id())
+                .addValue("limit", limit);
+        for (int i = 0; i < count; i++) {
+            params.addValue("term" + i, "%" + escapeLike(terms.get(i)) + "%");
+        }
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new SearchHit(
+                SearchResultType.valueOf(rs.getString("result_type")),
+                rs.getInt("result_id"),
+                rs.getInt("course_id"),
+                rs.getFloat("score"),
+                rs.getString("title"),
+                SearchHighlighter.highlight(rs.getString("body"), terms, HEADLINE_LENGTH)));
+    }
+
+    /**
+     * Splits a query into lower-case terms, dropping the quotes and operators of the web search syntax.
+     */
+    static List<String> toTerms(String query) {
+        return Arrays.stream(query.toLowerCase(Locale.ROOT).split("\\s+"))
+                .map(term -> term.replaceAll("^[-\"]+|\"+$", ""))
+                .filter(term -> !term.isEmpty() && !term.equals("or"))
+                .distinct()
+                .limit(MAX_TERMS)
+                .toList();
+    }
+
+    private static String matchAll(int count, String... columns) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Arrays.stream(columns)
+                        .map(column -> like(column, i))
+                        .collect(Collectors.joining(" OR ", "(", ")")))
+                .collect(Collectors.joining(" AND "));
+    }
+
+    private static String score(int count, String titleColumn) {
+        if (titleColumn == null) {
+            return "CAST(" + count + " AS REAL)";
+        }
+        return IntStream.range(0, count)
+                .mapToObj(i -> "CASE WHEN " + like(titleColumn, i) + " THEN 2 ELSE 1 END")
+                .collect(Collectors.joining(" + ", "CAST(", " AS REAL)"));
+    }
+
+    private static String like(String column, int term) {
+        return "LOWER(COALESCE(" + column + ", '')) LIKE :term" + term + " ESCAPE '\\'";
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Full-text search over the generated {@code search_vector} columns and their GIN indexes.
+ * <p>
+ * Hits are ranked with {@code ts_rank_cd}, which weighs course names and assignment titles above descriptions.
+ * Headlines are the expensive part of a query, so they are only generated for the hits on the requested page.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostgresSearchStore implements SearchStore {
+    private static final String SEARCH = """
+            WITH q AS (SELECT websearch_to_tsquery('simple', :query) AS query),
+            hits AS (
+                SELECT 'COURSE' AS result_type, c.course_id AS result_id, c.course_id AS course_id,
+                       ts_rank_cd(c.search_vector, q.query) AS score
+                FROM course c, q
+                WHERE :courses AND c.search_vector @@ q.query AND (:allCourses OR c.course_id IN (:courseIds))
+                UNION ALL
+                SELECT 'ASSIGNMENT', a.assignment_id, a.course_id, ts_rank_cd(a.search_vector, q.query)
+                FROM assignment a, q
+                WHERE :assignments AND a.search_vector @@ q.query AND (:allCourses OR a.course_id IN (:courseIds))
+                UNION ALL
+                SELECT 'FEEDBACK', sa.student_assignment_id, a.course_id, ts_rank_cd(sa.search_vector, q.query)
+                FROM student_assignment sa JOIN assignment a ON a.assignment_id = sa.assignment_id, q
+                WHERE :feedback AND sa.search_vector @@ q.query AND (:allCourses OR a.course_id IN (:courseIds))
+            ),
+            page AS (
+                SELECT * FROM hits
+                WHERE score < CAST(:score AS REAL) OR (score = CAST(:score AS REAL)
+                    AND (result_type > :type OR (result_type = :type AND result_id > :id)))
+                ORDER BY score DESC, result_type, result_id
+                LIMIT :limit
+            )
+            SELECT p.result_type, p.result_id, p.course_id, p.score,
+                   COALESCE(c.course_name, a.title, fa.title) AS title,
+                   ts_headline('simple', COALESCE(c.description, a.description, sa.feedback, ''), q.query,
+                       'StartSel=' || chr(2) || ', StopSel=' || chr(3) || ', MaxFragments=2, MaxWords=25, MinWords=8')
+                       AS headline
+            FROM page p
+            CROSS JOIN q
+            LEFT JOIN course c ON p.result_type = 'COURSE' AND c.course_id = p.result_id
+            LEFT JOIN assignment a ON p.result_type = 'ASSIGNMENT' AND a.assignment_id = p.result_id
+            LEFT JOIN student_assignment sa ON p.result_type = 'FEEDBACK' AND sa.student_assignment_id = p.result_id
+            LEFT JOIN assignment fa ON fa.assignment_id = sa.assignment_id
+            ORDER BY p.score DESC, p.result_type, p.result_id
+            """;
+
+    private static final RowMapper<SearchHit> ROW_MAPPER = (rs, rowNum) -> new SearchHit(
+            SearchResultType.valueOf(rs.getString("result_type")),
+            rs.getInt("result_id"),
+            rs.getInt("course_id"),
+            rs.getFloat("score"),
+            rs.getString("title"),
+            rs.getString("headline"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<SearchHit> search(String query, Set<SearchResultType> types, Collection<Integer> courseIds,
+                                  SearchCursor after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("courses", types.contains(SearchResultType.COURSE))
+                .addValue("assignments", types.contains(SearchResultType.ASSIGNMENT))
+                .addValue("feedback", types.contains(SearchResultType.FEEDBACK))
+                .addValue("allCourses", courseIds == null)
+                .addValue("courseIds", courseIds == null || courseIds.isEmpty() ? List.of(0) : courseIds)
+                .addValue("score", after.score())
+                .addValue("type", after.type().name())
+                .addValue("id", after.id())
+                .addValue("limit", limit);
+        return jdbcTemplate.query(SEARCH, params, ROW_MAPPER);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.search;
+
+import ee.taltech.testify.exception.InvalidRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last hit on a page of search results.
+ * <p>
+ * Results are ordered by score descending, then by type and ID, so the next page starts strictly after this
+ * position regardless of how deep into the results it is. The cursor is handed to clients as an opaque string.
+ *
+ * @param score the score of the last hit
+ * @param type the type of the last hit
+ * @param id the ID of the last hit
+ */
+public record SearchCursor(float score, SearchResultType type, int id) {
+
+    /**
+     * Cursor that precedes every result. Scores are finite, so every hit compares below it.
+     */
+    public static final SearchCursor FIRST = new SearchCursor(Float.MAX_VALUE, SearchResultType.ASSIGNMENT, 0);
+
+    /**
+     * @return the cursor as a URL-safe string
+     */
+    public String encode() {
+        String value = score + ":" + type.name() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a cursor produced by {@link #encode()}.
+     *
+     * @param cursor the encoded cursor, or {@code null} for the first page
+     * @return the decoded cursor
+     * @throws InvalidRequestException if the cursor is malformed
+     */
+    public static SearchCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) {
+                throw new InvalidRequestException("Invalid search cursor: " + cursor);
+            }
+            float score = Float.parseFloat(parts[0]);
+            if (!Float.isFinite(score)) {
+                throw new InvalidRequestException("Invalid search cursor: " + cursor);
+            }
+            return new SearchCursor(score, SearchResultType.valueOf(parts[1]), Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid search cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.search;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Marks matched words in search headlines.
+ * <p>
+ * Stores wrap matches in control characters rather than HTML so that the surrounding user-written text can be
+ * escaped before the markers are turned into {@code <mark>} tags.
+ */
+public final class SearchHighlighter {
+    public static final char START = '\u0002';
+    public static final char STOP = '\u0003';
+
+    private static final String ELLIPSIS = "…";
+
+    private SearchHighlighter() {
+    }
+
+    /**
+     * Escapes the headline for HTML and replaces the markers with {@code <mark>} tags.
+     *
+     * @param headline the headline with markers, may be {@code null}
+     * @return the HTML headline, or {@code null} if there was none
+     */
+    public static String toHtml(String headline) {
+        if (headline == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(headline, StandardCharsets.UTF_8.name())
+                .replace(String.valueOf(START), "<mark>")
+                .replace(String.valueOf(STOP), "</mark>");
+    }
+
+    /**
+     * Cuts an excerpt around the first occurrence of any term and marks every occurrence inside it. Used where the
+     * database cannot produce headlines itself.
+     *
+     * @param text the text to excerpt, may be {@code null}
+     * @param terms the terms to mark, matched case-insensitively
+     * @param maxLength the maximum length of the excerpt, not counting markers and ellipses
+     * @return the excerpt with markers, or {@code null} if there was no text
+     */
+    public static String highlight(String text, List<String> terms, int maxLength) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        Pattern pattern = Pattern.compile(terms.stream().map(Pattern::quote).collect(Collectors.joining("|")),
+                Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        Matcher matcher = pattern.matcher(text);
+        int first = matcher.find() ? matcher.start() : 0;
+        int from = Math.max(0, Math.min(first - maxLength / 4, text.length() - maxLength));
+        int to = Math.min(text.length(), from + maxLength);
+
+        StringBuilder excerpt = new StringBuilder();
+        if (from > 0) {
+            excerpt.append(ELLIPSIS);
+        }
+        excerpt.append(pattern.matcher(text.substring(from, to)).replaceAll(START + "$0" + STOP));
+        if (to < text.length()) {
+            excerpt.append(ELLIPSIS);
+        }
+        return excerpt.toString();
+    }
+}
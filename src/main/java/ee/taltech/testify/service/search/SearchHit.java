@@ -0,0 +1,40 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.search;
+
+/**
+ * A single search result as returned by a {@link SearchStore}.
+ *
+ * @param type the kind of record that matched
+ * @param id the ID of the course, assignment or student assignment
+ * @param courseId the ID of the course the record belongs to
+ * @param score the relevance of the match, higher is better
+ * @param title the name of the course or the title of the assignment
+ * @param headline an excerpt of the matched text with the matches wrapped in {@link SearchHighlighter} markers
+ */
+public record SearchHit(SearchResultType type, int id, int courseId, float score, String title, String headline) {
+
+    /**
+     * @return the cursor that continues the search after this hit
+     */
+    public SearchCursor toCursor() {
+        return new SearchCursor(score, type, id);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.search;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds courses, assignments and feedback matching a free-text query.
+ */
+public interface SearchStore {
+
+    /**
+     * Returns the next page of hits ordered by score descending, then by type and ID.
+     *
+     * @param query the query as typed by the user
+     * @param types the kinds of records to search, not empty
+     * @param courseIds the courses to search in, or {@code null} to search all courses
+     * @param after the position to continue from
+     * @param limit the maximum number of hits to return
+     * @return the hits after the given position
+     */
+    List<SearchHit> search(String query, Set<SearchResultType> types, Collection<Integer> courseIds,
+                           SearchCursor after, int limit);
+}
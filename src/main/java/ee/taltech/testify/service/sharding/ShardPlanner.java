@@ -0,0 +1,99 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.sharding;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Splits a test suite into shards of about equal duration with the longest processing time first rule: tests are
+ * taken from the longest down and each goes to the shard with the least work so far. The longest shard is at most
+ * 4/3 of the best possible split, and in practice within a few percent of it.
+ * <p>
+ * Tests of equal duration are taken in order of ID and ties between shards go to the lower index, so the same
+ * durations always give the same plan.
+ */
+public final class ShardPlanner {
+    private static final Comparator<Map.Entry<String, Long>> LONGEST_FIRST = Comparator
+            .comparing((Map.Entry<String, Long> test) -> test.getValue()).reversed()
+            .thenComparing(Map.Entry::getKey);
+
+    private ShardPlanner() {
+    }
+
+    /**
+     * Chooses the number of shards: enough for each to run about {@code minShardMillis}, since every shard pays
+     * for starting a sandbox, but no more than {@code maxShards} or the number of tests.
+     *
+     * @param totalMillis the recorded duration of the whole suite
+     * @param tests the number of tests with a recorded duration
+     * @param maxShards the most shards to use
+     * @param minShardMillis the least work worth a shard of its own
+     * @return the number of shards, at least 1
+     */
+    public static int shardCount(long totalMillis, int tests, int maxShards, long minShardMillis) {
+        long wanted = minShardMillis > 0 ? totalMillis / minShardMillis : maxShards;
+        return (int) Math.max(1, Math.min(wanted, Math.min(maxShards, tests)));
+    }
+
+    /**
+     * @param durations the recorded duration of each test, in milliseconds
+     * @param shardCount the number of shards
+     * @return the shards in order of index; a shard may be empty if there are fewer tests than shards
+     */
+    public static List<PlannedShard> plan(Map<String, Long> durations, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        List<Load> loads = new ArrayList<>(shardCount);
+        PriorityQueue<Load> leastLoaded = new PriorityQueue<>(shardCount, Comparator
+                .comparingLong((Load load) -> load.millis)
+                .thenComparingInt(load -> load.index));
+        for (int i = 0; i < shardCount; i++) {
+            Load load = new Load(i);
+            loads.add(load);
+            leastLoaded.add(load);
+        }
+
+        durations.entrySet().stream().sorted(LONGEST_FIRST).forEach(test -> {
+            Load load = leastLoaded.poll();
+            load.testIds.add(test.getKey());
+            load.millis += Math.max(0, test.getValue());
+            leastLoaded.add(load);
+        });
+
+        return loads.stream()
+                .map(load -> new PlannedShard(load.index, load.testIds.stream().sorted().toList(), load.millis))
+                .toList();
+    }
+
+    private static final class Load {
+        private final int index;
+        private final List<String> testIds = new ArrayList<>();
+        private long millis;
+
+        private Load(int index) {
+            this.index = index;
+        }
+    }
+}
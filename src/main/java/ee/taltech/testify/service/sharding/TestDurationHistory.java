@@ -0,0 +1,110 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The recorded test durations of each assignment's test suite. A new measurement is blended into the recorded
+ * duration as an exponentially weighted moving average, so one slow run on a busy host moves the estimate only a
+ * little while a test that got slower for good is caught up with within a few runs. Tests that have not been
+ * reported for {@value #RETENTION_DAYS} days are assumed to be gone from the suite and forgotten.
+ */
+@Component
+@RequiredArgsConstructor
+public class TestDurationHistory {
+    /**
+     * The weight of the newest measurement.
+     */
+    static final double SMOOTHING = 0.3;
+
+    private static final int RETENTION_DAYS = 30;
+    private static final int BATCH_SIZE = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the recorded duration of each test of the assignment by test ID, in milliseconds
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> find(int assignmentId) {
+        Map<String, Long> durations = new HashMap<>();
+        jdbcTemplate.query("SELECT test_id, duration_millis FROM test_duration WHERE assignment_id = ?",
+                row -> {
+                    durations.put(row.getString("test_id"), row.getLong("duration_millis"));
+                }, assignmentId);
+        return durations;
+    }
+
+    /**
+     * Blends the durations of one run into the recorded ones.
+     *
+     * @param assignmentId the ID of the assignment
+     * @param durations the duration of each test of the run by test ID, in milliseconds
+     * @throws org.springframework.dao.DataIntegrityViolationException if another run of the assignment recorded a
+     *                                                                 new test at the same time
+     */
+    @Transactional
+    public void record(int assignmentId, Map<String, Long> durations) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("DELETE FROM test_duration WHERE assignment_id = ? AND updated_at < ?", assignmentId,
+                Timestamp.valueOf(LocalDateTime.now().minusDays(RETENTION_DAYS)));
+        if (durations.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> recorded = find(assignmentId);
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        durations.forEach((testId, millis) -> {
+            Long previous = recorded.get(testId);
+            if (previous == null) {
+                inserts.add(new Object[]{assignmentId, testId, millis, now});
+            } else {
+                updates.add(new Object[]{Math.round(previous + SMOOTHING * (millis - previous)), now, assignmentId,
+                        testId});
+            }
+        });
+        batchUpdate("""
+                UPDATE test_duration SET duration_millis = ?, samples = samples + 1, updated_at = ?
+                WHERE assignment_id = ? AND test_id = ?
+                """, updates);
+        batchUpdate("""
+                INSERT INTO test_duration (assignment_id, test_id, duration_millis, samples, updated_at)
+                VALUES (?, ?, ?, 1, ?)
+                """, inserts);
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
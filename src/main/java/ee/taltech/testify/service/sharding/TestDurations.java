@@ -0,0 +1,51 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.sharding;
+
+import ee.taltech.testify.service.report.TestCaseResult;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Collects the durations of the test cases of a report, for {@link TestDurationHistory}. Test cases without a
+ * duration are left out, and so is everything past the first {@value #MAX_TESTS} test cases, which keeps a runaway
+ * report from using up the heap; suites that large are not worth sharding by test anyway.
+ */
+public class TestDurations implements Consumer<TestCaseResult> {
+    public static final int MAX_TESTS = 20_000;
+
+    private final Map<String, Long> durations = new HashMap<>();
+
+    @Override
+    public void accept(TestCaseResult result) {
+        if (result.durationMillis() != TestCaseResult.UNKNOWN_DURATION && durations.size() < MAX_TESTS) {
+            durations.merge(result.id(), result.durationMillis(), Long::sum);
+        }
+    }
+
+    /**
+     * @return the duration of each test case by ID, in milliseconds
+     */
+    public Map<String, Long> getDurations() {
+        return durations;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.similarity;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Splits source code into tokens for similarity detection, without knowing the language.
+ * <p>
+ * Comments ({@code //}, {@code #} and {@code /* *}{@code /}) and whitespace are dropped, and the tokens are
+ * normalized so that the usual disguises of copied code do not change them: every identifier other than a keyword
+ * becomes the same token, and so does every string and every number literal. What is left is the structure of the
+ * code. Each token is reported as a 64-bit hash; no strings are allocated.
+ */
+public final class CodeTokenizer {
+    static final long IDENTIFIER = 0x49_44_45_4eL;
+    static final long STRING = 0x53_54_52L;
+    static final long NUMBER = 0x4e_55_4dL;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final String[] KEYWORDS = {
+            "abstract", "and", "as", "assert", "async", "auto", "await", "boolean", "break", "byte", "case", "catch",
+            "char", "class", "const", "continue", "def", "default", "del", "do", "double", "elif", "else", "enum",
+            "except", "extends", "extern", "false", "False", "final", "finally", "float", "fn", "for", "from",
+            "function", "global", "goto", "if", "impl", "implements", "import", "in", "instanceof", "int", "interface",
+            "is", "lambda", "let", "long", "loop", "match", "mut", "new", "None", "nonlocal", "not", "null", "or",
+            "package", "pass", "private", "protected", "pub", "public", "raise", "record", "return", "self", "short",
+            "signed", "sizeof", "static", "struct", "super", "switch", "synchronized", "this", "throw", "throws",
+            "trait", "true", "True", "try", "typedef", "typeof", "union", "unsigned", "var", "void", "volatile",
+            "while", "with", "yield"
+    };
+
+    private static final long[] KEYWORD_HASHES = Arrays.stream(KEYWORDS).mapToLong(CodeTokenizer::hash).sorted()
+            .toArray();
+
+    private CodeTokenizer() {
+    }
+
+    /**
+     * @param source the source code
+     * @param tokens receives the hash of each token, in order
+     * @throws IOException if the source cannot be read
+     */
+    public static void tokenize(Reader source, LongConsumer tokens) throws IOException {
+        Input in = new Input(source);
+        int c;
+        while ((c = in.read()) != -1) {
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (c == '#' || c == '/' && in.peek() == '/') {
+                skipLine(in);
+            } else if (c == '/' && in.peek() == '*') {
+                in.read();
+                skipBlockComment(in);
+            } else if (c == '"' || c == '\'' || c == '`') {
+                skipString(in, c);
+                tokens.accept(STRING);
+            } else if (c >= '0' && c <= '9') {
+                while (Character.isLetterOrDigit(c = in.peek()) || c == '_' || c == '.') {
+                    in.read();
+                }
+                tokens.accept(NUMBER);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                long hash = (FNV_OFFSET ^ c) * FNV_PRIME;
+                while (Character.isJavaIdentifierPart(c = in.peek())) {
+                    hash = (hash ^ in.read()) * FNV_PRIME;
+                }
+                tokens.accept(Arrays.binarySearch(KEYWORD_HASHES, hash) >= 0 ? hash : IDENTIFIER);
+            } else {
+                tokens.accept(c);
+            }
+        }
+    }
+
+    private static long hash(String keyword) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < keyword.length(); i++) {
+            hash = (hash ^ keyword.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static void skipLine(Input in) throws IOException {
+        int c;
+        while ((c = in.read()) != -1 && c != '\n') {
+            // the comment
+        }
+    }
+
+    private static void skipBlockComment(Input in) throws IOException {
+        int previous = 0;
+        int c;
+        while ((c = in.read()) != -1 && !(previous == '*' && c == '/')) {
+            previous = c;
+        }
+    }
+
+    /**
+     * Skips a string literal up to its closing quote. A Python triple-quoted string ends at three quotes; any other
+     * string also ends at the end of the line, so that a stray quote, e.g. in a character literal of a language
+     * this tokenizer does not know, cannot swallow the rest of the file.
+     */
+    private static void skipString(Input in, int quote) throws IOException {
+        int second = in.read();
+        if (second == quote) {
+            if (in.peek() != quote) {
+                return;
+            }
+            in.read();
+            int run = 0;
+            int c;
+            while (run < 3 && (c = in.read()) != -1) {
+                run = c == quote ? run + 1 : 0;
+                if (c == '\\') {
+                    in.read();
+                }
+            }
+            return;
+        }
+        int c = second;
+        while (c != -1 && c != quote && c != '\n') {
+            if (c == '\\') {
+                in.read();
+            }
+            c = in.read();
+        }
+    }
+
+    /**
+     * A reader with one character of lookahead. Unlike {@link java.io.PushbackReader} it takes no lock per
+     * character, which made up most of the tokenizing time.
+     */
+    private static final class Input {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+
+        private Input(Reader reader) {
+            this.reader = reader;
+        }
+
+        int read() throws IOException {
+            int c = peek();
+            position++;
+            return c;
+        }
+
+        int peek() throws IOException {
+            if (position >= limit) {
+                limit = reader.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+    }
+}
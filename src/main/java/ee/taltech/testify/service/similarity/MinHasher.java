@@ -0,0 +1,141 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.similarity;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.LongConsumer;
+
+/**
+ * Builds the MinHash signature of a token stream.
+ * <p>
+ * The tokens are grouped into overlapping shingles of {@value #SHINGLE_LENGTH} tokens, and the signature keeps, for
+ * each of {@value #HASHES} hash functions, the smallest hash of any shingle. The share of positions at which two
+ * signatures agree estimates the Jaccard similarity of the two shingle sets, with a standard error of at most
+ * {@code 1 / (2 * sqrt(HASHES))}, about 4.4 percentage points.
+ * <p>
+ * For locality-sensitive hashing the signature is cut into {@value #BANDS} bands of {@value #ROWS} rows. Two
+ * submissions with similarity {@code s} share at least one band with probability {@code 1 - (1 - s^ROWS)^BANDS}:
+ * over 99% at 0.7, about 55% at 0.4 and 5% at 0.2, so comparing only submissions that share a band finds nearly
+ * every similar pair while skipping most of the others.
+ * <p>
+ * The hash functions are derived from a fixed seed, so signatures stay comparable across restarts and nodes.
+ */
+public class MinHasher implements LongConsumer {
+    public static final int SHINGLE_LENGTH = 8;
+    public static final int HASHES = 128;
+    public static final int BANDS = 32;
+    public static final int ROWS = HASHES / BANDS;
+
+    private static final long SEED = 0x7e57_1f1e_5eedL;
+    private static final long[] MULTIPLIERS = new long[HASHES];
+    private static final long[] INCREMENTS = new long[HASHES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < HASHES; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            INCREMENTS[i] = random.nextLong();
+        }
+    }
+
+    private final long[] tokens = new long[SHINGLE_LENGTH];
+    private final long[] minimums = new long[HASHES];
+    private int next;
+    private int tokenCount;
+    private int shingles;
+
+    public MinHasher() {
+        Arrays.fill(minimums, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void accept(long token) {
+        tokens[next] = token;
+        next = (next + 1) % SHINGLE_LENGTH;
+        if (tokenCount < SHINGLE_LENGTH && ++tokenCount < SHINGLE_LENGTH) {
+            return;
+        }
+        long shingle = 0;
+        for (int i = 0; i < SHINGLE_LENGTH; i++) {
+            shingle = shingle * 0x100000001b3L + tokens[(next + i) % SHINGLE_LENGTH];
+        }
+        shingle = mix(shingle);
+        for (int i = 0; i < HASHES; i++) {
+            minimums[i] = Math.min(minimums[i], (MULTIPLIERS[i] * shingle + INCREMENTS[i]) >>> 32);
+        }
+        shingles++;
+    }
+
+    /**
+     * @return the number of shingles seen, counting repeats; zero for code shorter than one shingle
+     */
+    public int getShingles() {
+        return shingles;
+    }
+
+    /**
+     * @return the signature, {@value #HASHES} unsigned 32-bit hashes
+     */
+    public int[] signature() {
+        int[] signature = new int[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            signature[i] = (int) minimums[i];
+        }
+        return signature;
+    }
+
+    /**
+     * @return the estimated Jaccard similarity of the shingle sets of the two signatures, from 0 to 1
+     */
+    public static double similarity(int[] signature, int[] other) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (signature[i] == other[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    /**
+     * @return the hash of each band of the signature, by band index
+     */
+    public static long[] bands(int[] signature) {
+        long[] bands = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long hash = band;
+            for (int row = 0; row < ROWS; row++) {
+                hash = hash * 31 + signature[band * ROWS + row];
+            }
+            bands[band] = mix(hash);
+        }
+        return bands;
+    }
+
+    /**
+     * The finalizer of SplitMix64, which spreads every input bit over the whole hash.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
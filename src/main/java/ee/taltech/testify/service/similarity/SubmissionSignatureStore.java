@@ -0,0 +1,187 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.similarity;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Keeps the MinHash signatures of submissions, their locality-sensitive hashing buckets and the similar pairs found
+ * among them.
+ * <p>
+ * A new signature is compared only with the submissions it shares a bucket with, so indexing a submission costs time
+ * proportional to its few near neighbours rather than to the size of the course. Buckets shared by more than
+ * {@value #MAX_BUCKET_SIZE} submissions are left out of the comparison: they come from code handed out with the
+ * assignment, which every submission contains, while copied code shares many other buckets as well.
+ */
+@Component
+@RequiredArgsConstructor
+public class SubmissionSignatureStore {
+    static final int MAX_BUCKET_SIZE = 100;
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Replaces the signature of a submission and finds the submissions of the same assignment it is similar to.
+     * Signatures of one assignment are saved one at a time, so that two submissions indexed at once still see each
+     * other.
+     *
+     * @param assignmentId the ID of the assignment
+     * @param studentAssignmentId the ID of the submission
+     * @param signature the signature of the submission's code, see {@link MinHasher#signature()}
+     * @param shingles the number of shingles of the code; code shorter than one shingle is compared with nothing
+     * @param threshold the estimated similarity from which a pair is kept, from 0 to 1
+     * @return the similar pairs the submission is now part of
+     */
+    @Transactional
+    public List<SimilarPair> save(int assignmentId, int studentAssignmentId, int[] signature, int shingles,
+                                  double threshold) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("assignmentId", assignmentId)
+                .addValue("studentAssignmentId", studentAssignmentId);
+        jdbcTemplate.queryForList("SELECT assignment_id FROM assignment WHERE assignment_id = :assignmentId "
+                + "FOR UPDATE", parameters, Integer.class);
+        jdbcTemplate.update("DELETE FROM submission_signature WHERE student_assignment_id = :studentAssignmentId",
+                parameters);
+        jdbcTemplate.update("""
+                INSERT INTO submission_signature (student_assignment_id, assignment_id, signature, shingles, updated_at)
+                VALUES (:studentAssignmentId, :assignmentId, :signature, :shingles, :updatedAt)
+                """, new MapSqlParameterSource(parameters.getValues())
+                .addValue("signature", encode(signature))
+                .addValue("shingles", shingles)
+                .addValue("updatedAt", Timestamp.valueOf(LocalDateTime.now())));
+        if (shingles == 0) {
+            return List.of();
+        }
+
+        long[] bands = MinHasher.bands(signature);
+        MapSqlParameterSource[] rows = new MapSqlParameterSource[bands.length];
+        for (int band = 0; band < bands.length; band++) {
+            rows[band] = new MapSqlParameterSource(parameters.getValues())
+                    .addValue("band", band)
+                    .addValue("bandHash", bands[band]);
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO submission_band (assignment_id, band, band_hash, student_assignment_id)
+                VALUES (:assignmentId, :band, :bandHash, :studentAssignmentId)
+                """, rows);
+
+        List<SimilarPair> pairs = new ArrayList<>();
+        findSignatures(findCandidates(parameters)).forEach((candidateId, candidate) -> {
+            double similarity = MinHasher.similarity(signature, candidate);
+            if (similarity >= threshold) {
+                pairs.add(new SimilarPair(Math.min(studentAssignmentId, candidateId),
+                        Math.max(studentAssignmentId, candidateId), similarity));
+            }
+        });
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO similar_submission (student_assignment_id, other_student_assignment_id, assignment_id,
+                                                similarity)
+                VALUES (:studentAssignmentId, :otherStudentAssignmentId, :assignmentId, :similarity)
+                """, pairs.stream()
+                .map(pair -> new MapSqlParameterSource()
+                        .addValue("studentAssignmentId", pair.studentAssignmentId())
+                        .addValue("otherStudentAssignmentId", pair.otherStudentAssignmentId())
+                        .addValue("assignmentId", assignmentId)
+                        .addValue("similarity", pair.similarity()))
+                .toArray(MapSqlParameterSource[]::new));
+        return pairs;
+    }
+
+    /**
+     * @return the similar pairs among the submissions of the assignment
+     */
+    @Transactional(readOnly = true)
+    public List<SimilarPair> findPairs(int assignmentId) {
+        return jdbcTemplate.query("""
+                        SELECT student_assignment_id, other_student_assignment_id, similarity
+                        FROM similar_submission
+                        WHERE assignment_id = :assignmentId
+                        """, new MapSqlParameterSource("assignmentId", assignmentId),
+                (row, rowNum) -> new SimilarPair(row.getInt("student_assignment_id"),
+                        row.getInt("other_student_assignment_id"), row.getDouble("similarity")));
+    }
+
+    /**
+     * @return the submissions sharing a bucket of no more than {@value #MAX_BUCKET_SIZE} submissions with the given
+     * one
+     */
+    private Set<Integer> findCandidates(MapSqlParameterSource parameters) {
+        Map<Integer, List<Integer>> buckets = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT o.band, o.student_assignment_id
+                FROM submission_band s
+                JOIN submission_band o ON o.assignment_id = s.assignment_id AND o.band = s.band
+                    AND o.band_hash = s.band_hash AND o.student_assignment_id <> s.student_assignment_id
+                WHERE s.assignment_id = :assignmentId AND s.student_assignment_id = :studentAssignmentId
+                """, parameters, row -> {
+            buckets.computeIfAbsent(row.getInt("band"), band -> new ArrayList<>())
+                    .add(row.getInt("student_assignment_id"));
+        });
+        Set<Integer> candidates = new TreeSet<>();
+        buckets.values().stream()
+                .filter(bucket -> bucket.size() < MAX_BUCKET_SIZE)
+                .forEach(candidates::addAll);
+        return candidates;
+    }
+
+    private Map<Integer, int[]> findSignatures(Set<Integer> studentAssignmentIds) {
+        Map<Integer, int[]> signatures = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(studentAssignmentIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            jdbcTemplate.query("""
+                    SELECT student_assignment_id, signature
+                    FROM submission_signature
+                    WHERE student_assignment_id IN (:ids)
+                    """, new MapSqlParameterSource("ids", ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()))),
+                    row -> {
+                        signatures.put(row.getInt("student_assignment_id"), decode(row.getBytes("signature")));
+                    });
+        }
+        return signatures;
+    }
+
+    static byte[] encode(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    static int[] decode(byte[] bytes) {
+        int[] signature = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.statistics;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The distribution of the grades of an assignment, or of the points of one grading element: an exact count, sum and
+ * histogram, and a {@link TDigest} for the median and percentiles. A grade that changes is removed from the exact
+ * parts and the new grade added to all of them, but the digest keeps the old grade as well. The old grades it
+ * keeps are counted as retired so that the sketch can be rebuilt once they would noticeably skew the percentiles.
+ * <p>
+ * A sketch is not thread safe.
+ */
+@Getter
+public final class GradeSketch {
+    /**
+     * Five-percent bins, which line up across sketches of different maximum points.
+     */
+    public static final int BINS = 20;
+
+    /**
+     * The share of retired grades in the digest above which the sketch should be rebuilt.
+     */
+    static final double MAX_RETIRED_FRACTION = 0.1;
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private long count;
+    private BigDecimal sum;
+    private long retired;
+    private final Histogram histogram;
+    private final TDigest digest;
+
+    /**
+     * Whether a removed value was missing from the histogram, which means the grades changed behind the sketch's
+     * back.
+     */
+    private boolean drifted;
+
+    /**
+     * @param maxPoints the upper bound of the histogram; a bound of zero is taken as one
+     */
+    public GradeSketch(BigDecimal maxPoints) {
+        this(0, BigDecimal.ZERO, 0, new Histogram(BINS, upper(maxPoints)), new TDigest());
+    }
+
+    public GradeSketch(long count, BigDecimal sum, long retired, Histogram histogram, TDigest digest) {
+        this.count = count;
+        this.sum = sum;
+        this.retired = retired;
+        this.histogram = histogram;
+        this.digest = digest;
+    }
+
+    public void add(BigDecimal value) {
+        count++;
+        sum = sum.add(value);
+        histogram.add(value.doubleValue());
+        digest.add(value.doubleValue());
+    }
+
+    /**
+     * Records that a value changed; either value may be null for a value that is added or removed.
+     */
+    public void replace(BigDecimal previous, BigDecimal value) {
+        if (previous != null && value != null && previous.compareTo(value) == 0) {
+            return;
+        }
+        if (previous != null) {
+            count--;
+            sum = sum.subtract(previous);
+            drifted |= !histogram.remove(previous.doubleValue()) || count < 0;
+            retired++;
+        }
+        if (value != null) {
+            add(value);
+        }
+    }
+
+    /**
+     * Adds the values of another sketch with the same histogram bins.
+     */
+    public void merge(GradeSketch other) {
+        count += other.count;
+        sum = sum.add(other.sum);
+        retired += other.retired;
+        histogram.merge(other.histogram);
+        digest.merge(other.digest);
+    }
+
+    /**
+     * @return a copy of the sketch with every value expressed as a percentage of the maximum points
+     */
+    public GradeSketch toPercent() {
+        BigDecimal upper = BigDecimal.valueOf(histogram.getUpper());
+        return new GradeSketch(count, sum.multiply(HUNDRED).divide(upper, 6, RoundingMode.HALF_UP), retired,
+                histogram.rescaled(100), digest.scaled(100 / histogram.getUpper()));
+    }
+
+    /**
+     * @return whether the sketch should be rebuilt from the grades: its histogram is for other maximum points, too
+     * many of the values in its digest are retired, or a removed value was never added
+     */
+    public boolean isStale(BigDecimal maxPoints) {
+        return drifted || Double.compare(histogram.getUpper(), upper(maxPoints)) != 0
+                || retired > MAX_RETIRED_FRACTION * Math.max(count, 1);
+    }
+
+    /**
+     * @return the mean of the values, or null if there are none
+     */
+    public BigDecimal getMean() {
+        return count == 0 ? null : sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    }
+
+    private static double upper(BigDecimal maxPoints) {
+        return maxPoints.signum() > 0 ? maxPoints.doubleValue() : 1;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.statistics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps the grade sketches of assignments and reads the grades they are built from.
+ * <p>
+ * The sketches of an assignment are only written while its row is locked with {@link #lockAssignment}, so a sketch
+ * built from the grades cannot miss a change made by a transaction that has not yet committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class GradeSketchStore {
+    /**
+     * The grading element ID under which the sketch of the grades of the assignment itself is kept.
+     */
+    public static final int GRADE = 0;
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Locks the assignment until the end of the transaction.
+     *
+     * @return the maximum grade of the assignment, or empty if there is no such assignment
+     */
+    public Optional<BigDecimal> lockAssignment(int assignmentId) {
+        return jdbcTemplate.queryForList("SELECT max_grade FROM assignment WHERE assignment_id = :assignmentId "
+                        + "FOR UPDATE", new MapSqlParameterSource("assignmentId", assignmentId), BigDecimal.class)
+                .stream().findFirst();
+    }
+
+    /**
+     * @return the sketches of the assignment by grading element ID, with the sketch of its grades under
+     * {@link #GRADE}
+     */
+    public Map<Integer, GradeSketch> find(int assignmentId) {
+        Map<Integer, GradeSketch> sketches = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT grading_element_id, value_count, value_sum, retired_count, histogram, digest
+                FROM grade_sketch
+                WHERE assignment_id = :assignmentId
+                """, new MapSqlParameterSource("assignmentId", assignmentId), row -> {
+            sketches.put(row.getInt("grading_element_id"), sketch(row));
+        });
+        return sketches;
+    }
+
+    /**
+     * @return the sketches of the grades of the assignments of a course by assignment ID
+     */
+    public Map<Integer, GradeSketch> findGradeSketches(int courseId) {
+        Map<Integer, GradeSketch> sketches = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT gs.assignment_id, gs.value_count, gs.value_sum, gs.retired_count, gs.histogram, gs.digest
+                FROM grade_sketch gs
+                JOIN assignment a ON a.assignment_id = gs.assignment_id
+                WHERE a.course_id = :courseId AND gs.grading_element_id = 0
+                """, new MapSqlParameterSource("courseId", courseId), row -> {
+            sketches.put(row.getInt("assignment_id"), sketch(row));
+        });
+        return sketches;
+    }
+
+    /**
+     * @return the maximum grades of the assignments of a course by assignment ID
+     */
+    public Map<Integer, BigDecimal> findMaxGrades(int courseId) {
+        Map<Integer, BigDecimal> maxGrades = new HashMap<>();
+        jdbcTemplate.query("SELECT assignment_id, max_grade FROM assignment WHERE course_id = :courseId",
+                new MapSqlParameterSource("courseId", courseId), row -> {
+                    maxGrades.put(row.getInt("assignment_id"), row.getBigDecimal("max_grade"));
+                });
+        return maxGrades;
+    }
+
+    /**
+     * Saves the given sketches of the assignment, inserting those not in {@code existing}.
+     *
+     * @param sketches the sketches by grading element ID, or {@link #GRADE}
+     * @param existing the grading element IDs of the sketches already saved
+     */
+    public void save(int assignmentId, Map<Integer, GradeSketch> sketches, Set<Integer> existing) {
+        List<MapSqlParameterSource> updates = new ArrayList<>();
+        List<MapSqlParameterSource> inserts = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        sketches.forEach((gradingElementId, sketch) -> {
+            MapSqlParameterSource row = new MapSqlParameterSource()
+                    .addValue("assignmentId", assignmentId)
+                    .addValue("gradingElementId", gradingElementId)
+                    .addValue("count", sketch.getCount())
+                    .addValue("sum", sketch.getSum())
+                    .addValue("retired", sketch.getRetired())
+                    .addValue("histogram", sketch.getHistogram().toBytes())
+                    .addValue("digest", sketch.getDigest().toBytes())
+                    .addValue("updatedAt", now);
+            (existing.contains(gradingElementId) ? updates : inserts).add(row);
+        });
+        jdbcTemplate.batchUpdate("""
+                UPDATE grade_sketch
+                SET value_count = :count, value_sum = :sum, retired_count = :retired, histogram = :histogram,
+                    digest = :digest, updated_at = :updatedAt
+                WHERE assignment_id = :assignmentId AND grading_element_id = :gradingElementId
+                """, updates.toArray(MapSqlParameterSource[]::new));
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO grade_sketch (assignment_id, grading_element_id, value_count, value_sum, retired_count,
+                                          histogram, digest, updated_at)
+                VALUES (:assignmentId, :gradingElementId, :count, :sum, :retired, :histogram, :digest, :updatedAt)
+                """, inserts.toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Deletes the given sketches of the assignment.
+     *
+     * @param gradingElementIds the grading element IDs of the sketches, or {@link #GRADE}
+     */
+    public void delete(int assignmentId, Collection<Integer> gradingElementIds) {
+        if (gradingElementIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM grade_sketch WHERE assignment_id = :assignmentId "
+                        + "AND grading_element_id IN (:ids)",
+                new MapSqlParameterSource("assignmentId", assignmentId).addValue("ids", gradingElementIds));
+    }
+
+    /**
+     * @return the grades of the graded student assignments of the assignment
+     */
+    public List<BigDecimal> findGrades(int assignmentId, int term) {
+        return jdbcTemplate.queryForList("""
+                SELECT grade
+                FROM student_assignment
+                WHERE assignment_id = :assignmentId AND term = :term AND grade IS NOT NULL
+                """, new MapSqlParameterSource("assignmentId", assignmentId).addValue("term", term),
+                BigDecimal.class);
+    }
+
+    /**
+     * @return the points awarded for each of the grading elements, by grading element ID
+     */
+    public Map<Integer, List<BigDecimal>> findPoints(Collection<Integer> gradingElementIds, int term) {
+        Map<Integer, List<BigDecimal>> points = new HashMap<>();
+        if (gradingElementIds.isEmpty()) {
+            return points;
+        }
+        jdbcTemplate.query("""
+                SELECT grading_element_id, points_awarded
+                FROM student_grading_element
+                WHERE term = :term AND grading_element_id IN (:ids)
+                """, new MapSqlParameterSource("term", term).addValue("ids", gradingElementIds), row -> {
+            points.computeIfAbsent(row.getInt("grading_element_id"), id -> new ArrayList<>())
+                    .add(row.getBigDecimal("points_awarded"));
+        });
+        return points;
+    }
+
+    /**
+     * @return the current grades and points of the student assignments
+     */
+    public PreviousGrades findPrevious(Collection<Integer> studentAssignmentIds, int term) {
+        Map<Integer, BigDecimal> grades = new HashMap<>();
+        Map<Long, BigDecimal> points = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(studentAssignmentIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource("term", term)
+                    .addValue("ids", ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+            jdbcTemplate.query("""
+                    SELECT student_assignment_id, grade
+                    FROM student_assignment
+                    WHERE term = :term AND student_assignment_id IN (:ids) AND grade IS NOT NULL
+                    """, parameters, row -> {
+                grades.put(row.getInt("student_assignment_id"), row.getBigDecimal("grade"));
+            });
+            jdbcTemplate.query("""
+                    SELECT student_assignment_id, grading_element_id, points_awarded
+                    FROM student_grading_element
+                    WHERE term = :term AND student_assignment_id IN (:ids)
+                    """, parameters, row -> {
+                points.put(PreviousGrades.key(row.getInt("student_assignment_id"), row.getInt("grading_element_id")),
+                        row.getBigDecimal("points_awarded"));
+            });
+        }
+        return new PreviousGrades(grades, points);
+    }
+
+    private static GradeSketch sketch(ResultSet row) throws SQLException {
+        return new GradeSketch(row.getLong("value_count"), row.getBigDecimal("value_sum"),
+                row.getLong("retired_count"), Histogram.fromBytes(row.getBytes("histogram")),
+                TDigest.fromBytes(row.getBytes("digest")));
+    }
+}
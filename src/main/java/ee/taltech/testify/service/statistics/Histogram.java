@@ -0,0 +1,136 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.statistics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Counts of values in equal-width bins from zero to an upper bound. Values below zero are counted in the first bin
+ * and values above the bound in the last, with the bound itself in the last bin. Unlike a t-digest, a histogram can
+ * remove values exactly.
+ * <p>
+ * Histograms with the same number of bins merge bin by bin. Since the bins are fractions of the bound, histograms of
+ * different bounds can be merged after {@linkplain #rescaled rescaling} them to a common one.
+ */
+public final class Histogram {
+    private final double upper;
+    private final long[] counts;
+
+    public Histogram(int bins, double upper) {
+        if (bins < 1 || !(upper > 0)) {
+            throw new IllegalArgumentException("A histogram needs at least one bin and a positive upper bound");
+        }
+        this.upper = upper;
+        this.counts = new long[bins];
+    }
+
+    private Histogram(double upper, long[] counts) {
+        this.upper = upper;
+        this.counts = counts;
+    }
+
+    public void add(double value) {
+        counts[bin(value)]++;
+    }
+
+    /**
+     * @return false, leaving the histogram unchanged, if the bin of the value is empty
+     */
+    public boolean remove(double value) {
+        int bin = bin(value);
+        if (counts[bin] == 0) {
+            return false;
+        }
+        counts[bin]--;
+        return true;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the other histogram has different bins
+     */
+    public void merge(Histogram other) {
+        if (other.counts.length != counts.length || Double.compare(other.upper, upper) != 0) {
+            throw new IllegalArgumentException("Only histograms with the same bins can be merged");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    /**
+     * @return a histogram with the same counts in bins of the same fractions of a new upper bound
+     */
+    public Histogram rescaled(double upper) {
+        if (!(upper > 0)) {
+            throw new IllegalArgumentException("Upper bound must be positive, was " + upper);
+        }
+        return new Histogram(upper, counts.clone());
+    }
+
+    public double getUpper() {
+        return upper;
+    }
+
+    public int getBinCount() {
+        return counts.length;
+    }
+
+    public double getLower(int bin) {
+        return upper * bin / counts.length;
+    }
+
+    public double getUpper(int bin) {
+        return upper * (bin + 1) / counts.length;
+    }
+
+    public long getCount(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * Serializes the histogram: the upper bound, the number of bins and the variable-length count of each bin.
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES + Integer.BYTES
+                + counts.length * VarInts.MAX_LONG_BYTES);
+        buffer.putDouble(upper);
+        buffer.putInt(counts.length);
+        for (long count : counts) {
+            VarInts.putLong(buffer, count);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    public static Histogram fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        double upper = buffer.getDouble();
+        long[] counts = new long[buffer.getInt()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = VarInts.getLong(buffer);
+        }
+        return new Histogram(upper, counts);
+    }
+
+    private int bin(double value) {
+        int bin = (int) Math.floor(value / upper * counts.length);
+        return Math.max(0, Math.min(bin, counts.length - 1));
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.statistics;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Grades and grading element points as they were before a batch of grades was saved, from which the changes to the
+ * sketches are derived.
+ *
+ * @param grades the grades by student assignment ID; ungraded student assignments are left out
+ * @param points the points by {@link #key} of student assignment and grading element; ungraded elements are left
+ *               out
+ */
+public record PreviousGrades(Map<Integer, BigDecimal> grades, Map<Long, BigDecimal> points) {
+
+    public static long key(int studentAssignmentId, int gradingElementId) {
+        return (long) studentAssignmentId << 32 | gradingElementId;
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.statistics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A t-digest: a mergeable sketch of a distribution that estimates any quantile from a few hundred centroids however
+ * many values it has seen. Centroids near the median absorb many values while those in the tails stay small, so the
+ * error of a quantile is proportional to {@code q(1 - q)}: with the default compression of 100 it is below one
+ * percentile rank in the middle of the distribution and far smaller at the extremes.
+ * <p>
+ * This is the merging variant with the {@code k1} scale function of Dunning and Ertl: added values are buffered and
+ * merged into the centroids in one sorted pass when the buffer fills up. Values cannot be removed. A digest is not
+ * thread safe.
+ */
+public final class TDigest {
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private static final byte FORMAT = 1;
+
+    private final double compression;
+
+    private double[] means;
+    private long[] weights;
+    private int centroids;
+
+    private final double[] bufferMeans;
+    private final long[] bufferWeights;
+    private int buffered;
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("Compression must be at least 10, was " + compression);
+        }
+        this.compression = compression;
+        means = new double[(int) compression];
+        weights = new long[(int) compression];
+        bufferMeans = new double[(int) (5 * compression)];
+        bufferWeights = new long[bufferMeans.length];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Adds every value the other digest has seen. The other digest is not changed other than being compressed.
+     */
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        if (other.count > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    /**
+     * @return a digest of the values multiplied by the factor, which must be positive
+     */
+    public TDigest scaled(double factor) {
+        if (!(factor > 0)) {
+            throw new IllegalArgumentException("Scale factor must be positive, was " + factor);
+        }
+        compress();
+        TDigest scaled = new TDigest(compression);
+        scaled.means = Arrays.copyOf(means, means.length);
+        scaled.weights = Arrays.copyOf(weights, weights.length);
+        scaled.centroids = centroids;
+        for (int i = 0; i < centroids; i++) {
+            scaled.means[i] *= factor;
+        }
+        scaled.count = count;
+        scaled.min = min * factor;
+        scaled.max = max * factor;
+        return scaled;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the smallest value seen, or NaN if the digest is empty
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return the largest value seen, or NaN if the digest is empty
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @return the number of centroids after compression, a measure of the size of the digest
+     */
+    public int getCentroidCount() {
+        compress();
+        return centroids;
+    }
+
+    /**
+     * Estimates the value below which the given fraction of the values lie, interpolating linearly between the
+     * centres of neighbouring centroids. Centroids of a single value are treated as exact.
+     *
+     * @param q the fraction, from 0 to 1
+     * @return the estimated quantile, or NaN if the digest is empty
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1, was " + q);
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+
+        double index = q * count;
+        if (index < 1) {
+            return min;
+        }
+        if (index > count - 1) {
+            return max;
+        }
+        if (weights[0] > 1 && index < weights[0] / 2.0) {
+            return min + (index - 1) / (weights[0] / 2.0 - 1) * (means[0] - min);
+        }
+
+        double weightSoFar = weights[0] / 2.0;
+        for (int i = 0; i < centroids - 1; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2.0;
+            if (weightSoFar + gap > index) {
+                double leftUnit = 0;
+                if (weights[i] == 1) {
+                    if (index - weightSoFar < 0.5) {
+                        return means[i];
+                    }
+                    leftUnit = 0.5;
+                }
+                double rightUnit = 0;
+                if (weights[i + 1] == 1) {
+                    if (weightSoFar + gap - index <= 0.5) {
+                        return means[i + 1];
+                    }
+                    rightUnit = 0.5;
+                }
+                double left = index - weightSoFar - leftUnit;
+                double right = weightSoFar + gap - index - rightUnit;
+                return interpolate(means[i], right, means[i + 1], left);
+            }
+            weightSoFar += gap;
+        }
+
+        long last = weights[centroids - 1];
+        if (last > 1 && index < count - 1) {
+            double fraction = (index - weightSoFar) / (last / 2.0 - 1);
+            return means[centroids - 1] + Math.min(fraction, 1) * (max - means[centroids - 1]);
+        }
+        return max;
+    }
+
+    /**
+     * Serializes the digest: a format byte, the compression, the count, minimum and maximum, and then the mean and
+     * variable-length weight of each centroid.
+     */
+    public byte[] toBytes() {
+        compress();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 3 * Double.BYTES + Integer.BYTES + centroids * (Double.BYTES
+                + VarInts.MAX_LONG_BYTES));
+        buffer.put(FORMAT);
+        buffer.putDouble(compression);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.putInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            buffer.putDouble(means[i]);
+            VarInts.putLong(buffer, weights[i]);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a serialized digest
+     */
+    public static TDigest fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != FORMAT) {
+            throw new IllegalArgumentException("Unknown t-digest format");
+        }
+        TDigest digest = new TDigest(buffer.getDouble());
+        digest.min = buffer.getDouble();
+        digest.max = buffer.getDouble();
+        int centroids = buffer.getInt();
+        digest.ensureCapacity(centroids);
+        for (int i = 0; i < centroids; i++) {
+            digest.means[i] = buffer.getDouble();
+            digest.weights[i] = VarInts.getLong(buffer);
+            digest.count += digest.weights[i];
+        }
+        digest.centroids = centroids;
+        return digest;
+    }
+
+    private void add(double mean, long weight) {
+        if (Double.isNaN(mean)) {
+            throw new IllegalArgumentException("Cannot add NaN to a t-digest");
+        }
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        count += weight;
+        min = Math.min(min, mean);
+        max = Math.max(max, mean);
+    }
+
+    /**
+     * Merges the buffered values into the centroids. Neighbouring centroids, in order of mean, are combined while
+     * the combined centroid spans at most one unit of the scale function.
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        int size = centroids + buffered;
+        double[] sortedMeans = new double[size];
+        long[] sortedWeights = new long[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(meanAt(a), meanAt(b)));
+        for (int i = 0; i < size; i++) {
+            sortedMeans[i] = meanAt(order[i]);
+            sortedWeights[i] = weightAt(order[i]);
+        }
+
+        ensureCapacity(size);
+        int merged = 0;
+        double mean = sortedMeans[0];
+        long weight = sortedWeights[0];
+        double weightSoFar = 0;
+        double limit = count * maxFraction(0);
+        for (int i = 1; i < size; i++) {
+            if (weight + sortedWeights[i] <= limit) {
+                weight += sortedWeights[i];
+                mean += (sortedMeans[i] - mean) * sortedWeights[i] / weight;
+            } else {
+                means[merged] = mean;
+                weights[merged] = weight;
+                merged++;
+                weightSoFar += weight;
+                limit = count * maxFraction(weightSoFar / count);
+                mean = sortedMeans[i];
+                weight = sortedWeights[i];
+            }
+        }
+        means[merged] = mean;
+        weights[merged] = weight;
+        centroids = merged + 1;
+        buffered = 0;
+    }
+
+    /**
+     * @return the largest fraction of all values a centroid starting at quantile {@code q} may hold
+     */
+    private double maxFraction(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+        double limit = k >= compression / 4 ? 1 : (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+        return Math.max(limit - q, 0);
+    }
+
+    private double meanAt(int index) {
+        return index < centroids ? means[index] : bufferMeans[index - centroids];
+    }
+
+    private long weightAt(int index) {
+        return index < centroids ? weights[index] : bufferWeights[index - centroids];
+    }
+
+    private void ensureCapacity(int size) {
+        if (means.length < size) {
+            means = Arrays.copyOf(means, size);
+            weights = Arrays.copyOf(weights, size);
+        }
+    }
+
+    private static double interpolate(double left, double leftWeight, double right, double rightWeight) {
+        double total = leftWeight + rightWeight;
+        if (total <= 0) {
+            return (left + right) / 2;
+        }
+        double value = (left * leftWeight + right * rightWeight) / total;
+        return Math.max(left, Math.min(value, right));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.usersearch;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.function.IntPredicate;
+
+/**
+ * A path-compressed trie from tokens to the IDs of the users having them.
+ * <p>
+ * Chains of single-child nodes are merged into one node labelled with the whole run of characters, so a unique
+ * email address costs one node rather than one per character. Children are kept in a sorted {@code char[]} of
+ * their first characters with a parallel array of nodes, and the IDs ending at a node in a sorted {@code int[]}.
+ * Nodes left empty by removals are kept until the owning index is rebuilt. Not thread-safe.
+ */
+final class PrefixTrie {
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final int[] NO_IDS = new int[0];
+
+    private final Node root = new Node("");
+    private int nodeCount = 1;
+
+    void add(String token, int id) {
+        Node node = root;
+        int position = 0;
+        while (position < token.length()) {
+            int index = Arrays.binarySearch(node.keys, token.charAt(position));
+            if (index < 0) {
+                Node leaf = new Node(token.substring(position));
+                node.insertChild(-index - 1, leaf);
+                nodeCount++;
+                node = leaf;
+                break;
+            }
+            Node child = node.children[index];
+            int common = commonPrefixLength(child.label, token, position);
+            if (common < child.label.length()) {
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.keys = new char[]{child.label.charAt(0)};
+                split.children = new Node[]{child};
+                node.children[index] = split;
+                nodeCount++;
+                child = split;
+            }
+            node = child;
+            position += common;
+        }
+        node.addId(id);
+    }
+
+    void remove(String token, int id) {
+        Node node = root;
+        int position = 0;
+        while (position < token.length()) {
+            int index = Arrays.binarySearch(node.keys, token.charAt(position));
+            if (index < 0) {
+                return;
+            }
+            Node child = node.children[index];
+            if (!token.startsWith(child.label, position)) {
+                return;
+            }
+            node = child;
+            position += child.label.length();
+        }
+        node.removeId(id);
+    }
+
+    /**
+     * Visits the IDs of all tokens starting with the prefix in the lexicographic order of their tokens, so those
+     * of the token equal to the prefix come first.
+     *
+     * @param visitor receives the IDs and returns {@code false} to stop the traversal
+     * @return {@code false} if the visitor stopped the traversal
+     */
+    boolean visit(String prefix, IntPredicate visitor) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            int index = Arrays.binarySearch(node.keys, prefix.charAt(position));
+            if (index < 0) {
+                return true;
+            }
+            Node child = node.children[index];
+            int common = commonPrefixLength(child.label, prefix, position);
+            if (position + common < prefix.length() && common < child.label.length()) {
+                return true;
+            }
+            node = child;
+            position += common;
+        }
+
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node current = pending.pop();
+            for (int i = 0; i < current.idCount; i++) {
+                if (!visitor.test(current.ids[i])) {
+                    return false;
+                }
+            }
+            for (int i = current.children.length - 1; i >= 0; i--) {
+                pending.push(current.children[i]);
+            }
+        }
+        return true;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    private static int commonPrefixLength(String label, String token, int offset) {
+        int max = Math.min(label.length(), token.length() - offset);
+        int length = 0;
+        while (length < max && label.charAt(length) == token.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static final class Node {
+        private String label;
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private int[] ids = NO_IDS;
+        private int idCount;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private void insertChild(int index, Node child) {
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newKeys[index] = child.label.charAt(0);
+            newChildren[index] = child;
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        private void addId(int id) {
+            int index = Arrays.binarySearch(ids, 0, idCount, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, idCount + (idCount >> 1) + 1);
+            }
+            System.arraycopy(ids, index, ids, index + 1, idCount - index);
+            ids[index] = id;
+            idCount++;
+        }
+
+        private void removeId(int id) {
+            int index = Arrays.binarySearch(ids, 0, idCount, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, idCount - index - 1);
+            idCount--;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.usersearch;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index from the three-character substrings of texts to the IDs of the users having them, used to find
+ * matches in the middle of a name or an email address. Not thread-safe.
+ */
+final class TrigramIndex {
+    private final Map<Long, RoaringBitmap> postings = new HashMap<>();
+
+    void add(String text, int id) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            postings.computeIfAbsent(trigram(text, i), key -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    /**
+     * Removes the user from the trigrams of the text. Texts sharing a trigram must be removed together, otherwise
+     * the user is dropped from trigrams it still has.
+     */
+    void remove(String text, int id) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            Long key = trigram(text, i);
+            RoaringBitmap ids = postings.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the users having every trigram of the text, a superset of the users containing it; empty if the
+     *         text is shorter than three characters
+     */
+    RoaringBitmap candidates(String text) {
+        RoaringBitmap result = null;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            RoaringBitmap ids = postings.get(trigram(text, i));
+            if (ids == null) {
+                return new RoaringBitmap();
+            }
+            result = result == null ? ids.clone() : RoaringBitmap.and(result, ids);
+        }
+        return result == null ? new RoaringBitmap() : result;
+    }
+
+    void optimize() {
+        postings.values().forEach(RoaringBitmap::runOptimize);
+    }
+
+    long getSizeInBytes() {
+        return postings.values().stream().mapToLong(RoaringBitmap::getLongSizeInBytes).sum();
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
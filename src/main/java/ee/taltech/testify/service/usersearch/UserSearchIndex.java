@@ -0,0 +1,391 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.usersearch;
+
+import ee.taltech.testify.repository.AppUserRepository;
+import ee.taltech.testify.repository.UserSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Users held in memory for as-you-type lookup by name, university ID and email.
+ * <p>
+ * {@link PrefixTrie}s over the words of the names and over the university ID and email find users by the start of a
+ * word, and a {@link TrigramIndex} finds them by any part of a field, so "kas" finds "Maasikas". Text is compared
+ * lower-cased and without accents, so "ounapuu" finds "Õunapuu". Every word of the query must match.
+ * <p>
+ * The index is loaded when the application starts, kept current by {@link UserSearchListener} and rebuilt
+ * periodically to pick up changes made by other nodes or outside JPA. Lookups share a read lock and are only
+ * blocked while a change is applied.
+ */
+@Slf4j
+@Component
+public class UserSearchIndex {
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[\\s\\-]+");
+    private static final int EXACT_NAME = 4;
+    private static final int NAME_PREFIX = 3;
+    private static final int IDENTIFIER_PREFIX = 2;
+    private static final int INFIX = 1;
+
+    private final AppUserRepository appUserRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Data data = new Data();
+    private long version;
+
+    /**
+     * Changes applied while a rebuild is reading the table; replayed onto the rebuilt index.
+     */
+    private List<Change> changesDuringRebuild;
+
+    public UserSearchIndex(AppUserRepository appUserRepository) {
+        this.appUserRepository = appUserRepository;
+    }
+
+    /**
+     * Finds the users best matching the query.
+     * <p>
+     * Users are found by the longest word of the query and every other word must match as well. Users whose name
+     * equals that word come first, then those with a name starting with it in alphabetical order of the name, then
+     * those whose university ID or email starts with it and finally those containing it anywhere. The search stops
+     * as soon as enough users are found, so its cost depends on the limit rather than on the number of users.
+     *
+     * @param query the words to look for
+     * @param role the role the users must have, or {@code null} for any role
+     * @param limit the maximum number of users to return
+     * @return the matching users, best match first
+     */
+    public List<UserSummary> search(String query, String role, int limit) {
+        String[] words = Arrays.stream(WORD_SEPARATORS.split(normalize(query)))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+        if (words.length == 0 || limit < 1) {
+            return List.of();
+        }
+        String longest = Arrays.stream(words).max(Comparator.comparingInt(String::length)).orElseThrow();
+
+        lock.readLock().lock();
+        try {
+            Collector collector = new Collector(data.users, words, role, limit);
+            boolean more = data.names.visit(longest, collector::add)
+                    && data.identifiers.visit(longest, collector::add);
+            if (more && longest.length() >= 3) {
+                IntIterator ids = data.trigrams.candidates(longest).getIntIterator();
+                while (more && ids.hasNext()) {
+                    more = collector.addIfContains(ids.next(), longest);
+                }
+            }
+            return collector.getResult();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the user or replaces its previously indexed fields.
+     */
+    public void upsert(UserSummary user) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(new Change(user.id(), user));
+            }
+            data.upsert(user);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int userId) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(new Change(userId, null));
+            }
+            data.remove(userId);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the index from the user table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${testify.user-search.rebuild-interval:PT10M}",
+            fixedDelayString = "${testify.user-search.rebuild-interval:PT10M}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Data rebuilt = new Data();
+        try {
+            appUserRepository.findAllSummaries().forEach(rebuilt::upsert);
+            rebuilt.trigrams.optimize();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            boolean first = data.users.isEmpty();
+            for (Change change : changesDuringRebuild) {
+                if (change.user() != null) {
+                    rebuilt.upsert(change.user());
+                } else {
+                    rebuilt.remove(change.userId());
+                }
+            }
+            changesDuringRebuild = null;
+            data = rebuilt;
+            version++;
+            if (first) {
+                log.info("User search index loaded: {} users, {} trie nodes, {} bytes of trigrams",
+                        rebuilt.users.size(), rebuilt.names.getNodeCount() + rebuilt.identifiers.getNodeCount(),
+                        rebuilt.trigrams.getSizeInBytes());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return a number that changes whenever the indexed users change
+     */
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getUserCount() {
+        lock.readLock().lock();
+        try {
+            return data.users.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .strip();
+    }
+
+    /**
+     * The structures of one generation of the index. Only accessed under the lock.
+     */
+    private static final class Data {
+        private final Map<Integer, IndexedUser> users = new HashMap<>();
+        private final PrefixTrie names = new PrefixTrie();
+        private final PrefixTrie identifiers = new PrefixTrie();
+        private final TrigramIndex trigrams = new TrigramIndex();
+
+        private void upsert(UserSummary summary) {
+            remove(summary.id());
+            IndexedUser user = new IndexedUser(summary);
+            users.put(summary.id(), user);
+            for (String name : user.names) {
+                names.add(name, summary.id());
+            }
+            for (String identifier : user.identifiers()) {
+                identifiers.add(identifier, summary.id());
+            }
+            for (String field : user.fields()) {
+                trigrams.add(field, summary.id());
+            }
+        }
+
+        private void remove(int userId) {
+            IndexedUser user = users.remove(userId);
+            if (user == null) {
+                return;
+            }
+            for (String name : user.names) {
+                names.remove(name, userId);
+            }
+            for (String identifier : user.identifiers()) {
+                identifiers.remove(identifier, userId);
+            }
+            for (String field : user.fields()) {
+                trigrams.remove(field, userId);
+            }
+        }
+    }
+
+    private static final class IndexedUser {
+        private final UserSummary summary;
+        private final String firstName;
+        private final String lastName;
+        private final String uniId;
+        private final String email;
+        private final String[] names;
+
+        private IndexedUser(UserSummary summary) {
+            this.summary = summary;
+            this.firstName = normalize(summary.firstName());
+            this.lastName = normalize(summary.lastName());
+            this.uniId = normalize(summary.uniId());
+            this.email = normalize(summary.email());
+            this.names = Stream.of(WORD_SEPARATORS.split(firstName), WORD_SEPARATORS.split(lastName))
+                    .flatMap(Arrays::stream)
+                    .filter(name -> !name.isEmpty())
+                    .toArray(String[]::new);
+        }
+
+        private List<String> identifiers() {
+            return uniId.isEmpty() ? List.of(email) : List.of(uniId, email);
+        }
+
+        private List<String> fields() {
+            return List.of(firstName, lastName, uniId, email);
+        }
+
+        private boolean contains(String word) {
+            return firstName.contains(word) || lastName.contains(word) || uniId.contains(word)
+                    || email.contains(word);
+        }
+
+        /**
+         * @return how well the word matches, or 0 if it does not
+         */
+        private int score(String word) {
+            int best = 0;
+            for (String name : names) {
+                if (name.equals(word)) {
+                    return EXACT_NAME;
+                }
+                if (name.startsWith(word)) {
+                    best = NAME_PREFIX;
+                }
+            }
+            if (best == 0 && (!uniId.isEmpty() && uniId.startsWith(word) || email.startsWith(word))) {
+                best = IDENTIFIER_PREFIX;
+            }
+            if (best == 0 && contains(word)) {
+                best = INFIX;
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Gathers the users matching the other words of the query until the limit is reached.
+     */
+    private static final class Collector {
+        private final Map<Integer, IndexedUser> users;
+        private final String[] words;
+        private final String role;
+        private final int limit;
+        private final RoaringBitmap seen = new RoaringBitmap();
+        private final List<Match> matches = new ArrayList<>();
+
+        private Collector(Map<Integer, IndexedUser> users, String[] words, String role, int limit) {
+            this.users = users;
+            this.words = words;
+            this.role = role;
+            this.limit = limit;
+        }
+
+        /**
+         * @return {@code false} once enough users are found
+         */
+        private boolean add(int id) {
+            if (!seen.checkedAdd(id)) {
+                return true;
+            }
+            IndexedUser user = users.get(id);
+            if (role != null && !role.equals(user.summary.role())) {
+                return true;
+            }
+            int total = 0;
+            for (String word : words) {
+                int wordScore = user.score(word);
+                if (wordScore == 0) {
+                    return true;
+                }
+                total += wordScore;
+            }
+            matches.add(new Match(user, total, matches.size()));
+            return matches.size() < limit;
+        }
+
+        private boolean addIfContains(int id, String word) {
+            if (seen.contains(id) || !users.get(id).contains(word)) {
+                return true;
+            }
+            return add(id);
+        }
+
+        private List<UserSummary> getResult() {
+            return matches.stream()
+                    .sorted(Comparator.comparingInt(Match::score).reversed().thenComparingInt(Match::order))
+                    .map(match -> match.user().summary)
+                    .toList();
+        }
+    }
+
+    private record Match(IndexedUser user, int score, int order) {
+    }
+
+    /**
+     * An upsert of the user, or its removal if {@code user} is null.
+     */
+    private record Change(int userId, UserSummary user) {
+    }
+}
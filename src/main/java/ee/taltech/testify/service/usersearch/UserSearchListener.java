@@ -0,0 +1,77 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.usersearch;
+
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.repository.UserSummary;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Keeps the {@link UserSearchIndex} current as users are created, changed and deleted. The fields are read when the
+ * change is flushed, while the role can still be loaded, and the index is only updated once the transaction commits.
+ */
+public class UserSearchListener {
+    /**
+     * Resolved lazily: listeners are created with the entity manager factory, before the index's repository.
+     */
+    private final ObjectProvider<UserSearchIndex> userSearchIndex;
+
+    public UserSearchListener(ObjectProvider<UserSearchIndex> userSearchIndex) {
+        this.userSearchIndex = userSearchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(AppUser user) {
+        UserSummary summary = new UserSummary(user.getId(), user.getFirstName(), user.getLastName(),
+                user.getUniId(), user.getEmail(), user.getUserRole().getUserRoleName());
+        afterCommit(index -> index.upsert(summary));
+    }
+
+    @PostRemove
+    public void removed(AppUser user) {
+        int userId = user.getId();
+        afterCommit(index -> index.remove(userId));
+    }
+
+    private void afterCommit(Consumer<UserSearchIndex> update) {
+        UserSearchIndex index = userSearchIndex.getIfAvailable();
+        if (index == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.accept(index);
+                }
+            });
+        } else {
+            update.accept(index);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.webhook;
+
+import ee.taltech.testify.entity.PendingPush;
+import ee.taltech.testify.exception.RateLimitExceededException;
+import ee.taltech.testify.exception.StudentAssignmentNotFoundException;
+import ee.taltech.testify.repository.PendingPushRepository;
+import ee.taltech.testify.service.AutotestJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Queues autotest runs for pushes whose debounce window has passed.
+ * <p>
+ * Each run claims a batch of due pushes by moving their due time {@link #CLAIM_TIMEOUT} ahead, so that other nodes
+ * skip them and the pushes of a crashed dispatcher are retried. A push is removed when its run is queued, unless the
+ * student pushed again in the meantime, in which case the newer commit stays pending. Pushes over the student's or
+ * course's rate limit wait until the limit allows them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PendingPushDispatcher {
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(1);
+    private static final int BATCH_SIZE = 100;
+
+    private final PendingPushRepository pendingPushRepository;
+    private final AutotestJobService autotestJobService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${testify.webhook.dispatch-interval:PT1S}")
+    public void dispatch() {
+        dispatch(LocalDateTime.now());
+    }
+
+    /**
+     * Queues the runs of the pushes due at the given time.
+     *
+     * @param now the current time
+     * @return the number of runs queued
+     */
+    public int dispatch(LocalDateTime now) {
+        List<ClaimedPush> claimed = transactionTemplate.execute(status -> claim(now));
+        if (claimed == null) {
+            return 0;
+        }
+        int queued = 0;
+        for (ClaimedPush push : claimed) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    autotestJobService.enqueueCommit(push.studentAssignmentId(), push.commitSha());
+                    pendingPushRepository.deleteByStudentAssignmentIdAndCommitSha(push.studentAssignmentId(),
+                            push.commitSha());
+                });
+                queued++;
+            } catch (RateLimitExceededException e) {
+                transactionTemplate.executeWithoutResult(status -> pendingPushRepository.postpone(
+                        push.studentAssignmentId(), now.plusSeconds(e.getRetryAfterSeconds())));
+            } catch (StudentAssignmentNotFoundException e) {
+                transactionTemplate.executeWithoutResult(status -> pendingPushRepository
+                        .deleteByStudentAssignmentIdAndCommitSha(push.studentAssignmentId(), push.commitSha()));
+                log.warn("Dropped push of {} to a deleted submission: {}", push.commitSha(), e.getMessage());
+            }
+        }
+        return queued;
+    }
+
+    private List<ClaimedPush> claim(LocalDateTime now) {
+        List<PendingPush> due = pendingPushRepository.findDueForUpdate(now, PageRequest.of(0, BATCH_SIZE));
+        for (PendingPush push : due) {
+            push.setDueAt(now.plus(CLAIM_TIMEOUT));
+        }
+        return due.stream().map(push -> new ClaimedPush(push.getStudentAssignmentId(), push.getCommitSha())).toList();
+    }
+
+    private record ClaimedPush(Integer studentAssignmentId, String commitSha) {
+    }
+}
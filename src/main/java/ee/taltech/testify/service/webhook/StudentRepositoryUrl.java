@@ -0,0 +1,64 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.webhook;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Matches repository URLs against the student repository URL of an autotester, a URL with {@value #UNI_ID} in place
+ * of the student's UNI-ID. URLs are compared without case, a trailing slash or a {@code .git} suffix.
+ */
+public final class StudentRepositoryUrl {
+    public static final String UNI_ID = "{uniId}";
+
+    private StudentRepositoryUrl() {
+    }
+
+    /**
+     * @param template the student repository URL of an autotester
+     * @param url the URL of a repository
+     * @return the UNI-ID of the student the repository belongs to, empty if the URL does not match the template
+     */
+    public static Optional<String> uniIdOf(String template, String url) {
+        String normalizedTemplate = normalize(template);
+        String normalizedUrl = normalize(url);
+        int placeholder = normalizedTemplate.indexOf(UNI_ID.toLowerCase(Locale.ROOT));
+        if (placeholder < 0) {
+            return Optional.empty();
+        }
+        String prefix = normalizedTemplate.substring(0, placeholder);
+        String suffix = normalizedTemplate.substring(placeholder + UNI_ID.length());
+        if (normalizedUrl.length() <= prefix.length() + suffix.length()
+                || !normalizedUrl.startsWith(prefix) || !normalizedUrl.endsWith(suffix)) {
+            return Optional.empty();
+        }
+        String uniId = normalizedUrl.substring(prefix.length(), normalizedUrl.length() - suffix.length());
+        return uniId.contains("/") ? Optional.empty() : Optional.of(uniId);
+    }
+
+    private static String normalize(String url) {
+        String normalized = url.trim().toLowerCase(Locale.ROOT);
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized.endsWith(".git") ? normalized.substring(0, normalized.length() - 4) : normalized;
+    }
+}
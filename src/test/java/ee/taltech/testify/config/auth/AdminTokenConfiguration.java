@@ -0,0 +1,45 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.config.auth;
+
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.auth.TokenService;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Sends every MockMvc request with an admin token, for integration tests of endpoints whose subject is not
+ * authentication. Import it with {@code @Import(AdminTokenConfiguration.class)}.
+ */
+@TestConfiguration
+public class AdminTokenConfiguration {
+
+    @Bean
+    public MockMvcBuilderCustomizer adminTokenCustomizer(TokenService tokenService) {
+        String token = tokenService.issue(0, AuthenticatedUser.ADMIN_ROLE, List.of()).token();
+        return builder -> builder.defaultRequest(get("/").header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+    }
+}
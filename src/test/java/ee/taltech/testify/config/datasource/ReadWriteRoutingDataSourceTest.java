@@ -0,0 +1,218 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.config.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofSeconds(5), clock::get);
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadYourWritesTracker.unbind();
+    }
+
+    private static DataSource replica(double lagSeconds) throws SQLException {
+        DataSource dataSource = mock(DataSource.class, RETURNS_DEEP_STUBS);
+        when(dataSource.getConnection().createStatement().executeQuery(anyString()).getDouble(1))
+                .thenReturn(lagSeconds);
+        return dataSource;
+    }
+
+    private static DataSource unreachableReplica() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+        return dataSource;
+    }
+
+    private ReadWriteRoutingDataSource routing(Map<String, DataSource> replicas) {
+        ReplicaPool pool = new ReplicaPool(replicas, Duration.ofSeconds(5));
+        pool.checkHealth();
+        return new ReadWriteRoutingDataSource(pool, tracker);
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    @Nested
+    @DisplayName("Routing")
+    class RoutingTests {
+
+        @Test
+        @DisplayName("Should send read-write transactions to the primary")
+        void shouldRouteWritesToPrimary() throws SQLException {
+            // Given
+            ReadWriteRoutingDataSource routing = routing(Map.of("replica-0", replica(0)));
+            beginTransaction(false);
+
+            // When & Then
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+        }
+
+        @Test
+        @DisplayName("Should send work outside a transaction to the primary")
+        void shouldRouteNonTransactionalWorkToPrimary() throws SQLException {
+            // Given
+            ReadWriteRoutingDataSource routing = routing(Map.of("replica-0", replica(0)));
+
+            // When & Then
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+        }
+
+        @Test
+        @DisplayName("Should spread read-only transactions over the healthy replicas")
+        void shouldRouteReadsToReplicasRoundRobin() throws SQLException {
+            // Given
+            Map<String, DataSource> replicas = new LinkedHashMap<>();
+            replicas.put("replica-0", replica(0));
+            replicas.put("replica-1", replica(0.5));
+            ReadWriteRoutingDataSource routing = routing(replicas);
+            beginTransaction(true);
+
+            // When & Then
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-0");
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-1");
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-0");
+        }
+    }
+
+    @Nested
+    @DisplayName("Health checks")
+    class HealthCheckTests {
+
+        @Test
+        @DisplayName("Should skip replicas that lag behind or cannot be reached")
+        void shouldSkipUnhealthyReplicas() throws SQLException {
+            // Given
+            Map<String, DataSource> replicas = new LinkedHashMap<>();
+            replicas.put("lagging", replica(30));
+            replicas.put("down", unreachableReplica());
+            replicas.put("healthy", replica(1));
+            ReadWriteRoutingDataSource routing = routing(replicas);
+            beginTransaction(true);
+
+            // When & Then
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo("healthy");
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo("healthy");
+        }
+
+        @Test
+        @DisplayName("Should fall back to the primary when no replica is healthy")
+        void shouldFallBackToPrimary() throws SQLException {
+            // Given
+            ReadWriteRoutingDataSource routing = routing(Map.of("down", unreachableReplica()));
+            beginTransaction(true);
+
+            // When & Then
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+        }
+
+        @Test
+        @DisplayName("Should keep replicas out of rotation until the first health check")
+        void shouldNotUseUncheckedReplicas() throws SQLException {
+            // Given
+            ReplicaPool pool = new ReplicaPool(Map.of("replica-0", replica(0)), Duration.ofSeconds(5));
+
+            // When & Then
+            assertThat(pool.next()).isNull();
+            pool.checkHealth();
+            assertThat(pool.next()).isEqualTo("replica-0");
+        }
+    }
+
+    @Nested
+    @DisplayName("Read-your-writes")
+    class ReadYourWritesTests {
+
+        @Test
+        @DisplayName("Should read from the primary shortly after the same user wrote")
+        void shouldReadOwnWritesFromPrimary() throws SQLException {
+            // Given
+            ReadWriteRoutingDataSource routing = routing(Map.of("replica-0", replica(0)));
+            ReadYourWritesTracker.bind("principal:mari");
+            beginTransaction(false);
+            routing.determineCurrentLookupKey();
+
+            // When
+            beginTransaction(true);
+            clock.addAndGet(Duration.ofSeconds(4).toNanos());
+
+            // Then
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+            clock.addAndGet(Duration.ofSeconds(2).toNanos());
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-0");
+        }
+
+        @Test
+        @DisplayName("Should not affect reads of other users")
+        void shouldNotAffectOtherUsers() throws SQLException {
+            // Given
+            ReadWriteRoutingDataSource routing = routing(Map.of("replica-0", replica(0)));
+            ReadYourWritesTracker.bind("principal:mari");
+            beginTransaction(false);
+            routing.determineCurrentLookupKey();
+
+            // When
+            ReadYourWritesTracker.bind("principal:juku");
+            beginTransaction(true);
+
+            // Then
+            assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-0");
+        }
+
+        @Test
+        @DisplayName("Should forget writes once the window has passed")
+        void shouldEvictExpiredWrites() {
+            // Given
+            ReadYourWritesTracker.bind("principal:mari");
+            tracker.recordWrite();
+
+            // When
+            clock.addAndGet(Duration.ofSeconds(5).toNanos());
+            tracker.evictExpired();
+
+            // Then
+            assertThat(tracker.size()).isZero();
+        }
+    }
+}
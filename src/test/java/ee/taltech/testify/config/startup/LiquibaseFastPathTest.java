@@ -0,0 +1,101 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.config.startup;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiquibaseFastPathTest {
+
+    private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final LiquibaseFastPath fastPath = new LiquibaseFastPath();
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    /**
+     * Runs a Liquibase bean through the post-processor the way the application context does.
+     */
+    private RecordingLiquibase start() throws Exception {
+        RecordingLiquibase liquibase = new RecordingLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/changelog-master.xml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        fastPath.postProcessBeforeInitialization(liquibase, "liquibase");
+        liquibase.afterPropertiesSet();
+        fastPath.postProcessAfterInitialization(liquibase, "liquibase");
+        return liquibase;
+    }
+
+    private String storedChecksum() {
+        return jdbcTemplate.queryForObject("SELECT config_value FROM configuration WHERE config_key = ?",
+                String.class, LiquibaseFastPath.CHECKSUM_KEY);
+    }
+
+    @Test
+    @DisplayName("Should run on a fresh database and skip once the changelog is recorded")
+    void shouldSkipUnchangedChangelog() throws Exception {
+        // When
+        RecordingLiquibase first = start();
+        RecordingLiquibase second = start();
+
+        // Then
+        assertThat(first.ran()).isTrue();
+        assertThat(storedChecksum()).isEqualTo(fastPath.checksum(first));
+        assertThat(second.ran()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should run again when the recorded checksum differs")
+    void shouldRunChangedChangelog() throws Exception {
+        // Given
+        RecordingLiquibase first = start();
+        jdbcTemplate.update("UPDATE configuration SET config_value = 'outdated' WHERE config_key = ?",
+                LiquibaseFastPath.CHECKSUM_KEY);
+
+        // When
+        RecordingLiquibase second = start();
+
+        // Then
+        assertThat(second.ran()).isTrue();
+        assertThat(storedChecksum()).isEqualTo(fastPath.checksum(first));
+    }
+
+    private static class RecordingLiquibase extends SpringLiquibase {
+        boolean ran() {
+            return shouldRun;
+        }
+    }
+}
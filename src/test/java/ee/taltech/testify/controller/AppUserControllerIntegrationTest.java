@@ -0,0 +1,225 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.dto.LoginRequestDto;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.repository.AppUserRepository;
+import ee.taltech.testify.repository.UserRoleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for AppUserController and the user search index behind it.
+ * <p>
+ * The index is updated after commit, so the fixtures are committed and removed after each test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+@DisplayName("AppUserController Integration Tests")
+class AppUserControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<AppUser> fixtures = new ArrayList<>();
+    private AppUser teacher;
+    private AppUser student;
+
+    private AppUser user(String firstName, String lastName, String uniId, String role) {
+        AppUser user = testUsers.user(firstName, lastName, uniId + "@taltech.ee", role);
+        user.setUniId(uniId);
+        fixtures.add(appUserRepository.save(user));
+        return user;
+    }
+
+    /**
+     * Set up a teacher and two students with similar names.
+     */
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            teacher = user("Tiit", "Zyxwvuts", "tizyxw", "Teacher");
+            student = user("Mari", "Zyxwvutsson", "mazyxw", "Student");
+            user("Juku", "Qwzyxwvuts", "juqwzy", "Student");
+        });
+    }
+
+    /**
+     * Remove the committed fixtures after each test case.
+     */
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> appUserRepository.deleteAll(fixtures));
+        fixtures.clear();
+    }
+
+    /**
+     * Tests for GET /api/v1/user/autocomplete
+     */
+    @Nested
+    @DisplayName("GET /api/v1/user/autocomplete")
+    class AutocompleteTests {
+
+        @Test
+        @DisplayName("Should suggest committed users by name prefix and infix")
+        void shouldSuggestUsers() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/user/autocomplete").param("q", "zyxwvuts")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].lastName", contains("Zyxwvuts", "Zyxwvutsson", "Qwzyxwvuts")));
+        }
+
+        @Test
+        @DisplayName("Should filter by role")
+        void shouldFilterByRole() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/user/autocomplete").param("q", "zyxw").param("role", "Student")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].uniId", contains("mazyxw", "juqwzy")));
+        }
+
+        @Test
+        @DisplayName("Should follow committed changes to a user")
+        void shouldFollowUpdates() throws Exception {
+            // Given
+            transactionTemplate.executeWithoutResult(status -> {
+                AppUser changed = appUserRepository.findById(student.getId()).orElseThrow();
+                changed.setLastName("Plmoknijb");
+            });
+
+            // When & Then
+            mockMvc.perform(get("/api/v1/user/autocomplete").param("q", "plmokn")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].id", contains(student.getId())));
+            mockMvc.perform(get("/api/v1/user/autocomplete").param("q", "zyxwvutsson")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", empty()));
+        }
+
+        @Test
+        @DisplayName("Should revoke the tokens of a demoted teacher, who gets 403 Forbidden after logging in again")
+        void shouldForbidDemotedTeacher() throws Exception {
+            // Given
+            String token = testUsers.bearer(teacher, "Teacher");
+            mockMvc.perform(get("/api/v1/user/autocomplete").param("q", "zyxw")
+                            .header(HttpHeaders.AUTHORIZATION, token))
+                    .andExpect(status().isOk());
+
+            // When
+            transactionTemplate.executeWithoutResult(status -> {
+                AppUser demoted = appUserRepository.findById(teacher.getId()).orElseThrow();
+                demoted.setUserRole(userRoleRepository.findByUserRoleName("Student").orElseThrow());
+                demoted.setHashedPassword(passwordEncoder.encode("correct horse"));
+            });
+
+            // Then
+            mockMvc.perform(get("/api/v1/user/autocomplete").param("q", "zyxw")
+                            .header(HttpHeaders.AUTHORIZATION, token))
+                    .andExpect(status().isUnauthorized());
+
+            LoginRequestDto login = new LoginRequestDto();
+            login.setEmail(teacher.getEmail());
+            login.setPassword("correct horse");
+            MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(login)))
+                    .andReturn();
+            String response = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.role", is("Student")))
+                    .andReturn().getResponse().getContentAsString();
+            String newToken = objectMapper.readTree(response).get("accessToken").asText();
+
+            mockMvc.perform(get("/api/v1/user/autocomplete").param("q", "zyxw")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + newToken))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Should forbid students")
+        void shouldForbidStudents() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/user/autocomplete").param("q", "zyxw")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(student, "Student")))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Should reject a limit out of range")
+        void shouldRejectLimit() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/user/autocomplete").param("q", "zyxw").param("limit", "0")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.config.auth.AdminTokenConfiguration;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.entity.UserRole;
+import ee.taltech.testify.service.auth.TokenService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for ArtifactController.
+ */
+@SpringBootTest
+@Import(AdminTokenConfiguration.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("ArtifactController Integration Tests")
+class ArtifactControllerIntegrationTest {
+    private static final String LOG = "line of autotest output\n".repeat(200);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private AppUser student;
+    private Integer jobId;
+
+    /**
+     * Set up an autotest job with a stored log before each test case.
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        UserRole role = new UserRole();
+        role.setUserRoleName("Artifact student");
+        entityManager.persist(role);
+
+        student = new AppUser();
+        student.setFirstName("Jaan");
+        student.setLastName("Tamm");
+        student.setEmail("jaan.artifact@taltech.ee");
+        student.setHashedPassword("hash");
+        student.setUserRole(role);
+        entityManager.persist(student);
+
+        Course course = new Course();
+        course.setCourseName("Programming");
+        entityManager.persist(course);
+
+        Assignment assignment = new Assignment();
+        assignment.setCourse(course);
+        assignment.setTitle("EX02");
+        assignment.setMaxGrade(BigDecimal.TEN);
+        entityManager.persist(assignment);
+
+        StudentAssignment studentAssignment = new StudentAssignment();
+        studentAssignment.setStudent(student);
+        studentAssignment.setAssignment(assignment);
+        entityManager.persist(studentAssignment);
+
+        AutotestJob job = new AutotestJob();
+        job.setStudentAssignment(studentAssignment);
+        job.setStatus(AutotestJobStatus.SUCCEEDED);
+        job.setEnqueuedAt(LocalDateTime.now());
+        entityManager.persist(job);
+        jobId = job.getId();
+
+        mockMvc.perform(put("/api/v1/autotest-job/{jobId}/artifact/{name}", jobId, "stdout.txt")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(LOG))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.isCompressed", is(true)))
+                .andExpect(jsonPath("$.size", is(LOG.length())));
+    }
+
+    private String bearer(int userId) {
+        return "Bearer " + tokenService.issue(userId, "Student", List.of()).token();
+    }
+
+    /**
+     * Tests for GET /api/v1/autotest-job/{jobId}/artifact
+     */
+    @Nested
+    @DisplayName("GET /api/v1/autotest-job/{jobId}/artifact")
+    class GetArtifactsTests {
+
+        @Test
+        @DisplayName("Should list artifacts of the job")
+        void shouldListArtifacts() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/{jobId}/artifact", jobId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].name", is("stdout.txt")));
+        }
+
+        @Test
+        @DisplayName("Should list artifacts to the student who submitted")
+        void shouldListArtifactsToOwner() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/{jobId}/artifact", jobId)
+                            .header(HttpHeaders.AUTHORIZATION, bearer(student.getId())))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)));
+        }
+
+        @Test
+        @DisplayName("Should return 403 Forbidden to another student")
+        void shouldReturn403ToOtherStudent() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/{jobId}/artifact", jobId)
+                            .header(HttpHeaders.AUTHORIZATION, bearer(student.getId() + 1)))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    /**
+     * Tests for PUT /api/v1/autotest-job/{jobId}/artifact/{name}
+     */
+    @Nested
+    @DisplayName("PUT /api/v1/autotest-job/{jobId}/artifact/{name}")
+    class SaveArtifactTests {
+
+        @Test
+        @DisplayName("Should return 403 Forbidden when the caller is not a worker")
+        void shouldReturn403WhenNotWorker() throws Exception {
+            // When & Then
+            mockMvc.perform(put("/api/v1/autotest-job/{jobId}/artifact/{name}", jobId, "stdout.txt")
+                            .header(HttpHeaders.AUTHORIZATION, bearer(student.getId()))
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .content("overwritten"))
+                    .andExpect(status().isForbidden());
+
+            mockMvc.perform(get("/api/v1/autotest-job/{jobId}/artifact/{name}/content", jobId, "stdout.txt"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(LOG));
+        }
+    }
+
+    /**
+     * Tests for GET /api/v1/autotest-job/{jobId}/artifact/{name}/content
+     */
+    @Nested
+    @DisplayName("GET /api/v1/autotest-job/{jobId}/artifact/{name}/content")
+    class DownloadArtifactTests {
+
+        @Test
+        @DisplayName("Should inflate content for clients that do not accept gzip")
+        void shouldInflateContent() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/{jobId}/artifact/{name}/content", jobId, "stdout.txt"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "none"))
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                    .andExpect(content().string(LOG));
+        }
+
+        @Test
+        @DisplayName("Should serve a byte range of the gzip representation")
+        void shouldServeRange() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/{jobId}/artifact/{name}/content", jobId, "stdout.txt")
+                            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+                            .header(HttpHeaders.RANGE, "bytes=0-1"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                    .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "2"))
+                    .andExpect(content().bytes(new byte[]{(byte) 0x1f, (byte) 0x8b}));
+        }
+
+        @Test
+        @DisplayName("Should return 416 for an unsatisfiable range")
+        void shouldRejectUnsatisfiableRange() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/{jobId}/artifact/{name}/content", jobId, "stdout.txt")
+                            .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                            .header(HttpHeaders.RANGE, "bytes=100000-"))
+                    .andExpect(status().isRequestedRangeNotSatisfiable());
+        }
+
+        @Test
+        @DisplayName("Should return 404 Not Found when the artifact does not exist")
+        void shouldReturn404WhenArtifactNotFound() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/{jobId}/artifact/{name}/content", jobId, "missing.txt"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Should return 403 Forbidden to another student")
+        void shouldReturn403ToOtherStudent() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/{jobId}/artifact/{name}/content", jobId, "stdout.txt")
+                            .header(HttpHeaders.AUTHORIZATION, bearer(student.getId() + 1)))
+                    .andExpect(status().isForbidden());
+        }
+    }
+}
@@ -0,0 +1,813 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.CourseTeacher;
+import ee.taltech.testify.entity.Enrollment;
+import ee.taltech.testify.entity.GradingElement;
+import ee.taltech.testify.entity.NotificationType;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.entity.LatePenaltyPolicy;
+import ee.taltech.testify.service.LatePenaltyService;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for AssignmentController and the course membership index it relies on.
+ * <p>
+ * The index is updated after commit, so the fixtures are committed and removed after each test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+@DisplayName("AssignmentController Integration Tests")
+class AssignmentControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    @Autowired
+    private CourseMembershipIndex courseMembershipIndex;
+
+    @Autowired
+    private LatePenaltyService latePenaltyService;
+
+    private final List<Object> fixtures = new ArrayList<>();
+    private AppUser teacher;
+    private AppUser submitted;
+    private AppUser missing;
+    private Course course;
+    private Assignment assignment;
+    private StudentAssignment submission;
+    private GradingElement correctness;
+    private GradingElement lateness;
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        fixtures.add(entity);
+        return entity;
+    }
+
+    private AppUser user(String name, String role) {
+        return persist(testUsers.user(name, "Membership", name.toLowerCase() + ".membership@taltech.ee", role));
+    }
+
+    /**
+     * Set up a course with a teacher and two enrolled students, one of whom has submitted.
+     */
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            teacher = user("Tiit", "Teacher");
+            submitted = user("Mari", "Student");
+            missing = user("Juku", "Student");
+
+            course = new Course();
+            course.setCourseName("Programming");
+            persist(course);
+
+            CourseTeacher courseTeacher = new CourseTeacher();
+            courseTeacher.setCourse(course);
+            courseTeacher.setTeacher(teacher);
+            persist(courseTeacher);
+            for (AppUser student : List.of(submitted, missing)) {
+                Enrollment enrollment = new Enrollment();
+                enrollment.setCourse(course);
+                enrollment.setStudent(student);
+                persist(enrollment);
+            }
+
+            assignment = new Assignment();
+            assignment.setCourse(course);
+            assignment.setTitle("EX01");
+            assignment.setMaxGrade(BigDecimal.TEN);
+            persist(assignment);
+
+            correctness = gradingElement("Correctness", "8.00", false);
+            lateness = gradingElement("Late submission", "2.00", true);
+
+            submission = new StudentAssignment();
+            submission.setAssignment(assignment);
+            submission.setStudent(submitted);
+            submission.setSubmissionDateTime(LocalDateTime.now());
+            submission.setGrade(new BigDecimal("7.50"));
+            submission.setFeedback("Good structure, but the edge cases are missing");
+            persist(submission);
+        });
+    }
+
+    private GradingElement gradingElement(String name, String maxPoints, boolean isDeduction) {
+        GradingElement element = new GradingElement();
+        element.setAssignment(assignment);
+        element.setElementName(name);
+        element.setMaxPoints(new BigDecimal(maxPoints));
+        element.setIsDeduction(isDeduction);
+        return persist(element);
+    }
+
+    /**
+     * Remove the committed fixtures, and the grades, notifications and late penalties saved by the tests, after each
+     * test case.
+     */
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM StudentGradingElement sge "
+                            + "WHERE sge.gradingElement.assignment = :assignment")
+                    .setParameter("assignment", assignment)
+                    .executeUpdate();
+            entityManager.createQuery("DELETE FROM Notification n WHERE n.recipient = :student")
+                    .setParameter("student", submitted)
+                    .executeUpdate();
+            entityManager.createQuery("DELETE FROM LatePenaltyPolicy p WHERE p.assignmentId = :assignmentId")
+                    .setParameter("assignmentId", assignment.getId())
+                    .executeUpdate();
+            entityManager.createQuery("DELETE FROM GradingElement ge "
+                            + "WHERE ge.assignment = :assignment AND ge NOT IN :elements")
+                    .setParameter("assignment", assignment)
+                    .setParameter("elements", List.of(correctness, lateness))
+                    .executeUpdate();
+            for (int i = fixtures.size() - 1; i >= 0; i--) {
+                Object entity = fixtures.get(i);
+                entityManager.remove(entityManager.contains(entity) ? entity : entityManager.merge(entity));
+            }
+        });
+        fixtures.clear();
+    }
+
+    private List<String> notifiedGrades() {
+        return transactionTemplate.execute(status -> entityManager.createQuery("SELECT n.payload "
+                        + "FROM Notification n WHERE n.recipient = :student AND n.notificationType = :type "
+                        + "ORDER BY n.id", String.class)
+                .setParameter("student", submitted)
+                .setParameter("type", NotificationType.GRADE_PUBLISHED)
+                .getResultList());
+    }
+
+    @Nested
+    @DisplayName("Course membership index")
+    class MembershipIndexTests {
+
+        @Test
+        @DisplayName("Should pick up committed enrollments and removals")
+        void shouldFollowWrites() {
+            // Then
+            assertThat(courseMembershipIndex.isTeacher(teacher.getId(), course.getId())).isTrue();
+            assertThat(courseMembershipIndex.isEnrolled(missing.getId(), course.getId())).isTrue();
+            assertThat(courseMembershipIndex.isEnrolled(teacher.getId(), course.getId())).isFalse();
+
+            // When
+            tearDown();
+
+            // Then
+            assertThat(courseMembershipIndex.isTeacher(teacher.getId(), course.getId())).isFalse();
+            assertThat(courseMembershipIndex.isEnrolled(missing.getId(), course.getId())).isFalse();
+        }
+    }
+
+    /**
+     * Tests for GET /api/v1/assignment/{id}/missing-submission
+     */
+    @Nested
+    @DisplayName("GET /api/v1/assignment/{id}/missing-submission")
+    class MissingSubmissionTests {
+
+        @Test
+        @DisplayName("Should list enrolled students without a submission to the course teacher")
+        void shouldListMissingSubmissions() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/missing-submission")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", contains(missing.getId())));
+        }
+
+        @Test
+        @DisplayName("Should forbid students")
+        void shouldForbidStudents() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/missing-submission")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(missing, "Student")))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Should return 404 for an unknown assignment")
+        void shouldReturnNotFound() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/assignment/0/missing-submission")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    /**
+     * Tests for GET /api/v1/assignment/{id}/submission
+     */
+    @Nested
+    @DisplayName("GET /api/v1/assignment/{id}/submission")
+    class SubmissionTests {
+
+        @Test
+        @DisplayName("Should list submissions with feedback to the course teacher")
+        void shouldListSubmissions() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/submission")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].studentId", contains(submitted.getId())))
+                    .andExpect(jsonPath("$[0].assignmentId").value(assignment.getId()))
+                    .andExpect(jsonPath("$[0].grade").value(7.5))
+                    .andExpect(jsonPath("$[0].feedback").value("Good structure, but the edge cases are missing"));
+        }
+
+        @Test
+        @DisplayName("Should not load feedback unless requested")
+        void shouldReturnRequestedFields() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/submission")
+                            .param("fields", "studentId,grade")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].studentId").value(submitted.getId()))
+                    .andExpect(jsonPath("$[0].grade").value(7.5))
+                    .andExpect(jsonPath("$[0]", not(hasKey("feedback"))))
+                    .andExpect(jsonPath("$[0]", not(hasKey("submissionUrl"))));
+        }
+
+        @Test
+        @DisplayName("Should forbid students")
+        void shouldForbidStudents() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/submission")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(submitted, "Student")))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    /**
+     * Tests for PUT /api/v1/assignment/{id}/grade
+     */
+    @Nested
+    @DisplayName("PUT /api/v1/assignment/{id}/grade")
+    class GradeTests {
+
+        private String grade(GradingElement element, String points, String feedback) {
+            return """
+                    {"studentAssignmentId": %d, "gradingElementId": %d, "points": %s, "feedback": %s}"""
+                    .formatted(submission.getId(), element.getId(), points,
+                            feedback == null ? "null" : "\"" + feedback + "\"");
+        }
+
+        private String grades(String... grades) {
+            return "{\"grades\": [" + String.join(", ", grades) + "]}";
+        }
+
+        private long savedElementCount() {
+            return entityManager.createQuery("SELECT COUNT(sge) FROM StudentGradingElement sge "
+                            + "WHERE sge.studentAssignment.id = :id", Long.class)
+                    .setParameter("id", submission.getId())
+                    .getSingleResult();
+        }
+
+        @Test
+        @DisplayName("Should notify the student only when the grade changes")
+        void shouldNotifyChangedGrades() throws Exception {
+            // When
+            for (String points : List.of("8", "8", "7")) {
+                mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(grades(grade(correctness, points, null)))
+                                .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                        .andExpect(status().isOk());
+            }
+
+            // Then
+            assertThat(notifiedGrades()).satisfiesExactly(
+                    payload -> assertThat(payload).contains("\"grade\":\"8\""),
+                    payload -> assertThat(payload).contains("\"grade\":\"7\""));
+        }
+
+        @Test
+        @DisplayName("Should save the grading elements and return the recomputed grade")
+        void shouldSaveGrades() throws Exception {
+            // When & Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(grades(grade(correctness, "8", "All tests pass"),
+                                    grade(lateness, "1.5", null)))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].studentAssignmentId", contains(submission.getId())))
+                    .andExpect(jsonPath("$[0].grade").value(6.5));
+        }
+
+        @Test
+        @DisplayName("Should replace the points of grading elements that are already graded")
+        void shouldReplaceExistingGrades() throws Exception {
+            // Given
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(grades(grade(correctness, "8", null), grade(lateness, "2", null)))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk());
+
+            // When & Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(grades(grade(correctness, "5.25", "Fails on empty input")))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].grade").value(3.25));
+            assertThat(savedElementCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should reject the whole request if any points exceed the maximum")
+        void shouldRejectPointsAboveMaximum() throws Exception {
+            // When & Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(grades(grade(correctness, "8", null), grade(lateness, "2.5", null)))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isBadRequest());
+            assertThat(savedElementCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should reject a grading element graded twice")
+        void shouldRejectDuplicates() throws Exception {
+            // When & Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(grades(grade(correctness, "8", null), grade(correctness, "7", null)))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Should forbid students")
+        void shouldForbidStudents() throws Exception {
+            // When & Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(grades(grade(correctness, "8", null)))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(submitted, "Student")))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    /**
+     * Tests for GET /api/v1/assignment/{id}/statistics and GET /api/v1/course/{id}/statistics
+     */
+    @Nested
+    @DisplayName("GET /api/v1/assignment/{id}/statistics")
+    class StatisticsTests {
+
+        private void saveGrades(String correctnessPoints, String latenessPoints) throws Exception {
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {"grades": [
+                                      {"studentAssignmentId": %d, "gradingElementId": %d, "points": %s},
+                                      {"studentAssignmentId": %d, "gradingElementId": %d, "points": %s}
+                                    ]}""".formatted(submission.getId(), correctness.getId(), correctnessPoints,
+                                    submission.getId(), lateness.getId(), latenessPoints))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("Should build the statistics from the grades saved before")
+        void shouldBuildStatistics() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/statistics")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.grade.count").value(1))
+                    .andExpect(jsonPath("$.grade.mean").value(7.5))
+                    .andExpect(jsonPath("$.grade.median").value(7.5))
+                    .andExpect(jsonPath("$.grade.histogram[15].count").value(1))
+                    .andExpect(jsonPath("$.gradingElements[*].gradingElementId",
+                            contains(correctness.getId(), lateness.getId())))
+                    .andExpect(jsonPath("$.gradingElements[0].points.count").value(0));
+        }
+
+        @Test
+        @DisplayName("Should follow grades as they are saved and changed")
+        void shouldFollowGrades() throws Exception {
+            // Given
+            saveGrades("8", "1.5");
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/statistics")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(jsonPath("$.grade.mean").value(6.5));
+
+            // When
+            saveGrades("5", "0");
+
+            // Then
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/statistics")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.grade.count").value(1))
+                    .andExpect(jsonPath("$.grade.mean").value(5.0))
+                    .andExpect(jsonPath("$.grade.histogram[13].count").value(0))
+                    .andExpect(jsonPath("$.grade.histogram[10].count").value(1))
+                    .andExpect(jsonPath("$.gradingElements[0].points.mean").value(5.0))
+                    .andExpect(jsonPath("$.gradingElements[1].points.max").value(0.0));
+            mockMvc.perform(get("/api/v1/course/" + course.getId() + "/statistics")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.assignmentCount").value(1))
+                    .andExpect(jsonPath("$.gradePercent.count").value(1))
+                    .andExpect(jsonPath("$.gradePercent.median").value(50.0));
+        }
+
+        @Test
+        @DisplayName("Should forbid students")
+        void shouldForbidStudents() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/statistics")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(submitted, "Student")))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(get("/api/v1/course/" + course.getId() + "/statistics")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(submitted, "Student")))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    /**
+     * Tests for POST /api/v1/assignment/{id}/rubric
+     */
+    @Nested
+    @DisplayName("POST /api/v1/assignment/{id}/rubric")
+    class RubricTests {
+
+        private void publish(int version) throws Exception {
+            mockMvc.perform(post("/api/v1/assignment/" + assignment.getId() + "/rubric")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.version").value(version))
+                    .andExpect(jsonPath("$.gradingElementCount").value(2));
+        }
+
+        private void setMaxPoints(GradingElement element, String maxPoints) {
+            transactionTemplate.executeWithoutResult(status -> entityManager.createQuery(
+                            "UPDATE GradingElement ge SET ge.maxPoints = :maxPoints WHERE ge.id = :id")
+                    .setParameter("maxPoints", new BigDecimal(maxPoints))
+                    .setParameter("id", element.getId())
+                    .executeUpdate());
+        }
+
+        private String grade(GradingElement element, String points) {
+            return """
+                    {"grades": [{"studentAssignmentId": %d, "gradingElementId": %d, "points": %s}]}"""
+                    .formatted(submission.getId(), element.getId(), points);
+        }
+
+        @Test
+        @DisplayName("Should number the published versions of an assignment from 1")
+        void shouldPublishVersions() throws Exception {
+            // When & Then
+            publish(1);
+            publish(2);
+        }
+
+        @Test
+        @DisplayName("Should grade against the published version until another is published")
+        void shouldGradeAgainstPublishedVersion() throws Exception {
+            // Given
+            publish(1);
+            setMaxPoints(correctness, "10.00");
+
+            // When & Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(grade(correctness, "9"))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isBadRequest());
+
+            // When
+            publish(2);
+
+            // Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(grade(correctness, "9"))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].grade").value(9));
+        }
+
+        @Test
+        @DisplayName("Should subtract the deductions of the published version")
+        void shouldSubtractPublishedDeductions() throws Exception {
+            // Given
+            publish(1);
+            transactionTemplate.executeWithoutResult(status -> entityManager.createQuery(
+                            "UPDATE GradingElement ge SET ge.isDeduction = false WHERE ge.id = :id")
+                    .setParameter("id", lateness.getId())
+                    .executeUpdate());
+
+            // When & Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {"grades": [
+                                      {"studentAssignmentId": %d, "gradingElementId": %d, "points": 8},
+                                      {"studentAssignmentId": %d, "gradingElementId": %d, "points": 2}
+                                    ]}""".formatted(submission.getId(), correctness.getId(), submission.getId(),
+                                    lateness.getId()))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].grade").value(6));
+        }
+
+        @Test
+        @DisplayName("Should reject grading an element deleted after publishing")
+        void shouldRejectDeletedElement() throws Exception {
+            // Given
+            GradingElement style = transactionTemplate.execute(status -> {
+                GradingElement element = new GradingElement();
+                element.setAssignment(assignment);
+                element.setElementName("Style");
+                element.setMaxPoints(BigDecimal.ONE);
+                element.setIsDeduction(false);
+                entityManager.persist(element);
+                return element;
+            });
+            mockMvc.perform(post("/api/v1/assignment/" + assignment.getId() + "/rubric")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.gradingElementCount").value(3));
+            transactionTemplate.executeWithoutResult(status -> entityManager.createQuery(
+                            "DELETE FROM GradingElement ge WHERE ge.id = :id")
+                    .setParameter("id", style.getId())
+                    .executeUpdate());
+
+            // When & Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(grade(style, "1"))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Should forbid students")
+        void shouldForbidStudents() throws Exception {
+            // When & Then
+            mockMvc.perform(post("/api/v1/assignment/" + assignment.getId() + "/rubric")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(submitted, "Student")))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    /**
+     * Tests for GET and PUT /api/v1/assignment/{id}/late-penalty
+     */
+    @Nested
+    @DisplayName("PUT /api/v1/assignment/{id}/late-penalty")
+    class LatePenaltyTests {
+
+        private void setDue(LocalDateTime due) {
+            transactionTemplate.executeWithoutResult(status -> entityManager.createQuery(
+                            "UPDATE Assignment a SET a.dueDateTime = :due WHERE a.id = :id")
+                    .setParameter("due", due)
+                    .setParameter("id", assignment.getId())
+                    .executeUpdate());
+        }
+
+        private String policy(String type, String percent, Integer stepHours, String maxPercent) {
+            return """
+                    {"penaltyType": "%s", "percent": %s, "stepHours": %s, "maxPercent": %s}"""
+                    .formatted(type, percent, stepHours, maxPercent);
+        }
+
+        private void savePolicy(String policy, int penalized) throws Exception {
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/late-penalty")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(policy)
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.assignmentId").value(assignment.getId()))
+                    .andExpect(jsonPath("$.appliedAt").isNotEmpty())
+                    .andExpect(jsonPath("$.penalizedCount").value(penalized));
+        }
+
+        private void grade(String points, double expected) throws Exception {
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {"grades": [{"studentAssignmentId": %d, "gradingElementId": %d, "points": %s}]}"""
+                                    .formatted(submission.getId(), correctness.getId(), points))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].grade").value(expected));
+        }
+
+        private BigDecimal savedGrade() {
+            return transactionTemplate.execute(status -> entityManager.find(StudentAssignment.class,
+                    submission.getId()).getGrade());
+        }
+
+        private BigDecimal penalty() {
+            return transactionTemplate.execute(status -> entityManager.createQuery("""
+                            SELECT sge.pointsAwarded FROM StudentGradingElement sge
+                            WHERE sge.studentAssignment.id = :id AND sge.gradingElement.id = (
+                                SELECT p.gradingElementId FROM LatePenaltyPolicy p WHERE p.assignmentId = :assignmentId)
+                            """, BigDecimal.class)
+                    .setParameter("id", submission.getId())
+                    .setParameter("assignmentId", assignment.getId())
+                    .getResultStream().findFirst().orElse(null));
+        }
+
+        @Test
+        @DisplayName("Should deduct a linear penalty from graded late submissions")
+        void shouldApplyLinearPenalty() throws Exception {
+            // Given
+            setDue(submission.getSubmissionDateTime().minusDays(2));
+            grade("8", 8.0);
+
+            // When
+            savePolicy(policy("LINEAR", "10", null, "50"), 1);
+
+            // Then
+            assertThat(penalty()).isEqualByComparingTo("2.00");
+            assertThat(savedGrade()).isEqualByComparingTo("6.00");
+            assertThat(notifiedGrades()).satisfiesExactly(
+                    payload -> assertThat(payload).contains("\"grade\":\"8\""),
+                    payload -> assertThat(payload).contains("\"grade\":\"6\""));
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/statistics")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.grade.mean").value(6.0))
+                    .andExpect(jsonPath("$.gradingElements[2].points.max").value(2.0));
+        }
+
+        @Test
+        @DisplayName("Should count the started steps of a stepped penalty")
+        void shouldApplySteppedPenalty() throws Exception {
+            // Given
+            setDue(submission.getSubmissionDateTime().minusHours(25));
+            grade("8", 8.0);
+
+            // When
+            savePolicy(policy("STEPPED", "5", 24, "20"), 1);
+
+            // Then
+            assertThat(penalty()).isEqualByComparingTo("1.00");
+            assertThat(savedGrade()).isEqualByComparingTo("7.00");
+        }
+
+        @Test
+        @DisplayName("Should cap the grade of a late submission and follow later grading")
+        void shouldCapGrade() throws Exception {
+            // Given
+            setDue(submission.getSubmissionDateTime().minusMinutes(1));
+            grade("8", 8.0);
+
+            // When
+            savePolicy(policy("CAP", "50", null, null), 1);
+
+            // Then
+            assertThat(savedGrade()).isEqualByComparingTo("5.00");
+            grade("7", 5.0);
+            grade("4", 4.0);
+            assertThat(penalty()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should penalize a late submission when it is graded after the policy is saved")
+        void shouldPenalizeWhenGraded() throws Exception {
+            // Given
+            setDue(submission.getSubmissionDateTime().minusDays(1));
+            savePolicy(policy("LINEAR", "10", null, "50"), 0);
+
+            // When & Then
+            grade("8", 7.0);
+            mockMvc.perform(get("/api/v1/assignment/" + assignment.getId() + "/late-penalty")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.penaltyType").value("LINEAR"))
+                    .andExpect(jsonPath("$.penalizedCount").value(1));
+        }
+
+        @Test
+        @DisplayName("Should reapply the penalties when the deadline moves")
+        void shouldFollowDeadline() throws Exception {
+            // Given
+            setDue(submission.getSubmissionDateTime().minusDays(1));
+            grade("8", 8.0);
+            savePolicy(policy("LINEAR", "10", null, "50"), 1);
+
+            // When
+            setDue(submission.getSubmissionDateTime().plusDays(1));
+            int applied = latePenaltyService.applyDue(LocalDateTime.now());
+
+            // Then
+            assertThat(applied).isGreaterThanOrEqualTo(1);
+            assertThat(penalty()).isNull();
+            assertThat(savedGrade()).isEqualByComparingTo("8.00");
+            LatePenaltyPolicy policy = transactionTemplate.execute(status -> entityManager.find(
+                    LatePenaltyPolicy.class, assignment.getId()));
+            assertThat(policy.getAppliedDueDateTime()).isAfter(submission.getSubmissionDateTime());
+            assertThat(notifiedGrades()).last().satisfies(
+                    payload -> assertThat(payload).contains("\"grade\":\"8\""));
+        }
+
+        @Test
+        @DisplayName("Should reject grading the penalty element and incomplete policies")
+        void shouldRejectInvalidRequests() throws Exception {
+            // Given
+            setDue(submission.getSubmissionDateTime().minusDays(1));
+            savePolicy(policy("LINEAR", "10", null, "50"), 0);
+            Integer penaltyElementId = transactionTemplate.execute(status -> entityManager.find(
+                    LatePenaltyPolicy.class, assignment.getId()).getGradingElementId());
+
+            // When & Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/grade")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {"grades": [{"studentAssignmentId": %d, "gradingElementId": %d, "points": 1}]}"""
+                                    .formatted(submission.getId(), penaltyElementId))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/late-penalty")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(policy("STEPPED", "10", null, "50"))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Should forbid students")
+        void shouldForbidStudents() throws Exception {
+            // When & Then
+            mockMvc.perform(put("/api/v1/assignment/" + assignment.getId() + "/late-penalty")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(policy("CAP", "50", null, null))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(submitted, "Student")))
+                    .andExpect(status().isForbidden());
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.dto.LoginRequestDto;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.Enrollment;
+import ee.taltech.testify.entity.UserRole;
+import ee.taltech.testify.repository.UserRoleRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.URI;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for AuthController and the token authentication filter.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("AuthController Integration Tests")
+class AuthControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    private Integer courseId;
+
+    /**
+     * Set up an enrolled student before each test case.
+     */
+    @BeforeEach
+    void setUp() {
+        AppUser student = new AppUser();
+        student.setFirstName("Mari");
+        student.setLastName("Maasikas");
+        student.setEmail("mari.login@taltech.ee");
+        student.setHashedPassword(passwordEncoder.encode("correct horse"));
+        student.setUserRole(userRoleRepository.findByUserRoleName("Student").orElseThrow());
+        entityManager.persist(student);
+
+        Course course = new Course();
+        course.setCourseName("Programming");
+        entityManager.persist(course);
+        courseId = course.getId();
+
+        Enrollment enrollment = new Enrollment();
+        enrollment.setStudent(student);
+        enrollment.setCourse(course);
+        entityManager.persist(enrollment);
+        entityManager.flush();
+    }
+
+    private MvcResult login(String email, String password) throws Exception {
+        LoginRequestDto dto = new LoginRequestDto();
+        dto.setEmail(email);
+        dto.setPassword(password);
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+        return result;
+    }
+
+    private String loginToken() throws Exception {
+        MvcResult result = mockMvc.perform(asyncDispatch(login("mari.login@taltech.ee", "correct horse")))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("accessToken").asText();
+    }
+
+    /**
+     * Tests for POST /api/v1/auth/login
+     */
+    @Nested
+    @DisplayName("POST /api/v1/auth/login")
+    class LoginTests {
+
+        @Test
+        @DisplayName("Should issue a token carrying the role and course memberships")
+        void shouldIssueToken() throws Exception {
+            // When & Then
+            mockMvc.perform(asyncDispatch(login("mari.login@taltech.ee", "correct horse")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.accessToken", notNullValue()))
+                    .andExpect(jsonPath("$.tokenType", is("Bearer")))
+                    .andExpect(jsonPath("$.role", is("Student")))
+                    .andExpect(jsonPath("$.courseIds", contains(courseId)));
+        }
+
+        @Test
+        @DisplayName("Should reject a wrong password")
+        void shouldRejectWrongPassword() throws Exception {
+            // When & Then
+            mockMvc.perform(asyncDispatch(login("mari.login@taltech.ee", "wrong")))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(jsonPath("$.message", is("Invalid email or password")));
+        }
+
+        @Test
+        @DisplayName("Should reject an unknown email the same way as a wrong password")
+        void shouldRejectUnknownEmail() throws Exception {
+            // When & Then
+            mockMvc.perform(asyncDispatch(login("nobody@taltech.ee", "correct horse")))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(jsonPath("$.message", is("Invalid email or password")));
+        }
+    }
+
+    /**
+     * Tests for the token authentication filter
+     */
+    @Nested
+    @DisplayName("Token authentication")
+    class TokenAuthenticationTests {
+
+        @Test
+        @DisplayName("Should reject API requests without a token")
+        void shouldRejectMissingToken() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/1"))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer"))
+                    .andExpect(jsonPath("$.message", is("Missing bearer token")));
+        }
+
+        @Test
+        @DisplayName("Should reject a forged token")
+        void shouldRejectForgedToken() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/1")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer bWFyaQ.Zm9yZ2Vk"))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(jsonPath("$.message", is("Invalid token signature")));
+        }
+
+        @Test
+        @DisplayName("Should let an authenticated student through to the API")
+        void shouldAcceptValidToken() throws Exception {
+            // Given
+            String token = loginToken();
+
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/0")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Should forbid admin endpoints to non-admins")
+        void shouldForbidAdminEndpoints() throws Exception {
+            // Given
+            String token = loginToken();
+
+            // When & Then
+            mockMvc.perform(get("/api/v1/admin/user-role")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Should forbid admin endpoints reached through path parameters or encoded paths")
+        void shouldForbidAdminEndpointsWithPathParameters() throws Exception {
+            // Given
+            String token = loginToken();
+
+            // When & Then
+            mockMvc.perform(get("/api/v1/admin;x/user-role")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(get(URI.create("/api/v1/%61dmin/user-role"))
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Should reject a token after logout")
+        void shouldRejectTokenAfterLogout() throws Exception {
+            // Given
+            String token = loginToken();
+
+            // When
+            mockMvc.perform(post("/api/v1/auth/logout")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isNoContent());
+
+            // Then
+            mockMvc.perform(get("/api/v1/autotest-job/0")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(jsonPath("$.message", is("Token has been revoked")));
+        }
+    }
+}
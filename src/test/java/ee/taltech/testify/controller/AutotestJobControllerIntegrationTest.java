@@ -0,0 +1,865 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.config.auth.AdminTokenConfiguration;
+import ee.taltech.testify.dto.AutotestJobRequestDto;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.entity.AutotestWorker;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.GradingElement;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.entity.StudentGradingElement;
+import ee.taltech.testify.entity.TestScoring;
+import ee.taltech.testify.entity.UserRole;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.auth.TokenService;
+import ee.taltech.testify.service.logstream.RunLogBroadcaster;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for AutotestJobController.
+ */
+@SpringBootTest
+@Import(AdminTokenConfiguration.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("AutotestJobController Integration Tests")
+class AutotestJobControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RunLogBroadcaster runLogBroadcaster;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private StudentAssignment studentAssignment;
+
+    /**
+     * Set up a student with a submission before each test case.
+     */
+    @BeforeEach
+    void setUp() {
+        UserRole role = new UserRole();
+        role.setUserRoleName("Autotest student");
+        entityManager.persist(role);
+
+        AppUser student = new AppUser();
+        student.setFirstName("Mari");
+        student.setLastName("Maasikas");
+        student.setEmail("mari.autotest@taltech.ee");
+        student.setHashedPassword("hash");
+        student.setUserRole(role);
+        entityManager.persist(student);
+
+        Course course = new Course();
+        course.setCourseName("Programming");
+        entityManager.persist(course);
+
+        Assignment assignment = new Assignment();
+        assignment.setCourse(course);
+        assignment.setTitle("EX01");
+        assignment.setMaxGrade(BigDecimal.TEN);
+        entityManager.persist(assignment);
+
+        studentAssignment = new StudentAssignment();
+        studentAssignment.setStudent(student);
+        studentAssignment.setAssignment(assignment);
+        entityManager.persist(studentAssignment);
+    }
+
+    private String requestBody(Integer studentAssignmentId) throws Exception {
+        AutotestJobRequestDto dto = new AutotestJobRequestDto();
+        dto.setStudentAssignmentId(studentAssignmentId);
+        return objectMapper.writeValueAsString(dto);
+    }
+
+    /**
+     * Tests for POST /api/v1/autotest-job
+     */
+    @Nested
+    @DisplayName("POST /api/v1/autotest-job")
+    class EnqueueAutotestJobTests {
+
+        @Test
+        @DisplayName("Should queue a job for an existing student assignment without notifying the student")
+        void shouldQueueJob() throws Exception {
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(requestBody(studentAssignment.getId())))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id", notNullValue()))
+                    .andExpect(jsonPath("$.studentAssignmentId", is(studentAssignment.getId())))
+                    .andExpect(jsonPath("$.status", is("QUEUED")));
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_outbox WHERE recipient_id = ?",
+                    Integer.class, studentAssignment.getStudent().getId())).isZero();
+        }
+
+        @Test
+        @DisplayName("Should return 429 with Retry-After when the student exceeds the limit")
+        void shouldRejectFlood() throws Exception {
+            // Given
+            for (int i = 0; i < 5; i++) {
+                mockMvc.perform(post("/api/v1/autotest-job")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(requestBody(studentAssignment.getId())))
+                        .andExpect(status().isCreated());
+            }
+
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(requestBody(studentAssignment.getId())))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().exists("Retry-After"))
+                    .andExpect(jsonPath("$.status", is(429)));
+        }
+
+        @Test
+        @DisplayName("Should return 404 Not Found when the student assignment does not exist")
+        void shouldReturn404WhenStudentAssignmentNotFound() throws Exception {
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(requestBody(999)))
+                    .andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.message", containsString("No student assignment with id: 999")));
+        }
+    }
+
+    /**
+     * Tests for GET /api/v1/admin/autotest-queue
+     */
+    @Nested
+    @DisplayName("GET /api/v1/admin/autotest-queue")
+    class GetQueueTests {
+
+        @Test
+        @DisplayName("Should describe the scheduler queue")
+        void shouldReturnQueue() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/admin/autotest-queue"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.queued", notNullValue()))
+                    .andExpect(jsonPath("$.courses", notNullValue()));
+        }
+
+        @Test
+        @DisplayName("Should list the registered workers")
+        void shouldReturnWorkers() throws Exception {
+            // Given
+            AutotestWorker worker = new AutotestWorker();
+            worker.setId("worker-1");
+            worker.setHostName("host-1");
+            worker.setCapacity(4);
+            worker.setRunning(1);
+            worker.setStartedAt(LocalDateTime.now());
+            worker.setHeartbeatAt(LocalDateTime.now());
+            entityManager.persist(worker);
+
+            // When & Then
+            mockMvc.perform(get("/api/v1/admin/autotest-queue/workers"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].workerId").value("worker-1"))
+                    .andExpect(jsonPath("$[0].capacity").value(4))
+                    .andExpect(jsonPath("$[0].running").value(1))
+                    .andExpect(jsonPath("$[0].draining").value(false));
+        }
+    }
+
+    /**
+     * Tests for the live log of an autotest job
+     */
+    @Nested
+    @DisplayName("GET /api/v1/autotest-job/{id}/log/stream")
+    class StreamLogTests {
+
+        private Integer enqueue() throws Exception {
+            String response = mockMvc.perform(post("/api/v1/autotest-job")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(requestBody(studentAssignment.getId())))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            return objectMapper.readTree(response).get("id").asInt();
+        }
+
+        @Test
+        @DisplayName("Should replay the output from the start to a subscriber joining after the run finished")
+        void shouldReplayLogToLateSubscriber() throws Exception {
+            // Given
+            Integer jobId = enqueue();
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/log", jobId)
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .content("Compiling...\n"))
+                    .andExpect(status().isAccepted());
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/log", jobId)
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .content("Tests run: 3"))
+                    .andExpect(status().isAccepted());
+            runLogBroadcaster.finish(jobId, "SUCCEEDED");
+
+            // When
+            MvcResult result = mockMvc.perform(get("/api/v1/autotest-job/{id}/log/stream", jobId))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+            // Then
+            String body = result.getResponse().getContentAsString();
+            assertThat(body).contains("event:log", "data:Compiling...", "data:Tests run: 3", "event:end",
+                    "data:SUCCEEDED");
+        }
+
+        @Test
+        @DisplayName("Should return 404 Not Found when the job does not exist")
+        void shouldReturn404WhenJobNotFound() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/{id}/log/stream", 999))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Should return 403 Forbidden to another student")
+        void shouldReturn403ToOtherStudent() throws Exception {
+            // Given
+            Integer jobId = enqueue();
+            String token = tokenService.issue(studentAssignment.getStudent().getId() + 1, "Student", List.of())
+                    .token();
+
+            // When & Then
+            mockMvc.perform(get("/api/v1/autotest-job/{id}/log/stream", jobId)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    /**
+     * Tests for POST /api/v1/autotest-job/{id}/finish
+     */
+    @Nested
+    @DisplayName("POST /api/v1/autotest-job/{id}/finish")
+    class FinishTests {
+
+        private AutotestJob job(AutotestJobStatus status, String workerId) {
+            AutotestJob job = new AutotestJob();
+            job.setStudentAssignment(studentAssignment);
+            job.setStatus(status);
+            job.setEnqueuedAt(LocalDateTime.now());
+            job.setWorkerId(workerId);
+            entityManager.persist(job);
+            return job;
+        }
+
+        private ResultActions finish(AutotestJob job, String body) throws Exception {
+            return mockMvc.perform(post("/api/v1/autotest-job/{id}/finish", job.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body));
+        }
+
+        @Test
+        @DisplayName("Should finish a running job for the worker holding its lease")
+        void shouldFinishRunningJob() throws Exception {
+            // Given
+            AutotestJob job = job(AutotestJobStatus.RUNNING, "worker-1");
+
+            // When & Then
+            finish(job, "{\"status\": \"SUCCEEDED\", \"workerId\": \"worker-1\"}")
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status", is("SUCCEEDED")))
+                    .andExpect(jsonPath("$.finishedAt", notNullValue()));
+        }
+
+        @Test
+        @DisplayName("Should return 409 Conflict and keep the cancellation of a superseded job")
+        void shouldKeepCancellation() throws Exception {
+            // Given
+            AutotestJob job = job(AutotestJobStatus.CANCELLED, null);
+
+            // When & Then
+            finish(job, "{\"status\": \"SUCCEEDED\"}")
+                    .andExpect(status().isConflict());
+            entityManager.refresh(job);
+            assertThat(job.getStatus()).isEqualTo(AutotestJobStatus.CANCELLED);
+        }
+
+        @Test
+        @DisplayName("Should return 409 Conflict when the job is leased to another worker")
+        void shouldRejectOtherWorker() throws Exception {
+            // Given
+            AutotestJob job = job(AutotestJobStatus.RUNNING, "worker-1");
+
+            // When & Then
+            finish(job, "{\"status\": \"FAILED\", \"workerId\": \"worker-2\"}")
+                    .andExpect(status().isConflict());
+            entityManager.refresh(job);
+            assertThat(job.getStatus()).isEqualTo(AutotestJobStatus.RUNNING);
+        }
+    }
+
+    /**
+     * Tests for POST /api/v1/autotest-job/{id}/report
+     */
+    @Nested
+    @DisplayName("POST /api/v1/autotest-job/{id}/report")
+    class ReportTests {
+        private static final String JUNIT_REPORT = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <testsuite name="ee.taltech.StackTest" tests="4">
+                  <testcase classname="ee.taltech.StackTest" name="push"/>
+                  <testcase classname="ee.taltech.StackTest" name="pop"><failure message="empty"/></testcase>
+                  <testcase classname="ee.taltech.StackTest" name="peek"/>
+                  <testcase classname="ee.taltech.StyleTest" name="checkstyle"><failure/></testcase>
+                </testsuite>
+                """;
+
+        private AutotestJob job;
+        private GradingElement tests;
+        private GradingElement style;
+
+        @BeforeEach
+        void setUpJob() {
+            job = new AutotestJob();
+            job.setStudentAssignment(studentAssignment);
+            job.setStatus(AutotestJobStatus.RUNNING);
+            job.setEnqueuedAt(LocalDateTime.now());
+            entityManager.persist(job);
+
+            tests = gradingElement("Tests", "6.00", false, "ee\\.taltech\\.StackTest");
+            style = gradingElement("Style", "1.00", true, ".*StyleTest#.*");
+            gradingElement("Code review", "4.00", false, null);
+        }
+
+        private GradingElement gradingElement(String name, String maxPoints, boolean isDeduction, String pattern) {
+            GradingElement element = new GradingElement();
+            element.setAssignment(studentAssignment.getAssignment());
+            element.setElementName(name);
+            element.setMaxPoints(new BigDecimal(maxPoints));
+            element.setIsDeduction(isDeduction);
+            element.setTestPattern(pattern);
+            element.setTestScoring(TestScoring.PROPORTIONAL);
+            entityManager.persist(element);
+            return element;
+        }
+
+        @Test
+        @DisplayName("Should grade the elements with a test pattern from a JUnit XML report")
+        void shouldIngestJUnitReport() throws Exception {
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/report", job.getId())
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(JUNIT_REPORT))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.tests", is(4)))
+                    .andExpect(jsonPath("$.passed", is(2)))
+                    .andExpect(jsonPath("$.failed", is(2)))
+                    .andExpect(jsonPath("$.grade", is(3.0)))
+                    .andExpect(jsonPath("$.gradingElements[0].gradingElementId", is(tests.getId())))
+                    .andExpect(jsonPath("$.gradingElements[0].points", is(4.0)))
+                    .andExpect(jsonPath("$.gradingElements[1].gradingElementId", is(style.getId())))
+                    .andExpect(jsonPath("$.gradingElements[1].points", is(1.0)));
+
+            List<StudentGradingElement> saved = entityManager.createQuery(
+                            "SELECT sge FROM StudentGradingElement sge WHERE sge.studentAssignment.id = :id "
+                                    + "ORDER BY sge.gradingElement.id", StudentGradingElement.class)
+                    .setParameter("id", studentAssignment.getId())
+                    .getResultList();
+            assertThat(saved).extracting(StudentGradingElement::getFeedback).containsExactly(
+                    "2/3 tests passed; failed: ee.taltech.StackTest#pop",
+                    "0/1 tests passed; failed: ee.taltech.StyleTest#checkstyle");
+        }
+
+        @Test
+        @DisplayName("Should grade from a TAP report")
+        void shouldIngestTapReport() throws Exception {
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/report", job.getId())
+                            .contentType("text/x-tap")
+                            .content("1..2\nok 1 - ee.taltech.StackTest push\nnot ok 2 - pop\n"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.tests", is(2)))
+                    .andExpect(jsonPath("$.gradingElements[0].tests", is(0)))
+                    .andExpect(jsonPath("$.grade", is(0.0)));
+        }
+
+        @Test
+        @DisplayName("Should return 400 Bad Request for a malformed report")
+        void shouldRejectMalformedReport() throws Exception {
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/report", job.getId())
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content("<testsuite><testcase>"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = AutotestJobStatus.class, names = {"QUEUED", "SUCCEEDED", "FAILED", "CANCELLED"})
+        @DisplayName("Should return 409 Conflict without grading when the job is not running")
+        void shouldRejectReportOfJobNotRunning(AutotestJobStatus jobStatus) throws Exception {
+            // Given
+            job.setStatus(jobStatus);
+            entityManager.flush();
+
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/report", job.getId())
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(JUNIT_REPORT))
+                    .andExpect(status().isConflict());
+            assertThat(entityManager.createQuery(
+                            "SELECT sge FROM StudentGradingElement sge WHERE sge.studentAssignment.id = :id",
+                            StudentGradingElement.class)
+                    .setParameter("id", studentAssignment.getId())
+                    .getResultList()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should return 404 Not Found when the job does not exist")
+        void shouldReturnNotFound() throws Exception {
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/report", 999)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(JUNIT_REPORT))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Should return 403 Forbidden when a student reports results")
+        void shouldRejectStudentReport() throws Exception {
+            // Given
+            String token = tokenService.issue(studentAssignment.getStudent().getId(), "Student", List.of()).token();
+
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/report", job.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(JUNIT_REPORT))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/finish", job.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"status\": \"SUCCEEDED\"}"))
+                    .andExpect(status().isForbidden());
+            assertThat(entityManager.createQuery(
+                            "SELECT sge FROM StudentGradingElement sge WHERE sge.studentAssignment.id = :id",
+                            StudentGradingElement.class)
+                    .setParameter("id", studentAssignment.getId())
+                    .getResultList()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should accept a report from a worker")
+        void shouldAcceptWorkerReport() throws Exception {
+            // Given
+            String token = tokenService.issue(0, AuthenticatedUser.WORKER_ROLE, List.of()).token();
+
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/report", job.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(JUNIT_REPORT))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    /**
+     * Tests for /api/v1/autotest-job/{id}/shards
+     */
+    @Nested
+    @DisplayName("/api/v1/autotest-job/{id}/shards")
+    class ShardTests {
+        private GradingElement tests;
+
+        @BeforeEach
+        void setUpGradingElement() {
+            tests = new GradingElement();
+            tests.setAssignment(studentAssignment.getAssignment());
+            tests.setElementName("Tests");
+            tests.setMaxPoints(new BigDecimal("8.00"));
+            tests.setIsDeduction(false);
+            tests.setTestPattern("ee\\.taltech\\..*");
+            tests.setTestScoring(TestScoring.PROPORTIONAL);
+            entityManager.persist(tests);
+        }
+
+        private AutotestJob job() {
+            AutotestJob job = new AutotestJob();
+            job.setStudentAssignment(studentAssignment);
+            job.setStatus(AutotestJobStatus.RUNNING);
+            job.setEnqueuedAt(LocalDateTime.now());
+            entityManager.persist(job);
+            return job;
+        }
+
+        private static String report(String... testCases) {
+            return "<testsuite>" + String.join("", testCases) + "</testsuite>";
+        }
+
+        private static String testCase(String className, String name, String time, boolean passed) {
+            return "<testcase classname=\"" + className + "\" name=\"" + name + "\" time=\"" + time + "\">"
+                    + (passed ? "" : "<failure/>") + "</testcase>";
+        }
+
+        @Test
+        @DisplayName("Should run the whole suite in one shard when no durations are recorded")
+        void shouldPlanSingleShardWithoutDurations() throws Exception {
+            // Given
+            AutotestJob job = job();
+
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards", job.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.shards.length()", is(1)))
+                    .andExpect(jsonPath("$.shards[0].tests.length()", is(0)))
+                    .andExpect(jsonPath("$.shards[0].excludedTests.length()", is(0)));
+        }
+
+        @Test
+        @DisplayName("Should split by recorded durations and merge the reports, keeping the lowest shard's result")
+        void shouldSplitAndMergeShards() throws Exception {
+            // Given
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/report", job().getId())
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(report(
+                                    testCase("ee.taltech.StackTest", "push", "20", true),
+                                    testCase("ee.taltech.StackTest", "pop", "15", true),
+                                    testCase("ee.taltech.StackTest", "peek", "5", true),
+                                    testCase("ee.taltech.StyleTest", "checkstyle", "5", true))))
+                    .andExpect(status().isOk());
+            AutotestJob job = job();
+
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards", job.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.predictedMillis", is(25000)))
+                    .andExpect(jsonPath("$.shards.length()", is(2)))
+                    .andExpect(jsonPath("$.shards[0].tests",
+                            is(List.of("ee.taltech.StackTest#push", "ee.taltech.StyleTest#checkstyle"))))
+                    .andExpect(jsonPath("$.shards[0].excludedTests",
+                            is(List.of("ee.taltech.StackTest#peek", "ee.taltech.StackTest#pop"))))
+                    .andExpect(jsonPath("$.shards[1].tests",
+                            is(List.of("ee.taltech.StackTest#peek", "ee.taltech.StackTest#pop"))));
+
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards/{index}/report", job.getId(), 1)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(report(
+                                    testCase("ee.taltech.StackTest", "pop", "14", false),
+                                    testCase("ee.taltech.StackTest", "peek", "6", true))))
+                    .andExpect(status().isAccepted());
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards/{index}/report", job.getId(), 0)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(report(
+                                    testCase("ee.taltech.StyleTest", "checkstyle", "4", true),
+                                    testCase("ee.taltech.StackTest", "push", "21", true),
+                                    testCase("ee.taltech.StackTest", "pop", "1", true))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.tests", is(4)))
+                    .andExpect(jsonPath("$.passed", is(4)))
+                    .andExpect(jsonPath("$.grade", is(8.0)));
+
+            mockMvc.perform(get("/api/v1/autotest-job/{id}/shards", job.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.testMillis", is(46000)))
+                    .andExpect(jsonPath("$.shards[0].reportedTests", is(3)))
+                    .andExpect(jsonPath("$.shards[1].testMillis", is(20000)));
+        }
+
+        @Test
+        @DisplayName("Should return 409 Conflict when a shard reports twice")
+        void shouldRejectSecondReport() throws Exception {
+            // Given
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/report", job().getId())
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(report(
+                                    testCase("ee.taltech.StackTest", "push", "30", true),
+                                    testCase("ee.taltech.StackTest", "pop", "30", true))))
+                    .andExpect(status().isOk());
+            AutotestJob job = job();
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards", job.getId()))
+                    .andExpect(jsonPath("$.shards.length()", is(2)));
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards/{index}/report", job.getId(), 1)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(report(testCase("ee.taltech.StackTest", "pop", "30", true))))
+                    .andExpect(status().isAccepted());
+
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards/{index}/report", job.getId(), 1)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(report(testCase("ee.taltech.StackTest", "pop", "30", true))))
+                    .andExpect(status().isConflict());
+        }
+
+        @Test
+        @DisplayName("Should return 409 Conflict while another report of the shard is being received")
+        void shouldRejectConcurrentReport() throws Exception {
+            // Given
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/report", job().getId())
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(report(
+                                    testCase("ee.taltech.StackTest", "push", "30", true),
+                                    testCase("ee.taltech.StackTest", "pop", "30", true))))
+                    .andExpect(status().isOk());
+            AutotestJob job = job();
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards", job.getId()))
+                    .andExpect(jsonPath("$.shards.length()", is(2)));
+            jdbcTemplate.update("UPDATE autotest_shard SET report_claim = 'other', report_claimed_at = ? "
+                    + "WHERE autotest_job_id = ? AND shard_index = 1", LocalDateTime.now(), job.getId());
+
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards/{index}/report", job.getId(), 1)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(report(testCase("ee.taltech.StackTest", "pop", "30", true))))
+                    .andExpect(status().isConflict());
+
+            jdbcTemplate.update("UPDATE autotest_shard SET report_claimed_at = ? "
+                    + "WHERE autotest_job_id = ? AND shard_index = 1", LocalDateTime.now().minusHours(1), job.getId());
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards/{index}/report", job.getId(), 1)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .content(report(testCase("ee.taltech.StackTest", "pop", "30", true))))
+                    .andExpect(status().isAccepted());
+        }
+
+        @Test
+        @DisplayName("Should return 404 Not Found for a shard the job does not have")
+        void shouldReturnNotFoundForUnknownShard() throws Exception {
+            // Given
+            AutotestJob job = job();
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards", job.getId()));
+
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards/{index}/report", job.getId(), 3)
+                            .contentType("text/x-tap")
+                            .content("ok 1 - push\n"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Should return 403 Forbidden when a student plans or views the shards")
+        void shouldRejectStudent() throws Exception {
+            // Given
+            AutotestJob job = job();
+            String token = tokenService.issue(studentAssignment.getStudent().getId(), "Student", List.of()).token();
+
+            // When & Then
+            mockMvc.perform(post("/api/v1/autotest-job/{id}/shards", job.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(get("/api/v1/autotest-job/{id}/shards", job.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isForbidden());
+            assertThat(entityManager.createQuery("SELECT COUNT(s) FROM AutotestShard s WHERE s.autotestJob.id = :id",
+                            Long.class)
+                    .setParameter("id", job.getId())
+                    .getSingleResult()).isZero();
+        }
+    }
+
+    /**
+     * Tests for PUT /api/v1/autotest-job/{id}/source and GET /api/v1/assignment/{id}/similarity
+     */
+    @Nested
+    @DisplayName("Source code similarity")
+    class SimilarityTests {
+        private static final String SOLUTION = """
+                def solve(grid):
+                    # Count the islands with a flood fill
+                    seen = set()
+                    count = 0
+                    for row in range(len(grid)):
+                        for col in range(len(grid[row])):
+                            if grid[row][col] == "#" and (row, col) not in seen:
+                                count += 1
+                                stack = [(row, col)]
+                                while stack:
+                                    r, c = stack.pop()
+                                    if (r, c) in seen or grid[r][c] != "#":
+                                        continue
+                                    seen.add((r, c))
+                                    for dr, dc in ((1, 0), (-1, 0), (0, 1), (0, -1)):
+                                        if 0 <= r + dr < len(grid) and 0 <= c + dc < len(grid[r]):
+                                            stack.append((r + dr, c + dc))
+                    return count
+                """;
+
+        private static final String OTHER_SOLUTION = """
+                import sys
+
+                def read_grid():
+                    return [line.rstrip("\\n") for line in sys.stdin]
+
+                class Islands:
+                    def __init__(self, grid):
+                        self.grid = grid
+                        self.height = len(grid)
+
+                    def neighbours(self, y, x):
+                        return [(y + 1, x), (y - 1, x), (y, x + 1), (y, x - 1)]
+
+                    def count(self):
+                        parent = {}
+                        def find(a):
+                            while parent[a] != a:
+                                parent[a] = parent[parent[a]]
+                                a = parent[a]
+                            return a
+                        return len({find(cell) for cell in parent})
+                """;
+
+        private AutotestJob job(StudentAssignment submission) {
+            AutotestJob job = new AutotestJob();
+            job.setStudentAssignment(submission);
+            job.setStatus(AutotestJobStatus.RUNNING);
+            job.setEnqueuedAt(LocalDateTime.now());
+            entityManager.persist(job);
+            return job;
+        }
+
+        private StudentAssignment submission(String firstName) {
+            AppUser student = new AppUser();
+            student.setFirstName(firstName);
+            student.setLastName("Similarity");
+            student.setEmail(firstName.toLowerCase() + ".similarity@taltech.ee");
+            student.setHashedPassword("hash");
+            student.setUserRole(studentAssignment.getStudent().getUserRole());
+            entityManager.persist(student);
+
+            StudentAssignment submission = new StudentAssignment();
+            submission.setStudent(student);
+            submission.setAssignment(studentAssignment.getAssignment());
+            entityManager.persist(submission);
+            return submission;
+        }
+
+        private ResultActions upload(AutotestJob job, String source) throws Exception {
+            return mockMvc.perform(put("/api/v1/autotest-job/{id}/source", job.getId())
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .content(source));
+        }
+
+        @Test
+        @DisplayName("Should find a renamed copy and cluster it with the original")
+        void shouldClusterRenamedCopy() throws Exception {
+            // Given
+            StudentAssignment copy = submission("Juku");
+            StudentAssignment other = submission("Kati");
+            upload(job(studentAssignment), SOLUTION).andExpect(status().isOk());
+            upload(job(other), OTHER_SOLUTION)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.similarPairs.length()", is(0)));
+
+            // When
+            upload(job(copy), SOLUTION.replace("grid", "board").replace("seen", "visited")
+                    .replace("# Count the islands with a flood fill", "# my own solution"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.studentAssignmentId", is(copy.getId())))
+                    .andExpect(jsonPath("$.similarPairs.length()", is(1)))
+                    .andExpect(jsonPath("$.similarPairs[0].similarity", is(1.0)));
+
+            // Then
+            mockMvc.perform(get("/api/v1/assignment/{id}/similarity", studentAssignment.getAssignment().getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()", is(1)))
+                    .andExpect(jsonPath("$[0].maxSimilarity", is(1.0)))
+                    .andExpect(jsonPath("$[0].studentAssignmentIds.length()", is(2)))
+                    .andExpect(jsonPath("$[0].studentAssignmentIds[0]", is(studentAssignment.getId())))
+                    .andExpect(jsonPath("$[0].studentAssignmentIds[1]", is(copy.getId())));
+        }
+
+        @Test
+        @DisplayName("Should forget a similar pair when the copy is resubmitted as original work")
+        void shouldUpdateOnResubmission() throws Exception {
+            // Given
+            StudentAssignment copy = submission("Juku");
+            upload(job(studentAssignment), SOLUTION);
+            upload(job(copy), SOLUTION).andExpect(jsonPath("$.similarPairs.length()", is(1)));
+
+            // When
+            upload(job(copy), OTHER_SOLUTION)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.similarPairs.length()", is(0)));
+
+            // Then
+            mockMvc.perform(get("/api/v1/assignment/{id}/similarity", studentAssignment.getAssignment().getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()", is(0)));
+        }
+
+        @Test
+        @DisplayName("Should return 404 Not Found when the autotest job does not exist")
+        void shouldReturn404WhenJobNotFound() throws Exception {
+            // When & Then
+            mockMvc.perform(put("/api/v1/autotest-job/{id}/source", 999999)
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .content(SOLUTION))
+                    .andExpect(status().isNotFound());
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.CourseTeacher;
+import ee.taltech.testify.entity.Enrollment;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for CourseController.
+ * <p>
+ * Access checks and the enrollment count come from the course membership index, which is updated after commit, so
+ * the fixtures are committed and removed after each test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+@DisplayName("CourseController Integration Tests")
+class CourseControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    private final List<Object> fixtures = new ArrayList<>();
+    private AppUser teacher;
+    private AppUser student;
+    private Course course;
+    private Assignment sorting;
+    private Assignment graphs;
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        fixtures.add(entity);
+        return entity;
+    }
+
+    private AppUser user(String name, String role) {
+        return persist(testUsers.user(name, "Dashboard", name.toLowerCase() + ".dashboard@taltech.ee", role));
+    }
+
+    private Assignment assignment(String title) {
+        Assignment assignment = new Assignment();
+        assignment.setCourse(course);
+        assignment.setTitle(title);
+        assignment.setDescription("Implement " + title.toLowerCase() + " and analyse its complexity");
+        assignment.setMaxGrade(BigDecimal.TEN);
+        return persist(assignment);
+    }
+
+    private StudentAssignment submission(Assignment assignment, AppUser student, BigDecimal grade) {
+        StudentAssignment submission = new StudentAssignment();
+        submission.setAssignment(assignment);
+        submission.setStudent(student);
+        submission.setSubmissionDateTime(LocalDateTime.now());
+        submission.setGrade(grade);
+        return persist(submission);
+    }
+
+    private void autotestJob(StudentAssignment submission, AutotestJobStatus status) {
+        AutotestJob job = new AutotestJob();
+        job.setStudentAssignment(submission);
+        job.setStatus(status);
+        job.setEnqueuedAt(LocalDateTime.now());
+        persist(job);
+    }
+
+    /**
+     * Set up a course with two enrolled students, two graded and one ungraded submission of one assignment, and an
+     * assignment nobody has submitted.
+     */
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            teacher = user("Tiit", "Teacher");
+            student = user("Mari", "Student");
+            AppUser otherStudent = user("Jaan", "Student");
+            AppUser lateStudent = user("Kati", "Student");
+
+            course = new Course();
+            course.setCourseName("Algorithms");
+            course.setDescription("Design and analysis of algorithms");
+            persist(course);
+            CourseTeacher courseTeacher = new CourseTeacher();
+            courseTeacher.setCourse(course);
+            courseTeacher.setTeacher(teacher);
+            persist(courseTeacher);
+            for (AppUser enrolled : List.of(student, otherStudent)) {
+                Enrollment enrollment = new Enrollment();
+                enrollment.setCourse(course);
+                enrollment.setStudent(enrolled);
+                persist(enrollment);
+            }
+
+            sorting = assignment("Sorting");
+            graphs = assignment("Graphs");
+            StudentAssignment first = submission(sorting, student, new BigDecimal("9"));
+            submission(sorting, otherStudent, new BigDecimal("6"));
+            StudentAssignment ungraded = submission(sorting, lateStudent, null);
+            autotestJob(first, AutotestJobStatus.SUCCEEDED);
+            autotestJob(ungraded, AutotestJobStatus.QUEUED);
+        });
+    }
+
+    /**
+     * Remove the committed fixtures after each test case.
+     */
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = fixtures.size() - 1; i >= 0; i--) {
+                Object entity = fixtures.get(i);
+                entityManager.remove(entityManager.contains(entity) ? entity : entityManager.merge(entity));
+            }
+        });
+        fixtures.clear();
+    }
+
+    /**
+     * Tests for GET /api/v1/course/{id}/dashboard
+     */
+    @Nested
+    @DisplayName("GET /api/v1/course/{id}/dashboard")
+    class GetDashboardTests {
+
+        @Test
+        @DisplayName("Should return the combined dashboard to a teacher of the course")
+        void shouldReturnDashboard() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/course/{id}/dashboard", course.getId())
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.courseId").value(course.getId()))
+                    .andExpect(jsonPath("$.enrollmentCount").value(2))
+                    .andExpect(jsonPath("$.assignments", hasSize(2)))
+                    .andExpect(jsonPath("$.assignments[0].assignmentId").value(sorting.getId()))
+                    .andExpect(jsonPath("$.assignments[0].submissionCount").value(3))
+                    .andExpect(jsonPath("$.assignments[0].gradedCount").value(2))
+                    .andExpect(jsonPath("$.assignments[0].averageGrade").value(7.5))
+                    .andExpect(jsonPath("$.assignments[1].title").value("Graphs"))
+                    .andExpect(jsonPath("$.assignments[1].submissionCount").value(0))
+                    .andExpect(jsonPath("$.assignments[1].averageGrade").value(nullValue()))
+                    .andExpect(jsonPath("$.averageGrade").value(7.5))
+                    .andExpect(jsonPath("$.ungradedCount").value(1))
+                    .andExpect(jsonPath("$.autotestJobs.SUCCEEDED").value(1))
+                    .andExpect(jsonPath("$.autotestJobs.QUEUED").value(1))
+                    .andExpect(jsonPath("$.autotestJobs.FAILED").value(0))
+                    .andExpect(jsonPath("$.unavailable", empty()));
+        }
+
+        @Test
+        @DisplayName("Should return 403 to a student of the course")
+        void shouldRejectStudent() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/course/{id}/dashboard", course.getId())
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(student, "Student")))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Should return 404 when the course does not exist")
+        void shouldReturnNotFound() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/course/{id}/dashboard", 999_999)
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    /**
+     * Tests for GET /api/v1/course
+     */
+    @Nested
+    @DisplayName("GET /api/v1/course")
+    class GetCoursesTests {
+
+        @Test
+        @DisplayName("Should return only the courses of the caller")
+        void shouldReturnCallersCourses() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/course")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(student, "Student")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].id").value(course.getId()))
+                    .andExpect(jsonPath("$[0].courseName").value("Algorithms"))
+                    .andExpect(jsonPath("$[0].description").value("Design and analysis of algorithms"))
+                    .andExpect(jsonPath("$[0].term").value(AcademicTerm.current().code()));
+        }
+
+        @Test
+        @DisplayName("Should leave out fields that were not requested")
+        void shouldReturnRequestedFields() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/course").param("fields", "courseName")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(course.getId()))
+                    .andExpect(jsonPath("$[0].courseName").value("Algorithms"))
+                    .andExpect(jsonPath("$[0]", not(hasKey("description"))));
+        }
+    }
+
+    /**
+     * Tests for GET /api/v1/course/{id}/assignment
+     */
+    @Nested
+    @DisplayName("GET /api/v1/course/{id}/assignment")
+    class GetAssignmentsTests {
+
+        @Test
+        @DisplayName("Should return every field by default")
+        void shouldReturnAllFields() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/course/{id}/assignment", course.getId())
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(student, "Student")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].id", contains(sorting.getId(), graphs.getId())))
+                    .andExpect(jsonPath("$[0].courseId").value(course.getId()))
+                    .andExpect(jsonPath("$[0].description").value("Implement sorting and analyse its complexity"))
+                    .andExpect(jsonPath("$[0].maxGrade").value(10))
+                    .andExpect(jsonPath("$[0].isAutotested").value(false))
+                    .andExpect(jsonPath("$[0]", hasKey("autotesterId")))
+                    .andExpect(jsonPath("$[0].autotesterId").value(nullValue()));
+        }
+
+        @Test
+        @DisplayName("Should return only the id and the requested fields")
+        void shouldReturnRequestedFields() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/course/{id}/assignment", course.getId()).param("fields", "title, dueDateTime")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].title", contains("Sorting", "Graphs")))
+                    .andExpect(jsonPath("$[0]", hasKey("dueDateTime")))
+                    .andExpect(jsonPath("$[0]", not(hasKey("description"))))
+                    .andExpect(jsonPath("$[0]", not(hasKey("courseId"))));
+        }
+
+        @Test
+        @DisplayName("Should return 400 for an unknown field")
+        void shouldRejectUnknownField() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/course/{id}/assignment", course.getId()).param("fields", "title,course")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Should return 403 to a user outside the course")
+        void shouldRejectNonMember() throws Exception {
+            // Given
+            AppUser outsider = transactionTemplate.execute(status -> user("Peeter", "Student"));
+
+            // When & Then
+            mockMvc.perform(get("/api/v1/course/{id}/assignment", course.getId())
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(outsider, "Student")))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    /**
+     * Tests for PUT /api/v1/admin/course/{id}/term
+     */
+    @Nested
+    @DisplayName("PUT /api/v1/admin/course/{id}/term")
+    class SetTermTests {
+
+        private String term(int term) {
+            return "{\"term\": " + term + "}";
+        }
+
+        @Test
+        @DisplayName("Should move a course without submissions to another term")
+        void shouldSetTerm() throws Exception {
+            // Given
+            Course empty = transactionTemplate.execute(status -> {
+                Course created = new Course();
+                created.setCourseName("Compilers");
+                return persist(created);
+            });
+            int next = AcademicTerm.current().next().code();
+
+            // When & Then
+            mockMvc.perform(put("/api/v1/admin/course/{id}/term", empty.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(term(next))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Admin")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(empty.getId()))
+                    .andExpect(jsonPath("$.term").value(next));
+        }
+
+        @Test
+        @DisplayName("Should return 409 when the course has submissions in another term")
+        void shouldRejectCourseWithSubmissions() throws Exception {
+            // When & Then
+            mockMvc.perform(put("/api/v1/admin/course/{id}/term", course.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(term(AcademicTerm.current().next().code()))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Admin")))
+                    .andExpect(status().isConflict());
+        }
+
+        @Test
+        @DisplayName("Should return 400 for an invalid term code")
+        void shouldRejectInvalidTerm() throws Exception {
+            // When & Then
+            mockMvc.perform(put("/api/v1/admin/course/{id}/term", course.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(term(20243))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Admin")))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Should return 403 to a teacher")
+        void shouldRejectTeacher() throws Exception {
+            // When & Then
+            mockMvc.perform(put("/api/v1/admin/course/{id}/term", course.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(term(AcademicTerm.current().code()))
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isForbidden());
+        }
+    }
+}
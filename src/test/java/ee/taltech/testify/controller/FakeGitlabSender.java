@@ -0,0 +1,98 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Sends webhook events to the GitLab webhook endpoint the way GitLab does, with the event type, secret token and
+ * delivery UUID headers and a push event body in GitLab's format.
+ */
+class FakeGitlabSender {
+    static final String PUSH_EVENT = "Push Hook";
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final String token;
+
+    FakeGitlabSender(MockMvc mockMvc, ObjectMapper objectMapper, String token) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.token = token;
+    }
+
+    /**
+     * Pushes one commit to the default branch of the repository.
+     *
+     * @param webUrl the web URL of the repository
+     * @param sha the commit the branch now points to
+     * @param modified the files the commit changes
+     */
+    ResultActions push(String webUrl, String sha, String... modified) throws Exception {
+        return send(PUSH_EVENT, token, pushEvent(webUrl, "refs/heads/main", sha, List.of(modified)));
+    }
+
+    ResultActions send(String event, String token, Map<String, Object> body) throws Exception {
+        return mockMvc.perform(post("/api/v1/webhook/gitlab")
+                .header("X-Gitlab-Event", event)
+                .header("X-Gitlab-Token", token)
+                .header("X-Gitlab-Event-UUID", UUID.randomUUID().toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)));
+    }
+
+    static Map<String, Object> pushEvent(String webUrl, String ref, String sha, List<String> modified) {
+        Map<String, Object> commit = new LinkedHashMap<>();
+        commit.put("id", sha);
+        commit.put("message", "Solve exercise\n");
+        commit.put("url", webUrl + "/-/commit/" + sha);
+        commit.put("added", List.of());
+        commit.put("modified", modified);
+        commit.put("removed", List.of());
+
+        Map<String, Object> project = new LinkedHashMap<>();
+        project.put("name", webUrl.substring(webUrl.lastIndexOf('/') + 1));
+        project.put("web_url", webUrl);
+        project.put("default_branch", "main");
+
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("object_kind", "push");
+        event.put("event_name", "push");
+        event.put("before", "0".repeat(40));
+        event.put("after", sha);
+        event.put("ref", ref);
+        event.put("user_username", "student");
+        event.put("project", project);
+        event.put("commits", new ArrayList<>(List.of(commit)));
+        event.put("total_commits_count", 1);
+        return event;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.config.auth.AdminTokenConfiguration;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.entity.Autotester;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.UserRole;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.membership.MembershipType;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import ee.taltech.testify.service.webhook.PendingPushDispatcher;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for GitlabWebhookController, driven by a fake GitLab sending push events.
+ */
+@SpringBootTest
+@Import(AdminTokenConfiguration.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("GitlabWebhookController Integration Tests")
+class GitlabWebhookControllerIntegrationTest {
+    private static final String TOKEN = "test-webhook-secret";
+    private static final String REPOSITORY = "https://gitlab.cs.ttu.ee/mamaas/iti0102-2024";
+    private static final String SOLUTION = "EX01/solution.py";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CourseMembershipIndex courseMembershipIndex;
+
+    @Autowired
+    private PendingPushDispatcher pendingPushDispatcher;
+
+    private FakeGitlabSender gitlab;
+    private AppUser student;
+    private Course course;
+
+    /**
+     * Set up an autotested assignment and a student enrolled in its course before each test case.
+     */
+    @BeforeEach
+    void setUp() {
+        gitlab = new FakeGitlabSender(mockMvc, objectMapper, TOKEN);
+
+        UserRole role = new UserRole();
+        role.setUserRoleName("Webhook student");
+        entityManager.persist(role);
+
+        student = new AppUser();
+        student.setFirstName("Mari");
+        student.setLastName("Maasikas");
+        student.setUniId("mamaas");
+        student.setEmail("mari.webhook@taltech.ee");
+        student.setHashedPassword("hash");
+        student.setUserRole(role);
+        entityManager.persist(student);
+
+        course = new Course();
+        course.setCourseName("Programming");
+        entityManager.persist(course);
+        autotestedAssignment(course);
+
+        courseMembershipIndex.add(MembershipType.STUDENT, course.getId(), student.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        courseMembershipIndex.remove(MembershipType.STUDENT, course.getId(), student.getId());
+    }
+
+    private Assignment autotestedAssignment(Course owner) {
+        entityManager.flush();
+        jdbcTemplate.update("INSERT INTO autotester (course_id, name, student_gitlab_url, tests_gitlab_url, "
+                + "student_code_path, test_code_path, docker_image_url) VALUES (?, 'Python', "
+                + "'https://gitlab.cs.ttu.ee/{uniId}/iti0102-2024.git', "
+                + "'https://gitlab.cs.ttu.ee/iti0102-2024/tests.git', "
+                + "'EX01', 'ex01', 'registry.cs.ttu.ee/python-tester')", owner.getId());
+        Autotester autotester = entityManager.find(Autotester.class, jdbcTemplate.queryForObject(
+                "SELECT autotester_id FROM autotester WHERE course_id = ?", Integer.class, owner.getId()));
+
+        Assignment assignment = new Assignment();
+        assignment.setCourse(owner);
+        assignment.setTitle("EX01");
+        assignment.setMaxGrade(BigDecimal.TEN);
+        assignment.setIsAutotested(true);
+        assignment.setAutotester(autotester);
+        entityManager.persist(assignment);
+        entityManager.flush();
+        return assignment;
+    }
+
+    private static String sha(int i) {
+        return String.format("%040x", i);
+    }
+
+    private List<AutotestJob> jobs() {
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.createQuery("SELECT j FROM AutotestJob j WHERE j.studentAssignment.student.id = :id "
+                        + "ORDER BY j.id", AutotestJob.class)
+                .setParameter("id", student.getId())
+                .getResultList();
+    }
+
+    private Map<String, Object> pendingPush() {
+        entityManager.flush();
+        return jdbcTemplate.queryForMap("SELECT pp.commit_sha, pp.pushes FROM pending_push pp "
+                + "JOIN student_assignment sa ON sa.student_assignment_id = pp.student_assignment_id "
+                + "WHERE sa.student_id = ?", student.getId());
+    }
+
+    private int receivedNotificationCount() {
+        entityManager.flush();
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_outbox WHERE recipient_id = ? "
+                + "AND notification_type = 'SUBMISSION_RECEIVED'", Integer.class, student.getId());
+    }
+
+    private int pendingPushCount() {
+        entityManager.flush();
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pending_push", Integer.class);
+    }
+
+    /**
+     * Tests for POST /api/v1/webhook/gitlab
+     */
+    @Nested
+    @DisplayName("POST /api/v1/webhook/gitlab")
+    class ReceiveGitlabEventTests {
+
+        @Test
+        @DisplayName("Should return 401 Unauthorized when the token is wrong")
+        void shouldRejectWrongToken() throws Exception {
+            // When & Then
+            gitlab.send(FakeGitlabSender.PUSH_EVENT, "wrong-secret",
+                            FakeGitlabSender.pushEvent(REPOSITORY, "refs/heads/main", sha(1), List.of(SOLUTION)))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        @Test
+        @DisplayName("Should queue one run of the latest commit for a burst of pushes")
+        void shouldDebounceBurst() throws Exception {
+            // Given
+            for (int i = 1; i <= 5; i++) {
+                gitlab.push(REPOSITORY, sha(i), SOLUTION).andExpect(status().isAccepted());
+            }
+            assertThat(pendingPush()).containsEntry("COMMIT_SHA", sha(5)).containsEntry("PUSHES", 5);
+            assertThat(pendingPushDispatcher.dispatch(LocalDateTime.now())).isZero();
+
+            // When
+            int queued = pendingPushDispatcher.dispatch(LocalDateTime.now().plusMinutes(5));
+
+            // Then
+            assertThat(queued).isEqualTo(1);
+            List<AutotestJob> jobs = jobs();
+            assertThat(jobs).hasSize(1);
+            assertThat(jobs.get(0).getStatus()).isEqualTo(AutotestJobStatus.QUEUED);
+            assertThat(jobs.get(0).getCommitSha()).isEqualTo(sha(5));
+            assertThat(jobs.get(0).getStudentAssignment().getSubmissionUrl())
+                    .isEqualTo(REPOSITORY + "/-/commit/" + sha(5));
+            assertThat(pendingPushCount()).isZero();
+            assertThat(receivedNotificationCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not notify the student again when the same push is delivered again")
+        void shouldNotNotifyRedeliveredPush() throws Exception {
+            // Given
+            gitlab.push(REPOSITORY, sha(1), SOLUTION).andExpect(status().isAccepted());
+            pendingPushDispatcher.dispatch(LocalDateTime.now().plusMinutes(5));
+            assertThat(jobs()).hasSize(1);
+
+            // When
+            gitlab.push(REPOSITORY, sha(1), SOLUTION).andExpect(status().isAccepted());
+            pendingPushDispatcher.dispatch(LocalDateTime.now().plusMinutes(5));
+
+            // Then
+            assertThat(jobs()).hasSize(2);
+            assertThat(receivedNotificationCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should cancel the run of a superseded commit and reject its log")
+        void shouldCancelSupersededRun() throws Exception {
+            // Given
+            gitlab.push(REPOSITORY, sha(1), SOLUTION).andExpect(status().isAccepted());
+            pendingPushDispatcher.dispatch(LocalDateTime.now().plusMinutes(5));
+            AutotestJob running = jobs().get(0);
+            jdbcTemplate.update("UPDATE autotest_job SET status = 'RUNNING', started_at = CURRENT_TIMESTAMP "
+                    + "WHERE autotest_job_id = ?", running.getId());
+
+            // When
+            gitlab.push(REPOSITORY, sha(2), SOLUTION).andExpect(status().isAccepted());
+
+            // Then
+            AutotestJob cancelled = jobs().get(0);
+            assertThat(cancelled.getStatus()).isEqualTo(AutotestJobStatus.CANCELLED);
+            assertThat(cancelled.getFinishedAt()).isNotNull();
+            mockMvc.perform(post("/api/v1/autotest-job/" + running.getId() + "/log")
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .content("collecting tests\n"))
+                    .andExpect(status().isConflict());
+        }
+
+        @Test
+        @DisplayName("Should not create submissions in courses of past terms")
+        void shouldIgnorePastTerms() throws Exception {
+            // Given
+            Course pastCourse = new Course();
+            pastCourse.setCourseName("Programming");
+            pastCourse.setTerm(AcademicTerm.current().previous().code());
+            entityManager.persist(pastCourse);
+            Assignment pastAssignment = autotestedAssignment(pastCourse);
+            courseMembershipIndex.add(MembershipType.STUDENT, pastCourse.getId(), student.getId());
+
+            try {
+                // When
+                gitlab.push(REPOSITORY, sha(1), SOLUTION).andExpect(status().isAccepted());
+
+                // Then
+                assertThat(pendingPushCount()).isEqualTo(1);
+                assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_assignment "
+                        + "WHERE assignment_id = ?", Integer.class, pastAssignment.getId())).isZero();
+            } finally {
+                courseMembershipIndex.remove(MembershipType.STUDENT, pastCourse.getId(), student.getId());
+            }
+        }
+
+        @Test
+        @DisplayName("Should ignore a push that does not change the assignment")
+        void shouldIgnoreOtherPaths() throws Exception {
+            // When
+            gitlab.push(REPOSITORY, sha(1), "EX02/solution.py", "README.md").andExpect(status().isAccepted());
+
+            // Then
+            assertThat(pendingPushCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should ignore pushes to other branches and other events")
+        void shouldIgnoreOtherEvents() throws Exception {
+            // When
+            gitlab.send(FakeGitlabSender.PUSH_EVENT, TOKEN,
+                            FakeGitlabSender.pushEvent(REPOSITORY, "refs/heads/feature", sha(1), List.of(SOLUTION)))
+                    .andExpect(status().isAccepted());
+            gitlab.send("Tag Push Hook", TOKEN,
+                            FakeGitlabSender.pushEvent(REPOSITORY, "refs/tags/v1", sha(2), List.of(SOLUTION)))
+                    .andExpect(status().isAccepted());
+
+            // Then
+            assertThat(pendingPushCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should ignore a push without the web URL of its project")
+        void shouldIgnorePushWithoutWebUrl() throws Exception {
+            // Given
+            Map<String, Object> event = FakeGitlabSender.pushEvent(REPOSITORY, "refs/heads/main", sha(1),
+                    List.of(SOLUTION));
+            event.put("project", Map.of("name", "iti0102-2024", "default_branch", "main"));
+
+            // When
+            gitlab.send(FakeGitlabSender.PUSH_EVENT, TOKEN, event).andExpect(status().isAccepted());
+
+            // Then
+            assertThat(pendingPushCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.CourseTeacher;
+import ee.taltech.testify.entity.StudentAssignment;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for SearchController. The test database is H2, so these run against the LIKE fallback.
+ * <p>
+ * Search scope comes from the course membership index, which is updated after commit, so the fixtures are
+ * committed and removed after each test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+@DisplayName("SearchController Integration Tests")
+class SearchControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    private final List<Object> fixtures = new ArrayList<>();
+    private AppUser teacher;
+    private AppUser student;
+    private Course course;
+    private Course otherCourse;
+    private Assignment titleMatch;
+    private Assignment descriptionMatch;
+    private StudentAssignment feedback;
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        fixtures.add(entity);
+        return entity;
+    }
+
+    private AppUser user(String name, String role) {
+        return persist(testUsers.user(name, "Search", name.toLowerCase() + ".search@taltech.ee", role));
+    }
+
+    private Course course(String name, String description, AppUser teacher) {
+        Course course = new Course();
+        course.setCourseName(name);
+        course.setDescription(description);
+        persist(course);
+        CourseTeacher courseTeacher = new CourseTeacher();
+        courseTeacher.setCourse(course);
+        courseTeacher.setTeacher(teacher);
+        persist(courseTeacher);
+        return course;
+    }
+
+    private Assignment assignment(Course course, String title, String description) {
+        Assignment assignment = new Assignment();
+        assignment.setCourse(course);
+        assignment.setTitle(title);
+        assignment.setDescription(description);
+        assignment.setMaxGrade(BigDecimal.TEN);
+        return persist(assignment);
+    }
+
+    /**
+     * Set up a course with records matching "dijkstra" in its name, description and feedback, and a course taught
+     * by someone else that matches as well.
+     */
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            teacher = user("Tiit", "Teacher");
+            student = user("Mari", "Student");
+            AppUser otherTeacher = user("Toomas", "Teacher");
+
+            course = course("Algorithms", "Shortest paths with <b>Dijkstra</b> and Bellman-Ford", teacher);
+            otherCourse = course("Networks", "Routing with Dijkstra", otherTeacher);
+
+            titleMatch = assignment(course, "Dijkstra", "Implement Dijkstra with a binary heap");
+            descriptionMatch = assignment(course, "Graphs", "Compare BFS and Dijkstra on unweighted graphs");
+
+            feedback = new StudentAssignment();
+            feedback.setAssignment(descriptionMatch);
+            feedback.setStudent(student);
+            feedback.setGrade(BigDecimal.ONE);
+            feedback.setFeedback("Your DIJKSTRA relaxes edges twice");
+            persist(feedback);
+        });
+    }
+
+    /**
+     * Remove the committed fixtures after each test case.
+     */
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = fixtures.size() - 1; i >= 0; i--) {
+                Object entity = fixtures.get(i);
+                entityManager.remove(entityManager.contains(entity) ? entity : entityManager.merge(entity));
+            }
+        });
+        fixtures.clear();
+    }
+
+    /**
+     * Tests for GET /api/v1/search
+     */
+    @Nested
+    @DisplayName("GET /api/v1/search")
+    class SearchTests {
+
+        @Test
+        @DisplayName("Should rank title matches first and only search the teacher's courses")
+        void shouldRankAndScopeResults() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/search").param("q", "dijkstra")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.results[*].id", contains(titleMatch.getId(), descriptionMatch.getId(),
+                            course.getId(), feedback.getId())))
+                    .andExpect(jsonPath("$.results[*].type", contains("ASSIGNMENT", "ASSIGNMENT", "COURSE",
+                            "FEEDBACK")))
+                    .andExpect(jsonPath("$.results[3].title").value("Graphs"))
+                    .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+        }
+
+        @Test
+        @DisplayName("Should mark matches and escape the surrounding text")
+        void shouldHighlightMatches() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/search").param("q", "dijkstra").param("type", "COURSE")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.results", hasSize(1)))
+                    .andExpect(jsonPath("$.results[0].headline")
+                            .value("Shortest paths with &lt;b&gt;<mark>Dijkstra</mark>&lt;/b&gt; and Bellman-Ford"));
+        }
+
+        @Test
+        @DisplayName("Should page through results with the cursor")
+        void shouldPageWithCursor() throws Exception {
+            // Given
+            String first = mockMvc.perform(get("/api/v1/search").param("q", "dijkstra").param("limit", "3")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.results", hasSize(3)))
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(first);
+
+            // When & Then
+            mockMvc.perform(get("/api/v1/search").param("q", "dijkstra").param("limit", "3")
+                            .param("cursor", page.get("nextCursor").asText())
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.results[*].id", contains(feedback.getId())))
+                    .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+        }
+
+        @Test
+        @DisplayName("Should require every term to match")
+        void shouldMatchAllTerms() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/search").param("q", "dijkstra heap")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.results[*].id", contains(titleMatch.getId())));
+        }
+
+        @Test
+        @DisplayName("Should let admins search all courses")
+        void shouldSearchAllCoursesForAdmin() throws Exception {
+            // Given
+            AppUser admin = new AppUser();
+            admin.setId(0);
+
+            // When
+            String body = mockMvc.perform(get("/api/v1/search").param("q", "dijkstra").param("type", "COURSE")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(admin, "Admin")))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            // Then
+            List<Integer> ids = new ArrayList<>();
+            objectMapper.readTree(body).get("results").forEach(result -> ids.add(result.get("id").asInt()));
+            assertThat(ids).contains(course.getId(), otherCourse.getId());
+        }
+
+        @Test
+        @DisplayName("Should forbid users who teach no courses")
+        void shouldForbidStudents() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/search").param("q", "dijkstra")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(student, "Student")))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Should reject a blank query and a malformed cursor")
+        void shouldRejectInvalidInput() throws Exception {
+            // When & Then
+            mockMvc.perform(get("/api/v1/search").param("q", " ")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/search").param("q", "dijkstra").param("cursor", "not-a-cursor")
+                            .header(HttpHeaders.AUTHORIZATION, testUsers.bearer(teacher, "Teacher")))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.controller;
+
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.repository.UserRoleRepository;
+import ee.taltech.testify.service.auth.TokenService;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.List;
+
+/**
+ * Builds users and their bearer tokens for integration tests that check who may call an endpoint. Import it with
+ * {@code @Import(TestUsers.class)}.
+ */
+@TestComponent
+class TestUsers {
+    private final UserRoleRepository userRoleRepository;
+    private final TokenService tokenService;
+
+    TestUsers(UserRoleRepository userRoleRepository, TokenService tokenService) {
+        this.userRoleRepository = userRoleRepository;
+        this.tokenService = tokenService;
+    }
+
+    /**
+     * Builds a user that is not saved yet.
+     *
+     * @param firstName the first name of the user
+     * @param lastName the last name of the user
+     * @param email the email of the user
+     * @param role the name of the role of the user
+     */
+    AppUser user(String firstName, String lastName, String email, String role) {
+        AppUser user = new AppUser();
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail(email);
+        user.setHashedPassword("hash");
+        user.setUserRole(userRoleRepository.findByUserRoleName(role).orElseThrow());
+        return user;
+    }
+
+    /**
+     * Returns the Authorization header value of a token issued to the user with the role.
+     */
+    String bearer(AppUser user, String role) {
+        return "Bearer " + tokenService.issue(user.getId(), role, List.of()).token();
+    }
+}
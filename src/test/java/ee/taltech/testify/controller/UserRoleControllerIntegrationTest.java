@@ -1,6 +1,7 @@
 package ee.taltech.testify.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.config.auth.AdminTokenConfiguration;
 import ee.taltech.testify.dto.UserRoleRequestDto;
 import ee.taltech.testify.entity.UserRole;
 import ee.taltech.testify.repository.UserRoleRepository;
@@ -11,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -27,6 +29,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Integration tests for UserRoleController.
  */
 @SpringBootTest
+@Import(AdminTokenConfiguration.class)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 @DisplayName("UserRoleController Integration Tests")
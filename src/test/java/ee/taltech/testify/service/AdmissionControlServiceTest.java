@@ -0,0 +1,177 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.exception.RateLimitExceededException;
+import ee.taltech.testify.service.ratelimit.InMemoryRateLimitStore;
+import ee.taltech.testify.service.ratelimit.PostgresRateLimitStore;
+import ee.taltech.testify.service.ratelimit.RateLimitScope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AdmissionControlServiceTest {
+
+    @Mock
+    private ConfigurationService configurationService;
+
+    @Mock
+    private InMemoryRateLimitStore inMemoryRateLimitStore;
+
+    @Mock
+    private PostgresRateLimitStore postgresRateLimitStore;
+
+    private AdmissionControlService admissionControlService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(configurationService.getString(anyString(), anyString())).thenAnswer(i -> i.getArgument(1));
+        when(configurationService.getInt(anyString(), anyInt())).thenAnswer(i -> i.getArgument(1));
+        admissionControlService = new AdmissionControlService(configurationService, inMemoryRateLimitStore,
+                postgresRateLimitStore);
+    }
+
+    @Test
+    @DisplayName("Should admit when both buckets have tokens")
+    void shouldAdmitWhenBothBucketsHaveTokens() {
+        // Given
+        when(inMemoryRateLimitStore.tryAcquire(any(), anyInt(), any())).thenReturn(0L);
+
+        // When / Then
+        assertThatCode(() -> admissionControlService.admit(1, 2)).doesNotThrowAnyException();
+        verify(inMemoryRateLimitStore).tryAcquire(eq(RateLimitScope.STUDENT), eq(1), any());
+        verify(inMemoryRateLimitStore).tryAcquire(eq(RateLimitScope.COURSE), eq(2), any());
+    }
+
+    @Test
+    @DisplayName("Should reject with rounded up Retry-After when the student bucket is empty")
+    void shouldRejectWhenStudentBucketIsEmpty() {
+        // Given
+        when(inMemoryRateLimitStore.tryAcquire(eq(RateLimitScope.STUDENT), eq(1), any()))
+                .thenReturn(TimeUnit.MILLISECONDS.toNanos(1500));
+
+        // When / Then
+        assertThatThrownBy(() -> admissionControlService.admit(1, 2))
+                .isInstanceOf(RateLimitExceededException.class)
+                .hasMessageContaining("user with id: 1")
+                .extracting("retryAfterSeconds").isEqualTo(2L);
+        verify(inMemoryRateLimitStore, never()).tryAcquire(eq(RateLimitScope.COURSE), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject when the course bucket is empty")
+    void shouldRejectWhenCourseBucketIsEmpty() {
+        // Given
+        when(inMemoryRateLimitStore.tryAcquire(eq(RateLimitScope.STUDENT), anyInt(), any())).thenReturn(0L);
+        when(inMemoryRateLimitStore.tryAcquire(eq(RateLimitScope.COURSE), anyInt(), any())).thenReturn(1L);
+
+        // When / Then
+        assertThatThrownBy(() -> admissionControlService.admit(1, 2))
+                .isInstanceOf(RateLimitExceededException.class)
+                .hasMessageContaining("course with id: 2")
+                .extracting("retryAfterSeconds").isEqualTo(1L);
+        verify(inMemoryRateLimitStore).release(eq(RateLimitScope.STUDENT), eq(1), any());
+    }
+
+    @Test
+    @DisplayName("Should put both tokens back when the admitting transaction rolls back")
+    void shouldReleaseTokensOnRollback() {
+        // Given
+        when(inMemoryRateLimitStore.tryAcquire(any(), anyInt(), any())).thenReturn(0L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            admissionControlService.admit(1, 2);
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        verify(inMemoryRateLimitStore).release(eq(RateLimitScope.STUDENT), eq(1), any());
+        verify(inMemoryRateLimitStore).release(eq(RateLimitScope.COURSE), eq(2), any());
+    }
+
+    @Test
+    @DisplayName("Should keep the tokens when the admitting transaction commits")
+    void shouldKeepTokensOnCommit() {
+        // Given
+        when(inMemoryRateLimitStore.tryAcquire(any(), anyInt(), any())).thenReturn(0L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            admissionControlService.admit(1, 2);
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        verify(inMemoryRateLimitStore, never()).release(any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should fail as a server error without taking tokens when a limit is misconfigured")
+    void shouldFailOnInvalidConfiguration() {
+        // Given
+        when(configurationService.getInt(eq(AdmissionControlService.COURSE_CAPACITY), anyInt())).thenReturn(0);
+
+        // When / Then
+        assertThatThrownBy(() -> admissionControlService.admit(1, 2))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(AdmissionControlService.COURSE_CAPACITY);
+        verify(inMemoryRateLimitStore, never()).tryAcquire(any(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should use the shared store when configured")
+    void shouldUsePostgresStoreWhenConfigured() {
+        // Given
+        when(configurationService.getString(eq(AdmissionControlService.MODE), anyString())).thenReturn("postgres");
+
+        // When
+        admissionControlService.admit(1, 2);
+
+        // Then
+        verify(postgresRateLimitStore).tryAcquire(eq(RateLimitScope.STUDENT), eq(1), any());
+        verify(inMemoryRateLimitStore, never()).tryAcquire(any(), anyInt(), any());
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.CourseDashboardDto;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.exception.AccessDeniedException;
+import ee.taltech.testify.exception.CourseNotFoundException;
+import ee.taltech.testify.repository.CourseRepository;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.dashboard.AssignmentAverageGrade;
+import ee.taltech.testify.service.dashboard.AssignmentSubmissionCount;
+import ee.taltech.testify.service.dashboard.CourseDashboardQueries;
+import ee.taltech.testify.service.dashboard.DashboardSection;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import ee.taltech.testify.service.membership.MembershipType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CourseDashboardServiceTest {
+    private static final int COURSE_ID = 7;
+    private static final int TEACHER_ID = 3;
+    private static final int TIMEOUT_MS = 200;
+    private static final int TERM = 20242;
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private CourseDashboardQueries courseDashboardQueries;
+
+    @Mock
+    private CourseMembershipIndex courseMembershipIndex;
+
+    @Mock
+    private ConfigurationService configurationService;
+
+    private CourseDashboardService courseDashboardService;
+
+    private final AuthenticatedUser teacher = new AuthenticatedUser(TEACHER_ID, AuthenticatedUser.TEACHER_ROLE,
+            List.of(COURSE_ID), "token", 0, Long.MAX_VALUE);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(courseRepository.findTermById(COURSE_ID)).thenReturn(Optional.of(TERM));
+        when(courseMembershipIndex.isTeacher(TEACHER_ID, COURSE_ID)).thenReturn(true);
+        when(courseMembershipIndex.getMembers(MembershipType.STUDENT, COURSE_ID))
+                .thenReturn(RoaringBitmap.bitmapOf(1, 2, 4));
+        when(configurationService.getInt(eq(CourseDashboardService.QUERY_TIMEOUT), anyInt())).thenReturn(TIMEOUT_MS);
+
+        when(courseDashboardQueries.getSubmissionCounts(eq(COURSE_ID), eq(TERM), any())).thenReturn(List.of(
+                new AssignmentSubmissionCount(10, "Sorting", 3),
+                new AssignmentSubmissionCount(11, "Graphs", 0)));
+        when(courseDashboardQueries.getAverageGrades(eq(COURSE_ID), eq(TERM), any())).thenReturn(List.of(
+                new AssignmentAverageGrade(10, new BigDecimal("8.5"), 2)));
+        when(courseDashboardQueries.getUngradedCount(eq(COURSE_ID), eq(TERM), any())).thenReturn(1L);
+        when(courseDashboardQueries.getAutotestJobCounts(eq(COURSE_ID), eq(TERM), any()))
+                .thenReturn(Map.of(AutotestJobStatus.SUCCEEDED, 2L));
+
+        courseDashboardService = new CourseDashboardService(courseRepository, courseDashboardQueries,
+                courseMembershipIndex, configurationService);
+    }
+
+    @Test
+    @DisplayName("Should combine all sections of the dashboard")
+    void shouldCombineAllSections() {
+        // When
+        CourseDashboardDto dashboard = courseDashboardService.getDashboard(COURSE_ID, teacher);
+
+        // Then
+        assertThat(dashboard.getEnrollmentCount()).isEqualTo(3);
+        assertThat(dashboard.getAssignments()).hasSize(2);
+        assertThat(dashboard.getAssignments().get(0).getTitle()).isEqualTo("Sorting");
+        assertThat(dashboard.getAssignments().get(0).getSubmissionCount()).isEqualTo(3);
+        assertThat(dashboard.getAssignments().get(0).getAverageGrade()).isEqualByComparingTo("8.50");
+        assertThat(dashboard.getAssignments().get(1).getAverageGrade()).isNull();
+        assertThat(dashboard.getAverageGrade()).isEqualByComparingTo("8.50");
+        assertThat(dashboard.getUngradedCount()).isEqualTo(1);
+        assertThat(dashboard.getAutotestJobs()).containsEntry(AutotestJobStatus.SUCCEEDED, 2L);
+        assertThat(dashboard.getUnavailable()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should leave out sections that time out or fail and return the rest")
+    void shouldDegradeToPartialResult() {
+        // Given
+        when(courseDashboardQueries.getAverageGrades(eq(COURSE_ID), eq(TERM), any())).thenAnswer(invocation -> {
+            Thread.sleep(Duration.ofSeconds(10));
+            return List.of();
+        });
+        when(courseDashboardQueries.getAutotestJobCounts(eq(COURSE_ID), eq(TERM), any()))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        // When
+        long start = System.nanoTime();
+        CourseDashboardDto dashboard = courseDashboardService.getDashboard(COURSE_ID, teacher);
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // Then
+        assertThat(elapsed).isLessThan(2_000);
+        assertThat(dashboard.getUnavailable()).containsExactly(DashboardSection.GRADES, DashboardSection.AUTOTESTS);
+        assertThat(dashboard.getAssignments()).extracting("submissionCount").containsExactly(3L, 0L);
+        assertThat(dashboard.getAssignments()).extracting("averageGrade").containsOnlyNulls();
+        assertThat(dashboard.getAverageGrade()).isNull();
+        assertThat(dashboard.getAutotestJobs()).isNull();
+        assertThat(dashboard.getUngradedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not wait for a timed out section that ignores interrupts")
+    void shouldNotWaitForUninterruptibleSection() {
+        // Given
+        when(courseDashboardQueries.getAverageGrades(eq(COURSE_ID), eq(TERM), any())).thenAnswer(invocation -> {
+            long end = System.nanoTime() + Duration.ofSeconds(3).toNanos();
+            while (System.nanoTime() < end) {
+                // Swallows the interrupt, like a driver blocked in a socket read
+                Thread.interrupted();
+                LockSupport.parkNanos(end - System.nanoTime());
+            }
+            return List.of();
+        });
+
+        // When
+        long start = System.nanoTime();
+        CourseDashboardDto dashboard = courseDashboardService.getDashboard(COURSE_ID, teacher);
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // Then
+        assertThat(elapsed).isLessThan(2_000);
+        assertThat(dashboard.getUnavailable()).containsExactly(DashboardSection.GRADES);
+    }
+
+    @Test
+    @DisplayName("Should give every query the time left until the deadline")
+    void shouldTimeOutQueriesAtDeadline() {
+        // Given
+        ArgumentCaptor<Duration> timeout = ArgumentCaptor.forClass(Duration.class);
+
+        // When
+        courseDashboardService.getDashboard(COURSE_ID, teacher);
+
+        // Then
+        verify(courseDashboardQueries).getUngradedCount(eq(COURSE_ID), eq(TERM), timeout.capture());
+        assertThat(timeout.getValue()).isPositive().isLessThanOrEqualTo(Duration.ofMillis(TIMEOUT_MS));
+    }
+
+    @Test
+    @DisplayName("Should run the sections concurrently")
+    void shouldRunSectionsConcurrently() {
+        // Given
+        when(configurationService.getInt(eq(CourseDashboardService.QUERY_TIMEOUT), anyInt())).thenReturn(5_000);
+        when(courseDashboardQueries.getSubmissionCounts(eq(COURSE_ID), eq(TERM), any())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return List.of();
+        });
+        when(courseDashboardQueries.getAverageGrades(eq(COURSE_ID), eq(TERM), any())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return List.of();
+        });
+        when(courseDashboardQueries.getUngradedCount(eq(COURSE_ID), eq(TERM), any())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return 0L;
+        });
+
+        // When
+        long start = System.nanoTime();
+        CourseDashboardDto dashboard = courseDashboardService.getDashboard(COURSE_ID, teacher);
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // Then
+        assertThat(dashboard.getUnavailable()).isEmpty();
+        assertThat(elapsed).isLessThan(800);
+    }
+
+    @Test
+    @DisplayName("Should reject callers who do not teach the course")
+    void shouldRejectNonTeachers() {
+        // Given
+        AuthenticatedUser student = new AuthenticatedUser(1, "Student", List.of(COURSE_ID), "token", 0,
+                Long.MAX_VALUE);
+
+        // When / Then
+        assertThatThrownBy(() -> courseDashboardService.getDashboard(COURSE_ID, student))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    @DisplayName("Should throw when the course does not exist")
+    void shouldThrowWhenCourseDoesNotExist() {
+        // When / Then
+        assertThatThrownBy(() -> courseDashboardService.getDashboard(999, teacher))
+                .isInstanceOf(CourseNotFoundException.class);
+    }
+}
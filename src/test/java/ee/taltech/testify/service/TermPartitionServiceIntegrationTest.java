@@ -0,0 +1,246 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service;
+
+import ee.taltech.testify.dto.TermArchiveDto;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.exception.TermArchiveConflictException;
+import ee.taltech.testify.repository.UserRoleRepository;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import ee.taltech.testify.service.partition.PartitionedTable;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for TermPartitionService on PostgreSQL, where the submissions are partitioned by term. Skipped
+ * when Docker is not available.
+ * <p>
+ * Partitions are created and dropped outside of test transactions, so every test case works on a term of its own.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("TermPartitionService Integration Tests")
+class TermPartitionServiceIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @Autowired
+    private TermPartitionService termPartitionService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    /**
+     * Creates a course of the term with its partitions and one graded submission, which has an autotest job, a
+     * pending push and a similarity signature.
+     *
+     * @return the submission
+     */
+    private StudentAssignment submission(AcademicTerm term, String name) {
+        Assignment assignment = transactionTemplate.execute(status -> {
+            Course course = new Course();
+            course.setCourseName("Programming " + term);
+            course.setTerm(term.code());
+            entityManager.persist(course);
+
+            Assignment created = new Assignment();
+            created.setCourse(course);
+            created.setTitle("EX01");
+            created.setMaxGrade(BigDecimal.TEN);
+            entityManager.persist(created);
+            return created;
+        });
+        termPartitionService.createPartitions();
+
+        StudentAssignment submission = transactionTemplate.execute(status -> {
+            AppUser student = new AppUser();
+            student.setFirstName(name);
+            student.setLastName("Partition");
+            student.setEmail(name.toLowerCase() + ".partition@taltech.ee");
+            student.setHashedPassword("hash");
+            student.setUserRole(userRoleRepository.findByUserRoleName("Student").orElseThrow());
+            entityManager.persist(student);
+
+            StudentAssignment created = new StudentAssignment();
+            created.setAssignment(entityManager.merge(assignment));
+            created.setStudent(student);
+            created.setSubmissionDateTime(LocalDateTime.now());
+            created.setGrade(new BigDecimal("7.50"));
+            entityManager.persist(created);
+
+            AutotestJob job = new AutotestJob();
+            job.setStudentAssignment(created);
+            job.setStatus(AutotestJobStatus.SUCCEEDED);
+            job.setEnqueuedAt(LocalDateTime.now());
+            entityManager.persist(job);
+            return created;
+        });
+        jdbcTemplate.update("""
+                INSERT INTO pending_push (student_assignment_id, commit_sha, pushes, first_pushed_at, due_at)
+                VALUES (?, 'abc123', 1, now(), now())
+                """, submission.getId());
+        jdbcTemplate.update("""
+                INSERT INTO submission_signature (student_assignment_id, assignment_id, signature, shingles, updated_at)
+                VALUES (?, ?, ?, 1, now())
+                """, submission.getId(), assignment.getId(), new byte[]{1});
+        return submission;
+    }
+
+    private long count(String table, StudentAssignment submission) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE student_assignment_id = ?",
+                Long.class, submission.getId());
+        return count == null ? 0 : count;
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                table));
+    }
+
+    @Nested
+    @DisplayName("Partition tests")
+    class PartitionTests {
+
+        @Test
+        @DisplayName("Should store the submissions of a course in the partition of its term")
+        void shouldPartitionByTerm() {
+            // Given
+            AcademicTerm term = AcademicTerm.current().minus(1);
+
+            // When
+            StudentAssignment submission = submission(term, "Mari");
+
+            // Then
+            assertThat(submission.getTerm()).isEqualTo(term.code());
+            assertThat(count(PartitionedTable.STUDENT_ASSIGNMENT.partitionName(term), submission)).isOne();
+        }
+    }
+
+    @Nested
+    @DisplayName("Archive tests")
+    class ArchiveTests {
+
+        @Test
+        @DisplayName("Should archive a past term with the rows referring to its submissions and restore it")
+        void shouldArchiveAndRestore() {
+            // Given
+            AcademicTerm term = AcademicTerm.current().minus(2);
+            StudentAssignment submission = submission(term, "Jaan");
+
+            // When
+            List<TermArchiveDto> archives = termPartitionService.archive(term);
+
+            // Then
+            assertThat(archives).extracting(TermArchiveDto::getTableName)
+                    .containsExactlyInAnyOrder("student_assignment", "student_grading_element");
+            assertThat(exists(PartitionedTable.STUDENT_ASSIGNMENT.partitionName(term))).isFalse();
+            assertThat(count("student_assignment", submission)).isZero();
+            assertThat(count("autotest_job", submission)).isZero();
+            assertThat(count("pending_push", submission)).isZero();
+            assertThat(count("submission_signature", submission)).isZero();
+
+            // When
+            termPartitionService.restore(term);
+
+            // Then
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT grade FROM student_assignment WHERE student_assignment_id = ?", BigDecimal.class,
+                    submission.getId())).isEqualByComparingTo("7.50");
+        }
+
+        @Test
+        @DisplayName("Should leave a term alone while another node holds the archive lock")
+        void shouldNotArchiveWhileLocked() throws SQLException {
+            // Given
+            AcademicTerm term = AcademicTerm.current().minus(3);
+            StudentAssignment submission = submission(term, "Juku");
+
+            try (Connection otherNode = dataSource.getConnection();
+                 PreparedStatement lock = otherNode.prepareStatement("SELECT pg_advisory_lock(?)")) {
+                lock.setLong(1, TermPartitionService.ARCHIVE_LOCK_KEY);
+                lock.execute();
+
+                // When & Then
+                assertThatThrownBy(() -> termPartitionService.archive(term))
+                        .isInstanceOf(TermArchiveConflictException.class);
+                termPartitionService.archiveExpiredTerms();
+                assertThat(exists(PartitionedTable.STUDENT_ASSIGNMENT.partitionName(term))).isTrue();
+                assertThat(count("autotest_job", submission)).isOne();
+            }
+
+            // When
+            termPartitionService.archive(term);
+
+            // Then
+            assertThat(exists(PartitionedTable.STUDENT_ASSIGNMENT.partitionName(term))).isFalse();
+        }
+    }
+}
@@ -24,7 +24,9 @@ import ee.taltech.testify.dto.UserRoleResponseDto;
 import ee.taltech.testify.entity.UserRole;
 import ee.taltech.testify.exception.UserRoleNotFoundException;
 import ee.taltech.testify.mapper.UserRoleMapper;
+import ee.taltech.testify.repository.AppUserRepository;
 import ee.taltech.testify.repository.UserRoleRepository;
+import ee.taltech.testify.service.auth.TokenService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -49,6 +51,12 @@ class UserRoleServiceTest {
     @Mock
     private UserRoleMapper userRoleMapper;
 
+    @Mock
+    private AppUserRepository appUserRepository;
+
+    @Mock
+    private TokenService tokenService;
+
     @InjectMocks
     private UserRoleService userRoleService;
 
@@ -282,6 +290,7 @@ class UserRoleServiceTest {
             doNothing().when(userRoleMapper).updateUserRoleFromDto(requestDto, existingUserRole);
             when(userRoleRepository.save(existingUserRole)).thenReturn(updatedUserRole);
             when(userRoleMapper.toDto(updatedUserRole)).thenReturn(responseDto);
+            when(appUserRepository.findIdsByUserRoleId(roleId)).thenReturn(List.of(5, 6));
 
             // When
             UserRoleResponseDto result = userRoleService.updateUserRole(roleId, requestDto);
@@ -295,6 +304,8 @@ class UserRoleServiceTest {
             verify(userRoleMapper, times(1)).updateUserRoleFromDto(requestDto, existingUserRole);
             verify(userRoleRepository, times(1)).save(existingUserRole);
             verify(userRoleMapper, times(1)).toDto(updatedUserRole);
+            verify(tokenService).revokeUser(5);
+            verify(tokenService).revokeUser(6);
         }
 
         @Test
@@ -0,0 +1,172 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.artifact;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactStoreTest {
+
+    @TempDir
+    private Path root;
+
+    private ArtifactStore artifactStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        artifactStore = new ArtifactStore(root);
+    }
+
+    private static InputStream stream(byte[] content) {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Nested
+    @DisplayName("store Tests")
+    class StoreTests {
+
+        @Test
+        @DisplayName("Should compress compressible content and keep it readable")
+        void shouldCompressText() throws IOException {
+            // Given
+            byte[] content = "[INFO] Tests run: 42, Failures: 0\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+
+            // When
+            StoredBlob blob = artifactStore.store(stream(content));
+
+            // Then
+            assertThat(blob.compressed()).isTrue();
+            assertThat(blob.size()).isEqualTo(content.length);
+            assertThat(blob.storedSize()).isLessThan(content.length / 10);
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(artifactStore.locate(blob.contentHash())
+                    .orElseThrow()))) {
+                assertThat(in.readAllBytes()).isEqualTo(content);
+            }
+        }
+
+        @Test
+        @DisplayName("Should store incompressible content as-is")
+        void shouldNotCompressRandomBytes() throws IOException {
+            // Given
+            byte[] content = new byte[10_000];
+            new Random(1).nextBytes(content);
+
+            // When
+            StoredBlob blob = artifactStore.store(stream(content));
+
+            // Then
+            assertThat(blob.compressed()).isFalse();
+            assertThat(Files.readAllBytes(artifactStore.locate(blob.contentHash()).orElseThrow())).isEqualTo(content);
+        }
+
+        @Test
+        @DisplayName("Should store identical content once")
+        void shouldDeduplicate() throws IOException {
+            // Given
+            byte[] content = "same output".getBytes(StandardCharsets.UTF_8);
+
+            // When
+            StoredBlob first = artifactStore.store(stream(content));
+            StoredBlob second = artifactStore.store(stream(content));
+
+            // Then
+            assertThat(second).isEqualTo(first);
+            assertThat(artifactStore.findBlobsWrittenBefore(Instant.now().plusSeconds(1))).hasSize(1);
+            try (var files = Files.list(root.resolve("tmp"))) {
+                assertThat(files).isEmpty();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Garbage collection Tests")
+    class GarbageCollectionTests {
+
+        @Test
+        @DisplayName("Should list only blobs older than the cut-off and delete them")
+        void shouldListAndDeleteOldBlobs() {
+            // Given
+            StoredBlob blob = artifactStore.store(stream("log".getBytes(StandardCharsets.UTF_8)));
+
+            // When / Then
+            assertThat(artifactStore.findBlobsWrittenBefore(Instant.now().minusSeconds(60))).isEmpty();
+            assertThat(artifactStore.findBlobsWrittenBefore(Instant.now().plusSeconds(1)))
+                    .containsExactly(blob.contentHash());
+
+            artifactStore.delete(blob.contentHash());
+            assertThat(artifactStore.locate(blob.contentHash())).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should delete a blob still older than the cut-off")
+        void shouldDeleteOldBlob() throws IOException {
+            // Given
+            StoredBlob blob = artifactStore.store(stream("log".getBytes(StandardCharsets.UTF_8)));
+            age(blob);
+
+            // When
+            boolean deleted = artifactStore.deleteIfWrittenBefore(blob.contentHash(), Instant.now().minusSeconds(60));
+
+            // Then
+            assertThat(deleted).isTrue();
+            assertThat(artifactStore.locate(blob.contentHash())).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should keep a blob stored again after it was listed")
+        void shouldKeepBlobStoredAgain() throws IOException {
+            // Given
+            StoredBlob blob = artifactStore.store(stream("log".getBytes(StandardCharsets.UTF_8)));
+            age(blob);
+            Instant cutOff = Instant.now().minusSeconds(60);
+            assertThat(artifactStore.findBlobsWrittenBefore(cutOff)).containsExactly(blob.contentHash());
+            artifactStore.store(stream("log".getBytes(StandardCharsets.UTF_8)));
+
+            // When
+            boolean deleted = artifactStore.deleteIfWrittenBefore(blob.contentHash(), cutOff);
+
+            // Then
+            assertThat(deleted).isFalse();
+            assertThat(artifactStore.locate(blob.contentHash())).isPresent();
+        }
+
+        private void age(StoredBlob blob) throws IOException {
+            Path path = artifactStore.locate(blob.contentHash()).orElseThrow();
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        }
+    }
+}
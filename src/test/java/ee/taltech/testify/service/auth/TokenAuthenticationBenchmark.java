@@ -0,0 +1,95 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.auth;
+
+import ee.taltech.testify.service.ConfigurationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the per-request cost of verifying an access token. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class TokenAuthenticationBenchmark {
+    private static final int TOKENS = 1_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    @Test
+    @DisplayName("Token verification should cost a few microseconds and no database access")
+    void verifyOverhead() throws Exception {
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getInt(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArgument(1));
+        TokenRevocationList revocationList = new TokenRevocationList();
+        TokenService tokenService = new TokenService(Base64.getEncoder().encodeToString(new byte[32]),
+                revocationList, configurationService);
+
+        String[] tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = tokenService.issue(i, "Student", List.of(i % 50, i % 50 + 1, i % 50 + 2)).token();
+        }
+        for (int i = 0; i < 100; i++) {
+            revocationList.revoke(tokenService.issue(-i, "Student", List.of()).user());
+        }
+        run(tokenService, tokens, 200_000);
+
+        long singleThreaded = run(tokenService, tokens, ITERATIONS);
+        System.out.printf("token verification: single thread %d ns/op%n", singleThreaded);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Future<Long>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> run(tokenService, tokens, ITERATIONS)));
+            }
+            long worst = 0;
+            for (Future<Long> result : results) {
+                worst = Math.max(worst, result.get());
+            }
+            System.out.printf("token verification: %d threads, worst %d ns/op%n", threads, worst);
+            assertThat(worst).isLessThan(20_000);
+        }
+        assertThat(singleThreaded).isLessThan(10_000);
+    }
+
+    private static long run(TokenService tokenService, String[] tokens, int iterations) {
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += tokenService.verify(tokens[i % tokens.length]).userId();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(checksum).isPositive();
+        return elapsed / iterations;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.auth;
+
+import ee.taltech.testify.exception.InvalidTokenException;
+import ee.taltech.testify.service.ConfigurationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenServiceTest {
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final TokenRevocationList revocationList = new TokenRevocationList();
+    private final TokenService tokenService = newTokenService(SECRET);
+
+    private TokenService newTokenService(String secret) {
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getInt(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArgument(1));
+        return new TokenService(secret, revocationList, configurationService);
+    }
+
+    @Nested
+    @DisplayName("verify Tests")
+    class VerifyTests {
+
+        @Test
+        @DisplayName("Should return the claims of an issued token")
+        void shouldRoundTripClaims() {
+            // Given
+            TokenService.IssuedToken issued = tokenService.issue(42, "Teacher", List.of(7, 3, 7));
+
+            // When
+            AuthenticatedUser user = tokenService.verify(issued.token());
+
+            // Then
+            assertThat(user).isEqualTo(issued.user());
+            assertThat(user.userId()).isEqualTo(42);
+            assertThat(user.role()).isEqualTo("Teacher");
+            assertThat(user.courseIds()).containsExactly(3, 7);
+            assertThat(user.isMemberOf(3)).isTrue();
+            assertThat(user.isMemberOf(4)).isFalse();
+            assertThat(user.expiresAt() - user.issuedAt() / 1000).isEqualTo(15 * 60);
+        }
+
+        @Test
+        @DisplayName("Should accept a user without course memberships")
+        void shouldAcceptEmptyMemberships() {
+            // Given
+            String token = tokenService.issue(1, AuthenticatedUser.ADMIN_ROLE, List.of()).token();
+
+            // When & Then
+            assertThat(tokenService.verify(token).courseIds()).isEmpty();
+            assertThat(tokenService.verify(token).isAdmin()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should reject a token whose claims were changed")
+        void shouldRejectTamperedClaims() {
+            // Given
+            String token = tokenService.issue(42, "Student", List.of(3)).token();
+            String claims = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+            String forged = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(claims.replace("|Student|", "|Admin|").getBytes())
+                    + token.substring(token.indexOf('.'));
+
+            // When & Then
+            assertThatThrownBy(() -> tokenService.verify(forged))
+                    .isInstanceOf(InvalidTokenException.class)
+                    .hasMessage("Invalid token signature");
+        }
+
+        @Test
+        @DisplayName("Should reject a token signed with another key")
+        void shouldRejectForeignKey() {
+            // Given
+            byte[] otherKey = new byte[32];
+            otherKey[0] = 1;
+            String token = newTokenService(Base64.getEncoder().encodeToString(otherKey))
+                    .issue(42, "Student", List.of()).token();
+
+            // When & Then
+            assertThatThrownBy(() -> tokenService.verify(token)).isInstanceOf(InvalidTokenException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject malformed tokens")
+        void shouldRejectMalformedTokens() {
+            assertThatThrownBy(() -> tokenService.verify("abc")).isInstanceOf(InvalidTokenException.class);
+            assertThatThrownBy(() -> tokenService.verify("abc.")).isInstanceOf(InvalidTokenException.class);
+            assertThatThrownBy(() -> tokenService.verify("a*c.def")).isInstanceOf(InvalidTokenException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Revocation Tests")
+    class RevocationTests {
+
+        @Test
+        @DisplayName("Should reject a revoked token but accept other tokens of the user")
+        void shouldRejectRevokedToken() {
+            // Given
+            TokenService.IssuedToken revoked = tokenService.issue(42, "Student", List.of());
+            TokenService.IssuedToken other = tokenService.issue(42, "Student", List.of());
+
+            // When
+            revocationList.revoke(revoked.user());
+
+            // Then
+            assertThatThrownBy(() -> tokenService.verify(revoked.token()))
+                    .isInstanceOf(InvalidTokenException.class)
+                    .hasMessage("Token has been revoked");
+            assertThat(tokenService.verify(other.token()).userId()).isEqualTo(42);
+        }
+
+        @Test
+        @DisplayName("Should reject every token of a revoked user")
+        void shouldRejectTokensOfRevokedUser() {
+            // Given
+            String first = tokenService.issue(42, "Student", List.of()).token();
+            String second = tokenService.issue(42, "Student", List.of()).token();
+            String otherUser = tokenService.issue(43, "Student", List.of()).token();
+
+            // When
+            tokenService.revokeUser(42);
+
+            // Then
+            assertThatThrownBy(() -> tokenService.verify(first)).isInstanceOf(InvalidTokenException.class);
+            assertThatThrownBy(() -> tokenService.verify(second)).isInstanceOf(InvalidTokenException.class);
+            assertThat(tokenService.verify(otherUser).userId()).isEqualTo(43);
+        }
+
+        @Test
+        @DisplayName("Should forget revocations once the tokens would have expired")
+        void shouldPurgeExpiredRevocations() {
+            // Given
+            long[] now = {1_000_000};
+            TokenRevocationList list = new TokenRevocationList(() -> now[0]);
+            list.revoke(new AuthenticatedUser(1, "Student", List.of(), "token", 900_000, 1_100));
+            list.revokeUser(2, 60);
+
+            // When
+            now[0] = 1_200_000;
+            list.purgeExpired();
+
+            // Then
+            assertThat(list.size()).isZero();
+        }
+    }
+}
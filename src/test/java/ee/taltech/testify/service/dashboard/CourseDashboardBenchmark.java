@@ -0,0 +1,129 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.dashboard;
+
+import ee.taltech.testify.dto.CourseDashboardDto;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.repository.CourseRepository;
+import ee.taltech.testify.service.ConfigurationService;
+import ee.taltech.testify.service.CourseDashboardService;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.membership.CourseMembershipIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the concurrent dashboard with issuing the same queries one after another. Each query is simulated with
+ * a fixed latency typical of an aggregate over a large course on a remote database, so the numbers show the effect of
+ * the fan-out rather than of the SQL. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class CourseDashboardBenchmark {
+    private static final int COURSE_ID = 1;
+    private static final int TERM = 20242;
+    private static final int RUNS = 30;
+    private static final Duration SUBMISSIONS_LATENCY = Duration.ofMillis(25);
+    private static final Duration GRADES_LATENCY = Duration.ofMillis(30);
+    private static final Duration UNGRADED_LATENCY = Duration.ofMillis(15);
+    private static final Duration AUTOTESTS_LATENCY = Duration.ofMillis(20);
+
+    @Test
+    @DisplayName("Concurrent dashboard should take about as long as its slowest query")
+    void concurrentVersusSequential() throws Exception {
+        CourseDashboardQueries queries = slowQueries();
+        CourseDashboardService service = service(queries);
+        AuthenticatedUser admin = new AuthenticatedUser(1, AuthenticatedUser.ADMIN_ROLE, List.of(), "token", 0,
+                Long.MAX_VALUE);
+
+        long[] concurrent = new long[RUNS];
+        long[] sequential = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            CourseDashboardDto dashboard = service.getDashboard(COURSE_ID, admin);
+            concurrent[i] = System.nanoTime() - start;
+            assertThat(dashboard.getUnavailable()).isEmpty();
+
+            start = System.nanoTime();
+            Duration timeout = Duration.ofSeconds(5);
+            queries.getSubmissionCounts(COURSE_ID, TERM, timeout);
+            queries.getAverageGrades(COURSE_ID, TERM, timeout);
+            queries.getUngradedCount(COURSE_ID, TERM, timeout);
+            queries.getAutotestJobCounts(COURSE_ID, TERM, timeout);
+            sequential[i] = System.nanoTime() - start;
+        }
+
+        long concurrentMedian = median(concurrent);
+        long sequentialMedian = median(sequential);
+        System.out.printf("dashboard: sequential median %.1f ms, concurrent median %.1f ms (%.1fx)%n",
+                sequentialMedian / 1e6, concurrentMedian / 1e6, (double) sequentialMedian / concurrentMedian);
+        assertThat(concurrentMedian).isLessThan(sequentialMedian / 2);
+    }
+
+    private static CourseDashboardQueries slowQueries() {
+        CourseDashboardQueries queries = mock(CourseDashboardQueries.class);
+        when(queries.getSubmissionCounts(anyInt(), anyInt(), any())).thenAnswer(invocation -> {
+            Thread.sleep(SUBMISSIONS_LATENCY);
+            return List.of(new AssignmentSubmissionCount(1, "Sorting", 120));
+        });
+        when(queries.getAverageGrades(anyInt(), anyInt(), any())).thenAnswer(invocation -> {
+            Thread.sleep(GRADES_LATENCY);
+            return List.of();
+        });
+        when(queries.getUngradedCount(anyInt(), anyInt(), any())).thenAnswer(invocation -> {
+            Thread.sleep(UNGRADED_LATENCY);
+            return 12L;
+        });
+        when(queries.getAutotestJobCounts(anyInt(), anyInt(), any())).thenAnswer(invocation -> {
+            Thread.sleep(AUTOTESTS_LATENCY);
+            return Map.of(AutotestJobStatus.QUEUED, 3L);
+        });
+        return queries;
+    }
+
+    private static CourseDashboardService service(CourseDashboardQueries queries) {
+        CourseRepository courseRepository = mock(CourseRepository.class);
+        when(courseRepository.findTermById(COURSE_ID)).thenReturn(Optional.of(TERM));
+        CourseMembershipIndex index = mock(CourseMembershipIndex.class);
+        when(index.getMembers(any(), anyInt())).thenReturn(new RoaringBitmap());
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getInt(any(), anyInt())).thenAnswer(invocation -> invocation.getArgument(1));
+        return new CourseDashboardService(courseRepository, queries, index, configurationService);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
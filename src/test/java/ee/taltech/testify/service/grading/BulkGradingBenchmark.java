@@ -0,0 +1,208 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.grading;
+
+import ee.taltech.testify.dto.GradeRequestDto;
+import ee.taltech.testify.entity.GradingElement;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.entity.StudentGradingElement;
+import ee.taltech.testify.service.GradingService;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares grading a whole group through the bulk grading service with saving every student grading element through
+ * JPA and then recomputing each grade from the loaded elements, as a per-element API would. Runs against the H2
+ * test database, where a round trip costs far less than over a network, so the gain on PostgreSQL is larger. Run
+ * with {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class BulkGradingBenchmark {
+    private static final int STUDENTS = 200;
+    private static final int ELEMENTS = 5;
+    private static final int RUNS = 15;
+
+    @Autowired
+    private GradingService gradingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final AuthenticatedUser admin = new AuthenticatedUser(1, AuthenticatedUser.ADMIN_ROLE, List.of(),
+            "token", 0, Long.MAX_VALUE);
+
+    private int courseId;
+    private int assignmentId;
+    private List<Integer> studentAssignmentIds;
+    private List<Integer> gradingElementIds;
+
+    @BeforeEach
+    void setUp() {
+        int term = AcademicTerm.current().code();
+        jdbcTemplate.update("INSERT INTO course (course_name, term) VALUES ('Bulk grading benchmark', ?)", term);
+        courseId = jdbcTemplate.queryForObject(
+                "SELECT course_id FROM course WHERE course_name = 'Bulk grading benchmark'", Integer.class);
+        jdbcTemplate.update("INSERT INTO assignment (course_id, title, max_grade, is_autotested) "
+                + "VALUES (?, 'Bulk grading', 50, false)", courseId);
+        assignmentId = jdbcTemplate.queryForObject("SELECT assignment_id FROM assignment WHERE course_id = ?",
+                Integer.class, courseId);
+        for (int i = 0; i < ELEMENTS; i++) {
+            jdbcTemplate.update("INSERT INTO grading_element (assignment_id, element_name, max_points, is_deduction) "
+                    + "VALUES (?, ?, 10, ?)", assignmentId, "Element " + i, i == ELEMENTS - 1);
+        }
+        gradingElementIds = jdbcTemplate.queryForList(
+                "SELECT grading_element_id FROM grading_element WHERE assignment_id = ? ORDER BY 1", Integer.class,
+                assignmentId);
+
+        int roleId = jdbcTemplate.queryForObject(
+                "SELECT user_role_id FROM user_role WHERE user_role_name = 'Student'", Integer.class);
+        jdbcTemplate.batchUpdate("INSERT INTO app_user (first_name, last_name, email, hashed_password, user_role_id) "
+                        + "VALUES ('Bulk', 'Grading', ?, 'hash', ?)",
+                IntStream.range(0, STUDENTS)
+                        .mapToObj(i -> new Object[]{"bulk.grading." + i + "@taltech.ee", roleId})
+                        .toList());
+        jdbcTemplate.update("INSERT INTO student_assignment (student_id, assignment_id, term) "
+                + "SELECT app_user_id, ?, ? FROM app_user WHERE email LIKE 'bulk.grading.%'", assignmentId, term);
+        studentAssignmentIds = jdbcTemplate.queryForList(
+                "SELECT student_assignment_id FROM student_assignment WHERE assignment_id = ? ORDER BY 1",
+                Integer.class, assignmentId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM student_grading_element WHERE grading_element_id IN "
+                + "(SELECT grading_element_id FROM grading_element WHERE assignment_id = ?)", assignmentId);
+        jdbcTemplate.update("DELETE FROM student_assignment WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM app_user WHERE email LIKE 'bulk.grading.%'");
+        jdbcTemplate.update("DELETE FROM grading_element WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM assignment WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM course WHERE course_id = ?", courseId);
+    }
+
+    @Test
+    @DisplayName("Bulk grading should be faster than saving each grading element")
+    void bulkVersusPerElement() {
+        Random random = new Random(42);
+        long perElement = median(() -> saveEachElement(grades(random)));
+        long bulk = median(() -> gradingService.saveGrades(assignmentId, grades(random), admin));
+
+        System.out.printf("bulk grading: %d grades, per element %.1f ms, bulk %.1f ms (%.1fx)%n",
+                STUDENTS * ELEMENTS, perElement / 1e6, bulk / 1e6, (double) perElement / bulk);
+        assertThat(bulk).isLessThan(perElement);
+    }
+
+    private List<GradeRequestDto> grades(Random random) {
+        List<GradeRequestDto> grades = new ArrayList<>(STUDENTS * ELEMENTS);
+        for (Integer studentAssignmentId : studentAssignmentIds) {
+            for (Integer gradingElementId : gradingElementIds) {
+                GradeRequestDto grade = new GradeRequestDto();
+                grade.setStudentAssignmentId(studentAssignmentId);
+                grade.setGradingElementId(gradingElementId);
+                grade.setPoints(BigDecimal.valueOf(random.nextInt(1001), 2));
+                grade.setFeedback("Feedback " + random.nextInt(100));
+                grades.add(grade);
+            }
+        }
+        return grades;
+    }
+
+    private void saveEachElement(List<GradeRequestDto> grades) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (GradeRequestDto grade : grades) {
+                StudentGradingElement element = entityManager.createQuery("""
+                                SELECT sge FROM StudentGradingElement sge
+                                WHERE sge.studentAssignment.id = :studentAssignmentId
+                                  AND sge.gradingElement.id = :gradingElementId
+                                """, StudentGradingElement.class)
+                        .setParameter("studentAssignmentId", grade.getStudentAssignmentId())
+                        .setParameter("gradingElementId", grade.getGradingElementId())
+                        .getResultStream().findFirst().orElseGet(() -> {
+                            StudentGradingElement created = new StudentGradingElement();
+                            created.setStudentAssignment(entityManager.find(StudentAssignment.class,
+                                    grade.getStudentAssignmentId()));
+                            created.setGradingElement(entityManager.find(GradingElement.class,
+                                    grade.getGradingElementId()));
+                            return created;
+                        });
+                element.setPointsAwarded(grade.getPoints());
+                element.setFeedback(grade.getFeedback());
+                entityManager.persist(element);
+                entityManager.flush();
+            }
+            for (Integer studentAssignmentId : studentAssignmentIds) {
+                StudentAssignment studentAssignment = entityManager.find(StudentAssignment.class,
+                        studentAssignmentId);
+                BigDecimal total = entityManager.createQuery("""
+                                SELECT sge FROM StudentGradingElement sge
+                                WHERE sge.studentAssignment.id = :studentAssignmentId
+                                """, StudentGradingElement.class)
+                        .setParameter("studentAssignmentId", studentAssignmentId)
+                        .getResultStream()
+                        .map(sge -> sge.getGradingElement().getIsDeduction()
+                                ? sge.getPointsAwarded().negate() : sge.getPointsAwarded())
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                studentAssignment.setGrade(total.max(BigDecimal.ZERO));
+            }
+        });
+        entityManager.clear();
+    }
+
+    private static long median(Runnable run) {
+        for (int i = 0; i < 3; i++) {
+            run.run();
+        }
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.logstream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunLogBufferTest {
+
+    @Nested
+    @DisplayName("read Tests")
+    class ReadTests {
+
+        @Test
+        @DisplayName("Should replay everything from the start while within capacity")
+        void shouldReplayFromStart() {
+            // Given
+            RunLogBuffer buffer = new RunLogBuffer(10, 10, 0);
+            buffer.append("abc", 0);
+            buffer.append("def", 0);
+
+            // When
+            LogRead read = buffer.read(0, 100);
+
+            // Then
+            assertThat(read.text()).isEqualTo("abcdef");
+            assertThat(read.nextSequence()).isEqualTo(2);
+            assertThat(read.skippedChunks()).isZero();
+            assertThat(read.finished()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should coalesce chunks up to the event size")
+        void shouldCoalesceChunks() {
+            // Given
+            RunLogBuffer buffer = new RunLogBuffer(100, 100, 0);
+            for (int i = 0; i < 10; i++) {
+                buffer.append("ab", 0);
+            }
+
+            // When
+            LogRead first = buffer.read(0, 5);
+            LogRead second = buffer.read(first.nextSequence(), 5);
+
+            // Then
+            assertThat(first.text()).isEqualTo("abab");
+            assertThat(second.text()).isEqualTo("abab");
+            assertThat(second.nextSequence()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("Should keep the head and report chunks evicted from the tail")
+        void shouldKeepHeadAndSkipEvicted() {
+            // Given
+            RunLogBuffer buffer = new RunLogBuffer(4, 6, 0);
+            buffer.append("head", 0);
+            for (int i = 0; i < 10; i++) {
+                buffer.append("t" + i, 0);
+            }
+
+            // When
+            LogRead head = buffer.read(0, 4);
+            LogRead rest = buffer.read(head.nextSequence(), 100);
+
+            // Then
+            assertThat(head.text()).isEqualTo("head");
+            assertThat(rest.skippedChunks()).isEqualTo(7);
+            assertThat(rest.text()).isEqualTo("t7t8t9");
+            assertThat(rest.nextSequence()).isEqualTo(11);
+        }
+
+        @Test
+        @DisplayName("Should truncate a chunk larger than the tail capacity")
+        void shouldTruncateOversizedChunk() {
+            // Given
+            RunLogBuffer buffer = new RunLogBuffer(0, 3, 0);
+
+            // When
+            buffer.append("abcdef", 0);
+
+            // Then
+            assertThat(buffer.read(0, 100).text()).isEqualTo("def");
+        }
+
+        @Test
+        @DisplayName("Should report the end only after all output has been read")
+        void shouldFinishAfterOutputIsRead() {
+            // Given
+            RunLogBuffer buffer = new RunLogBuffer(10, 10, 0);
+            buffer.append("done", 0);
+            buffer.finish("SUCCEEDED", 0);
+            buffer.append("ignored", 0);
+
+            // When
+            LogRead read = buffer.read(0, 100);
+
+            // Then
+            assertThat(read.text()).isEqualTo("done");
+            assertThat(read.finished()).isTrue();
+            assertThat(read.status()).isEqualTo("SUCCEEDED");
+            assertThat(buffer.hasMore(read.nextSequence())).isTrue();
+        }
+    }
+}
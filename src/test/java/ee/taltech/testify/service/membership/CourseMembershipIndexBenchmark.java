@@ -0,0 +1,100 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.membership;
+
+import ee.taltech.testify.repository.CourseMembership;
+import ee.taltech.testify.repository.CourseTeacherRepository;
+import ee.taltech.testify.repository.EnrollmentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the footprint and lookup cost of the membership index for 50k users. Run with
+ * {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class CourseMembershipIndexBenchmark {
+    private static final int USERS = 50_000;
+    private static final int COURSES = 1_000;
+    private static final int COURSES_PER_STUDENT = 6;
+    private static final int ITERATIONS = 20_000_000;
+
+    @Test
+    @DisplayName("Membership checks should take nanoseconds and the index a few megabytes")
+    void footprintAndLookupCost() {
+        Random random = new Random(42);
+        List<CourseMembership> enrollments = new ArrayList<>();
+        List<CourseMembership> teachers = new ArrayList<>();
+        for (int user = 1; user <= USERS; user++) {
+            for (int i = 0; i < COURSES_PER_STUDENT; i++) {
+                enrollments.add(new CourseMembership(random.nextInt(COURSES), user));
+            }
+        }
+        for (int course = 0; course < COURSES; course++) {
+            teachers.add(new CourseMembership(course, random.nextInt(USERS) + 1));
+        }
+        EnrollmentRepository enrollmentRepository = mock(EnrollmentRepository.class);
+        CourseTeacherRepository courseTeacherRepository = mock(CourseTeacherRepository.class);
+        when(enrollmentRepository.findAllMemberships()).thenReturn(enrollments);
+        when(courseTeacherRepository.findAllMemberships()).thenReturn(teachers);
+
+        CourseMembershipIndex index = new CourseMembershipIndex(enrollmentRepository, courseTeacherRepository);
+        long start = System.nanoTime();
+        index.rebuild();
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // A HashSet<Long> of (course, user) pairs costs roughly 32 bytes per entry plus the boxed key.
+        long hashSetEstimate = index.getMembershipCount() * (32 + 16);
+        System.out.printf("membership index: %d memberships, %d bytes (HashSet estimate %d bytes), built in %d ms%n",
+                index.getMembershipCount(), index.getSizeInBytes(), hashSetEstimate, buildMillis);
+
+        run(index, 1_000_000);
+        long nanos = run(index, ITERATIONS);
+        System.out.printf("membership index: %d ns/check%n", nanos);
+
+        assertThat(nanos).isLessThan(200);
+        assertThat(index.getSizeInBytes()).isLessThan(hashSetEstimate / 4);
+    }
+
+    private static long run(CourseMembershipIndex index, int iterations) {
+        long start = System.nanoTime();
+        int hits = 0;
+        int user = 1;
+        for (int i = 0; i < iterations; i++) {
+            user = user * 1_103_515_245 + 12_345;
+            int userId = (user >>> 1) % USERS + 1;
+            if (index.isEnrolled(userId, i % COURSES)) {
+                hits++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(hits).isPositive();
+        return elapsed / iterations;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.membership;
+
+import ee.taltech.testify.repository.CourseMembership;
+import ee.taltech.testify.repository.CourseTeacherRepository;
+import ee.taltech.testify.repository.EnrollmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CourseMembershipIndexTest {
+
+    private final EnrollmentRepository enrollmentRepository = mock(EnrollmentRepository.class);
+    private final CourseTeacherRepository courseTeacherRepository = mock(CourseTeacherRepository.class);
+    private final CourseMembershipIndex index = new CourseMembershipIndex(enrollmentRepository,
+            courseTeacherRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(enrollmentRepository.findAllMemberships()).thenReturn(List.of(
+                new CourseMembership(1, 10), new CourseMembership(1, 11), new CourseMembership(1, 12),
+                new CourseMembership(2, 10)));
+        when(courseTeacherRepository.findAllMemberships()).thenReturn(List.of(new CourseMembership(1, 100)));
+    }
+
+    @Nested
+    @DisplayName("Membership checks")
+    class MembershipCheckTests {
+
+        @Test
+        @DisplayName("Should answer membership checks from the loaded tables")
+        void shouldLoadMemberships() {
+            // When
+            index.rebuild();
+
+            // Then
+            assertThat(index.isEnrolled(10, 1)).isTrue();
+            assertThat(index.isEnrolled(10, 2)).isTrue();
+            assertThat(index.isEnrolled(11, 2)).isFalse();
+            assertThat(index.isEnrolled(100, 1)).isFalse();
+            assertThat(index.isTeacher(100, 1)).isTrue();
+            assertThat(index.isTeacher(10, 1)).isFalse();
+            assertThat(index.isTeacher(100, 3)).isFalse();
+            assertThat(index.getMembershipCount()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("Should return enrolled students except the given ones")
+        void shouldSubtractUsers() {
+            // Given
+            index.rebuild();
+
+            // When
+            RoaringBitmap missing = index.getEnrolledExcept(1, RoaringBitmap.bitmapOf(11, 99));
+
+            // Then
+            assertThat(missing.toArray()).containsExactly(10, 12);
+            assertThat(index.getEnrolledExcept(3, new RoaringBitmap()).isEmpty()).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("Updates")
+    class UpdateTests {
+
+        @Test
+        @DisplayName("Should publish a new bitmap instead of changing the one readers may hold")
+        void shouldCopyOnWrite() {
+            // Given
+            index.rebuild();
+            RoaringBitmap before = index.getMembers(MembershipType.STUDENT, 1);
+
+            // When
+            index.add(MembershipType.STUDENT, 1, 13);
+            index.remove(MembershipType.STUDENT, 1, 10);
+
+            // Then
+            assertThat(before.toArray()).containsExactly(10, 11, 12);
+            assertThat(index.getMembers(MembershipType.STUDENT, 1).toArray()).containsExactly(11, 12, 13);
+        }
+
+        @Test
+        @DisplayName("Should drop a course once its last member is removed")
+        void shouldDropEmptyCourse() {
+            // Given
+            index.rebuild();
+
+            // When
+            index.remove(MembershipType.STUDENT, 2, 10);
+
+            // Then
+            assertThat(index.isEnrolled(10, 2)).isFalse();
+            assertThat(index.getMembers(MembershipType.STUDENT, 2).isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should keep changes made while a rebuild reads the tables")
+        void shouldReplayChangesDuringRebuild() {
+            // Given
+            when(courseTeacherRepository.findAllMemberships()).thenAnswer(invocation -> {
+                index.add(MembershipType.TEACHER, 2, 200);
+                index.remove(MembershipType.STUDENT, 1, 12);
+                return List.of(new CourseMembership(1, 100));
+            });
+
+            // When
+            index.rebuild();
+
+            // Then
+            assertThat(index.isTeacher(200, 2)).isTrue();
+            assertThat(index.isEnrolled(12, 1)).isFalse();
+            assertThat(index.isEnrolled(11, 1)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.notification;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.Notification;
+import ee.taltech.testify.entity.NotificationStatus;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.entity.UserRole;
+import ee.taltech.testify.repository.NotificationRepository;
+import ee.taltech.testify.service.NotificationService;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for NotificationDispatcher against an in-process SMTP server.
+ * <p>
+ * The dispatcher commits in its own transactions, so the fixtures are committed as well and removed after each test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("NotificationDispatcher Integration Tests")
+class NotificationDispatcherIntegrationTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private StudentAssignment studentAssignment;
+
+    /**
+     * Set up a graded submission before each test case.
+     */
+    @BeforeEach
+    void setUp() {
+        studentAssignment = transactionTemplate.execute(status -> {
+            UserRole role = new UserRole();
+            role.setUserRoleName("Notified student");
+            entityManager.persist(role);
+
+            AppUser student = new AppUser();
+            student.setFirstName("Mari");
+            student.setLastName("Maasikas");
+            student.setEmail("mari.notified@taltech.ee");
+            student.setHashedPassword("hash");
+            student.setUserRole(role);
+            entityManager.persist(student);
+
+            Course course = new Course();
+            course.setCourseName("Programming");
+            entityManager.persist(course);
+
+            Assignment assignment = new Assignment();
+            assignment.setCourse(course);
+            assignment.setTitle("EX01");
+            assignment.setMaxGrade(new BigDecimal("10.00"));
+            entityManager.persist(assignment);
+
+            StudentAssignment submission = new StudentAssignment();
+            submission.setStudent(student);
+            submission.setAssignment(assignment);
+            submission.setGrade(new BigDecimal("8.50"));
+            entityManager.persist(submission);
+            return submission;
+        });
+    }
+
+    /**
+     * Remove the committed fixtures after each test case.
+     */
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            notificationRepository.deleteAll();
+            StudentAssignment submission = entityManager.find(StudentAssignment.class, studentAssignment.getId());
+            Assignment assignment = submission.getAssignment();
+            AppUser student = submission.getStudent();
+            entityManager.remove(submission);
+            entityManager.remove(assignment);
+            entityManager.remove(assignment.getCourse());
+            entityManager.remove(student);
+            entityManager.remove(student.getUserRole());
+        });
+    }
+
+    private void notifyAndMakeDue() {
+        transactionTemplate.executeWithoutResult(status -> {
+            notificationService.submissionReceived(studentAssignment);
+            notificationService.gradePublished(studentAssignment, studentAssignment.getGrade());
+        });
+        transactionTemplate.executeWithoutResult(status -> notificationRepository.findAll()
+                .forEach(notification -> notification.setNextAttemptAt(LocalDateTime.now().minusSeconds(1))));
+    }
+
+    @Nested
+    @DisplayName("Outbox")
+    class OutboxTests {
+
+        @Test
+        @DisplayName("Should hold notifications of one recipient back for a shared digest")
+        void shouldShareDigestWindow() {
+            // When
+            transactionTemplate.executeWithoutResult(status -> {
+                notificationService.submissionReceived(studentAssignment);
+                notificationService.gradePublished(studentAssignment, studentAssignment.getGrade());
+            });
+
+            // Then
+            List<Notification> notifications = notificationRepository.findAll();
+            assertThat(notifications).hasSize(2);
+            assertThat(notifications.get(0).getNextAttemptAt()).isAfter(LocalDateTime.now())
+                    .isEqualTo(notifications.get(1).getNextAttemptAt());
+            assertThat(notificationDispatcher.dispatch()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Dispatch")
+    class DispatchTests {
+
+        @Test
+        @DisplayName("Should send due notifications of one recipient as a single digest")
+        void shouldSendDigest() throws Exception {
+            // Given
+            notifyAndMakeDue();
+
+            // When
+            int processed = notificationDispatcher.dispatch();
+
+            // Then
+            assertThat(processed).isEqualTo(2);
+            MimeMessage[] received = greenMail.getReceivedMessages();
+            assertThat(received).hasSize(1);
+            assertThat(received[0].getSubject()).isEqualTo("Testify: 2 new notifications");
+            assertThat(GreenMailUtil.getAddressList(received[0].getAllRecipients()))
+                    .isEqualTo("mari.notified@taltech.ee");
+            String body = GreenMailUtil.getBody(received[0]);
+            assertThat(body).contains("Submission received: EX01", "Grade published: EX01", "8.5 / 10");
+            assertThat(notificationRepository.findAll())
+                    .allSatisfy(notification -> {
+                        assertThat(notification.getStatus()).isEqualTo(NotificationStatus.SENT);
+                        assertThat(notification.getSentAt()).isNotNull();
+                    });
+        }
+
+        @Test
+        @DisplayName("Should schedule a retry with backoff when the mail server is unavailable")
+        void shouldRetryOnFailure() {
+            // Given
+            notifyAndMakeDue();
+            greenMail.stop();
+
+            // When
+            notificationDispatcher.dispatch();
+
+            // Then
+            assertThat(notificationRepository.findAll())
+                    .allSatisfy(notification -> {
+                        assertThat(notification.getStatus()).isEqualTo(NotificationStatus.PENDING);
+                        assertThat(notification.getAttempts()).isEqualTo(1);
+                        assertThat(notification.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(20));
+                        assertThat(notification.getLastError()).isNotBlank();
+                    });
+        }
+
+        @Test
+        @DisplayName("Should dead-letter a notification after the last attempt fails")
+        void shouldDeadLetterAfterMaxAttempts() {
+            // Given
+            notifyAndMakeDue();
+            transactionTemplate.executeWithoutResult(status -> notificationRepository.findAll()
+                    .forEach(notification -> notification.setAttempts(4)));
+            greenMail.stop();
+
+            // When
+            notificationDispatcher.dispatch();
+
+            // Then
+            assertThat(notificationRepository.findAll())
+                    .allSatisfy(notification -> assertThat(notification.getStatus()).isEqualTo(NotificationStatus.DEAD));
+            assertThat(notificationService.getNotifications(NotificationStatus.DEAD)).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("Should send a dead-lettered notification again after a retry")
+        void shouldSendAfterManualRetry() {
+            // Given
+            notifyAndMakeDue();
+            Integer id = notificationRepository.findAll().get(0).getId();
+            transactionTemplate.executeWithoutResult(status -> notificationRepository.findById(id)
+                    .ifPresent(notification -> notification.setStatus(NotificationStatus.DEAD)));
+
+            // When
+            notificationService.retryNotification(id);
+            notificationDispatcher.dispatch();
+
+            // Then
+            assertThat(notificationRepository.findById(id)).get()
+                    .extracting(Notification::getStatus).isEqualTo(NotificationStatus.SENT);
+            assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        }
+    }
+}
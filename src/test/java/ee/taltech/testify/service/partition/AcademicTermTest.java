@@ -0,0 +1,71 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.partition;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AcademicTermTest {
+
+    @ParameterizedTest
+    @CsvSource({"2024-01-31, 20232", "2024-02-01, 20241", "2024-07-31, 20241", "2024-08-01, 20242",
+            "2024-12-31, 20242"})
+    @DisplayName("Should assign January to the autumn term of the previous year")
+    void shouldResolveTermOfDate(LocalDate date, int code) {
+        // When
+        AcademicTerm term = AcademicTerm.of(date);
+
+        // Then
+        assertThat(term.code()).isEqualTo(code);
+    }
+
+    @Test
+    @DisplayName("Should step across years in chronological order")
+    void shouldStepBetweenTerms() {
+        // Given
+        AcademicTerm autumn = new AcademicTerm(20242);
+
+        // When / Then
+        assertThat(autumn.next()).isEqualTo(new AcademicTerm(20251));
+        assertThat(autumn.previous()).isEqualTo(new AcademicTerm(20241));
+        assertThat(autumn.minus(3)).isEqualTo(new AcademicTerm(20231));
+        assertThat(autumn.next().previous()).isEqualTo(autumn);
+        assertThat(autumn.minus(1)).isLessThan(autumn);
+        assertThat(autumn).hasToString("autumn 2024");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2024, 20240, 20243})
+    @DisplayName("Should reject codes that are not a year followed by 1 or 2")
+    void shouldRejectInvalidCodes(int code) {
+        // When / Then
+        assertThatThrownBy(() -> new AcademicTerm(code))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(String.valueOf(code));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.partition;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvArchiveTest {
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:csv-archive");
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[]{"source", "target"}) {
+                statement.execute("CREATE TABLE " + table + " (id BIGINT PRIMARY KEY, grade NUMERIC(5, 2), "
+                        + "feedback TEXT, submitted_at TIMESTAMP, is_graded BOOLEAN)");
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Should restore exactly the rows that were archived")
+    void shouldRoundTripRows() throws Exception {
+        // Given
+        insert(1, new BigDecimal("4.50"), "plain", LocalDateTime.of(2024, 10, 1, 12, 30, 15, 123_000_000), true);
+        insert(2, null, "with, comma and \"quotes\"\nand a second line", null, false);
+        insert(3, new BigDecimal("0.00"), "", LocalDateTime.of(2025, 1, 20, 8, 0), null);
+        insert(4, null, null, null, null);
+        StringWriter csv = new StringWriter();
+
+        // When
+        long written;
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT * FROM source ORDER BY id")) {
+            written = CsvArchive.write(rows, csv);
+        }
+        long inserted = CsvArchive.insert(new StringReader(csv.toString()), connection, "target");
+
+        // Then
+        assertThat(written).isEqualTo(4);
+        assertThat(inserted).isEqualTo(4);
+        assertThat(count("SELECT COUNT(*) FROM source s JOIN target t ON t.id = s.id "
+                + "AND t.grade IS NOT DISTINCT FROM s.grade AND t.feedback IS NOT DISTINCT FROM s.feedback "
+                + "AND t.submitted_at IS NOT DISTINCT FROM s.submitted_at "
+                + "AND t.is_graded IS NOT DISTINCT FROM s.is_graded")).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should reject rows with a different number of fields than the header")
+    void shouldRejectMalformedRows() {
+        // Given
+        String csv = "id,feedback\n1,a,b\n";
+
+        // When / Then
+        assertThatThrownBy(() -> CsvArchive.insert(new StringReader(csv), connection, "target"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Row 1");
+    }
+
+    private void insert(long id, BigDecimal grade, String feedback, LocalDateTime submittedAt, Boolean graded)
+            throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO source VALUES (?, ?, ?, ?, ?)")) {
+            statement.setLong(1, id);
+            statement.setBigDecimal(2, grade);
+            statement.setString(3, feedback);
+            statement.setTimestamp(4, submittedAt != null ? Timestamp.valueOf(submittedAt) : null);
+            statement.setObject(5, graded);
+            statement.executeUpdate();
+        }
+    }
+
+    private long count(String sql) throws Exception {
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.partition;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures current-term submission lookups while history accumulates, with and without term partitioning. Needs a
+ * scratch PostgreSQL database, e.g. the one from docker-compose:
+ * <pre>
+ * TESTIFY_BENCHMARK_POSTGRES_URL='jdbc:postgresql://localhost:5432/testify?user=testify&amp;password=testify' \
+ *     ./gradlew benchmark --tests '*TermPartitionBenchmark'
+ * </pre>
+ * Every term adds the same number of submissions to a plain table and to a table partitioned by term. After each
+ * term the same lookups of the current term are run against both, filtered by term as the application does.
+ */
+@Tag("benchmark")
+class TermPartitionBenchmark {
+    private static final String URL = System.getenv("TESTIFY_BENCHMARK_POSTGRES_URL");
+    private static final int TERMS = 12;
+    private static final int ASSIGNMENTS_PER_TERM = 500;
+    private static final int SUBMISSIONS_PER_ASSIGNMENT = 200;
+    private static final int LOOKUPS = 5_000;
+
+    @Test
+    @DisplayName("Current-term lookups should not slow down as historical partitions are added")
+    void currentTermLatency() throws SQLException {
+        assumeTrue(URL != null, "TESTIFY_BENCHMARK_POSTGRES_URL is not set");
+
+        try (Connection connection = DriverManager.getConnection(URL)) {
+            try {
+                createTables(connection);
+                AcademicTerm term = new AcademicTerm(20191);
+                long firstPartitioned = 0;
+                long lastPartitioned = 0;
+                for (int i = 0; i < TERMS; i++, term = term.next()) {
+                    addTerm(connection, term, i);
+                    long plain = run(connection, "bench_submission_plain", term, i);
+                    long partitioned = run(connection, "bench_submission_partitioned", term, i);
+                    System.out.printf("after %2d terms: %d us plain, %d us partitioned%n", i + 1, plain / 1_000,
+                            partitioned / 1_000);
+                    if (i == 1) {
+                        firstPartitioned = partitioned;
+                    }
+                    lastPartitioned = partitioned;
+                }
+
+                assertThat(lastPartitioned).isLessThan(firstPartitioned * 2);
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP TABLE IF EXISTS bench_submission_plain, bench_submission_partitioned");
+                }
+            }
+        }
+    }
+
+    private static void createTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_submission_plain, bench_submission_partitioned");
+            statement.execute("""
+                    CREATE TABLE bench_submission_plain (
+                        student_assignment_id BIGSERIAL PRIMARY KEY,
+                        assignment_id INT NOT NULL,
+                        student_id INT NOT NULL,
+                        term INT NOT NULL,
+                        grade DECIMAL(5, 2))
+                    """);
+            statement.execute("CREATE INDEX ON bench_submission_plain (assignment_id)");
+            statement.execute("""
+                    CREATE TABLE bench_submission_partitioned (
+                        student_assignment_id BIGSERIAL,
+                        assignment_id INT NOT NULL,
+                        student_id INT NOT NULL,
+                        term INT NOT NULL,
+                        grade DECIMAL(5, 2),
+                        PRIMARY KEY (student_assignment_id, term)) PARTITION BY RANGE (term)
+                    """);
+            statement.execute("CREATE INDEX ON bench_submission_partitioned (assignment_id)");
+        }
+    }
+
+    private static void addTerm(Connection connection, AcademicTerm term, int index) throws SQLException {
+        int firstAssignment = index * ASSIGNMENTS_PER_TERM + 1;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE bench_submission_partitioned_t" + term.code()
+                    + " PARTITION OF bench_submission_partitioned FOR VALUES FROM (" + term.code() + ") TO ("
+                    + (term.code() + 1) + ")");
+            for (String table : new String[]{"bench_submission_plain", "bench_submission_partitioned"}) {
+                statement.execute("INSERT INTO " + table + " (assignment_id, student_id, term, grade) "
+                        + "SELECT " + firstAssignment + " + a, s, " + term.code() + ", (s % 100) / 10.0 "
+                        + "FROM generate_series(0, " + (ASSIGNMENTS_PER_TERM - 1) + ") AS a, "
+                        + "generate_series(1, " + SUBMISSIONS_PER_ASSIGNMENT + ") AS s");
+                statement.execute("VACUUM ANALYZE " + table);
+            }
+        }
+    }
+
+    /**
+     * @return the average time per lookup in nanoseconds
+     */
+    private static long run(Connection connection, String table, AcademicTerm term, int index) throws SQLException {
+        Random random = new Random(42);
+        int firstAssignment = index * ASSIGNMENTS_PER_TERM + 1;
+        try (PreparedStatement lookup = connection.prepareStatement(
+                "SELECT student_id, grade FROM " + table + " WHERE assignment_id = ? AND term = ?")) {
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                lookup.setInt(1, firstAssignment + random.nextInt(ASSIGNMENTS_PER_TERM));
+                lookup.setInt(2, term.code());
+                try (ResultSet rows = lookup.executeQuery()) {
+                    while (rows.next()) {
+                        rows.getInt(1);
+                    }
+                }
+            }
+            return (System.nanoTime() - start) / LOOKUPS;
+        }
+    }
+}
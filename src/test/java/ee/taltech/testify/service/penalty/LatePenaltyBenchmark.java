@@ -0,0 +1,149 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.penalty;
+
+import ee.taltech.testify.dto.LatePenaltyPolicyRequestDto;
+import ee.taltech.testify.entity.LatePenaltyType;
+import ee.taltech.testify.service.LatePenaltyService;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures applying a late penalty policy to an assignment of 100 000 graded submissions, a third of them late,
+ * first when the policy is created and then when it changes. Runs against the H2 test database. Run with
+ * {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class LatePenaltyBenchmark {
+    private static final int STUDENTS = 100_000;
+
+    @Autowired
+    private LatePenaltyService latePenaltyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AuthenticatedUser admin = new AuthenticatedUser(1, AuthenticatedUser.ADMIN_ROLE, List.of(),
+            "token", 0, Long.MAX_VALUE);
+
+    private int courseId;
+    private int assignmentId;
+
+    @BeforeEach
+    void setUp() {
+        int term = AcademicTerm.current().code();
+        LocalDateTime due = LocalDateTime.now().minusDays(7);
+        jdbcTemplate.update("INSERT INTO course (course_name, term) VALUES ('Late penalty benchmark', ?)", term);
+        courseId = jdbcTemplate.queryForObject(
+                "SELECT course_id FROM course WHERE course_name = 'Late penalty benchmark'", Integer.class);
+        jdbcTemplate.update("INSERT INTO assignment (course_id, title, max_grade, is_autotested, due_date_time) "
+                + "VALUES (?, 'Late penalty', 10, false, ?)", courseId, Timestamp.valueOf(due));
+        assignmentId = jdbcTemplate.queryForObject("SELECT assignment_id FROM assignment WHERE course_id = ?",
+                Integer.class, courseId);
+        jdbcTemplate.update("INSERT INTO grading_element (assignment_id, element_name, max_points, is_deduction) "
+                + "VALUES (?, 'Correctness', 10, false)", assignmentId);
+        int gradingElementId = jdbcTemplate.queryForObject(
+                "SELECT grading_element_id FROM grading_element WHERE assignment_id = ?", Integer.class, assignmentId);
+
+        int roleId = jdbcTemplate.queryForObject(
+                "SELECT user_role_id FROM user_role WHERE user_role_name = 'Student'", Integer.class);
+        jdbcTemplate.batchUpdate("INSERT INTO app_user (first_name, last_name, email, hashed_password, user_role_id) "
+                        + "VALUES ('Late', 'Penalty', ?, 'hash', ?)",
+                IntStream.range(0, STUDENTS)
+                        .mapToObj(i -> new Object[]{"late.penalty." + i + "@taltech.ee", roleId})
+                        .toList());
+        Random random = new Random(42);
+        List<Integer> studentIds = jdbcTemplate.queryForList(
+                "SELECT app_user_id FROM app_user WHERE email LIKE 'late.penalty.%'", Integer.class);
+        jdbcTemplate.batchUpdate("INSERT INTO student_assignment (student_id, assignment_id, term, "
+                        + "submission_date_time) VALUES (?, ?, ?, ?)",
+                studentIds.stream()
+                        .map(studentId -> new Object[]{studentId, assignmentId, term,
+                                Timestamp.valueOf(due.plusMinutes(random.nextInt(3 * 24 * 60) - 2 * 24 * 60))})
+                        .toList());
+        jdbcTemplate.update("INSERT INTO student_grading_element (student_assignment_id, grading_element_id, "
+                + "points_awarded, term) SELECT student_assignment_id, ?, 8, term FROM student_assignment "
+                + "WHERE assignment_id = ?", gradingElementId, assignmentId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM student_grading_element WHERE grading_element_id IN "
+                + "(SELECT grading_element_id FROM grading_element WHERE assignment_id = ?)", assignmentId);
+        jdbcTemplate.update("DELETE FROM student_assignment WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM app_user WHERE email LIKE 'late.penalty.%'");
+        jdbcTemplate.update("DELETE FROM late_penalty_policy WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM grading_element WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM assignment WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM course WHERE course_id = ?", courseId);
+    }
+
+    @Test
+    @DisplayName("Applying a policy to 100 000 submissions should take seconds")
+    void applyPolicy() {
+        long start = System.nanoTime();
+        long created = latePenaltyService.savePolicy(assignmentId, policy(LatePenaltyType.LINEAR), admin)
+                .getPenalizedCount();
+        long createTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long changed = latePenaltyService.savePolicy(assignmentId, policy(LatePenaltyType.STEPPED), admin)
+                .getPenalizedCount();
+        long changeTime = System.nanoTime() - start;
+
+        System.out.printf("late penalty: %d submissions, created in %.0f ms (%d penalized), changed in %.0f ms "
+                + "(%d penalized)%n", STUDENTS, createTime / 1e6, created, changeTime / 1e6, changed);
+        assertThat(created).isBetween(STUDENTS / 4L, STUDENTS / 2L);
+        assertThat(changed).isGreaterThanOrEqualTo(created);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_assignment WHERE assignment_id = ? "
+                + "AND grade < 8", Long.class, assignmentId)).isEqualTo(changed);
+        assertThat(createTime).isLessThan(10_000_000_000L);
+        assertThat(changeTime).isLessThan(10_000_000_000L);
+    }
+
+    private static LatePenaltyPolicyRequestDto policy(LatePenaltyType type) {
+        LatePenaltyPolicyRequestDto dto = new LatePenaltyPolicyRequestDto();
+        dto.setPenaltyType(type);
+        dto.setPercent(BigDecimal.TEN);
+        dto.setStepHours(type == LatePenaltyType.STEPPED ? 24 : null);
+        dto.setMaxPercent(BigDecimal.valueOf(50));
+        return dto;
+    }
+}
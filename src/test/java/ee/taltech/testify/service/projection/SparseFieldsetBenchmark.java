@@ -0,0 +1,144 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.projection;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.repository.AssignmentProjection;
+import ee.taltech.testify.service.CourseService;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares listing the assignments of a large course with all fields, with {@code fields=id,title} and by loading
+ * whole entities as before sparse fieldsets. Every assignment has an 8 kB description, about the size of a typical
+ * task statement. Runs against the H2 test database, so it shows the cost of reading and serializing the columns
+ * rather than of sending them over a network. Run with {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class SparseFieldsetBenchmark {
+    private static final int ASSIGNMENTS = 2_000;
+    private static final int DESCRIPTION_LENGTH = 8_192;
+    private static final int RUNS = 30;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AuthenticatedUser admin = new AuthenticatedUser(1, AuthenticatedUser.ADMIN_ROLE, List.of(),
+            "token", 0, Long.MAX_VALUE);
+
+    private int courseId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO course (course_name, term) VALUES ('Sparse fieldset benchmark', ?)",
+                AcademicTerm.current().code());
+        courseId = jdbcTemplate.queryForObject(
+                "SELECT course_id FROM course WHERE course_name = 'Sparse fieldset benchmark'", Integer.class);
+        String description = "x".repeat(DESCRIPTION_LENGTH);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO assignment (course_id, title, description, max_grade, is_autotested) "
+                        + "VALUES (?, ?, ?, 10, false)",
+                IntStream.range(0, ASSIGNMENTS)
+                        .mapToObj(i -> new Object[]{courseId, "Assignment " + i, description})
+                        .toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM assignment WHERE course_id = ?", courseId);
+        jdbcTemplate.update("DELETE FROM course WHERE course_id = ?", courseId);
+    }
+
+    @Test
+    @DisplayName("Listing ids and titles should be smaller and faster than listing every field")
+    void sparseVersusFull() throws Exception {
+        SparseFieldset full = SparseFieldset.parse(null, AssignmentProjection.class);
+        SparseFieldset sparse = SparseFieldset.parse("id,title", AssignmentProjection.class);
+
+        long entityTime = median(() -> transactionTemplate.execute(status -> entityManager
+                .createQuery("SELECT a FROM Assignment a WHERE a.course.id = :courseId ORDER BY a.id",
+                        Assignment.class)
+                .setParameter("courseId", courseId)
+                .getResultList()));
+        long fullTime = median(() -> courseService.getAssignments(courseId, full, admin));
+        long sparseTime = median(() -> courseService.getAssignments(courseId, sparse, admin));
+
+        int fullBytes = serialize(full.apply(courseService.getAssignments(courseId, full, admin)));
+        int sparseBytes = serialize(sparse.apply(courseService.getAssignments(courseId, sparse, admin)));
+
+        System.out.printf("sparse fieldsets: %d assignments, entities %.1f ms, all fields %.1f ms / %d kB, "
+                        + "id,title %.1f ms / %d kB%n", ASSIGNMENTS, entityTime / 1e6, fullTime / 1e6,
+                fullBytes / 1024, sparseTime / 1e6, sparseBytes / 1024);
+        assertThat(sparseBytes).isLessThan(fullBytes / 10);
+        assertThat(sparseTime).isLessThan(fullTime);
+    }
+
+    private int serialize(MappingJacksonValue value) throws Exception {
+        return objectMapper.writer(value.getFilters()).writeValueAsBytes(value.getValue()).length;
+    }
+
+    private static long median(Supplier<?> query) {
+        for (int i = 0; i < 5; i++) {
+            query.get();
+        }
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.projection;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.testify.dto.CourseResponseDto;
+import ee.taltech.testify.exception.InvalidRequestException;
+import ee.taltech.testify.repository.AssignmentProjection;
+import ee.taltech.testify.repository.CourseProjection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SparseFieldsetTest {
+
+    @Test
+    @DisplayName("Should select every component of the projection when no fields are given")
+    void shouldSelectAllFieldsByDefault() {
+        // When
+        SparseFieldset fieldset = SparseFieldset.parse(" ", AssignmentProjection.class);
+
+        // Then
+        assertThat(fieldset.getFields()).containsExactly("id", "courseId", "title", "description", "maxGrade",
+                "dueDateTime", "isAutotested", "autotesterId");
+    }
+
+    @Test
+    @DisplayName("Should always include the id and ignore blanks and duplicates")
+    void shouldParseRequestedFields() {
+        // When
+        SparseFieldset fieldset = SparseFieldset.parse("title, ,maxGrade,title", AssignmentProjection.class);
+
+        // Then
+        assertThat(fieldset.getFields()).containsExactly("id", "title", "maxGrade");
+    }
+
+    @Test
+    @DisplayName("Should reject fields the projection does not have")
+    void shouldRejectUnknownFields() {
+        // When / Then
+        assertThatThrownBy(() -> SparseFieldset.parse("title,gitlabToken", AssignmentProjection.class))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("gitlabToken");
+    }
+
+    @Test
+    @DisplayName("Should serialize only the requested properties")
+    void shouldFilterSerializedProperties() throws Exception {
+        // Given
+        CourseResponseDto course = new CourseResponseDto();
+        course.setId(1);
+        course.setCourseName("Algorithms");
+        course.setDescription("Long description");
+        MappingJacksonValue value = SparseFieldset.parse("courseName", CourseProjection.class).apply(List.of(course));
+
+        // When
+        String json = new ObjectMapper().writer(value.getFilters()).writeValueAsString(value.getValue());
+
+        // Then
+        assertThat(json).isEqualTo("[{\"id\":1,\"courseName\":\"Algorithms\"}]");
+    }
+}
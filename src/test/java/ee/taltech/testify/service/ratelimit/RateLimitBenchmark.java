@@ -0,0 +1,78 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the per-request overhead of the in-memory limiter. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class RateLimitBenchmark {
+    private static final int USERS = 50_000;
+    private static final int ITERATIONS = 5_000_000;
+    private static final RateLimitPolicy POLICY = RateLimitPolicy.of(1_000_000, 1_000_000);
+
+    @Test
+    @DisplayName("In-memory acquisition should cost well under a microsecond")
+    void inMemoryAcquireOverhead() throws Exception {
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore();
+        run(store, 1_000_000);
+
+        long singleThreaded = run(store, ITERATIONS);
+        System.out.printf("rate limit: single thread %d ns/op%n", singleThreaded);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Future<Long>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> run(store, ITERATIONS)));
+            }
+            long worst = 0;
+            for (Future<Long> result : results) {
+                worst = Math.max(worst, result.get());
+            }
+            System.out.printf("rate limit: %d threads, worst %d ns/op%n", threads, worst);
+            assertThat(worst).isLessThan(1_000);
+        }
+        assertThat(singleThreaded).isLessThan(1_000);
+    }
+
+    private static long run(InMemoryRateLimitStore store, int iterations) {
+        long start = System.nanoTime();
+        long rejected = 0;
+        for (int i = 0; i < iterations; i++) {
+            rejected += store.tryAcquire(RateLimitScope.STUDENT, i % USERS, POLICY);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(rejected).isZero();
+        return elapsed / iterations;
+    }
+}
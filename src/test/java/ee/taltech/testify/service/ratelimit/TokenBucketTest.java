@@ -0,0 +1,145 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Nested
+    @DisplayName("tryAcquire Tests")
+    class TryAcquireTests {
+
+        @Test
+        @DisplayName("Should admit a full burst and reject the next request")
+        void shouldAdmitBurstUpToCapacity() {
+            // Given
+            RateLimitPolicy policy = RateLimitPolicy.of(5, 60);
+            TokenBucket bucket = new TokenBucket(0);
+
+            // When
+            int admitted = 0;
+            for (int i = 0; i < 5; i++) {
+                if (bucket.tryAcquire(0, policy) == 0) {
+                    admitted++;
+                }
+            }
+
+            // Then
+            assertThat(admitted).isEqualTo(5);
+            assertThat(bucket.tryAcquire(0, policy)).isEqualTo(SECOND);
+        }
+
+        @Test
+        @DisplayName("Should refill one token per emission interval")
+        void shouldRefillOverTime() {
+            // Given
+            RateLimitPolicy policy = RateLimitPolicy.of(2, 60);
+            TokenBucket bucket = new TokenBucket(0);
+            bucket.tryAcquire(0, policy);
+            bucket.tryAcquire(0, policy);
+
+            // When / Then
+            assertThat(bucket.tryAcquire(SECOND / 2, policy)).isEqualTo(SECOND / 2);
+            assertThat(bucket.tryAcquire(SECOND, policy)).isZero();
+            assertThat(bucket.tryAcquire(SECOND, policy)).isPositive();
+        }
+
+        @Test
+        @DisplayName("Should not accumulate more tokens than the capacity while idle")
+        void shouldCapTokensAtCapacity() {
+            // Given
+            RateLimitPolicy policy = RateLimitPolicy.of(3, 60);
+            TokenBucket bucket = new TokenBucket(0);
+            long later = 3600 * SECOND;
+
+            // When
+            int admitted = 0;
+            while (bucket.tryAcquire(later, policy) == 0) {
+                admitted++;
+            }
+
+            // Then
+            assertThat(admitted).isEqualTo(3);
+            assertThat(bucket.isFull(later)).isFalse();
+            assertThat(bucket.isFull(later + 3 * SECOND)).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("InMemoryRateLimitStore Tests")
+    class InMemoryRateLimitStoreTests {
+
+        @Test
+        @DisplayName("Should keep separate buckets per scope and id")
+        void shouldKeepSeparateBuckets() {
+            // Given
+            InMemoryRateLimitStore store = new InMemoryRateLimitStore(() -> 0L);
+            RateLimitPolicy policy = RateLimitPolicy.of(1, 1);
+
+            // When / Then
+            assertThat(store.tryAcquire(RateLimitScope.STUDENT, 1, policy)).isZero();
+            assertThat(store.tryAcquire(RateLimitScope.STUDENT, 1, policy)).isPositive();
+            assertThat(store.tryAcquire(RateLimitScope.STUDENT, 2, policy)).isZero();
+            assertThat(store.tryAcquire(RateLimitScope.COURSE, 1, policy)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should give back a released token")
+        void shouldGiveBackReleasedToken() {
+            // Given
+            InMemoryRateLimitStore store = new InMemoryRateLimitStore(() -> 0L);
+            RateLimitPolicy policy = RateLimitPolicy.of(1, 1);
+            store.tryAcquire(RateLimitScope.STUDENT, 1, policy);
+
+            // When
+            store.release(RateLimitScope.STUDENT, 1, policy);
+
+            // Then
+            assertThat(store.tryAcquire(RateLimitScope.STUDENT, 1, policy)).isZero();
+            assertThat(store.tryAcquire(RateLimitScope.STUDENT, 1, policy)).isPositive();
+        }
+
+        @Test
+        @DisplayName("Should evict only buckets that have refilled")
+        void shouldEvictFullBuckets() {
+            // Given
+            AtomicLong clock = new AtomicLong();
+            InMemoryRateLimitStore store = new InMemoryRateLimitStore(clock::get);
+            store.tryAcquire(RateLimitScope.STUDENT, 1, RateLimitPolicy.of(1, 60));
+            store.tryAcquire(RateLimitScope.STUDENT, 2, RateLimitPolicy.of(1, 1));
+
+            // When
+            clock.set(2 * SECOND);
+            store.evictFullBuckets();
+
+            // Then
+            assertThat(store.size()).isEqualTo(1);
+        }
+    }
+}
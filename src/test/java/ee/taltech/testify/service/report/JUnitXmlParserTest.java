@@ -0,0 +1,115 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.report;
+
+import ee.taltech.testify.exception.InvalidRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JUnitXmlParserTest {
+    private final JUnitXmlParser parser = new JUnitXmlParser();
+
+    private List<TestCaseResult> parse(String xml) {
+        List<TestCaseResult> results = new ArrayList<>();
+        parser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), results::add);
+        return results;
+    }
+
+    @Test
+    @DisplayName("Should read the outcome and duration of every test case in nested suites")
+    void shouldReadTestCases() {
+        // Given
+        String xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <testsuites>
+                  <testsuite name="ee.taltech.StackTest" tests="3">
+                    <properties><property name="java.version" value="21"/></properties>
+                    <testcase classname="ee.taltech.StackTest" name="push" time="0.01"/>
+                    <testcase classname="ee.taltech.StackTest" name="pop" time="0.02">
+                      <failure message="expected 1 but was 2" type="AssertionError">stack trace</failure>
+                      <system-out>debug output</system-out>
+                    </testcase>
+                    <testcase classname="ee.taltech.StackTest" name="peek" time="1,002.5">
+                      <skipped/>
+                    </testcase>
+                    <testsuite name="nested">
+                      <testcase classname="ee.taltech.QueueTest" name="offer">
+                        <error type="NullPointerException"/>
+                      </testcase>
+                      <testcase classname="ee.taltech.QueueTest" name="poll">
+                        <flakyFailure message="failed once"/>
+                      </testcase>
+                    </testsuite>
+                  </testsuite>
+                </testsuites>
+                """;
+
+        // When
+        List<TestCaseResult> results = parse(xml);
+
+        // Then
+        assertThat(results).containsExactly(
+                new TestCaseResult("ee.taltech.StackTest", "push", TestOutcome.PASSED, 10),
+                new TestCaseResult("ee.taltech.StackTest", "pop", TestOutcome.FAILED, 20),
+                new TestCaseResult("ee.taltech.StackTest", "peek", TestOutcome.SKIPPED, 1_002_500),
+                new TestCaseResult("ee.taltech.QueueTest", "offer", TestOutcome.ERROR),
+                new TestCaseResult("ee.taltech.QueueTest", "poll", TestOutcome.PASSED));
+    }
+
+    @Test
+    @DisplayName("Should not resolve external entities")
+    void shouldNotResolveExternalEntities() throws IOException {
+        // Given
+        Path secret = Files.createTempFile("testify-secret", ".txt");
+        Files.writeString(secret, "secret");
+        String xml = """
+                <?xml version="1.0"?>
+                <!DOCTYPE testsuite [<!ENTITY secret SYSTEM "%s">]>
+                <testsuite><testcase classname="Leak" name="&secret;"/></testsuite>
+                """.formatted(secret.toUri());
+
+        try {
+            // When / Then
+            assertThatThrownBy(() -> parse(xml)).isInstanceOf(InvalidRequestException.class);
+        } finally {
+            Files.delete(secret);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject malformed reports")
+    void shouldRejectMalformedReports() {
+        // When / Then
+        assertThatThrownBy(() -> parse("<testsuite><testcase name=\"a\"></testsuite>"))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageStartingWith("Malformed JUnit XML report");
+    }
+}
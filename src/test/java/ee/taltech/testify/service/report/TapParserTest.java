@@ -0,0 +1,85 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.report;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TapParserTest {
+    private final TapParser parser = new TapParser();
+
+    private List<TestCaseResult> parse(String tap) throws IOException {
+        List<TestCaseResult> results = new ArrayList<>();
+        parser.parse(new ByteArrayInputStream(tap.getBytes(StandardCharsets.UTF_8)), results::add);
+        return results;
+    }
+
+    @Test
+    @DisplayName("Should read top-level test points and their directives")
+    void shouldReadTestPoints() throws IOException {
+        // Given
+        String tap = """
+                TAP version 14
+                1..6
+                ok 1 - parses empty input
+                not ok 2 - handles unicode
+                  ---
+                  message: 'expected ä'
+                  ...
+                # Subtest: nested
+                    ok 1 - inner test
+                    1..1
+                ok 3 - nested
+                not ok 4 - sorts in place # TODO not implemented yet
+                ok 5 # skip no network
+                not ok
+                """;
+
+        // When
+        List<TestCaseResult> results = parse(tap);
+
+        // Then
+        assertThat(results).containsExactly(
+                new TestCaseResult("", "parses empty input", TestOutcome.PASSED),
+                new TestCaseResult("", "handles unicode", TestOutcome.FAILED),
+                new TestCaseResult("", "nested", TestOutcome.PASSED),
+                new TestCaseResult("", "sorts in place", TestOutcome.SKIPPED),
+                new TestCaseResult("", "test 5", TestOutcome.SKIPPED),
+                new TestCaseResult("", "test 6", TestOutcome.FAILED));
+    }
+
+    @Test
+    @DisplayName("Should stop reading when the run bails out")
+    void shouldStopAtBailOut() throws IOException {
+        // When
+        List<TestCaseResult> results = parse("1..3\nok 1 - first\nBail out! Database unavailable\nok 2 - second\n");
+
+        // Then
+        assertThat(results).extracting(TestCaseResult::name).containsExactly("first");
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.report;
+
+import ee.taltech.testify.entity.TestScoring;
+import ee.taltech.testify.repository.GradingRule;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures parse throughput and retained heap of the streaming test report parsers on large synthetic reports: a
+ * JUnit XML report of 100 000 test cases, a tenth of them failing with a stack trace and all with captured output,
+ * and a TAP report of as many test points with YAML diagnostics, each scored against 20 grading rules. The JUnit
+ * report is also loaded into a DOM for comparison. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class TestReportParserBenchmark {
+    private static final int CLASSES = 1_000;
+    private static final int TESTS_PER_CLASS = 100;
+    private static final int RUNS = 5;
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private static Path junitReport;
+    private static Path tapReport;
+
+    @BeforeAll
+    static void writeReports() throws IOException {
+        junitReport = Files.createTempFile("testify-report", ".xml");
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(junitReport))) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuites>\n");
+            for (int c = 0; c < CLASSES; c++) {
+                String className = "ee.taltech.exercise" + (c % 20) + ".Class" + c + "Test";
+                out.write("  <testsuite name=\"" + className + "\" tests=\"" + TESTS_PER_CLASS + "\">\n");
+                for (int t = 0; t < TESTS_PER_CLASS; t++) {
+                    out.write("    <testcase classname=\"" + className + "\" name=\"test" + t
+                            + "\" time=\"0.001\">\n");
+                    if (t % 10 == 0) {
+                        out.write("      <failure message=\"expected: &lt;1&gt; but was: &lt;2&gt;\" "
+                                + "type=\"org.opentest4j.AssertionFailedError\">");
+                        for (int frame = 0; frame < 20; frame++) {
+                            out.write("\tat " + className + ".test" + t + "(" + className + ".java:" + frame
+                                    + ")\n");
+                        }
+                        out.write("</failure>\n");
+                    }
+                    out.write("      <system-out><![CDATA[" + "output line of the student program\n".repeat(10)
+                            + "]]></system-out>\n");
+                    out.write("    </testcase>\n");
+                }
+                out.write("  </testsuite>\n");
+            }
+            out.write("</testsuites>\n");
+        }
+
+        tapReport = Files.createTempFile("testify-report", ".tap");
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(tapReport))) {
+            out.write("TAP version 14\n1.." + CLASSES * TESTS_PER_CLASS + "\n");
+            for (int i = 1; i <= CLASSES * TESTS_PER_CLASS; i++) {
+                if (i % 10 == 0) {
+                    out.write("not ok " + i + " - exercise " + (i % 20) + " case " + i + "\n");
+                    out.write("  ---\n  message: 'expected 1 but was 2'\n  severity: fail\n  ...\n");
+                } else {
+                    out.write("ok " + i + " - exercise " + (i % 20) + " case " + i + "\n");
+                }
+            }
+        }
+    }
+
+    @AfterAll
+    static void deleteReports() throws IOException {
+        Files.deleteIfExists(junitReport);
+        Files.deleteIfExists(tapReport);
+    }
+
+    @Test
+    @DisplayName("Streaming parsers should be fast and retain far less heap than a DOM")
+    void streamingParsers() throws Exception {
+        List<GradingRule> junitRules = new ArrayList<>();
+        List<GradingRule> tapRules = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            junitRules.add(new GradingRule(i, BigDecimal.TEN, false, "ee\\.taltech\\.exercise" + i + "\\..*",
+                    TestScoring.PROPORTIONAL));
+            tapRules.add(new GradingRule(i, BigDecimal.TEN, false, "exercise " + i + " case .*",
+                    TestScoring.PROPORTIONAL));
+        }
+
+        long junitTime = median(() -> parse(new JUnitXmlParser(), junitReport, junitRules));
+        long tapTime = median(() -> parse(new TapParser(), tapReport, tapRules));
+        long domTime = median(() -> dom(junitReport));
+
+        long streamingRetained = retained(() -> parse(new JUnitXmlParser(), junitReport, junitRules));
+        long domRetained = retained(() -> dom(junitReport));
+
+        double junitMegabytes = Files.size(junitReport) / 1e6;
+        double tapMegabytes = Files.size(tapReport) / 1e6;
+        System.out.printf("test reports: JUnit XML %.1f MB in %.0f ms (%.0f MB/s), TAP %.1f MB in %.0f ms "
+                        + "(%.0f MB/s), DOM %.0f ms; retained heap streaming %d kB, DOM %d kB%n",
+                junitMegabytes, junitTime / 1e6, junitMegabytes / (junitTime / 1e9), tapMegabytes, tapTime / 1e6,
+                tapMegabytes / (tapTime / 1e9), domTime / 1e6, streamingRetained / 1024, domRetained / 1024);
+
+        assertThat(parse(new JUnitXmlParser(), junitReport, junitRules).getTests())
+                .isEqualTo(CLASSES * TESTS_PER_CLASS);
+        assertThat(streamingRetained).isLessThan(domRetained / 100);
+        assertThat(junitTime).isLessThan(domTime);
+    }
+
+    private static TestReportScorer parse(TestReportParser parser, Path report, List<GradingRule> rules)
+            throws IOException {
+        TestReportScorer scorer = new TestReportScorer(rules);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(report))) {
+            parser.parse(in, scorer);
+        }
+        return scorer;
+    }
+
+    private static Document dom(Path report) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(report.toFile());
+    }
+
+    /**
+     * @return the heap still in use after a full collection while the result of the parse is reachable
+     */
+    private static long retained(Callable<?> parse) throws Exception {
+        System.gc();
+        long before = MEMORY.getHeapMemoryUsage().getUsed();
+        Object result = parse.call();
+        System.gc();
+        long after = MEMORY.getHeapMemoryUsage().getUsed();
+        assertThat(result).isNotNull();
+        return Math.max(after - before, 0);
+    }
+
+    private static long median(Callable<?> run) throws Exception {
+        run.call();
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.call();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
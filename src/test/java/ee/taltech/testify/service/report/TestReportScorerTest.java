@@ -0,0 +1,116 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.report;
+
+import ee.taltech.testify.entity.TestScoring;
+import ee.taltech.testify.repository.GradingRule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestReportScorerTest {
+
+    private static GradingRule rule(int id, String maxPoints, boolean isDeduction, String pattern,
+                                    TestScoring scoring) {
+        return new GradingRule(id, new BigDecimal(maxPoints), isDeduction, pattern, scoring);
+    }
+
+    private static TestReportScorer score(List<GradingRule> rules, TestCaseResult... results) {
+        TestReportScorer scorer = new TestReportScorer(rules);
+        for (TestCaseResult result : results) {
+            scorer.accept(result);
+        }
+        return scorer;
+    }
+
+    private static final TestCaseResult[] RESULTS = {
+            new TestCaseResult("ee.taltech.StackTest", "push", TestOutcome.PASSED),
+            new TestCaseResult("ee.taltech.StackTest", "pop", TestOutcome.FAILED),
+            new TestCaseResult("ee.taltech.StackTest", "peek", TestOutcome.PASSED),
+            new TestCaseResult("ee.taltech.StackTest", "clear", TestOutcome.SKIPPED),
+            new TestCaseResult("ee.taltech.QueueTest", "offer", TestOutcome.PASSED),
+            new TestCaseResult("ee.taltech.QueueTest", "poll", TestOutcome.ERROR)
+    };
+
+    @Test
+    @DisplayName("Should select test classes or single test cases and leave out skipped tests")
+    void shouldScoreProportionally() {
+        // When
+        TestReportScorer scorer = score(List.of(
+                rule(1, "10", false, "ee\\.taltech\\.StackTest", TestScoring.PROPORTIONAL),
+                rule(2, "5", false, ".*#(offer|push)", TestScoring.PROPORTIONAL)), RESULTS);
+
+        // Then
+        assertThat(scorer.getTests()).isEqualTo(6);
+        assertThat(scorer.getPassed()).isEqualTo(3);
+        assertThat(scorer.getFailed()).isEqualTo(2);
+        assertThat(scorer.getSkipped()).isEqualTo(1);
+        assertThat(scorer.getScores()).containsExactly(
+                new ElementScore(1, 3, 2, new BigDecimal("6.66"),
+                        "2/3 tests passed; failed: ee.taltech.StackTest#pop"),
+                new ElementScore(2, 2, 2, new BigDecimal("5.00"), "2/2 tests passed"));
+    }
+
+    @Test
+    @DisplayName("Should award all or nothing and deduct for failures")
+    void shouldScoreAllOrNothingAndDeductions() {
+        // When
+        TestReportScorer scorer = score(List.of(
+                rule(1, "4", false, "ee\\.taltech\\.QueueTest", TestScoring.ALL_OR_NOTHING),
+                rule(2, "2", true, "ee\\.taltech\\.StackTest", TestScoring.ALL_OR_NOTHING),
+                rule(3, "3", true, ".*", TestScoring.PROPORTIONAL),
+                rule(4, "1", false, "ee\\.taltech\\.GraphTest", TestScoring.PROPORTIONAL)), RESULTS);
+
+        // Then
+        assertThat(scorer.getScores()).extracting(ElementScore::points).containsExactly(
+                new BigDecimal("0.00"), new BigDecimal("2.00"), new BigDecimal("1.20"), new BigDecimal("0.00"));
+        assertThat(scorer.getScores().get(3).feedback()).isEqualTo("No tests ran");
+    }
+
+    @Test
+    @DisplayName("Should name only the first failed tests in the feedback")
+    void shouldLimitFailedNames() {
+        // Given
+        TestReportScorer scorer = new TestReportScorer(List.of(rule(1, "10", false, ".*", TestScoring.PROPORTIONAL)));
+
+        // When
+        for (int i = 0; i < 8; i++) {
+            scorer.accept(new TestCaseResult("", "case " + i, TestOutcome.FAILED));
+        }
+
+        // Then
+        assertThat(scorer.getScores().getFirst().feedback())
+                .isEqualTo("0/8 tests passed; failed: case 0, case 1, case 2, case 3, case 4 and 3 more");
+    }
+
+    @Test
+    @DisplayName("Should reject invalid patterns")
+    void shouldRejectInvalidPatterns() {
+        // When / Then
+        assertThatThrownBy(() -> new TestReportScorer(List.of(rule(7, "1", false, "(", TestScoring.PROPORTIONAL))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("grading element 7");
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.rubric;
+
+import ee.taltech.testify.entity.RubricVersion;
+import ee.taltech.testify.entity.TestScoring;
+import ee.taltech.testify.repository.GradingRule;
+import ee.taltech.testify.repository.RubricVersionNumber;
+import ee.taltech.testify.repository.RubricVersionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RubricSnapshotCacheTest {
+    private static final int ASSIGNMENT_ID = 7;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final RubricVersionRepository rubricVersionRepository = mock(RubricVersionRepository.class);
+    private final RubricSnapshotCache cache = new RubricSnapshotCache(jdbcTemplate, rubricVersionRepository);
+
+    private static GradingRule element(int id, String maxPoints, boolean isDeduction, String testPattern) {
+        return new GradingRule(id, new BigDecimal(maxPoints), isDeduction, testPattern, TestScoring.PROPORTIONAL);
+    }
+
+    private static RubricVersion version(int id, int version) {
+        RubricVersion rubricVersion = new RubricVersion();
+        rubricVersion.setId(id);
+        rubricVersion.setVersion(version);
+        return rubricVersion;
+    }
+
+    private static RowMapper<GradingRule> elementMapper() {
+        return any();
+    }
+
+    private void givenElements(String table, List<GradingRule> elements) {
+        when(jdbcTemplate.query(contains("FROM " + table), elementMapper(), any(Object[].class)))
+                .thenReturn(elements);
+    }
+
+    @Nested
+    @DisplayName("Snapshots")
+    class SnapshotTests {
+
+        @Test
+        @DisplayName("Should find grading elements by ID whatever order they are given in")
+        void shouldFindElements() {
+            // When
+            RubricSnapshot snapshot = RubricSnapshot.of(1, List.of(element(30, "2", true, null),
+                    element(10, "5", false, "Ex01.*"), element(20, "3", false, null)));
+
+            // Then
+            assertThat(snapshot.size()).isEqualTo(3);
+            assertThat(snapshot.indexOf(10)).isZero();
+            assertThat(snapshot.getMaxPoints(snapshot.indexOf(20))).isEqualByComparingTo("3");
+            assertThat(snapshot.isDeduction(snapshot.indexOf(30))).isTrue();
+            assertThat(snapshot.indexOf(15)).isEqualTo(-1);
+            assertThat(snapshot.indexOf(40)).isEqualTo(-1);
+        }
+
+        @Test
+        @DisplayName("Should score test reports only against grading elements with a test pattern")
+        void shouldExposeRules() {
+            // When
+            RubricSnapshot snapshot = RubricSnapshot.of(1, List.of(element(20, "2", false, "Ex02.*"),
+                    element(10, "5", false, null), element(5, "3", false, "Ex01.*")));
+
+            // Then
+            assertThat(snapshot.getRules()).extracting(GradingRule::id).containsExactly(5, 20);
+            assertThatThrownBy(() -> snapshot.getRules().clear()).isInstanceOf(UnsupportedOperationException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject a grading element given twice")
+        void shouldRejectDuplicates() {
+            // When & Then
+            assertThatThrownBy(() -> RubricSnapshot.of(1, List.of(element(10, "5", false, null),
+                    element(10, "3", false, null)))).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Cache")
+    class CacheTests {
+
+        @Test
+        @DisplayName("Should read the grading elements on every call until a rubric is published")
+        void shouldReadDraftUntilPublished() {
+            // Given
+            when(rubricVersionRepository.findFirstByAssignmentIdOrderByVersionDesc(ASSIGNMENT_ID))
+                    .thenReturn(Optional.empty());
+            givenElements("grading_element", List.of(element(10, "5", false, null)));
+
+            // When
+            RubricSnapshot first = cache.get(ASSIGNMENT_ID);
+            RubricSnapshot second = cache.get(ASSIGNMENT_ID);
+
+            // Then
+            assertThat(first.isPublished()).isFalse();
+            assertThat(second.size()).isEqualTo(1);
+            verify(rubricVersionRepository, times(1)).findFirstByAssignmentIdOrderByVersionDesc(ASSIGNMENT_ID);
+            verify(jdbcTemplate, times(2)).query(contains("FROM grading_element"), elementMapper(),
+                    eq(ASSIGNMENT_ID));
+        }
+
+        @Test
+        @DisplayName("Should load the latest published version once and share it")
+        void shouldLoadPublishedOnce() {
+            // Given
+            when(rubricVersionRepository.findFirstByAssignmentIdOrderByVersionDesc(ASSIGNMENT_ID))
+                    .thenReturn(Optional.of(version(100, 2)));
+            givenElements("rubric_element", List.of(element(10, "5", false, "Ex01.*")));
+
+            // When
+            RubricSnapshot first = cache.get(ASSIGNMENT_ID);
+            RubricSnapshot second = cache.get(ASSIGNMENT_ID);
+
+            // Then
+            assertThat(first.getVersion()).isEqualTo(2);
+            assertThat(second).isSameAs(first);
+            verify(jdbcTemplate, times(1)).query(contains("FROM rubric_element"), elementMapper(), eq(100));
+        }
+
+        @Test
+        @DisplayName("Should only replace a cached rubric with a later version")
+        void shouldKeepLatestVersion() {
+            // Given
+            RubricSnapshot second = RubricSnapshot.of(2, List.of(element(10, "5", false, null)));
+            RubricSnapshot first = RubricSnapshot.of(1, List.of(element(10, "4", false, null)));
+            cache.put(ASSIGNMENT_ID, second);
+
+            // When
+            RubricSnapshot cached = cache.put(ASSIGNMENT_ID, first);
+
+            // Then
+            assertThat(cached).isSameAs(second);
+            assertThat(cache.get(ASSIGNMENT_ID)).isSameAs(second);
+        }
+
+        @Test
+        @DisplayName("Should drop rubrics superseded by a version published elsewhere")
+        void shouldDropSupersededVersions() {
+            // Given
+            cache.put(ASSIGNMENT_ID, RubricSnapshot.of(1, List.of(element(10, "4", false, null))));
+            when(rubricVersionRepository.findLatestVersions())
+                    .thenReturn(List.of(new RubricVersionNumber(ASSIGNMENT_ID, 2)));
+            when(rubricVersionRepository.findFirstByAssignmentIdOrderByVersionDesc(ASSIGNMENT_ID))
+                    .thenReturn(Optional.of(version(101, 2)));
+            givenElements("rubric_element", List.of(element(10, "5", false, null)));
+
+            // When
+            cache.refresh();
+
+            // Then
+            RubricSnapshot reloaded = cache.get(ASSIGNMENT_ID);
+            assertThat(reloaded.getVersion()).isEqualTo(2);
+            assertThat(reloaded.getMaxPoints(0)).isEqualByComparingTo("5");
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.scheduling;
+
+import ee.taltech.testify.dto.AutotestQueueDto;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.repository.AssignmentRepository;
+import ee.taltech.testify.repository.AutotestJobRepository;
+import ee.taltech.testify.service.ConfigurationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for FairShareScheduler, against an in-memory model of the queued jobs and assignment passes.
+ */
+@DisplayName("FairShareScheduler Tests")
+class FairShareSchedulerTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 10, 1, 12, 0);
+
+    @Mock
+    private ConfigurationService configurationService;
+
+    @Mock
+    private AutotestJobRepository autotestJobRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    private FairShareScheduler scheduler;
+
+    private final List<AutotestJob> queued = new ArrayList<>();
+    private final Map<Integer, Long> assignmentPasses = new HashMap<>();
+    private long lastPass;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(configurationService.getInt(anyString(), anyInt())).thenAnswer(i -> i.getArgument(1));
+        when(autotestJobRepository.findMinQueuedFairSharePass()).thenAnswer(i -> queued.stream()
+                .map(AutotestJob::getFairSharePass)
+                .min(Long::compare));
+        when(autotestJobRepository.findMaxFairSharePass()).thenAnswer(i -> lastPass == 0
+                ? Optional.empty()
+                : Optional.of(lastPass));
+        when(autotestJobRepository.countOtherQueuedAssignments(anyInt(), anyInt())).thenAnswer(i -> queued.stream()
+                .map(job -> job.getStudentAssignment().getAssignment())
+                .filter(a -> a.getCourse().getId().equals(i.getArgument(0))
+                        && !a.getId().equals(i.getArgument(1)))
+                .map(Assignment::getId)
+                .distinct()
+                .count());
+        when(assignmentRepository.advanceAutotestPass(anyInt(), anyLong(), anyLong())).thenAnswer(i -> {
+            long virtualTime = i.getArgument(1);
+            long stride = i.getArgument(2);
+            assignmentPasses.merge(i.getArgument(0), virtualTime + stride,
+                    (pass, ignored) -> Math.max(pass, virtualTime) + stride);
+            return 1;
+        });
+        when(assignmentRepository.findAutotestPassById(anyInt()))
+                .thenAnswer(i -> assignmentPasses.get(i.<Integer>getArgument(0)));
+        when(autotestJobRepository.findWithAssignmentByStatus(AutotestJobStatus.QUEUED)).thenAnswer(i -> queued.stream()
+                .sorted(Comparator.comparing(AutotestJob::getFairSharePass).thenComparing(AutotestJob::getId))
+                .toList());
+        scheduler = new FairShareScheduler(configurationService, autotestJobRepository, assignmentRepository);
+    }
+
+    private static Assignment assignment(int assignmentId, int courseId, LocalDateTime due) {
+        Course course = new Course();
+        course.setId(courseId);
+        Assignment assignment = new Assignment();
+        assignment.setId(assignmentId);
+        assignment.setCourse(course);
+        assignment.setDueDateTime(due);
+        return assignment;
+    }
+
+    private AutotestJob enqueue(int jobId, Assignment assignment, LocalDateTime enqueuedAt) {
+        StudentAssignment studentAssignment = new StudentAssignment();
+        studentAssignment.setAssignment(assignment);
+        AutotestJob job = new AutotestJob();
+        job.setId(jobId);
+        job.setStudentAssignment(studentAssignment);
+        job.setEnqueuedAt(enqueuedAt);
+        job.setFairSharePass(scheduler.nextPass(assignment, enqueuedAt));
+        queued.add(job);
+        return job;
+    }
+
+    /**
+     * Takes the queued job with the lowest pass, as a worker's claim does.
+     */
+    private AutotestJob claim() {
+        AutotestJob next = queued.stream()
+                .min(Comparator.comparing(AutotestJob::getFairSharePass).thenComparing(AutotestJob::getId))
+                .orElseThrow();
+        queued.remove(next);
+        lastPass = Math.max(lastPass, next.getFairSharePass());
+        return next;
+    }
+
+    @Nested
+    @DisplayName("Fair share Tests")
+    class FairShareTests {
+
+        @Test
+        @DisplayName("Should not let a large course starve a small one")
+        void shouldInterleaveCourses() {
+            // Given
+            Assignment large = assignment(1, 1, null);
+            Assignment small = assignment(2, 2, null);
+            for (int i = 1; i <= 900; i++) {
+                enqueue(i, large, NOW.plusSeconds(i));
+            }
+            enqueue(1001, small, NOW.plusSeconds(1000));
+            enqueue(1002, small, NOW.plusSeconds(1001));
+
+            // When
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                order.add(claim().getId());
+            }
+
+            // Then
+            assertThat(order.indexOf(1001)).isBetween(0, 2);
+            assertThat(order.indexOf(1002)).isBetween(0, 4);
+        }
+
+        @Test
+        @DisplayName("Should not let a busy assignment starve the others of its course")
+        void shouldInterleaveAssignments() {
+            // Given
+            Assignment busy = assignment(1, 1, null);
+            Assignment quiet = assignment(2, 1, null);
+            for (int i = 1; i <= 100; i++) {
+                enqueue(i, busy, NOW);
+            }
+            enqueue(101, quiet, NOW);
+
+            // When
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                order.add(claim().getId());
+            }
+
+            // Then
+            assertThat(order).contains(101);
+        }
+
+        @Test
+        @DisplayName("Should share in proportion to configured weights")
+        void shouldRespectWeights() {
+            // Given
+            when(configurationService.getInt(eq(FairShareScheduler.COURSE_WEIGHT_PREFIX + 1), anyInt())).thenReturn(3);
+            Assignment heavy = assignment(1, 1, null);
+            Assignment light = assignment(2, 2, null);
+            for (int i = 0; i < 40; i++) {
+                enqueue(i, heavy, NOW);
+                enqueue(100 + i, light, NOW);
+            }
+
+            // When
+            long fromHeavyCourse = 0;
+            for (int i = 0; i < 40; i++) {
+                if (claim().getStudentAssignment().getAssignment() == heavy) {
+                    fromHeavyCourse++;
+                }
+            }
+
+            // Then
+            assertThat(fromHeavyCourse).isBetween(29L, 31L);
+        }
+
+        @Test
+        @DisplayName("Should not give an idle assignment credit for the time it was idle")
+        void shouldStartReactivatedAssignmentAtVirtualTime() {
+            // Given
+            Assignment busy = assignment(1, 1, null);
+            Assignment idle = assignment(2, 2, null);
+            enqueue(1, idle, NOW);
+            claim();
+            for (int i = 0; i < 20; i++) {
+                enqueue(10 + i, busy, NOW);
+            }
+            for (int i = 0; i < 10; i++) {
+                claim();
+            }
+
+            // When
+            for (int i = 0; i < 5; i++) {
+                enqueue(100 + i, idle, NOW);
+            }
+            List<Integer> assignments = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                assignments.add(claim().getStudentAssignment().getAssignment().getId());
+            }
+
+            // Then
+            assertThat(Collections.frequency(assignments, 2)).isBetween(1, 2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Deadline Tests")
+    class DeadlineTests {
+
+        @Test
+        @DisplayName("Should give assignments that are due soon a larger share")
+        void shouldBoostAssignmentsCloseToDeadline() {
+            // Given
+            Assignment later = assignment(1, 1, null);
+            Assignment dueSoon = assignment(2, 2, NOW.plusMinutes(30));
+            for (int i = 0; i < 20; i++) {
+                enqueue(i, later, NOW);
+                enqueue(100 + i, dueSoon, NOW);
+            }
+
+            // When
+            long fromDueSoon = 0;
+            for (int i = 0; i < 20; i++) {
+                if (claim().getStudentAssignment().getAssignment() == dueSoon) {
+                    fromDueSoon++;
+                }
+            }
+
+            // Then
+            assertThat(fromDueSoon).isGreaterThanOrEqualTo(17);
+        }
+
+        @Test
+        @DisplayName("Should not boost jobs submitted after the deadline")
+        void shouldNotBoostLateJobs() {
+            // Given
+            enqueue(1, assignment(1, 1, NOW.minusMinutes(1)), NOW);
+
+            // When
+            AutotestQueueDto snapshot = scheduler.snapshot();
+
+            // Then
+            assertThat(snapshot.getCourses().get(0).getNextJobs().get(0).isDeadlineBoosted()).isFalse();
+            assertThat(snapshot.getCourses().get(0).getNextJobs().get(0).getPass())
+                    .isEqualTo(FairShareScheduler.STRIDE);
+        }
+    }
+
+    @Nested
+    @DisplayName("Snapshot Tests")
+    class SnapshotTests {
+
+        @Test
+        @DisplayName("Should describe courses in the order they will be served")
+        void shouldDescribeQueue() {
+            // Given
+            Assignment first = assignment(1, 1, null);
+            enqueue(1, first, NOW);
+            enqueue(2, first, NOW);
+            enqueue(3, first, NOW);
+            enqueue(4, assignment(2, 2, null), NOW);
+            claim();
+            claim();
+
+            // When
+            AutotestQueueDto snapshot = scheduler.snapshot();
+
+            // Then
+            assertThat(snapshot.getQueued()).isEqualTo(2);
+            assertThat(snapshot.getCourses()).extracting("courseId").containsExactly(2, 1);
+            assertThat(snapshot.getCourses()).extracting("queued").containsExactly(1, 1);
+        }
+    }
+}
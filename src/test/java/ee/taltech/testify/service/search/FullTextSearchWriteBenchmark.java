@@ -0,0 +1,135 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures what the generated search vector and its GIN index add to grading writes. Needs a scratch PostgreSQL
+ * database, e.g. the one from docker-compose:
+ * <pre>
+ * TESTIFY_BENCHMARK_POSTGRES_URL='jdbc:postgresql://localhost:5432/testify?user=testify&amp;password=testify' \
+ *     ./gradlew benchmark --tests '*FullTextSearchWriteBenchmark'
+ * </pre>
+ * Two copies of {@code student_assignment} are created, one as before the search migration and one as after it, and
+ * the same grading updates are run against both, one transaction per update as the application does.
+ */
+@Tag("benchmark")
+class FullTextSearchWriteBenchmark {
+    private static final String URL = System.getenv("TESTIFY_BENCHMARK_POSTGRES_URL");
+    private static final int ROWS = 100_000;
+    private static final int UPDATES = 10_000;
+    private static final String[] WORDS = {"recursion", "off-by-one", "tests", "missing", "edge", "case", "good",
+            "naming", "complexity", "loop", "null", "check", "style", "heap", "graph", "sorting", "readme"};
+
+    @Test
+    @DisplayName("Grading updates should cost about the same with the search index")
+    void gradingWriteOverhead() throws SQLException {
+        assumeTrue(URL != null, "TESTIFY_BENCHMARK_POSTGRES_URL is not set");
+
+        try (Connection connection = DriverManager.getConnection(URL)) {
+            try {
+                createTables(connection);
+                run(connection, "bench_grading_plain", 1_000);
+                run(connection, "bench_grading_search", 1_000);
+
+                long plain = run(connection, "bench_grading_plain", UPDATES);
+                long search = run(connection, "bench_grading_search", UPDATES);
+                System.out.printf("grading update: %d us without search index, %d us with (%.2fx)%n",
+                        plain / 1_000, search / 1_000, (double) search / plain);
+
+                assertThat(search).isLessThan(plain * 2);
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP TABLE IF EXISTS bench_grading_plain, bench_grading_search");
+                }
+            }
+        }
+    }
+
+    private static void createTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_grading_plain, bench_grading_search");
+            statement.execute("""
+                    CREATE TABLE bench_grading_plain (
+                        student_assignment_id SERIAL PRIMARY KEY,
+                        grade DECIMAL(5, 2),
+                        feedback TEXT)
+                    """);
+            statement.execute("""
+                    CREATE TABLE bench_grading_search (
+                        student_assignment_id SERIAL PRIMARY KEY,
+                        grade DECIMAL(5, 2),
+                        feedback TEXT,
+                        search_vector tsvector GENERATED ALWAYS AS (to_tsvector('simple', coalesce(feedback, '')))
+                            STORED)
+                    """);
+            statement.execute("""
+                    CREATE INDEX bench_grading_search_vector ON bench_grading_search
+                        USING GIN (search_vector) WITH (fastupdate = on, gin_pending_list_limit = 1024)
+                    """);
+            for (String table : new String[]{"bench_grading_plain", "bench_grading_search"}) {
+                statement.execute("INSERT INTO " + table + " (grade, feedback) "
+                        + "SELECT NULL, 'Submission ' || i || ' awaiting review' FROM generate_series(1, " + ROWS
+                        + ") AS i");
+                statement.execute("VACUUM ANALYZE " + table);
+            }
+        }
+    }
+
+    /**
+     * @return the average time per update in nanoseconds
+     */
+    private static long run(Connection connection, String table, int updates) throws SQLException {
+        Random random = new Random(42);
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE " + table + " SET grade = ?, feedback = ? WHERE student_assignment_id = ?")) {
+            long start = System.nanoTime();
+            for (int i = 0; i < updates; i++) {
+                update.setBigDecimal(1, BigDecimal.valueOf(random.nextInt(1000), 2));
+                update.setString(2, feedback(random));
+                update.setInt(3, random.nextInt(ROWS) + 1);
+                update.executeUpdate();
+            }
+            return (System.nanoTime() - start) / updates;
+        }
+    }
+
+    private static String feedback(Random random) {
+        StringBuilder feedback = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            feedback.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return feedback.toString();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.search;
+
+import ee.taltech.testify.exception.InvalidRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchHighlighterTest {
+
+    @Nested
+    @DisplayName("highlight Tests")
+    class HighlightTests {
+
+        @Test
+        @DisplayName("Should mark every term case-insensitively")
+        void shouldMarkAllTerms() {
+            // When
+            String headline = SearchHighlighter.highlight("Heap and HEAP sort", List.of("heap", "sort"), 100);
+
+            // Then
+            assertThat(SearchHighlighter.toHtml(headline))
+                    .isEqualTo("<mark>Heap</mark> and <mark>HEAP</mark> <mark>sort</mark>");
+        }
+
+        @Test
+        @DisplayName("Should cut an excerpt around the first match")
+        void shouldExcerptAroundFirstMatch() {
+            // Given
+            String text = "a".repeat(100) + " match " + "b".repeat(100);
+
+            // When
+            String headline = SearchHighlighter.highlight(text, List.of("match"), 40);
+
+            // Then
+            assertThat(SearchHighlighter.toHtml(headline))
+                    .isEqualTo("…" + "a".repeat(9) + " <mark>match</mark> " + "b".repeat(24) + "…");
+        }
+    }
+
+    @Nested
+    @DisplayName("SearchCursor Tests")
+    class CursorTests {
+
+        @Test
+        @DisplayName("Should survive an encode and decode round trip")
+        void shouldRoundTrip() {
+            // Given
+            SearchCursor cursor = new SearchCursor(0.1f, SearchResultType.FEEDBACK, 42);
+
+            // When & Then
+            assertThat(SearchCursor.decode(cursor.encode())).isEqualTo(cursor);
+            assertThat(SearchCursor.decode(null)).isEqualTo(SearchCursor.FIRST);
+        }
+
+        @Test
+        @DisplayName("Should reject a malformed cursor")
+        void shouldRejectMalformedCursor() {
+            // When & Then
+            assertThatThrownBy(() -> SearchCursor.decode("%%%")).isInstanceOf(InvalidRequestException.class);
+        }
+    }
+}
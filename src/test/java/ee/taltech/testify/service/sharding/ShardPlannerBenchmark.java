@@ -0,0 +1,93 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.sharding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simulates successive runs of a test suite of 400 tests with long-tailed durations that vary by up to 30% from run
+ * to run, split into 4 shards. The first run has no recorded durations and runs serially; every later run is split
+ * from the durations recorded so far, smoothed as in {@link TestDurationHistory}. Compares the wall-clock time, the
+ * longest shard, with running the suite serially and with dealing the tests out round-robin in order of name. Run
+ * with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class ShardPlannerBenchmark {
+    private static final int TESTS = 400;
+    private static final int SHARDS = 4;
+    private static final int RUNS = 6;
+
+    @Test
+    @DisplayName("Shards planned from recorded durations should beat round-robin and improve with history")
+    void plannedVersusRoundRobin() {
+        Random random = new Random(42);
+        Map<String, Long> trueDurations = new HashMap<>();
+        for (int i = 0; i < TESTS; i++) {
+            trueDurations.put(String.format("Test%03d", i), Math.round(Math.exp(random.nextGaussian() * 1.5 + 5)));
+        }
+        List<String> byName = trueDurations.keySet().stream().sorted().toList();
+
+        Map<String, Long> recorded = new HashMap<>();
+        List<Long> makespans = new ArrayList<>();
+        long roundRobinTotal = 0;
+        long plannedTotal = 0;
+        for (int run = 1; run <= RUNS; run++) {
+            Map<String, Long> measured = new HashMap<>();
+            trueDurations.forEach((test, millis) ->
+                    measured.put(test, Math.round(millis * (0.85 + random.nextDouble() * 0.3))));
+            long serial = measured.values().stream().mapToLong(Long::longValue).sum();
+
+            long makespan = recorded.isEmpty() ? serial
+                    : ShardPlanner.plan(recorded, SHARDS).stream()
+                    .mapToLong(shard -> shard.testIds().stream().mapToLong(measured::get).sum())
+                    .max().orElseThrow();
+            long[] roundRobin = new long[SHARDS];
+            for (int i = 0; i < byName.size(); i++) {
+                roundRobin[i % SHARDS] += measured.get(byName.get(i));
+            }
+            long roundRobinMakespan = Arrays.stream(roundRobin).max().orElseThrow();
+            if (run > 1) {
+                plannedTotal += makespan;
+                roundRobinTotal += roundRobinMakespan;
+            }
+            makespans.add(makespan);
+            System.out.printf("sharding: run %d serial %d ms, planned %d ms (%.2fx), round-robin %d ms (%.2fx)%n",
+                    run, serial, makespan, (double) serial / makespan, roundRobinMakespan,
+                    (double) serial / roundRobinMakespan);
+
+            measured.forEach((test, millis) -> recorded.merge(test, millis,
+                    (previous, current) -> Math.round(previous + TestDurationHistory.SMOOTHING * (current - previous))));
+        }
+
+        assertThat(plannedTotal).isLessThan(roundRobinTotal);
+        assertThat(makespans.get(RUNS - 1)).isLessThan(makespans.get(0) / 3);
+    }
+}
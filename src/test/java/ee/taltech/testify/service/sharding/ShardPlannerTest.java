@@ -0,0 +1,83 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.sharding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ShardPlanner Tests")
+class ShardPlannerTest {
+
+    @Test
+    @DisplayName("Should give the longest tests to different shards")
+    void shouldBalanceShards() {
+        // Given
+        Map<String, Long> durations = Map.of("a", 7L, "b", 5L, "c", 4L, "d", 3L, "e", 3L, "f", 2L);
+
+        // When
+        List<PlannedShard> shards = ShardPlanner.plan(durations, 3);
+
+        // Then
+        assertThat(shards).containsExactly(
+                new PlannedShard(0, List.of("a", "f"), 9),
+                new PlannedShard(1, List.of("b", "e"), 8),
+                new PlannedShard(2, List.of("c", "d"), 7));
+    }
+
+    @Test
+    @DisplayName("Should stay within 4/3 of the ideal split and give the same plan for the same durations")
+    void shouldBeNearOptimalAndDeterministic() {
+        // Given
+        Random random = new Random(7);
+        Map<String, Long> durations = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            durations.put("test" + i, (long) random.nextInt(10, 5_000));
+        }
+        long total = durations.values().stream().mapToLong(Long::longValue).sum();
+
+        // When
+        List<PlannedShard> shards = ShardPlanner.plan(durations, 8);
+
+        // Then
+        long longest = shards.stream().mapToLong(PlannedShard::predictedMillis).max().orElseThrow();
+        assertThat(longest).isLessThanOrEqualTo(total / 8 * 4 / 3);
+        assertThat(shards.stream().mapToInt(shard -> shard.testIds().size()).sum()).isEqualTo(500);
+        assertThat(ShardPlanner.plan(new HashMap<>(durations), 8)).isEqualTo(shards);
+    }
+
+    @Test
+    @DisplayName("Should choose enough shards for the minimum shard duration, within the limits")
+    void shouldChooseShardCount() {
+        // When & Then
+        assertThat(ShardPlanner.shardCount(0, 0, 4, 20_000)).isEqualTo(1);
+        assertThat(ShardPlanner.shardCount(45_000, 4, 4, 20_000)).isEqualTo(2);
+        assertThat(ShardPlanner.shardCount(600_000, 50, 4, 20_000)).isEqualTo(4);
+        assertThat(ShardPlanner.shardCount(600_000, 3, 4, 20_000)).isEqualTo(3);
+        assertThatThrownBy(() -> ShardPlanner.plan(Map.of(), 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
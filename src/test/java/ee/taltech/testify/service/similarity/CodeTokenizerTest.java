@@ -0,0 +1,84 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.similarity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CodeTokenizer Tests")
+class CodeTokenizerTest {
+
+    private static List<Long> tokens(String source) throws IOException {
+        List<Long> tokens = new ArrayList<>();
+        CodeTokenizer.tokenize(new StringReader(source), tokens::add);
+        return tokens;
+    }
+
+    @Test
+    @DisplayName("Should normalize identifiers and literals but keep keywords and operators")
+    void shouldNormalizeTokens() throws IOException {
+        // When
+        List<Long> tokens = tokens("return total + 'a' * 1.5e3;");
+
+        // Then
+        assertThat(tokens).hasSize(7);
+        assertThat(tokens.subList(1, 7)).containsExactly(CodeTokenizer.IDENTIFIER, (long) '+',
+                CodeTokenizer.STRING, (long) '*', CodeTokenizer.NUMBER, (long) ';');
+        assertThat(tokens.get(0)).isNotEqualTo(CodeTokenizer.IDENTIFIER);
+    }
+
+    @Test
+    @DisplayName("Should tokenize renamed and recommented code the same")
+    void shouldIgnoreDisguises() throws IOException {
+        // Given
+        String original = """
+                def average(numbers):
+                    # Sum the numbers
+                    total = 0
+                    for n in numbers:
+                        total += n
+                    return total / len(numbers)
+                """;
+        String disguised = """
+                def mean(values):  # Mean of the values
+                  s = 0  # accumulator
+                  for value in values: s += value
+                  return s / len(values)
+                """;
+
+        // When & Then
+        assertThat(tokens(disguised)).isEqualTo(tokens(original));
+    }
+
+    @Test
+    @DisplayName("Should skip block comments and end an unclosed string at the end of the line")
+    void shouldSkipCommentsAndStrayQuotes() throws IOException {
+        // When & Then
+        assertThat(tokens("/* a\n * b */ x = 'it\nx")).containsExactly(CodeTokenizer.IDENTIFIER, (long) '=',
+                CodeTokenizer.STRING, CodeTokenizer.IDENTIFIER);
+    }
+}
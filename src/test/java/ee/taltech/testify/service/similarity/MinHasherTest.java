@@ -0,0 +1,95 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.similarity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("MinHasher Tests")
+class MinHasherTest {
+
+    private static MinHasher hash(long... tokens) {
+        MinHasher minHasher = new MinHasher();
+        for (long token : tokens) {
+            minHasher.accept(token);
+        }
+        return minHasher;
+    }
+
+    private static long[] randomTokens(Random random, int count) {
+        long[] tokens = new long[count];
+        for (int i = 0; i < count; i++) {
+            tokens[i] = random.nextInt(50);
+        }
+        return tokens;
+    }
+
+    @Test
+    @DisplayName("Should estimate the Jaccard similarity of the shingle sets")
+    void shouldEstimateSimilarity() {
+        // Given
+        Random random = new Random(42);
+        long[] shared = randomTokens(random, 3_000);
+        long[] first = new long[4_000];
+        long[] second = new long[4_000];
+        System.arraycopy(shared, 0, first, 0, shared.length);
+        System.arraycopy(shared, 0, second, 0, shared.length);
+        System.arraycopy(randomTokens(random, 1_000), 0, first, shared.length, 1_000);
+        System.arraycopy(randomTokens(random, 1_000), 0, second, shared.length, 1_000);
+
+        // When
+        double similarity = MinHasher.similarity(hash(first).signature(), hash(second).signature());
+
+        // Then
+        assertThat(similarity).isCloseTo(0.6, within(0.1));
+    }
+
+    @Test
+    @DisplayName("Should give identical code identical signatures and bands")
+    void shouldMatchIdenticalCode() throws IOException {
+        // Given
+        String source = "for (int i = 0; i < n; i++) { sum += values[i] * weights[i]; }";
+        MinHasher first = new MinHasher();
+        MinHasher second = new MinHasher();
+        CodeTokenizer.tokenize(new StringReader(source), first);
+        CodeTokenizer.tokenize(new StringReader(source.replace("sum", "total")), second);
+
+        // When & Then
+        assertThat(MinHasher.similarity(first.signature(), second.signature())).isEqualTo(1.0);
+        assertThat(MinHasher.bands(first.signature())).isEqualTo(MinHasher.bands(second.signature()));
+        assertThat(SubmissionSignatureStore.decode(SubmissionSignatureStore.encode(first.signature())))
+                .isEqualTo(first.signature());
+    }
+
+    @Test
+    @DisplayName("Should have no shingles for code shorter than one shingle")
+    void shouldHaveNoShinglesForShortCode() {
+        // When & Then
+        assertThat(hash(1, 2, 3).getShingles()).isZero();
+        assertThat(hash(new long[MinHasher.SHINGLE_LENGTH]).getShingles()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.similarity;
+
+import ee.taltech.testify.service.partition.AcademicTerm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Indexes the submissions of a 900-student course, every twentieth of them a lightly edited copy of another, and
+ * compares the pairs found through the locality-sensitive hashing buckets with comparing every pair of signatures.
+ * Reports the tokenizing and hashing throughput, the indexing rate through the database and how many pairs the
+ * buckets made candidates. Runs against the H2 test database. Run with {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class SubmissionSimilarityBenchmark {
+    private static final int SUBMISSIONS = 900;
+    private static final int LINES = 80;
+    private static final double THRESHOLD = 0.7;
+    private static final int WARMUP_RUNS = 5;
+    private static final int RUNS = 5;
+
+    private static final String[] STATEMENTS = {
+            "%s = %s + %d", "%s = []", "for %s in range(%d):", "    %s.append(%s)", "if %s > %d:", "else:",
+            "    return %s", "while %s < len(%s):", "    %s += %d", "%s = {}", "%s[%s] = %s.get(%s, 0) + 1",
+            "print(%s, %s)", "def %s(%s):", "    %s = %s * %d", "%s = sorted(%s, key=lambda x: x[%d])",
+            "    if %s == '%s':", "        break", "%s = %s // %d", "return [%s for %s in %s if %s]",
+            "%s, %s = %s[%d], %s", "try:", "except ValueError:", "    %s = int(%s)", "with open(%s) as %s:",
+            "%s = %s.split(',')", "assert %s >= %d", "%s = max(%s, %s)", "    continue", "%s = not %s",
+            "class %s:", "    def __init__(self, %s):", "        self.%s = %s", "%s = %s if %s else %d"
+    };
+
+    @Autowired
+    private SubmissionSignatureStore submissionSignatureStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int courseId;
+    private int assignmentId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO course (course_name, term) VALUES ('Similarity benchmark', ?)",
+                AcademicTerm.current().code());
+        courseId = jdbcTemplate.queryForObject(
+                "SELECT course_id FROM course WHERE course_name = 'Similarity benchmark'", Integer.class);
+        jdbcTemplate.update("INSERT INTO assignment (course_id, title, max_grade, is_autotested) "
+                + "VALUES (?, 'Similarity', 10, false)", courseId);
+        assignmentId = jdbcTemplate.queryForObject("SELECT assignment_id FROM assignment WHERE course_id = ?",
+                Integer.class, courseId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM submission_signature WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM assignment WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM course WHERE course_id = ?", courseId);
+    }
+
+    @Test
+    @DisplayName("Bucketed indexing should find the copies while comparing a small share of the pairs")
+    void indexSubmissions() throws IOException {
+        Random random = new Random(42);
+        List<String> sources = new ArrayList<>(SUBMISSIONS);
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            sources.add(i % 20 == 19 ? disguise(sources.get(random.nextInt(i)), random) : program(random));
+        }
+        long bytes = sources.stream().mapToLong(String::length).sum();
+
+        long[] hashTimes = new long[RUNS];
+        for (int run = -WARMUP_RUNS; run < RUNS; run++) {
+            long start = System.nanoTime();
+            hash(sources);
+            if (run >= 0) {
+                hashTimes[run] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(hashTimes);
+        long hashTime = hashTimes[RUNS / 2];
+        List<MinHasher> hashers = hash(sources);
+
+        long indexStart = System.nanoTime();
+        Set<Long> indexed = new HashSet<>();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            for (SimilarPair pair : submissionSignatureStore.save(assignmentId, i + 1, hashers.get(i).signature(),
+                    hashers.get(i).getShingles(), THRESHOLD)) {
+                indexed.add(key(pair.studentAssignmentId() - 1, pair.otherStudentAssignmentId() - 1));
+            }
+        }
+        long indexTime = System.nanoTime() - indexStart;
+
+        long allPairsStart = System.nanoTime();
+        Set<Long> allPairs = new HashSet<>();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            for (int j = i + 1; j < SUBMISSIONS; j++) {
+                if (MinHasher.similarity(hashers.get(i).signature(), hashers.get(j).signature()) >= THRESHOLD) {
+                    allPairs.add(key(i, j));
+                }
+            }
+        }
+        long allPairsTime = System.nanoTime() - allPairsStart;
+
+        Map<Long, Set<Integer>> buckets = new HashMap<>();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            long[] bands = MinHasher.bands(hashers.get(i).signature());
+            for (int band = 0; band < bands.length; band++) {
+                buckets.computeIfAbsent(bands[band] * MinHasher.BANDS + band, bucket -> new HashSet<>()).add(i);
+            }
+        }
+        Set<Long> candidates = new HashSet<>();
+        for (Set<Integer> bucket : buckets.values()) {
+            List<Integer> members = new ArrayList<>(bucket);
+            for (int i = 0; i < members.size(); i++) {
+                for (int j = i + 1; j < members.size(); j++) {
+                    candidates.add(key(members.get(i), members.get(j)));
+                }
+            }
+        }
+
+        long totalPairs = (long) SUBMISSIONS * (SUBMISSIONS - 1) / 2;
+        long found = allPairs.stream().filter(indexed::contains).count();
+        System.out.printf("similarity: %d submissions, %.1f MB tokenized and hashed in %.0f ms (%.1f MB/s), indexed "
+                        + "in %.0f ms (%.0f submissions/s); %d of %d pairs were candidates (%.2f%%); %d of %d "
+                        + "similar pairs found; comparing all signatures took %.0f ms%n",
+                SUBMISSIONS, bytes / 1e6, hashTime / 1e6, bytes / 1e6 / (hashTime / 1e9), indexTime / 1e6,
+                SUBMISSIONS / (indexTime / 1e9), candidates.size(), totalPairs, 100.0 * candidates.size() / totalPairs,
+                found, allPairs.size(), allPairsTime / 1e6);
+
+        assertThat(allPairs).hasSizeGreaterThanOrEqualTo(SUBMISSIONS / 20 * 9 / 10);
+        assertThat(indexed).isSubsetOf(allPairs);
+        assertThat((double) found / allPairs.size()).isGreaterThanOrEqualTo(0.95);
+        assertThat(candidates.size()).isLessThan((int) (totalPairs / 20));
+    }
+
+    private static List<MinHasher> hash(List<String> sources) throws IOException {
+        List<MinHasher> hashers = new ArrayList<>(sources.size());
+        for (String source : sources) {
+            MinHasher minHasher = new MinHasher();
+            CodeTokenizer.tokenize(new StringReader(source), minHasher);
+            hashers.add(minHasher);
+        }
+        return hashers;
+    }
+
+    private static long key(int first, int second) {
+        return (long) Math.min(first, second) << 32 | Math.max(first, second);
+    }
+
+    private static String program(Random random) {
+        StringBuilder program = new StringBuilder();
+        for (int line = 0; line < LINES; line++) {
+            program.append(statement(random)).append('\n');
+        }
+        return program.toString();
+    }
+
+    /**
+     * @return the program with its identifiers renamed, a comment added and one line in twenty rewritten
+     */
+    private static String disguise(String program, Random random) {
+        StringBuilder copy = new StringBuilder("# my own work\n");
+        for (String line : program.split("\n")) {
+            copy.append(random.nextInt(20) == 0 ? statement(random) : line.replaceAll("\\bv(\\d+)", "renamed$1"))
+                    .append('\n');
+        }
+        return copy.toString();
+    }
+
+    private static String statement(Random random) {
+        String statement = STATEMENTS[random.nextInt(STATEMENTS.length)];
+        List<Object> arguments = new ArrayList<>();
+        for (int i = statement.indexOf('%'); i >= 0; i = statement.indexOf('%', i + 1)) {
+            arguments.add(statement.charAt(i + 1) == 'd' ? random.nextInt(100) : "v" + random.nextInt(30));
+        }
+        return String.format(statement, arguments.toArray());
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.statistics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GradeSketchTest {
+    private static final BigDecimal TEN = BigDecimal.TEN;
+
+    private static GradeSketch sketch(BigDecimal maxPoints, String... values) {
+        GradeSketch sketch = new GradeSketch(maxPoints);
+        for (String value : values) {
+            sketch.add(new BigDecimal(value));
+        }
+        return sketch;
+    }
+
+    @Nested
+    @DisplayName("Histogram")
+    class HistogramTests {
+
+        @Test
+        @DisplayName("Should count the upper bound and values outside the range in the outer bins")
+        void shouldClampValues() {
+            // Given
+            Histogram histogram = new Histogram(20, 10);
+
+            // When
+            histogram.add(10);
+            histogram.add(12);
+            histogram.add(-1);
+            histogram.add(4.99);
+            histogram.add(5);
+
+            // Then
+            assertThat(histogram.getCount(19)).isEqualTo(2);
+            assertThat(histogram.getCount(0)).isEqualTo(1);
+            assertThat(histogram.getCount(9)).isEqualTo(1);
+            assertThat(histogram.getCount(10)).isEqualTo(1);
+            assertThat(histogram.getLower(10)).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("Should survive a round trip and refuse to merge other bins")
+        void shouldRoundTrip() {
+            // Given
+            Histogram histogram = new Histogram(20, 10);
+            for (int i = 0; i < 1_000; i++) {
+                histogram.add(i % 11);
+            }
+
+            // When
+            Histogram restored = Histogram.fromBytes(histogram.toBytes());
+
+            // Then
+            for (int bin = 0; bin < 20; bin++) {
+                assertThat(restored.getCount(bin)).isEqualTo(histogram.getCount(bin));
+            }
+            assertThatThrownBy(() -> restored.merge(new Histogram(20, 50)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Changes")
+    class ChangeTests {
+
+        @Test
+        @DisplayName("Should keep the count, mean and histogram exact when grades change")
+        void shouldReplaceExactly() {
+            // Given
+            GradeSketch sketch = sketch(TEN, "4", "6", "8");
+
+            // When
+            sketch.replace(new BigDecimal("4"), new BigDecimal("9"));
+            sketch.replace(null, new BigDecimal("10"));
+
+            // Then
+            assertThat(sketch.getCount()).isEqualTo(4);
+            assertThat(sketch.getMean()).isEqualByComparingTo("8.25");
+            assertThat(sketch.getHistogram().getCount(8)).isZero();
+            assertThat(sketch.getHistogram().getCount(18)).isEqualTo(1);
+            assertThat(sketch.getRetired()).isEqualTo(1);
+            assertThat(sketch.getDigest().getCount()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("Should ignore a grade saved again unchanged")
+        void shouldIgnoreUnchanged() {
+            // Given
+            GradeSketch sketch = sketch(TEN, "4");
+
+            // When
+            sketch.replace(new BigDecimal("4.00"), new BigDecimal("4"));
+
+            // Then
+            assertThat(sketch.getRetired()).isZero();
+            assertThat(sketch.getDigest().getCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should go stale when a tenth of the digest is retired, the maximum changes or a removal misses")
+        void shouldGoStale() {
+            // Given
+            GradeSketch sketch = sketch(TEN, "1", "2", "3", "4", "5", "6", "7", "8", "9", "10");
+            GradeSketch drifted = sketch(TEN, "1");
+
+            // When
+            sketch.replace(new BigDecimal("1"), new BigDecimal("2"));
+            boolean staleAfterOne = sketch.isStale(TEN);
+            sketch.replace(new BigDecimal("2"), new BigDecimal("3"));
+            drifted.replace(new BigDecimal("9"), new BigDecimal("8"));
+
+            // Then
+            assertThat(staleAfterOne).isFalse();
+            assertThat(sketch.isStale(TEN)).isTrue();
+            assertThat(sketch(TEN).isStale(BigDecimal.valueOf(20))).isTrue();
+            assertThat(drifted.isStale(TEN)).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("Merging")
+    class MergeTests {
+
+        @Test
+        @DisplayName("Should merge sketches of different maximum points as percentages")
+        void shouldMergePercentages() {
+            // Given
+            GradeSketch outOfTen = sketch(TEN, "5", "10");
+            GradeSketch outOfFifty = sketch(BigDecimal.valueOf(50), "25", "40");
+
+            // When
+            GradeSketch course = new GradeSketch(BigDecimal.valueOf(100));
+            course.merge(outOfTen.toPercent());
+            course.merge(outOfFifty.toPercent());
+
+            // Then
+            assertThat(course.getCount()).isEqualTo(4);
+            assertThat(course.getMean()).isEqualByComparingTo("70");
+            assertThat(course.getHistogram().getCount(10)).isEqualTo(2);
+            assertThat(course.getHistogram().getCount(16)).isEqualTo(1);
+            assertThat(course.getHistogram().getCount(19)).isEqualTo(1);
+            assertThat(course.getDigest().getMax()).isEqualTo(100);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.statistics;
+
+import ee.taltech.testify.dto.AssignmentStatisticsDto;
+import ee.taltech.testify.service.GradeStatisticsService;
+import ee.taltech.testify.service.auth.AuthenticatedUser;
+import ee.taltech.testify.service.partition.AcademicTerm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Compares answering the grade statistics of an assignment from its sketches with loading every grade and sorting
+ * them, for an assignment of 20 000 graded students. Runs against the H2 test database, where reading the grades
+ * costs far less than over a network, so the gain on PostgreSQL is larger. Run with {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class GradeStatisticsBenchmark {
+    private static final int STUDENTS = 20_000;
+    private static final int RUNS = 15;
+
+    @Autowired
+    private GradeStatisticsService gradeStatisticsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AuthenticatedUser admin = new AuthenticatedUser(1, AuthenticatedUser.ADMIN_ROLE, List.of(),
+            "token", 0, Long.MAX_VALUE);
+
+    private int term;
+    private int courseId;
+    private int assignmentId;
+
+    @BeforeEach
+    void setUp() {
+        term = AcademicTerm.current().code();
+        jdbcTemplate.update("INSERT INTO course (course_name, term) VALUES ('Grade statistics benchmark', ?)", term);
+        courseId = jdbcTemplate.queryForObject(
+                "SELECT course_id FROM course WHERE course_name = 'Grade statistics benchmark'", Integer.class);
+        jdbcTemplate.update("INSERT INTO assignment (course_id, title, max_grade, is_autotested) "
+                + "VALUES (?, 'Grade statistics', 10, false)", courseId);
+        assignmentId = jdbcTemplate.queryForObject("SELECT assignment_id FROM assignment WHERE course_id = ?",
+                Integer.class, courseId);
+
+        int roleId = jdbcTemplate.queryForObject(
+                "SELECT user_role_id FROM user_role WHERE user_role_name = 'Student'", Integer.class);
+        jdbcTemplate.batchUpdate("INSERT INTO app_user (first_name, last_name, email, hashed_password, user_role_id) "
+                        + "VALUES ('Grade', 'Statistics', ?, 'hash', ?)",
+                IntStream.range(0, STUDENTS)
+                        .mapToObj(i -> new Object[]{"grade.statistics." + i + "@taltech.ee", roleId})
+                        .toList());
+        Random random = new Random(42);
+        List<Integer> studentIds = jdbcTemplate.queryForList(
+                "SELECT app_user_id FROM app_user WHERE email LIKE 'grade.statistics.%'", Integer.class);
+        jdbcTemplate.batchUpdate("INSERT INTO student_assignment (student_id, assignment_id, term, grade) "
+                        + "VALUES (?, ?, ?, ?)",
+                studentIds.stream()
+                        .map(studentId -> new Object[]{studentId, assignmentId, term, BigDecimal.valueOf(
+                                Math.round(Math.max(0, Math.min(10, 7 + 2 * random.nextGaussian())) * 4), 0)
+                                .divide(BigDecimal.valueOf(4))})
+                        .toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM student_assignment WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM app_user WHERE email LIKE 'grade.statistics.%'");
+        jdbcTemplate.update("DELETE FROM assignment WHERE assignment_id = ?", assignmentId);
+        jdbcTemplate.update("DELETE FROM course WHERE course_id = ?", courseId);
+    }
+
+    @Test
+    @DisplayName("Sketches should answer faster than sorting every grade, with a close median")
+    void sketchVersusSort() {
+        long sorted = median(this::exactMedian);
+        long sketch = median(() -> gradeStatisticsService.getAssignmentStatistics(assignmentId, admin));
+
+        AssignmentStatisticsDto statistics = gradeStatisticsService.getAssignmentStatistics(assignmentId, admin);
+        System.out.printf("grade statistics: %d grades, sort %.2f ms, sketch %.2f ms (%.1fx), median %s / %s%n",
+                STUDENTS, sorted / 1e6, sketch / 1e6, (double) sorted / sketch, exactMedian(),
+                statistics.getGrade().getMedian());
+        assertThat(statistics.getGrade().getCount()).isEqualTo(STUDENTS);
+        assertThat(statistics.getGrade().getMedian().doubleValue()).isCloseTo(exactMedian(), within(0.25));
+        assertThat(sketch).isLessThan(sorted);
+    }
+
+    private double exactMedian() {
+        double[] grades = jdbcTemplate.queryForList("SELECT * FROM student_assignment WHERE assignment_id = ? "
+                        + "AND term = ? AND grade IS NOT NULL", assignmentId, term).stream()
+                .mapToDouble(row -> ((BigDecimal) row.get("grade")).doubleValue())
+                .toArray();
+        Arrays.sort(grades);
+        return grades[grades.length / 2];
+    }
+
+    private static long median(Supplier<?> run) {
+        for (int i = 0; i < 3; i++) {
+            run.get();
+        }
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.get();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.statistics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TDigestTest {
+    private static final int VALUES = 100_000;
+    private static final double[] QUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999};
+
+    private static double[] values(String distribution, long seed) {
+        Random random = new Random(seed);
+        DoubleSupplier supplier = switch (distribution) {
+            case "uniform" -> random::nextDouble;
+            case "normal" -> random::nextGaussian;
+            case "exponential" -> () -> -Math.log(1 - random.nextDouble());
+            default -> throw new IllegalArgumentException(distribution);
+        };
+        double[] values = new double[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = supplier.getAsDouble();
+        }
+        return values;
+    }
+
+    /**
+     * Grades out of 10 in quarter points, clustered around 7 with many ties, as a large course would give.
+     */
+    private static double[] grades() {
+        Random random = new Random(42);
+        double[] grades = new double[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            grades[i] = Math.round(Math.max(0, Math.min(10, 7 + 2 * random.nextGaussian())) * 4) / 4.0;
+        }
+        return grades;
+    }
+
+    /**
+     * @return how far {@code q} is from the range of fractions of the sorted values that lie below the estimate
+     */
+    private static double rankError(double[] sorted, double estimate, double q) {
+        double below = lowerBound(sorted, estimate) / (double) sorted.length;
+        double atOrBelow = upperBound(sorted, estimate) / (double) sorted.length;
+        return q < below ? below - q : Math.max(q - atOrBelow, 0);
+    }
+
+    /**
+     * A tenth of a percentile rank in the tails, half a percentile rank elsewhere.
+     */
+    private static double maxRankError(double q) {
+        return q <= 0.01 || q >= 0.99 ? 0.001 : 0.005;
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sorted[index - 1] == value) {
+            index--;
+        }
+        return index;
+    }
+
+    private static int upperBound(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index < sorted.length && sorted[index] == value) {
+            index++;
+        }
+        return index;
+    }
+
+    private static TDigest digest(double[] values) {
+        TDigest digest = new TDigest();
+        for (double value : values) {
+            digest.add(value);
+        }
+        return digest;
+    }
+
+    @Nested
+    @DisplayName("Accuracy")
+    class AccuracyTests {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"uniform", "normal", "exponential"})
+        @DisplayName("Should estimate quantiles of 100 000 values within the bounded rank error")
+        void shouldBoundRankError(String distribution) {
+            // Given
+            double[] values = values(distribution, 1);
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+
+            // When
+            TDigest digest = digest(values);
+
+            // Then
+            for (double q : QUANTILES) {
+                assertThat(rankError(sorted, digest.quantile(q), q)).as("q = %s", q).isLessThan(maxRankError(q));
+            }
+            assertThat(digest.getMin()).isEqualTo(sorted[0]);
+            assertThat(digest.getMax()).isEqualTo(sorted[VALUES - 1]);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"uniform", "normal", "exponential"})
+        @DisplayName("Should keep the rank error bound when merging digests")
+        void shouldBoundRankErrorOfMerged(String distribution) {
+            // Given
+            double[] values = values(distribution, 2);
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            TDigest[] parts = new TDigest[20];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new TDigest();
+            }
+            for (int i = 0; i < VALUES; i++) {
+                parts[i % parts.length].add(values[i]);
+            }
+
+            // When
+            TDigest merged = new TDigest();
+            for (TDigest part : parts) {
+                merged.merge(part);
+            }
+
+            // Then
+            assertThat(merged.getCount()).isEqualTo(VALUES);
+            for (double q : QUANTILES) {
+                assertThat(rankError(sorted, merged.quantile(q), q)).as("q = %s", q).isLessThan(maxRankError(q));
+            }
+        }
+
+        @Test
+        @DisplayName("Should estimate quantiles of tied grades within one grade step")
+        void shouldEstimateTiedGrades() {
+            // Given
+            double[] grades = grades();
+            double[] sorted = grades.clone();
+            Arrays.sort(sorted);
+
+            // When
+            TDigest digest = digest(grades);
+
+            // Then
+            for (double q : QUANTILES) {
+                double exact = sorted[(int) Math.min(q * VALUES, VALUES - 1)];
+                assertThat(digest.quantile(q)).as("q = %s", q).isCloseTo(exact, within(0.25));
+            }
+        }
+
+        @Test
+        @DisplayName("Should give the exact median of a small group")
+        void shouldBeExactForSmallGroups() {
+            // Given
+            double[] grades = Arrays.copyOf(grades(), 31);
+            double[] sorted = grades.clone();
+            Arrays.sort(sorted);
+
+            // When
+            TDigest digest = digest(grades);
+
+            // Then
+            assertThat(digest.quantile(0.5)).isEqualTo(sorted[15]);
+            assertThat(digest.quantile(0)).isEqualTo(sorted[0]);
+            assertThat(digest.quantile(1)).isEqualTo(sorted[30]);
+        }
+    }
+
+    @Nested
+    @DisplayName("Size and serialization")
+    class SerializationTests {
+
+        @Test
+        @DisplayName("Should stay under a kilobyte and survive a round trip")
+        void shouldRoundTrip() {
+            // Given
+            TDigest digest = digest(values("normal", 3));
+
+            // When
+            byte[] bytes = digest.toBytes();
+            TDigest restored = TDigest.fromBytes(bytes);
+
+            // Then
+            assertThat(bytes.length).isLessThan(1024);
+            assertThat(restored.getCount()).isEqualTo(VALUES);
+            assertThat(restored.getCentroidCount()).isEqualTo(digest.getCentroidCount());
+            for (double q : QUANTILES) {
+                assertThat(restored.quantile(q)).isEqualTo(digest.quantile(q));
+            }
+        }
+
+        @Test
+        @DisplayName("Should answer NaN when empty, also after a round trip")
+        void shouldHandleEmptyDigest() {
+            // When
+            TDigest restored = TDigest.fromBytes(new TDigest().toBytes());
+
+            // Then
+            assertThat(restored.getCount()).isZero();
+            assertThat(restored.quantile(0.5)).isNaN();
+            assertThat(restored.getMin()).isNaN();
+        }
+
+        @Test
+        @DisplayName("Should scale every quantile by the factor")
+        void shouldScale() {
+            // Given
+            TDigest digest = digest(values("uniform", 4));
+
+            // When
+            TDigest scaled = digest.scaled(100);
+
+            // Then
+            for (double q : QUANTILES) {
+                assertThat(scaled.quantile(q)).isCloseTo(digest.quantile(q) * 100, within(1e-9));
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.usersearch;
+
+import ee.taltech.testify.repository.AppUserRepository;
+import ee.taltech.testify.repository.UserSummary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures autocomplete latency and the footprint of the user search index for 50k users. Run with
+ * {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class UserSearchIndexBenchmark {
+    private static final int USERS = 50_000;
+    private static final int QUERIES = 20_000;
+    private static final String[] FIRST_NAMES = {"Mari", "Maria", "Mart", "Martin", "Kristjan", "Kristi", "Anna",
+            "Anna-Liisa", "Jaan", "Jaanika", "Tiit", "Toomas", "Liis", "Karl", "Kadri", "Rasmus", "Sander", "Eliise",
+            "Markus", "Marten", "Laura", "Grete", "Hendrik", "Õie", "Ülle", "Joosep", "Mihkel", "Triin"};
+    private static final String[] LAST_NAME_PARTS = {"Tamm", "Saar", "Sepp", "Mägi", "Kask", "Kukk", "Rebane",
+            "Ilves", "Pärn", "Koppel", "Lepp", "Õun", "Kivi", "Mets", "Org", "Oja", "Kuusk", "Vaher", "Raud", "Lill"};
+
+    @Test
+    @DisplayName("Autocomplete over 50k users should answer in well under a millisecond")
+    void latencyAndFootprint() {
+        Random random = new Random(42);
+        List<UserSummary> users = new ArrayList<>();
+        for (int id = 1; id <= USERS; id++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAME_PARTS[random.nextInt(LAST_NAME_PARTS.length)]
+                    + LAST_NAME_PARTS[random.nextInt(LAST_NAME_PARTS.length)].toLowerCase();
+            String uniId = (firstName.substring(0, 3) + lastName.substring(0, 3)).toLowerCase() + id;
+            users.add(new UserSummary(id, firstName, lastName, uniId, uniId + "@taltech.ee", "Student"));
+        }
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            UserSummary user = users.get(random.nextInt(USERS));
+            String typed = switch (i % 4) {
+                case 0 -> user.lastName().substring(0, 2 + random.nextInt(user.lastName().length() - 1));
+                case 1 -> user.firstName().substring(0, 3) + " " + user.lastName().substring(0, 2);
+                case 2 -> user.lastName().substring(2, 5);
+                default -> user.uniId().substring(0, 5);
+            };
+            queries.add(typed);
+        }
+
+        AppUserRepository repository = mock(AppUserRepository.class);
+        when(repository.findAllSummaries()).thenReturn(users);
+        UserSearchIndex index = new UserSearchIndex(repository);
+        System.gc();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        index.rebuild();
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        long footprint = usedHeap() - heapBefore;
+        System.out.printf("user search index: %d users, built in %d ms, about %d KB of heap%n",
+                index.getUserCount(), buildMillis, footprint / 1024);
+
+        run(index, queries);
+        long nanos = run(index, queries);
+        System.out.printf("user search index: %d us/query (top 10)%n", nanos / 1_000);
+
+        assertThat(nanos).isLessThan(1_000_000);
+    }
+
+    private static long run(UserSearchIndex index, List<String> queries) {
+        long start = System.nanoTime();
+        int found = 0;
+        for (String query : queries) {
+            found += index.search(query, null, 10).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(found).isPositive();
+        return elapsed / queries.size();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.usersearch;
+
+import ee.taltech.testify.repository.AppUserRepository;
+import ee.taltech.testify.repository.UserSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserSearchIndexTest {
+
+    private final AppUserRepository appUserRepository = mock(AppUserRepository.class);
+    private final UserSearchIndex index = new UserSearchIndex(appUserRepository);
+
+    private static final UserSummary MARI = new UserSummary(1, "Mari", "Maasikas", "marmaa", "mari.maasikas@taltech.ee",
+            "Student");
+    private static final UserSummary MARIA = new UserSummary(2, "Maria", "Õunapuu", "maroun", "maria.ounapuu@taltech.ee",
+            "Student");
+    private static final UserSummary MART = new UserSummary(3, "Mart", "Kask", null, "mart.kask@taltech.ee", "Teacher");
+    private static final UserSummary ANNA = new UserSummary(4, "Anna-Liisa", "Tamm", "antamm", "anna@taltech.ee",
+            "Student");
+
+    @BeforeEach
+    void setUp() {
+        when(appUserRepository.findAllSummaries()).thenReturn(List.of(MARI, MARIA, MART, ANNA));
+        index.rebuild();
+    }
+
+    private List<Integer> search(String query) {
+        return index.search(query, null, 10).stream().map(UserSummary::id).toList();
+    }
+
+    @Nested
+    @DisplayName("search Tests")
+    class SearchTests {
+
+        @Test
+        @DisplayName("Should find users by the start of any name, exact names first")
+        void shouldMatchPrefixes() {
+            // When & Then
+            assertThat(search("mar")).containsExactly(1, 2, 3);
+            assertThat(search("Mari")).containsExactly(1, 2);
+            assertThat(search("liisa")).containsExactly(4);
+        }
+
+        @Test
+        @DisplayName("Should find users by part of a name, university ID or email")
+        void shouldMatchInfixes() {
+            // When & Then
+            assertThat(search("sikas")).containsExactly(1);
+            assertThat(search("oun")).containsExactly(2);
+            assertThat(search("mart.k")).containsExactly(3);
+        }
+
+        @Test
+        @DisplayName("Should ignore case and accents")
+        void shouldFoldAccents() {
+            // When & Then
+            assertThat(search("OUNAPUU")).containsExactly(2);
+            assertThat(search("õun")).containsExactly(2);
+        }
+
+        @Test
+        @DisplayName("Should require every word to match")
+        void shouldMatchAllWords() {
+            // When & Then
+            assertThat(search("mar kask")).containsExactly(3);
+            assertThat(search("mari tamm")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should filter by role and honour the limit")
+        void shouldFilterAndLimit() {
+            // When & Then
+            assertThat(index.search("mar", "Student", 10)).extracting(UserSummary::id).containsExactly(1, 2);
+            assertThat(index.search("mar", null, 1)).extracting(UserSummary::id).containsExactly(1);
+            assertThat(search(" ")).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Updates")
+    class UpdateTests {
+
+        @Test
+        @DisplayName("Should replace the indexed fields of a changed user")
+        void shouldReindexChangedUser() {
+            // Given
+            long version = index.getVersion();
+
+            // When
+            index.upsert(new UserSummary(1, "Mari", "Vaarikas", "marmaa", "mari.vaarikas@taltech.ee", "Student"));
+
+            // Then
+            assertThat(search("maasikas")).isEmpty();
+            assertThat(search("vaari")).containsExactly(1);
+            assertThat(index.getVersion()).isGreaterThan(version);
+        }
+
+        @Test
+        @DisplayName("Should forget removed users")
+        void shouldRemoveUser() {
+            // When
+            index.remove(3);
+
+            // Then
+            assertThat(search("mar")).containsExactly(1, 2);
+            assertThat(search("kask")).isEmpty();
+            assertThat(index.getUserCount()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should replay changes made while a rebuild reads the table in their order")
+        void shouldReplayChangesDuringRebuild() {
+            // Given
+            when(appUserRepository.findAllSummaries()).thenAnswer(invocation -> {
+                index.remove(1);
+                index.upsert(new UserSummary(1, "Mari", "Vaarikas", "marmaa", "mari.vaarikas@taltech.ee",
+                        "Student"));
+                index.upsert(new UserSummary(5, "Kati", "Karu", "kakaru", "kati.karu@taltech.ee", "Student"));
+                index.remove(5);
+                return List.of(MARI, MARIA, MART, ANNA);
+            });
+
+            // When
+            index.rebuild();
+
+            // Then
+            assertThat(search("vaari")).containsExactly(1);
+            assertThat(search("maasikas")).isEmpty();
+            assertThat(search("kati")).isEmpty();
+            assertThat(index.getUserCount()).isEqualTo(4);
+        }
+    }
+}
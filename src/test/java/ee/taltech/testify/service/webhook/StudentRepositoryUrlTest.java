@@ -0,0 +1,52 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.webhook;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("StudentRepositoryUrl Tests")
+class StudentRepositoryUrlTest {
+    private static final String TEMPLATE = "https://gitlab.cs.ttu.ee/{uniId}/iti0102-2024.git";
+
+    @Test
+    @DisplayName("Should extract the UNI-ID ignoring case, a trailing slash and the .git suffix")
+    void shouldExtractUniId() {
+        // When & Then
+        assertThat(StudentRepositoryUrl.uniIdOf(TEMPLATE, "https://gitlab.cs.ttu.ee/mamaas/iti0102-2024"))
+                .contains("mamaas");
+        assertThat(StudentRepositoryUrl.uniIdOf(TEMPLATE, "https://GitLab.cs.ttu.ee/MaMaas/ITI0102-2024/"))
+                .contains("mamaas");
+    }
+
+    @Test
+    @DisplayName("Should not match other repositories")
+    void shouldNotMatchOtherRepositories() {
+        // When & Then
+        assertThat(StudentRepositoryUrl.uniIdOf(TEMPLATE, "https://gitlab.cs.ttu.ee/mamaas/iti0202-2024")).isEmpty();
+        assertThat(StudentRepositoryUrl.uniIdOf(TEMPLATE, "https://gitlab.cs.ttu.ee/group/mamaas/iti0102-2024"))
+                .isEmpty();
+        assertThat(StudentRepositoryUrl.uniIdOf(TEMPLATE, "https://gitlab.cs.ttu.ee//iti0102-2024")).isEmpty();
+        assertThat(StudentRepositoryUrl.uniIdOf("https://gitlab.cs.ttu.ee/iti0102-2024", "https://gitlab.cs.ttu.ee/"
+                + "iti0102-2024")).isEmpty();
+    }
+}
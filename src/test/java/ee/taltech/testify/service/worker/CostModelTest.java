@@ -0,0 +1,98 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.worker;
+
+import ee.taltech.testify.entity.AutotesterCost;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CostModelTest {
+    private static final long MEGABYTE = 1024L * 1024;
+
+    @Test
+    @DisplayName("Should predict the default cost for autotesters without measured runs")
+    void shouldPredictDefaultWithoutHistory() {
+        // When & Then
+        assertThat(CostModel.predict(null)).isEqualTo(CostModel.DEFAULT);
+    }
+
+    @Test
+    @DisplayName("Should take the first run as it is")
+    void shouldTakeFirstRun() {
+        // Given
+        AutotesterCost cost = new AutotesterCost();
+
+        // When
+        CostModel.record(cost, new ResourceUsage(4000, 2000L, 200 * MEGABYTE, 10L, 20L));
+
+        // Then
+        assertThat(cost.getRuns()).isEqualTo(1);
+        assertThat(cost.getWallMillis()).isEqualTo(4000);
+        assertThat(cost.getCpuMillicores()).isEqualTo(500);
+        assertThat(CostModel.predict(cost)).isEqualTo(new JobCost(500, 200 * MEGABYTE));
+    }
+
+    @Test
+    @DisplayName("Should follow recent runs and leave memory headroom for varying runs")
+    void shouldWeightRecentRuns() {
+        // Given
+        AutotesterCost cost = new AutotesterCost();
+        CostModel.record(cost, new ResourceUsage(1000, 1000L, 100 * MEGABYTE, null, null));
+
+        // When
+        CostModel.record(cost, new ResourceUsage(1000, 2000L, 200 * MEGABYTE, null, null));
+
+        // Then
+        assertThat(cost.getCpuMillicores()).isEqualTo(1200);
+        assertThat(cost.getMemoryBytes()).isEqualTo(120 * MEGABYTE);
+        assertThat(cost.getMemoryDeviationBytes()).isEqualTo(20 * MEGABYTE);
+        assertThat(CostModel.predict(cost)).isEqualTo(new JobCost(1200, 160 * MEGABYTE));
+        assertThat(cost.getIoBytes()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should keep predicting the default for what has not been measured")
+    void shouldKeepDefaultForUnmeasured() {
+        // Given
+        AutotesterCost cost = new AutotesterCost();
+
+        // When
+        CostModel.record(cost, new ResourceUsage(1000, null, null, null, null));
+
+        // Then
+        assertThat(cost.getRuns()).isEqualTo(1);
+        assertThat(CostModel.predict(cost)).isEqualTo(CostModel.DEFAULT);
+    }
+
+    @Test
+    @DisplayName("Should predict at least a tenth of a core")
+    void shouldPredictMinimumCpu() {
+        // Given
+        AutotesterCost cost = new AutotesterCost();
+
+        // When
+        CostModel.record(cost, new ResourceUsage(10_000, 10L, 50 * MEGABYTE, null, null));
+
+        // Then
+        assertThat(CostModel.predict(cost).millicores()).isEqualTo(100);
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.worker;
+
+import ee.taltech.testify.entity.AppUser;
+import ee.taltech.testify.entity.Assignment;
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.entity.AutotestWorker;
+import ee.taltech.testify.entity.Autotester;
+import ee.taltech.testify.entity.AutotesterCost;
+import ee.taltech.testify.entity.Course;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.entity.UserRole;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for JobLeaseService.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("JobLeaseService Integration Tests")
+class JobLeaseServiceIntegrationTest {
+    private static final Duration LEASE = Duration.ofSeconds(30);
+    private static final long MEGABYTE = 1024L * 1024;
+    private static final JobCost WORKER_RESOURCES = new JobCost(4000, 4096 * MEGABYTE);
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private StudentAssignment studentAssignment;
+    private Course course;
+
+    /**
+     * Set up a student with a submission and a registered worker before each test case.
+     */
+    @BeforeEach
+    void setUp() {
+        UserRole role = new UserRole();
+        role.setUserRoleName("Worker student");
+        entityManager.persist(role);
+
+        AppUser student = new AppUser();
+        student.setFirstName("Mari");
+        student.setLastName("Maasikas");
+        student.setEmail("mari.worker@taltech.ee");
+        student.setHashedPassword("hash");
+        student.setUserRole(role);
+        entityManager.persist(student);
+
+        course = new Course();
+        course.setCourseName("Programming");
+        entityManager.persist(course);
+
+        Assignment assignment = new Assignment();
+        assignment.setCourse(course);
+        assignment.setTitle("EX01");
+        assignment.setMaxGrade(BigDecimal.TEN);
+        entityManager.persist(assignment);
+
+        studentAssignment = new StudentAssignment();
+        studentAssignment.setStudent(student);
+        studentAssignment.setAssignment(assignment);
+        entityManager.persist(studentAssignment);
+
+        jobLeaseService.register("worker-1", "host-1", 2, WORKER_RESOURCES);
+    }
+
+    @Nested
+    @DisplayName("Claim tests")
+    class ClaimTests {
+
+        @Test
+        @DisplayName("Should lease the oldest queued jobs up to the free slots")
+        void shouldClaimOldestJobs() {
+            // Given
+            AutotestJob newest = job(AutotestJobStatus.QUEUED, 1);
+            AutotestJob oldest = job(AutotestJobStatus.QUEUED, 3);
+            AutotestJob older = job(AutotestJobStatus.QUEUED, 2);
+
+            // When
+            List<ClaimedJob> claimed = jobLeaseService.claim("worker-1", 2, WORKER_RESOURCES, true, LEASE);
+
+            // Then
+            assertThat(claimed).extracting(ClaimedJob::jobId).containsExactly(oldest.getId(), older.getId());
+            assertThat(claimed).allSatisfy(job -> {
+                assertThat(job.studentAssignmentId()).isEqualTo(studentAssignment.getId());
+                assertThat(job.attempt()).isEqualTo(1);
+            });
+            assertThat(oldest.getStatus()).isEqualTo(AutotestJobStatus.RUNNING);
+            assertThat(oldest.getWorkerId()).isEqualTo("worker-1");
+            assertThat(oldest.getLeaseExpiresAt()).isAfter(LocalDateTime.now());
+            assertThat(newest.getStatus()).isEqualTo(AutotestJobStatus.QUEUED);
+        }
+
+        @Test
+        @DisplayName("Should lease queued jobs in fair-share order before older jobs with a later pass")
+        void shouldClaimInFairShareOrder() {
+            // Given
+            AutotestJob oldest = job(AutotestJobStatus.QUEUED, 3);
+            oldest.setFairSharePass(3L);
+            AutotestJob older = job(AutotestJobStatus.QUEUED, 2);
+            older.setFairSharePass(1L);
+            AutotestJob newest = job(AutotestJobStatus.QUEUED, 1);
+            newest.setFairSharePass(2L);
+            entityManager.flush();
+
+            // When
+            List<ClaimedJob> claimed = jobLeaseService.claim("worker-1", 2, WORKER_RESOURCES, true, LEASE);
+
+            // Then
+            assertThat(claimed).extracting(ClaimedJob::jobId).containsExactly(older.getId(), newest.getId());
+            assertThat(oldest.getStatus()).isEqualTo(AutotestJobStatus.QUEUED);
+        }
+
+        @Test
+        @DisplayName("Should take over a job whose lease has run out")
+        void shouldReclaimExpiredLease() {
+            // Given
+            AutotestJob job = leased("worker-2", 1);
+
+            // When
+            List<ClaimedJob> claimed = jobLeaseService.claim("worker-1", 2, WORKER_RESOURCES, true, LEASE);
+
+            // Then
+            assertThat(claimed).extracting(ClaimedJob::jobId).containsExactly(job.getId());
+            assertThat(claimed.getFirst().attempt()).isEqualTo(2);
+            assertThat(job.getWorkerId()).isEqualTo("worker-1");
+        }
+
+        @Test
+        @DisplayName("Should fail a job whose lease ran out too many times")
+        void shouldFailAfterMaxAttempts() {
+            // Given
+            AutotestJob job = leased("worker-2", JobLeaseService.MAX_ATTEMPTS);
+
+            // When
+            List<ClaimedJob> claimed = jobLeaseService.claim("worker-1", 2, WORKER_RESOURCES, true, LEASE);
+
+            // Then
+            assertThat(claimed).isEmpty();
+            assertThat(job.getStatus()).isEqualTo(AutotestJobStatus.FAILED);
+            assertThat(job.getFinishedAt()).isNotNull();
+            assertThat(job.getWorkerId()).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Packing tests")
+    class PackingTests {
+
+        @Test
+        @DisplayName("Should pass over jobs that do not fit into the free resources")
+        void shouldSkipJobsThatDoNotFit() {
+            // Given
+            AutotestJob heavy = job(submission(autotester(3000, 3072 * MEGABYTE)), 3);
+            AutotestJob light = job(submission(autotester(500, 256 * MEGABYTE)), 2);
+
+            // When
+            List<ClaimedJob> claimed = jobLeaseService.claim("worker-1", 2, new JobCost(2000, 2048 * MEGABYTE),
+                    false, LEASE);
+
+            // Then
+            assertThat(claimed).extracting(ClaimedJob::jobId).containsExactly(light.getId());
+            assertThat(claimed.getFirst().cost()).isEqualTo(new JobCost(500, 256 * MEGABYTE));
+            assertThat(heavy.getStatus()).isEqualTo(AutotestJobStatus.QUEUED);
+        }
+
+        @Test
+        @DisplayName("Should stop packing behind a job that has waited too long")
+        void shouldNotPassOverStarvingJob() {
+            // Given
+            job(submission(autotester(3000, 3072 * MEGABYTE)), 10);
+            AutotestJob light = job(submission(autotester(500, 256 * MEGABYTE)), 2);
+
+            // When
+            List<ClaimedJob> claimed = jobLeaseService.claim("worker-1", 2, new JobCost(2000, 2048 * MEGABYTE),
+                    false, LEASE);
+
+            // Then
+            assertThat(claimed).isEmpty();
+            assertThat(light.getStatus()).isEqualTo(AutotestJobStatus.QUEUED);
+        }
+
+        @Test
+        @DisplayName("Should give an idle worker the oldest job even if it looks too big")
+        void shouldGiveIdleWorkerOversizedJob() {
+            // Given
+            AutotestJob heavy = job(submission(autotester(8000, 8192 * MEGABYTE)), 3);
+            AutotestJob light = job(submission(autotester(500, 256 * MEGABYTE)), 2);
+
+            // When
+            List<ClaimedJob> claimed = jobLeaseService.claim("worker-1", 2, WORKER_RESOURCES, true, LEASE);
+
+            // Then
+            assertThat(claimed).extracting(ClaimedJob::jobId).containsExactly(heavy.getId());
+            assertThat(light.getStatus()).isEqualTo(AutotestJobStatus.QUEUED);
+        }
+    }
+
+    @Nested
+    @DisplayName("Heartbeat tests")
+    class HeartbeatTests {
+
+        @BeforeEach
+        void setUpJobs() {
+            job(AutotestJobStatus.QUEUED, 2);
+            job(AutotestJobStatus.QUEUED, 1);
+        }
+
+        @Test
+        @DisplayName("Should extend held leases and report jobs the worker no longer holds")
+        void shouldRenewLeasesAndReportLostJobs() {
+            // Given
+            List<ClaimedJob> claimed = jobLeaseService.claim("worker-1", 2, WORKER_RESOURCES, true, LEASE);
+            AutotestJob kept = entityManager.find(AutotestJob.class, claimed.get(0).jobId());
+            AutotestJob cancelled = entityManager.find(AutotestJob.class, claimed.get(1).jobId());
+            cancelled.setStatus(AutotestJobStatus.CANCELLED);
+
+            // When
+            Set<Integer> lost = jobLeaseService.heartbeat("worker-1", Set.of(kept.getId(), cancelled.getId()),
+                    Duration.ofHours(1));
+
+            // Then
+            assertThat(lost).containsExactly(cancelled.getId());
+            entityManager.refresh(kept);
+            assertThat(kept.getLeaseExpiresAt()).isAfter(LocalDateTime.now().plusMinutes(30));
+            AutotestWorker worker = entityManager.find(AutotestWorker.class, "worker-1");
+            assertThat(worker.getRunning()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Finish and release tests")
+    class FinishAndReleaseTests {
+
+        @Test
+        @DisplayName("Should store what a run used and fold it into the cost of its autotester")
+        void shouldRecordResourceUsage() {
+            // Given
+            AutotestJob job = job(submission(autotester(null, null)), 5);
+            jobLeaseService.claim("worker-1", 1, WORKER_RESOURCES, true, LEASE);
+            ResourceUsage usage = new ResourceUsage(10_000, 15_000L, 300 * MEGABYTE, 1000L, 2000L);
+
+            // When
+            jobLeaseService.finish("worker-1", job.getId(), new RunResult(AutotestJobStatus.SUCCEEDED, null, usage));
+
+            // Then
+            assertThat(job.getWallMillis()).isEqualTo(10_000);
+            assertThat(job.getCpuMillis()).isEqualTo(15_000);
+            assertThat(job.getPeakMemoryBytes()).isEqualTo(300 * MEGABYTE);
+            AutotesterCost cost = entityManager.find(AutotesterCost.class, autotesterId(job));
+            assertThat(cost.getRuns()).isEqualTo(1);
+            assertThat(cost.getCpuMillicores()).isEqualTo(1500);
+            assertThat(cost.getMemoryBytes()).isEqualTo(300 * MEGABYTE);
+            assertThat(cost.getIoBytes()).isEqualTo(3000);
+        }
+
+        @Test
+        @DisplayName("Should record the result of a held job and how it used the dependency cache")
+        void shouldFinishHeldJob() {
+            // Given
+            AutotestJob job = leased("worker-1", 1);
+            DependencyCacheUsage cacheUsage = new DependencyCacheUsage("0123abcd", true, 150, 42_000);
+
+            // When
+            boolean finished = jobLeaseService.finish("worker-1", job.getId(),
+                    new RunResult(AutotestJobStatus.SUCCEEDED, cacheUsage, null));
+
+            // Then
+            assertThat(finished).isTrue();
+            assertThat(job.getStatus()).isEqualTo(AutotestJobStatus.SUCCEEDED);
+            assertThat(job.getFinishedAt()).isNotNull();
+            assertThat(job.getDependencyCacheHash()).isEqualTo("0123abcd");
+            assertThat(job.getDependencyCacheHit()).isTrue();
+            assertThat(job.getDependencyCacheMillis()).isEqualTo(150);
+            assertThat(job.getDependencyCacheSavedMillis()).isEqualTo(42_000);
+        }
+
+        @Test
+        @DisplayName("Should ignore the result of a job taken over by another worker")
+        void shouldIgnoreResultOfLostJob() {
+            // Given
+            AutotestJob job = leased("worker-2", 1);
+
+            // When
+            boolean finished = jobLeaseService.finish("worker-1", job.getId(),
+                    new RunResult(AutotestJobStatus.SUCCEEDED, null, null));
+
+            // Then
+            assertThat(finished).isFalse();
+            assertThat(job.getStatus()).isEqualTo(AutotestJobStatus.RUNNING);
+        }
+
+        @Test
+        @DisplayName("Should queue handed back jobs again without counting the attempt")
+        void shouldReleaseJobs() {
+            // Given
+            AutotestJob job = leased("worker-1", 1);
+
+            // When
+            int released = jobLeaseService.release("worker-1", List.of(job.getId()));
+
+            // Then
+            assertThat(released).isEqualTo(1);
+            assertThat(job.getStatus()).isEqualTo(AutotestJobStatus.QUEUED);
+            assertThat(job.getWorkerId()).isNull();
+            assertThat(job.getStartedAt()).isNull();
+            assertThat(job.getAttempts()).isZero();
+        }
+    }
+
+    private AutotestJob job(AutotestJobStatus status, int minutesAgo) {
+        return job(studentAssignment, status, minutesAgo);
+    }
+
+    private AutotestJob job(StudentAssignment submission, int minutesAgo) {
+        return job(submission, AutotestJobStatus.QUEUED, minutesAgo);
+    }
+
+    private AutotestJob job(StudentAssignment submission, AutotestJobStatus status, int minutesAgo) {
+        AutotestJob job = new AutotestJob();
+        job.setStudentAssignment(submission);
+        job.setStatus(status);
+        job.setEnqueuedAt(LocalDateTime.now().minusMinutes(minutesAgo));
+        entityManager.persist(job);
+        return job;
+    }
+
+    /**
+     * Creates an autotester whose runs have been measured to use the given resources; the autotester table has a
+     * course column the entity does not map, so it is inserted directly.
+     */
+    private Autotester autotester(Integer millicores, Long memoryBytes) {
+        entityManager.flush();
+        jdbcTemplate.update("INSERT INTO autotester (course_id, name, student_gitlab_url, tests_gitlab_url, "
+                + "student_code_path, test_code_path, docker_image_url) VALUES (?, 'Tests', 'student', 'tests', "
+                + "'EX01', 'EX01', 'image')", course.getId());
+        Integer id = jdbcTemplate.queryForObject("SELECT MAX(autotester_id) FROM autotester", Integer.class);
+        if (millicores != null) {
+            AutotesterCost cost = new AutotesterCost();
+            cost.setId(id);
+            cost.setRuns(10);
+            cost.setWallMillis(60_000L);
+            cost.setCpuMillicores(millicores);
+            cost.setMemoryBytes(memoryBytes);
+            cost.setMemoryDeviationBytes(0L);
+            cost.setUpdatedAt(LocalDateTime.now());
+            entityManager.persist(cost);
+        }
+        return entityManager.find(Autotester.class, id);
+    }
+
+    private StudentAssignment submission(Autotester autotester) {
+        Assignment assignment = new Assignment();
+        assignment.setCourse(course);
+        assignment.setTitle("EX02");
+        assignment.setMaxGrade(BigDecimal.TEN);
+        assignment.setAutotester(autotester);
+        entityManager.persist(assignment);
+
+        StudentAssignment submission = new StudentAssignment();
+        submission.setStudent(studentAssignment.getStudent());
+        submission.setAssignment(assignment);
+        entityManager.persist(submission);
+        return submission;
+    }
+
+    private static Integer autotesterId(AutotestJob job) {
+        return job.getStudentAssignment().getAssignment().getAutotester().getId();
+    }
+
+    /**
+     * @return a running job of the worker whose lease ran out a minute ago
+     */
+    private AutotestJob leased(String workerId, int attempts) {
+        AutotestJob job = job(AutotestJobStatus.RUNNING, 5);
+        job.setStartedAt(LocalDateTime.now().minusMinutes(4));
+        job.setWorkerId(workerId);
+        job.setLeaseExpiresAt(LocalDateTime.now().minusMinutes(1));
+        job.setAttempts(attempts);
+        return job;
+    }
+}
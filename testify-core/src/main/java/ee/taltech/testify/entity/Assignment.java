@@ -21,9 +21,12 @@ package ee.taltech.testify.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -44,6 +47,11 @@ public class Assignment {
     @Column(name = "assignment_id", nullable = false)
     private Integer id;
 
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "course_id", nullable = false)
+    private Course course;
+
     @Size(max = 255)
     @NotNull
     @Column(name = "title", nullable = false)
@@ -56,6 +64,10 @@ public class Assignment {
     @Column(name = "max_grade", nullable = false, precision = 5, scale = 2)
     private BigDecimal maxGrade;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "autotester_id")
+    private Autotester autotester;
+
     @Column(name = "due_date_time")
     private LocalDateTime dueDateTime;
 
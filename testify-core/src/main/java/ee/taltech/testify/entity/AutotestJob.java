@@ -0,0 +1,144 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "autotest_job", schema = "public")
+public class AutotestJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "autotest_job_id", nullable = false)
+    private Integer id;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "student_assignment_id", nullable = false)
+    private StudentAssignment studentAssignment;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private AutotestJobStatus status;
+
+    @NotNull
+    @Column(name = "enqueued_at", nullable = false)
+    private LocalDateTime enqueuedAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * The job's place in the fair-share order in which workers claim queued jobs.
+     */
+    @NotNull
+    @Column(name = "fair_share_pass", nullable = false)
+    private Long fairSharePass = 0L;
+
+    /**
+     * The commit under test, if the job was started by a push.
+     */
+    @Size(max = 64)
+    @Column(name = "commit_sha", length = 64)
+    private String commitSha;
+
+    /**
+     * The worker running the job, while it is running on one.
+     */
+    @Size(max = 64)
+    @Column(name = "worker_id", length = 64)
+    private String workerId;
+
+    /**
+     * When the worker's lease on the job runs out unless renewed by a heartbeat.
+     */
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * The number of times a worker has taken the job.
+     */
+    @NotNull
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * The hash of the test repository's build files that keyed the dependency cache the job ran with.
+     */
+    @Size(max = 64)
+    @Column(name = "dependency_cache_hash", length = 64)
+    private String dependencyCacheHash;
+
+    /**
+     * Whether the dependency cache was already warm when the job started.
+     */
+    @Column(name = "dependency_cache_hit")
+    private Boolean dependencyCacheHit;
+
+    /**
+     * The time the job spent updating the test repository and warming the dependency cache.
+     */
+    @Column(name = "dependency_cache_millis")
+    private Long dependencyCacheMillis;
+
+    /**
+     * The time the job would have spent downloading dependencies without the cache.
+     */
+    @Column(name = "dependency_cache_saved_millis")
+    private Long dependencyCacheSavedMillis;
+
+    @Column(name = "wall_millis")
+    private Long wallMillis;
+
+    @Column(name = "cpu_millis")
+    private Long cpuMillis;
+
+    @Column(name = "peak_memory_bytes")
+    private Long peakMemoryBytes;
+
+    @Column(name = "io_read_bytes")
+    private Long ioReadBytes;
+
+    @Column(name = "io_write_bytes")
+    private Long ioWriteBytes;
+
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "autotest_worker", schema = "public")
+public class AutotestWorker {
+    @Id
+    @Size(max = 64)
+    @Column(name = "worker_id", nullable = false, length = 64)
+    private String id;
+
+    @Size(max = 255)
+    @NotNull
+    @Column(name = "host_name", nullable = false)
+    private String hostName;
+
+    /**
+     * The number of jobs the worker runs at once.
+     */
+    @NotNull
+    @Column(name = "capacity", nullable = false)
+    private Integer capacity;
+
+    /**
+     * The number of jobs the worker was running at its last heartbeat.
+     */
+    @NotNull
+    @Column(name = "running", nullable = false)
+    private Integer running;
+
+    /**
+     * The CPU the worker packs jobs into, in thousandths of a core.
+     */
+    @NotNull
+    @Column(name = "cpu_millicores", nullable = false)
+    private Integer cpuMillicores = 0;
+
+    /**
+     * The memory the worker packs jobs into.
+     */
+    @NotNull
+    @Column(name = "memory_bytes", nullable = false)
+    private Long memoryBytes = 0L;
+
+    /**
+     * Whether the worker is shutting down and takes no more jobs.
+     */
+    @NotNull
+    @Column(name = "draining", nullable = false)
+    private Boolean draining = false;
+
+    @NotNull
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @NotNull
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+}
@@ -45,6 +45,10 @@ public class Autotester {
     @Column(name = "name", nullable = false)
     private String name;
 
+    /**
+     * The URL of a student's repository, with {@code {uniId}} in place of the student's UNI-ID, e.g.
+     * {@code https://gitlab.cs.ttu.ee/{uniId}/iti0102-2024}. Pushes to repositories matching it are tested.
+     */
     @NotNull
     @Column(name = "student_gitlab_url", nullable = false)
     private String studentGitlabUrl;
@@ -53,6 +57,9 @@ public class Autotester {
     @Column(name = "tests_gitlab_url", nullable = false)
     private String testsGitlabUrl;
 
+    /**
+     * The directory of the assignment within the student's repository; only pushes that change it are tested.
+     */
     @NotNull
     @Column(name = "student_code_path", nullable = false)
     private String studentCodePath;
@@ -0,0 +1,81 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Weighted averages of the resources the runs of an autotester used; the more recent a run, the more it counts.
+ * Averages the workers could not measure are null.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "autotester_cost", schema = "public")
+public class AutotesterCost {
+    @Id
+    @Column(name = "autotester_id", nullable = false)
+    private Integer id;
+
+    @NotNull
+    @Column(name = "runs", nullable = false)
+    private Integer runs;
+
+    @NotNull
+    @Column(name = "wall_millis", nullable = false)
+    private Long wallMillis;
+
+    /**
+     * The CPU time of a run divided by its wall time, in thousandths of a core.
+     */
+    @Column(name = "cpu_millicores")
+    private Integer cpuMillicores;
+
+    /**
+     * The peak memory of a run.
+     */
+    @Column(name = "memory_bytes")
+    private Long memoryBytes;
+
+    /**
+     * The mean absolute deviation of the peak memory of a run.
+     */
+    @Column(name = "memory_deviation_bytes")
+    private Long memoryDeviationBytes;
+
+    /**
+     * The bytes a run read and wrote.
+     */
+    @Column(name = "io_bytes")
+    private Long ioBytes;
+
+    @NotNull
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+}
@@ -19,11 +19,13 @@
 
 package ee.taltech.testify.entity;
 
+import ee.taltech.testify.service.partition.AcademicTerm;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -48,4 +50,18 @@ public class Course {
     @Column(name = "description")
     private String description;
 
+    /**
+     * The academic term of the course, see {@link AcademicTerm}.
+     */
+    @NotNull
+    @Column(name = "term", nullable = false)
+    private Integer term;
+
+    @PrePersist
+    void assignTerm() {
+        if (term == null) {
+            term = AcademicTerm.current().code();
+        }
+    }
+
 }
\ No newline at end of file
@@ -21,6 +21,8 @@ package ee.taltech.testify.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -68,4 +70,18 @@ public class GradingElement {
     @Column(name = "is_deduction", nullable = false)
     private Boolean isDeduction = false;
 
+    /**
+     * Regular expression selecting the autotest cases that grade this element, matched against the test class name
+     * and against {@code class#name}; {@code null} if the element is graded by hand.
+     */
+    @Size(max = 500)
+    @Column(name = "test_pattern", length = 500)
+    private String testPattern;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'PROPORTIONAL'")
+    @Column(name = "test_scoring", nullable = false, length = 20)
+    private TestScoring testScoring = TestScoring.PROPORTIONAL;
+
 }
\ No newline at end of file
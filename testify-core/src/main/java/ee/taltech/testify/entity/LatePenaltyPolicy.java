@@ -0,0 +1,92 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "late_penalty_policy", schema = "public")
+public class LatePenaltyPolicy {
+    @Id
+    @Column(name = "assignment_id", nullable = false)
+    private Integer assignmentId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "penalty_type", nullable = false, length = 20)
+    private LatePenaltyType penaltyType;
+
+    /**
+     * The percentage of the maximum grade deducted per day or step late, or for {@link LatePenaltyType#CAP} the
+     * highest grade a late submission can get.
+     */
+    @NotNull
+    @Column(name = "percent", nullable = false, precision = 5, scale = 2)
+    private BigDecimal percent;
+
+    /**
+     * The length of a step of a {@link LatePenaltyType#STEPPED} penalty.
+     */
+    @Column(name = "step_hours")
+    private Integer stepHours;
+
+    /**
+     * The most a {@link LatePenaltyType#LINEAR} or {@link LatePenaltyType#STEPPED} penalty can deduct, as a
+     * percentage of the maximum grade.
+     */
+    @Column(name = "max_percent", precision = 5, scale = 2)
+    private BigDecimal maxPercent;
+
+    /**
+     * The deduction grading element the penalties are awarded as.
+     */
+    @NotNull
+    @Column(name = "grading_element_id", nullable = false)
+    private Integer gradingElementId;
+
+    @NotNull
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * When the penalties were last applied to every submission, or null if they have not been.
+     */
+    @Column(name = "applied_at")
+    private LocalDateTime appliedAt;
+
+    /**
+     * The deadline of the assignment when the penalties were last applied to every submission.
+     */
+    @Column(name = "applied_due_date_time")
+    private LocalDateTime appliedDueDateTime;
+}
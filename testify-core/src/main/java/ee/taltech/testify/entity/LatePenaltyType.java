@@ -0,0 +1,35 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.entity;
+
+public enum LatePenaltyType {
+    /**
+     * Deducts a percentage of the maximum grade for each day late, prorated to the second.
+     */
+    LINEAR,
+    /**
+     * Deducts a percentage of the maximum grade for each started period of a number of hours late.
+     */
+    STEPPED,
+    /**
+     * Caps the grade of a late submission at a percentage of the maximum grade, however late.
+     */
+    CAP
+}
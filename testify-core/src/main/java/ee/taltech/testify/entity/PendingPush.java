@@ -0,0 +1,61 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "pending_push", schema = "public")
+public class PendingPush {
+    @Id
+    @Column(name = "student_assignment_id", nullable = false)
+    private Integer studentAssignmentId;
+
+    @Size(max = 64)
+    @NotNull
+    @Column(name = "commit_sha", nullable = false, length = 64)
+    private String commitSha;
+
+    /**
+     * The number of pushes coalesced into this one.
+     */
+    @NotNull
+    @Column(name = "pushes", nullable = false)
+    private Integer pushes;
+
+    @NotNull
+    @Column(name = "first_pushed_at", nullable = false)
+    private LocalDateTime firstPushedAt;
+
+    @NotNull
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+}
@@ -27,6 +27,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
@@ -67,4 +68,17 @@ public class StudentAssignment {
     @Column(name = "submission_date_time")
     private LocalDateTime submissionDateTime;
 
+    /**
+     * The academic term of the course, copied here as the partition key of the table.
+     */
+    @Column(name = "term", nullable = false, updatable = false)
+    private Integer term;
+
+    @PrePersist
+    void assignTerm() {
+        if (term == null) {
+            term = assignment.getCourse().getTerm();
+        }
+    }
+
 }
\ No newline at end of file
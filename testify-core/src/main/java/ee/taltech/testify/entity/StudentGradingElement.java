@@ -27,6 +27,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
@@ -61,4 +62,17 @@ public class StudentGradingElement {
     @Column(name = "feedback")
     private String feedback;
 
+    /**
+     * The academic term of the course, copied here as the partition key of the table.
+     */
+    @Column(name = "term", nullable = false, updatable = false)
+    private Integer term;
+
+    @PrePersist
+    void assignTerm() {
+        if (term == null) {
+            term = studentAssignment.getTerm();
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "term_archive", schema = "public")
+public class TermArchive {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "term_archive_id", nullable = false)
+    private Integer id;
+
+    @NotNull
+    @Column(name = "term", nullable = false)
+    private Integer term;
+
+    @Size(max = 63)
+    @NotNull
+    @Column(name = "table_name", nullable = false, length = 63)
+    private String tableName;
+
+    @Size(max = 255)
+    @NotNull
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @NotNull
+    @Column(name = "row_count", nullable = false)
+    private Long rowCount;
+
+    @Size(max = 64)
+    @NotNull
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @NotNull
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(name = "restored_at")
+    private LocalDateTime restoredAt;
+
+}
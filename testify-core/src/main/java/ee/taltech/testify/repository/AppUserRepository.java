@@ -0,0 +1,42 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.AppUser;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AppUserRepository extends JpaRepository<AppUser, Integer> {
+    @EntityGraph(attributePaths = "userRole")
+    Optional<AppUser> findWithUserRoleByEmail(String email);
+
+    Optional<AppUser> findByUniId(String uniId);
+
+    @Query("SELECT new ee.taltech.testify.repository.UserSummary(u.id, u.firstName, u.lastName, u.uniId, u.email, "
+            + "r.userRoleName) FROM AppUser u JOIN u.userRole r")
+    List<UserSummary> findAllSummaries();
+
+    @Query("SELECT u.id FROM AppUser u WHERE u.userRole.id = :userRoleId")
+    List<Integer> findIdsByUserRoleId(Integer userRoleId);
+}
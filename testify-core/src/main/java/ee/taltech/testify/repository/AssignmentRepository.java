@@ -0,0 +1,78 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.Assignment;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AssignmentRepository extends JpaRepository<Assignment, Integer> {
+    @Query("SELECT new ee.taltech.testify.repository.CourseTerm(c.id, c.term) FROM Assignment a JOIN a.course c "
+            + "WHERE a.id = :id")
+    Optional<CourseTerm> findCourseTermById(Integer id);
+
+    /**
+     * Locks the assignment, serializing the teachers that publish its rubric at the same time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Assignment a WHERE a.id = :id")
+    Optional<Assignment> findForUpdateById(Integer id);
+
+    /**
+     * Moves the assignment's fair-share pass to the virtual time, if it is behind it, and advances it by the stride.
+     * The row stays locked until the transaction ends, serializing the jobs queued for the assignment.
+     *
+     * @return the number of assignments updated
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE assignment SET autotest_pass = GREATEST(autotest_pass, :virtualTime) + :stride
+            WHERE assignment_id = :id
+            """, nativeQuery = true)
+    int advanceAutotestPass(Integer id, long virtualTime, long stride);
+
+    @Query(value = "SELECT autotest_pass FROM assignment WHERE assignment_id = :id", nativeQuery = true)
+    long findAutotestPassById(Integer id);
+
+    /**
+     * Finds the autotested assignments of the term's courses whose autotester's student repository URL, a URL with
+     * {@code {uniId}} in place of the student's UNI-ID, starts like the given repository URL. The caller matches the
+     * rest of the URL.
+     *
+     * @param term the code of the academic term
+     * @param url the repository URL in lower case
+     */
+    @Query("""
+            SELECT a FROM Assignment a
+            JOIN FETCH a.autotester t
+            JOIN FETCH a.course c
+            WHERE a.isAutotested = true AND c.term = :term
+              AND LOCATE('{uniid}', LOWER(t.studentGitlabUrl)) > 0
+              AND :url LIKE CONCAT(SUBSTRING(LOWER(t.studentGitlabUrl), 1,
+                                             LOCATE('{uniid}', LOWER(t.studentGitlabUrl)) - 1), '%')
+            """)
+    List<Assignment> findAutotestedForRepository(int term, String url);
+}
@@ -0,0 +1,44 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.AutotestArtifact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface AutotestArtifactRepository extends JpaRepository<AutotestArtifact, Integer> {
+    Optional<AutotestArtifact> findByAutotestJobIdAndName(Integer autotestJobId, String name);
+
+    List<AutotestArtifact> findByAutotestJobIdOrderByName(Integer autotestJobId);
+
+    @Query("SELECT DISTINCT a.contentHash FROM AutotestArtifact a WHERE a.contentHash IN :contentHashes")
+    Set<String> findReferencedContentHashes(Collection<String> contentHashes);
+
+    @Modifying
+    @Query("DELETE FROM AutotestArtifact a WHERE a.createdAt < :createdAt")
+    int deleteCreatedBefore(LocalDateTime createdAt);
+}
@@ -0,0 +1,140 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface AutotestJobRepository extends JpaRepository<AutotestJob, Integer> {
+    List<AutotestJob> findByStudentAssignmentIdAndStatusIn(Integer studentAssignmentId,
+                                                           Collection<AutotestJobStatus> statuses);
+
+    boolean existsByStudentAssignmentIdAndCommitSha(Integer studentAssignmentId, String commitSha);
+
+    @Query("""
+            SELECT j FROM AutotestJob j
+            JOIN FETCH j.studentAssignment sa
+            JOIN FETCH sa.assignment a
+            WHERE j.status = :status
+            ORDER BY j.fairSharePass, j.enqueuedAt, j.id
+            """)
+    List<AutotestJob> findWithAssignmentByStatus(AutotestJobStatus status);
+
+    @Query("""
+            SELECT MIN(j.fairSharePass) FROM AutotestJob j
+            WHERE j.status = ee.taltech.testify.entity.AutotestJobStatus.QUEUED
+            """)
+    Optional<Long> findMinQueuedFairSharePass();
+
+    @Query("SELECT MAX(j.fairSharePass) FROM AutotestJob j")
+    Optional<Long> findMaxFairSharePass();
+
+    /**
+     * Counts the assignments of the course, other than the given one, that have queued jobs.
+     */
+    @Query("""
+            SELECT COUNT(DISTINCT a.id) FROM AutotestJob j
+            JOIN j.studentAssignment sa
+            JOIN sa.assignment a
+            WHERE j.status = ee.taltech.testify.entity.AutotestJobStatus.QUEUED
+              AND a.course.id = :courseId AND a.id <> :assignmentId
+            """)
+    long countOtherQueuedAssignments(Integer courseId, Integer assignmentId);
+
+    @Query("""
+            SELECT j FROM AutotestJob j
+            JOIN FETCH j.studentAssignment sa
+            JOIN FETCH sa.assignment a
+            WHERE j.id = :id
+            """)
+    Optional<AutotestJob> findWithAssignmentById(Integer id);
+
+    @Query("""
+            SELECT new ee.taltech.testify.repository.SubmissionOwner(sa.student.id, a.course.id) FROM AutotestJob j
+            JOIN j.studentAssignment sa
+            JOIN sa.assignment a
+            WHERE j.id = :id
+            """)
+    Optional<SubmissionOwner> findSubmissionOwnerById(Integer id);
+
+    /**
+     * Locks the job, serializing the shards of the job that report at the same time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM AutotestJob j WHERE j.id = :id")
+    Optional<AutotestJob> findForUpdateById(Integer id);
+
+    /**
+     * Locks the queued jobs in fair-share order, skipping jobs another worker is claiming.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            SELECT j FROM AutotestJob j
+            WHERE j.status = ee.taltech.testify.entity.AutotestJobStatus.QUEUED
+            ORDER BY j.fairSharePass, j.enqueuedAt, j.id
+            """)
+    List<AutotestJob> findQueuedForUpdate(Pageable pageable);
+
+    /**
+     * Locks running jobs whose lease has run out, skipping jobs another worker is reclaiming.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            SELECT j FROM AutotestJob j
+            WHERE j.status = ee.taltech.testify.entity.AutotestJobStatus.RUNNING AND j.leaseExpiresAt < :now
+            ORDER BY j.leaseExpiresAt, j.id
+            """)
+    List<AutotestJob> findExpiredLeasesForUpdate(LocalDateTime now, Pageable pageable);
+
+    /**
+     * Extends the leases a worker still holds.
+     *
+     * @return the number of leases extended
+     */
+    @Modifying
+    @Query("""
+            UPDATE AutotestJob j SET j.leaseExpiresAt = :until
+            WHERE j.id IN :ids AND j.workerId = :workerId
+              AND j.status = ee.taltech.testify.entity.AutotestJobStatus.RUNNING
+            """)
+    int renewLeases(String workerId, Collection<Integer> ids, LocalDateTime until);
+
+    @Query("""
+            SELECT j.id FROM AutotestJob j
+            WHERE j.id IN :ids AND j.workerId = :workerId
+              AND j.status = ee.taltech.testify.entity.AutotestJobStatus.RUNNING
+            """)
+    List<Integer> findLeasedIds(String workerId, Collection<Integer> ids);
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.AutotestShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface AutotestShardRepository extends JpaRepository<AutotestShard, Integer> {
+    List<AutotestShard> findByAutotestJobIdOrderByShardIndex(Integer autotestJobId);
+
+    Optional<AutotestShard> findByAutotestJobIdAndShardIndex(Integer autotestJobId, Integer shardIndex);
+
+    long countByAutotestJobIdAndFinishedAtIsNull(Integer autotestJobId);
+
+    /**
+     * Claims an unfinished shard for a report, unless another report claimed it after the given time.
+     *
+     * @return 1 if the shard was claimed, 0 if it has finished or another report holds it
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE AutotestShard s
+            SET s.reportClaim = :claim, s.reportClaimedAt = :claimedAt
+            WHERE s.autotestJob.id = :autotestJobId AND s.shardIndex = :shardIndex AND s.finishedAt IS NULL
+                AND (s.reportClaimedAt IS NULL OR s.reportClaimedAt < :staleBefore)
+            """)
+    int claim(Integer autotestJobId, Integer shardIndex, String claim, LocalDateTime claimedAt,
+              LocalDateTime staleBefore);
+
+    /**
+     * Gives up the claim of a report that could not be stored.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE AutotestShard s
+            SET s.reportClaim = NULL, s.reportClaimedAt = NULL
+            WHERE s.autotestJob.id = :autotestJobId AND s.shardIndex = :shardIndex AND s.reportClaim = :claim
+            """)
+    int release(Integer autotestJobId, Integer shardIndex, String claim);
+
+    /**
+     * Marks a shard as finished unless it already is or the report no longer holds its claim.
+     *
+     * @return 1 if the shard was marked, 0 if it had already finished or was claimed by another report
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE AutotestShard s
+            SET s.reportedTests = :reportedTests, s.testMillis = :testMillis, s.finishedAt = :finishedAt
+            WHERE s.autotestJob.id = :autotestJobId AND s.shardIndex = :shardIndex AND s.finishedAt IS NULL
+                AND s.reportClaim = :claim
+            """)
+    int finish(Integer autotestJobId, Integer shardIndex, String claim, Integer reportedTests, Long testMillis,
+               LocalDateTime finishedAt);
+}
@@ -0,0 +1,34 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.CourseTeacher;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface CourseTeacherRepository extends JpaRepository<CourseTeacher, Integer> {
+    @Query("SELECT ct.course.id FROM CourseTeacher ct WHERE ct.teacher.id = :teacherId")
+    List<Integer> findCourseIdsByTeacherId(Integer teacherId);
+
+    @Query("SELECT new ee.taltech.testify.repository.CourseMembership(ct.course.id, ct.teacher.id) FROM CourseTeacher ct")
+    List<CourseMembership> findAllMemberships();
+}
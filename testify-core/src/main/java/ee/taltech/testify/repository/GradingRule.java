@@ -0,0 +1,37 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.TestScoring;
+
+import java.math.BigDecimal;
+
+/**
+ * How a grading element is graded from autotest results.
+ *
+ * @param id the ID of the grading element
+ * @param maxPoints the most points that can be awarded
+ * @param isDeduction whether the points are subtracted from the grade
+ * @param testPattern the regular expression selecting the test cases
+ * @param testScoring how the results of the selected test cases become points
+ */
+public record GradingRule(Integer id, BigDecimal maxPoints, Boolean isDeduction, String testPattern,
+                          TestScoring testScoring) {
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.LatePenaltyPolicy;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface LatePenaltyPolicyRepository extends JpaRepository<LatePenaltyPolicy, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM LatePenaltyPolicy p WHERE p.assignmentId = :assignmentId")
+    Optional<LatePenaltyPolicy> findForUpdateByAssignmentId(Integer assignmentId);
+
+    @Query("SELECT p.gradingElementId FROM LatePenaltyPolicy p WHERE p.assignmentId = :assignmentId")
+    Optional<Integer> findGradingElementIdByAssignmentId(Integer assignmentId);
+
+    /**
+     * Finds the assignments whose deadline has passed since their penalties were last applied, or has moved.
+     *
+     * @return the assignment IDs
+     */
+    @Query("""
+            SELECT p.assignmentId FROM LatePenaltyPolicy p JOIN Assignment a ON a.id = p.assignmentId
+            WHERE (a.dueDateTime <= :now AND (p.appliedAt IS NULL OR p.appliedAt < a.dueDateTime))
+               OR (p.appliedDueDateTime IS NOT NULL AND a.dueDateTime IS NULL)
+               OR (p.appliedDueDateTime IS NOT NULL AND a.dueDateTime <> p.appliedDueDateTime)
+            ORDER BY p.assignmentId
+            """)
+    List<Integer> findDue(LocalDateTime now);
+}
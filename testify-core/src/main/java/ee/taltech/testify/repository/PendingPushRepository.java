@@ -0,0 +1,55 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.PendingPush;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PendingPushRepository extends JpaRepository<PendingPush, Integer> {
+
+    /**
+     * Locks due pushes, skipping rows already locked by another dispatcher.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT p FROM PendingPush p WHERE p.dueAt <= :now ORDER BY p.dueAt, p.studentAssignmentId")
+    List<PendingPush> findDueForUpdate(LocalDateTime now, Pageable pageable);
+
+    /**
+     * Deletes a pending push unless a newer commit has been pushed in the meantime.
+     */
+    @Modifying
+    @Query("DELETE FROM PendingPush p WHERE p.studentAssignmentId = :studentAssignmentId AND p.commitSha = :commitSha")
+    int deleteByStudentAssignmentIdAndCommitSha(Integer studentAssignmentId, String commitSha);
+
+    @Modifying
+    @Query("UPDATE PendingPush p SET p.dueAt = :dueAt WHERE p.studentAssignmentId = :studentAssignmentId")
+    int postpone(Integer studentAssignmentId, LocalDateTime dueAt);
+}
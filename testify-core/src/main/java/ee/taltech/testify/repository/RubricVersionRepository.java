@@ -0,0 +1,38 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.RubricVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface RubricVersionRepository extends JpaRepository<RubricVersion, Integer> {
+    Optional<RubricVersion> findFirstByAssignmentIdOrderByVersionDesc(Integer assignmentId);
+
+    @Query("""
+            SELECT new ee.taltech.testify.repository.RubricVersionNumber(rv.assignment.id, MAX(rv.version))
+            FROM RubricVersion rv
+            GROUP BY rv.assignment.id
+            """)
+    List<RubricVersionNumber> findLatestVersions();
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.lang.reflect.RecordComponent;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads entities as record projections holding only the requested columns.
+ * <p>
+ * Every component of the record is read from the entity attribute of the same name, or from the path given by
+ * {@link ProjectedPath}. Components that are not requested are selected as {@code NULL}, so large columns such as
+ * descriptions and feedback are neither read nor sent over the wire unless asked for. Foreign keys are read from the
+ * owning table without joining the associated entity.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SparseProjectionRepository {
+    private final EntityManager entityManager;
+
+    /**
+     * @param entityClass the entity to query
+     * @param projection the record to construct for each row
+     * @param fields the names of the components to load
+     * @param specification the rows to load, or {@code null} for all
+     * @param sort the order of the rows
+     * @return the projections, with {@code null} in every component not listed in {@code fields}
+     */
+    public <E, R extends Record> List<R> findAll(Class<E> entityClass, Class<R> projection, Set<String> fields,
+                                                 Specification<E> specification, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = cb.createQuery(projection);
+        Root<E> root = query.from(entityClass);
+
+        RecordComponent[] components = projection.getRecordComponents();
+        Selection<?>[] selections = new Selection<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            RecordComponent component = components[i];
+            selections[i] = fields.contains(component.getName())
+                    ? path(root, component)
+                    : cb.nullLiteral(component.getType());
+        }
+        query.select(cb.construct(projection, selections));
+        if (specification != null) {
+            query.where(specification.toPredicate(root, query, cb));
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private static Path<?> path(Root<?> root, RecordComponent component) {
+        ProjectedPath projectedPath = component.getAnnotation(ProjectedPath.class);
+        Path<?> path = root;
+        for (String attribute : (projectedPath != null ? projectedPath.value() : component.getName()).split("\\.")) {
+            path = path.get(attribute);
+        }
+        return path;
+    }
+}
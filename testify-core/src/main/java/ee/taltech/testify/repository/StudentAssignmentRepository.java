@@ -0,0 +1,56 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+import ee.taltech.testify.entity.StudentAssignment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StudentAssignmentRepository extends JpaRepository<StudentAssignment, Integer> {
+    Optional<StudentAssignment> findByStudentIdAndAssignmentIdAndTerm(Integer studentId, Integer assignmentId,
+                                                                       Integer term);
+
+    @Query("""
+            SELECT sa.student.id FROM StudentAssignment sa
+            WHERE sa.assignment.id = :assignmentId AND sa.term = :term AND sa.submissionDateTime IS NOT NULL
+            """)
+    List<Integer> findSubmittedStudentIdsByAssignmentId(Integer assignmentId, Integer term);
+
+    @Query("""
+            SELECT sa.id FROM StudentAssignment sa
+            WHERE sa.assignment.id = :assignmentId AND sa.term = :term AND sa.id IN :ids
+            """)
+    List<Integer> findIdsByAssignmentId(Integer assignmentId, Integer term, Collection<Integer> ids);
+
+    boolean existsByAssignmentCourseIdAndTermNot(Integer courseId, Integer term);
+
+    @Query("""
+            SELECT sa FROM StudentAssignment sa
+            JOIN FETCH sa.student
+            JOIN FETCH sa.assignment a
+            JOIN FETCH a.course
+            WHERE sa.term = :term AND sa.id IN :ids
+            """)
+    List<StudentAssignment> findWithStudentAndCourseByIds(Integer term, Collection<Integer> ids);
+}
@@ -0,0 +1,33 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.repository;
+
+/**
+ * The fields of a user shown and searched in autocomplete.
+ *
+ * @param id the ID of the user
+ * @param firstName the user's first name
+ * @param lastName the user's last name
+ * @param uniId the user's university ID, may be {@code null}
+ * @param email the user's email address
+ * @param role the name of the user's role
+ */
+public record UserSummary(Integer id, String firstName, String lastName, String uniId, String email, String role) {
+}
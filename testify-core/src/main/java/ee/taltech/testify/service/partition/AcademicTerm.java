@@ -0,0 +1,94 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.partition;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+/**
+ * A semester, stored as the integer {@code year * 10 + half} where half is 1 for spring and 2 for autumn, e.g.
+ * {@code 20242} for the autumn semester of 2024. Codes sort in chronological order, which makes them usable as a
+ * range partition key.
+ * <p>
+ * The spring semester runs from February to July and the autumn semester from August to January, so that the
+ * January exam session belongs to the autumn semester before it.
+ *
+ * @param code the term code
+ */
+public record AcademicTerm(int code) implements Comparable<AcademicTerm> {
+    private static final int SPRING = 1;
+    private static final int AUTUMN = 2;
+
+    public AcademicTerm {
+        int half = code % 10;
+        if (code < 10_000 || half != SPRING && half != AUTUMN) {
+            throw new IllegalArgumentException("Invalid academic term: " + code);
+        }
+    }
+
+    public static AcademicTerm of(LocalDate date) {
+        Month month = date.getMonth();
+        if (month == Month.JANUARY) {
+            return new AcademicTerm((date.getYear() - 1) * 10 + AUTUMN);
+        }
+        return new AcademicTerm(date.getYear() * 10 + (month.compareTo(Month.AUGUST) >= 0 ? AUTUMN : SPRING));
+    }
+
+    public static AcademicTerm current() {
+        return of(LocalDate.now());
+    }
+
+    public int year() {
+        return code / 10;
+    }
+
+    public boolean isAutumn() {
+        return code % 10 == AUTUMN;
+    }
+
+    public AcademicTerm next() {
+        return new AcademicTerm(isAutumn() ? (year() + 1) * 10 + SPRING : code + 1);
+    }
+
+    public AcademicTerm previous() {
+        return new AcademicTerm(isAutumn() ? code - 1 : (year() - 1) * 10 + AUTUMN);
+    }
+
+    /**
+     * @return the term {@code terms} semesters before this one
+     */
+    public AcademicTerm minus(int terms) {
+        AcademicTerm term = this;
+        for (int i = 0; i < terms; i++) {
+            term = term.previous();
+        }
+        return term;
+    }
+
+    @Override
+    public int compareTo(AcademicTerm other) {
+        return Integer.compare(code, other.code);
+    }
+
+    @Override
+    public String toString() {
+        return (isAutumn() ? "autumn " : "spring ") + year();
+    }
+}
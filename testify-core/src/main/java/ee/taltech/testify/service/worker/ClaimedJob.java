@@ -0,0 +1,48 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.worker;
+
+/**
+ * What a worker needs to know to run an autotest job.
+ *
+ * @param jobId the ID of the autotest job
+ * @param studentAssignmentId the ID of the submission under test
+ * @param autotesterId the ID of the assignment's autotester, or null if it has none
+ * @param uniId the UNI-ID of the student, for the student repository URL
+ * @param commitSha the commit under test, or null for the latest commit
+ * @param dockerImageUrl the image of the autotester
+ * @param studentGitlabUrl the student repository URL template of the autotester
+ * @param testsGitlabUrl the repository of the tests
+ * @param studentCodePath the directory of the assignment in the student's repository
+ * @param testCodePath the directory of the assignment's tests
+ * @param attempt the number of times the job has been taken, this time included
+ * @param cost the CPU and memory the job is expected to need
+ */
+public record ClaimedJob(int jobId, int studentAssignmentId, Integer autotesterId, String uniId, String commitSha,
+                         String dockerImageUrl, String studentGitlabUrl, String testsGitlabUrl, String studentCodePath,
+                         String testCodePath, int attempt, JobCost cost) {
+    /**
+     * @return the student's repository, with the UNI-ID filled into the {@code {uniId}} placeholder of the
+     * autotester's URL template, or null if the assignment has no autotester
+     */
+    public String studentRepositoryUrl() {
+        return studentGitlabUrl != null && uniId != null ? studentGitlabUrl.replace("{uniId}", uniId) : null;
+    }
+}
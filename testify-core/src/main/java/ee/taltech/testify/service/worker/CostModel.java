@@ -0,0 +1,99 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.worker;
+
+import ee.taltech.testify.entity.AutotesterCost;
+
+import java.time.LocalDateTime;
+
+/**
+ * Predicts the CPU and memory of a job from the runs of its autotester before it.
+ * <p>
+ * Every run moves the averages of its autotester a fifth of the way towards what it used, so that the prediction
+ * follows changes to the tests within a few runs. Memory is predicted as the average peak plus twice its mean
+ * deviation: running out of memory kills a run while running out of CPU only slows it, so memory is where the
+ * prediction leaves headroom. Autotesters without measured runs are assumed to need {@link #DEFAULT}.
+ */
+public final class CostModel {
+    public static final JobCost DEFAULT = new JobCost(1000, 512L * 1024 * 1024);
+
+    private static final double WEIGHT = 0.2;
+    private static final int DEVIATIONS = 2;
+
+    /**
+     * A run seldom uses less than this, even if it mostly waits.
+     */
+    private static final int MIN_MILLICORES = 100;
+
+    private CostModel() {
+    }
+
+    /**
+     * @param cost the averages of the autotester, or null if none of its runs has been measured
+     * @return the expected cost of the autotester's next job
+     */
+    public static JobCost predict(AutotesterCost cost) {
+        if (cost == null) {
+            return DEFAULT;
+        }
+        int millicores = cost.getCpuMillicores() != null
+                ? Math.max(cost.getCpuMillicores(), MIN_MILLICORES) : DEFAULT.millicores();
+        long memoryBytes = cost.getMemoryBytes() != null
+                ? cost.getMemoryBytes() + DEVIATIONS * cost.getMemoryDeviationBytes() : DEFAULT.memoryBytes();
+        return new JobCost(millicores, memoryBytes);
+    }
+
+    /**
+     * Folds a measured run into the averages of its autotester.
+     *
+     * @param cost the averages to update; a new one with no runs yet for the autotester's first run
+     * @param usage what the run used
+     */
+    public static void record(AutotesterCost cost, ResourceUsage usage) {
+        boolean first = cost.getRuns() == null || cost.getRuns() == 0;
+        cost.setRuns(first ? 1 : cost.getRuns() + 1);
+        cost.setWallMillis(average(first ? null : cost.getWallMillis(), usage.wallMillis()));
+        if (usage.cpuMillis() != null && usage.wallMillis() > 0) {
+            long millicores = usage.cpuMillis() * 1000 / usage.wallMillis();
+            Long average = average(cost.getCpuMillicores() != null ? cost.getCpuMillicores().longValue() : null,
+                    millicores);
+            cost.setCpuMillicores((int) Math.min(average, Integer.MAX_VALUE));
+        }
+        if (usage.peakMemoryBytes() != null) {
+            long peak = usage.peakMemoryBytes();
+            if (cost.getMemoryBytes() == null) {
+                cost.setMemoryBytes(peak);
+                cost.setMemoryDeviationBytes(0L);
+            } else {
+                long deviation = Math.abs(peak - cost.getMemoryBytes());
+                cost.setMemoryDeviationBytes(average(cost.getMemoryDeviationBytes(), deviation));
+                cost.setMemoryBytes(average(cost.getMemoryBytes(), peak));
+            }
+        }
+        if (usage.ioReadBytes() != null && usage.ioWriteBytes() != null) {
+            cost.setIoBytes(average(cost.getIoBytes(), usage.ioReadBytes() + usage.ioWriteBytes()));
+        }
+        cost.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private static Long average(Long average, long value) {
+        return average == null ? value : Math.round(average + WEIGHT * (value - average));
+    }
+}
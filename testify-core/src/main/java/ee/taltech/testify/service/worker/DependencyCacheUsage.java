@@ -0,0 +1,31 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.worker;
+
+/**
+ * How a job used the worker's dependency cache.
+ *
+ * @param hash the hash of the test repository's build files the cache is keyed on
+ * @param hit whether the cache was already warm
+ * @param millis the time spent updating the test repository and, on a miss, warming the cache
+ * @param savedMillis on a hit, the time the cache took to warm, which the job did not have to spend; 0 on a miss
+ */
+public record DependencyCacheUsage(String hash, boolean hit, long millis, long savedMillis) {
+}
@@ -0,0 +1,45 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.worker;
+
+/**
+ * CPU and memory, either what a job is expected to need or what a worker has to give.
+ *
+ * @param millicores thousandths of a core
+ * @param memoryBytes bytes of memory
+ */
+public record JobCost(int millicores, long memoryBytes) {
+    public static final JobCost ZERO = new JobCost(0, 0);
+
+    public JobCost plus(JobCost other) {
+        return new JobCost(millicores + other.millicores, memoryBytes + other.memoryBytes);
+    }
+
+    public JobCost minus(JobCost other) {
+        return new JobCost(millicores - other.millicores, memoryBytes - other.memoryBytes);
+    }
+
+    /**
+     * @return whether this fits into what is available
+     */
+    public boolean fitsIn(JobCost available) {
+        return millicores <= available.millicores && memoryBytes <= available.memoryBytes;
+    }
+}
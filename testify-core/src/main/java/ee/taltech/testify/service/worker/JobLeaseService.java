@@ -0,0 +1,322 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.worker;
+
+import ee.taltech.testify.entity.AutotestJob;
+import ee.taltech.testify.entity.AutotestJobStatus;
+import ee.taltech.testify.entity.AutotestWorker;
+import ee.taltech.testify.entity.Autotester;
+import ee.taltech.testify.entity.AutotesterCost;
+import ee.taltech.testify.entity.StudentAssignment;
+import ee.taltech.testify.repository.AutotestJobRepository;
+import ee.taltech.testify.repository.AutotestWorkerRepository;
+import ee.taltech.testify.repository.AutotesterCostRepository;
+import ee.taltech.testify.repository.AutotesterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Hands out autotest jobs to workers under leases, with Postgres as the only coordinator.
+ * <p>
+ * A worker claims queued jobs with {@code SKIP LOCKED}, so any number of workers can poll at once without taking the
+ * same job, and a new worker needs nothing but the database to join. A claimed job is leased to the worker for a
+ * limited time, which the worker's heartbeats keep extending. If a worker dies, its leases run out and the next worker
+ * to claim queues the jobs again, failing those that have already been taken {@value #MAX_ATTEMPTS} times. A worker
+ * that shuts down hands its unfinished jobs back, which does not count as an attempt.
+ * <p>
+ * Queued jobs are claimed in the fair-share order of their {@link AutotestJob#getFairSharePass() pass}, given when
+ * the job is queued, so that courses and assignments share the workers however many jobs each of them queues.
+ * <p>
+ * Workers pack jobs by their expected CPU and memory, predicted by {@link CostModel} from the measured runs of the
+ * same autotester. A worker takes the first queued jobs that fit into what its running jobs leave free, looking a
+ * few jobs past those that do not fit; a job that has waited longer than {@link #MAX_BYPASS} is not passed over, so
+ * the worker stops claiming until it has room for it. An idle worker takes the first job even if it looks too big.
+ * <p>
+ * A job that is cancelled or finished through the API while it runs is no longer held by the worker; the worker
+ * learns of it from its next heartbeat and stops the run.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobLeaseService {
+    public static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * How long a worker may go without a heartbeat before it is forgotten.
+     */
+    private static final Duration WORKER_TIMEOUT = Duration.ofHours(1);
+
+    /**
+     * How long smaller jobs may be claimed ahead of a queued job that does not fit.
+     */
+    static final Duration MAX_BYPASS = Duration.ofMinutes(5);
+
+    /**
+     * How many queued jobs per free slot are considered for packing.
+     */
+    private static final int CANDIDATES_PER_SLOT = 4;
+
+    private final AutotestJobRepository autotestJobRepository;
+    private final AutotestWorkerRepository autotestWorkerRepository;
+    private final AutotesterRepository autotesterRepository;
+    private final AutotesterCostRepository autotesterCostRepository;
+
+    /**
+     * Registers a worker, or re-registers one that restarted under the same ID.
+     *
+     * @param workerId the ID of the worker, unique among the running workers
+     * @param hostName the host the worker runs on
+     * @param capacity the number of jobs the worker runs at once
+     * @param resources the CPU and memory the worker packs jobs into
+     */
+    @Transactional
+    public void register(String workerId, String hostName, int capacity, JobCost resources) {
+        LocalDateTime now = LocalDateTime.now();
+        AutotestWorker worker = autotestWorkerRepository.findById(workerId).orElseGet(AutotestWorker::new);
+        worker.setId(workerId);
+        worker.setHostName(hostName);
+        worker.setCapacity(capacity);
+        worker.setRunning(0);
+        worker.setCpuMillicores(resources.millicores());
+        worker.setMemoryBytes(resources.memoryBytes());
+        worker.setDraining(false);
+        worker.setStartedAt(now);
+        worker.setHeartbeatAt(now);
+        autotestWorkerRepository.save(worker);
+    }
+
+    /**
+     * Queues the jobs of dead workers again and leases the first queued jobs in fair-share order that fit to the
+     * worker.
+     *
+     * @param workerId the ID of the worker
+     * @param slots the number of jobs the worker can take
+     * @param available the CPU and memory the worker's running jobs leave free, by their predicted cost
+     * @param idle whether the worker is running nothing, in which case it takes the first job whatever its cost
+     * @param lease how long the worker holds the jobs without a heartbeat
+     * @return the jobs taken, at most {@code slots}
+     */
+    @Transactional
+    public List<ClaimedJob> claim(String workerId, int slots, JobCost available, boolean idle, Duration lease) {
+        if (slots <= 0) {
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (AutotestJob expired : autotestJobRepository.findExpiredLeasesForUpdate(now, PageRequest.of(0, slots))) {
+            log.warn("Lease of autotest job {} held by worker {} expired", expired.getId(), expired.getWorkerId());
+            if (expired.getAttempts() >= MAX_ATTEMPTS) {
+                expired.setStatus(AutotestJobStatus.FAILED);
+                expired.setFinishedAt(now);
+            } else {
+                expired.setStatus(AutotestJobStatus.QUEUED);
+                expired.setStartedAt(null);
+            }
+            expired.setWorkerId(null);
+            expired.setLeaseExpiresAt(null);
+        }
+        autotestJobRepository.flush();
+
+        List<AutotestJob> candidates = autotestJobRepository.findQueuedForUpdate(
+                PageRequest.of(0, slots * CANDIDATES_PER_SLOT));
+        Map<Integer, AutotesterCost> costs = autotesterCostRepository.findAllById(candidates.stream()
+                        .map(JobLeaseService::autotesterId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(AutotesterCost::getId, Function.identity()));
+
+        List<ClaimedJob> claimed = new ArrayList<>();
+        JobCost free = available;
+        for (AutotestJob job : candidates) {
+            if (claimed.size() == slots) {
+                break;
+            }
+            Integer autotesterId = autotesterId(job);
+            JobCost cost = CostModel.predict(autotesterId != null ? costs.get(autotesterId) : null);
+            if (cost.fitsIn(free) || (idle && claimed.isEmpty())) {
+                job.setStatus(AutotestJobStatus.RUNNING);
+                job.setStartedAt(now);
+                job.setWorkerId(workerId);
+                job.setLeaseExpiresAt(now.plus(lease));
+                job.setAttempts(job.getAttempts() + 1);
+                claimed.add(toClaimedJob(job, cost));
+                free = free.minus(cost);
+            } else if (job.getEnqueuedAt().isBefore(now.minus(MAX_BYPASS))) {
+                break;
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Records a worker's heartbeat and extends the leases it still holds.
+     *
+     * @param workerId the ID of the worker
+     * @param jobIds the jobs the worker is running
+     * @param lease how long the worker holds the jobs without another heartbeat
+     * @return the jobs the worker no longer holds, because they were cancelled, finished elsewhere or taken over
+     * after the lease ran out; the worker should stop running them
+     */
+    @Transactional
+    public Set<Integer> heartbeat(String workerId, Collection<Integer> jobIds, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        autotestWorkerRepository.findById(workerId).ifPresent(worker -> {
+            worker.setRunning(jobIds.size());
+            worker.setHeartbeatAt(now);
+        });
+        autotestWorkerRepository.deleteByHeartbeatAtBefore(now.minus(WORKER_TIMEOUT));
+        if (jobIds.isEmpty()) {
+            return Set.of();
+        }
+        autotestJobRepository.renewLeases(workerId, jobIds, now.plus(lease));
+        Set<Integer> lost = new HashSet<>(jobIds);
+        autotestJobRepository.findLeasedIds(workerId, jobIds).forEach(lost::remove);
+        return lost;
+    }
+
+    /**
+     * Records the outcome of a job the worker ran.
+     *
+     * @param workerId the ID of the worker
+     * @param jobId the ID of the autotest job
+     * @param result the final status and what the run used
+     * @return false if the worker no longer held the job, in which case nothing is changed
+     */
+    @Transactional
+    public boolean finish(String workerId, int jobId, RunResult result) {
+        return autotestJobRepository.findForUpdateById(jobId)
+                .filter(job -> isHeldBy(job, workerId))
+                .map(job -> {
+                    job.setStatus(result.status());
+                    job.setFinishedAt(LocalDateTime.now());
+                    job.setLeaseExpiresAt(null);
+                    DependencyCacheUsage cacheUsage = result.cacheUsage();
+                    if (cacheUsage != null) {
+                        job.setDependencyCacheHash(cacheUsage.hash());
+                        job.setDependencyCacheHit(cacheUsage.hit());
+                        job.setDependencyCacheMillis(cacheUsage.millis());
+                        job.setDependencyCacheSavedMillis(cacheUsage.savedMillis());
+                    }
+                    if (result.resourceUsage() != null) {
+                        recordResourceUsage(job, result.resourceUsage());
+                    }
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Stops handing out jobs to a worker that is shutting down.
+     */
+    @Transactional
+    public void drain(String workerId) {
+        autotestWorkerRepository.findById(workerId).ifPresent(worker -> worker.setDraining(true));
+    }
+
+    /**
+     * Queues jobs a worker did not get to finish again, for another worker to run from the start. Handing a job
+     * back does not count as an attempt.
+     *
+     * @param workerId the ID of the worker
+     * @param jobIds the jobs to hand back; jobs the worker no longer holds are skipped
+     * @return the number of jobs queued again
+     */
+    @Transactional
+    public int release(String workerId, Collection<Integer> jobIds) {
+        int released = 0;
+        for (Integer jobId : jobIds) {
+            AutotestJob job = autotestJobRepository.findForUpdateById(jobId).orElse(null);
+            if (job != null && isHeldBy(job, workerId)) {
+                job.setStatus(AutotestJobStatus.QUEUED);
+                job.setStartedAt(null);
+                job.setWorkerId(null);
+                job.setLeaseExpiresAt(null);
+                job.setAttempts(job.getAttempts() - 1);
+                released++;
+            }
+        }
+        return released;
+    }
+
+    @Transactional
+    public void unregister(String workerId) {
+        autotestWorkerRepository.deleteById(workerId);
+    }
+
+    /**
+     * Stores what the run used and folds it into the cost of the job's autotester.
+     */
+    private void recordResourceUsage(AutotestJob job, ResourceUsage usage) {
+        job.setWallMillis(usage.wallMillis());
+        job.setCpuMillis(usage.cpuMillis());
+        job.setPeakMemoryBytes(usage.peakMemoryBytes());
+        job.setIoReadBytes(usage.ioReadBytes());
+        job.setIoWriteBytes(usage.ioWriteBytes());
+
+        Integer autotesterId = autotesterId(job);
+        if (autotesterId == null || autotesterRepository.findForUpdateById(autotesterId).isEmpty()) {
+            return;
+        }
+        AutotesterCost cost = autotesterCostRepository.findById(autotesterId).orElseGet(() -> {
+            AutotesterCost created = new AutotesterCost();
+            created.setId(autotesterId);
+            return created;
+        });
+        CostModel.record(cost, usage);
+        autotesterCostRepository.save(cost);
+    }
+
+    private static Integer autotesterId(AutotestJob job) {
+        Autotester autotester = job.getStudentAssignment().getAssignment().getAutotester();
+        return autotester != null ? autotester.getId() : null;
+    }
+
+    private static boolean isHeldBy(AutotestJob job, String workerId) {
+        return job.getStatus() == AutotestJobStatus.RUNNING && workerId.equals(job.getWorkerId());
+    }
+
+    private static ClaimedJob toClaimedJob(AutotestJob job, JobCost cost) {
+        StudentAssignment studentAssignment = job.getStudentAssignment();
+        String uniId = studentAssignment.getStudent().getUniId();
+        Autotester autotester = studentAssignment.getAssignment().getAutotester();
+        if (autotester == null) {
+            return new ClaimedJob(job.getId(), studentAssignment.getId(), null, uniId, job.getCommitSha(), null, null,
+                    null, null, null, job.getAttempts(), cost);
+        }
+        return new ClaimedJob(job.getId(), studentAssignment.getId(), autotester.getId(), uniId, job.getCommitSha(),
+                autotester.getDockerImageUrl(), autotester.getStudentGitlabUrl(), autotester.getTestsGitlabUrl(),
+                autotester.getStudentCodePath(), autotester.getTestCodePath(), job.getAttempts(), cost);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.worker;
+
+/**
+ * The resources one run of an autotest job used. Measurements the worker could not take are null.
+ *
+ * @param wallMillis the time from the start to the end of the run
+ * @param cpuMillis the CPU time of all processes of the run
+ * @param peakMemoryBytes the most memory the run held at once
+ * @param ioReadBytes the bytes the run read from block devices
+ * @param ioWriteBytes the bytes the run wrote to block devices
+ */
+public record ResourceUsage(long wallMillis, Long cpuMillis, Long peakMemoryBytes, Long ioReadBytes,
+                            Long ioWriteBytes) {
+}
@@ -0,0 +1,32 @@
+/*
+ * This file is part of Testify.
+ *
+ * Testify is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Testify is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Testify.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2024 Deniel Konstantinov.
+ */
+
+package ee.taltech.testify.service.worker;
+
+import ee.taltech.testify.entity.AutotestJobStatus;
+
+/**
+ * The outcome of running an autotest job on a worker.
+ *
+ * @param status the final status of the job
+ * @param cacheUsage how the run used the dependency cache, or null if it ran without one
+ * @param resourceUsage the resources the run used, or null if it was not measured
+ */
+public record RunResult(AutotestJobStatus status, DependencyCacheUsage cacheUsage, ResourceUsage resourceUsage) {
+}